@@ -0,0 +1,64 @@
+package com.megaticket.common.config;
+
+import com.megaticket.common.util.VirtualThreads;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+
+/**
+ * 虚拟线程执行模式（Servlet 服务: 座位、订单、支付、用户）
+ * 开启后 Tomcat 每个请求一个虚拟线程，不再使用有上限的平台线程池；请求线程上的同步 Feign 调用、
+ * RocketMQ syncSend / 事务消息发送、JDBC 阻塞时只挂起虚拟线程，载体线程继续处理其他请求
+ * 应用任务执行器（@Async）同样改为虚拟线程
+ *
+ * 虚拟线程在 synchronized 块内阻塞会钉住载体线程，热点路径上的同步块需改为 ReentrantLock（见 IdGenerator）；
+ * 排查钉住可加启动参数 -Djdk.tracePinnedThreads=short
+ * 对比压测见 performance-test/virtual-threads
+ *
+ * 配置项:
+ *   megaticket.virtual-threads.enabled 是否开启, 默认 false, 需在 Java 21+ 上运行
+ *
+ * author Yang JunJie
+ * since 2026/1/12
+ */
+@Slf4j
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "megaticket.virtual-threads", name = "enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    public VirtualThreadConfig() {
+        // 明确开启却不支持时启动失败，避免误以为已在虚拟线程上运行
+        if (!VirtualThreads.isSupported()) {
+            throw new IllegalStateException("megaticket.virtual-threads.enabled=true 需要 Java 21+, 当前: "
+                + System.getProperty("java.version"));
+        }
+        log.info("虚拟线程执行模式已开启");
+    }
+
+    /**
+     * Tomcat 请求处理使用虚拟线程
+     * return Tomcat 协议处理器定制
+     */
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(VirtualThreads.newExecutor("tomcat-handler-"));
+    }
+
+    /**
+     * 应用任务执行器使用虚拟线程，替换默认的有界线程池
+     * return 任务执行器
+     */
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+        AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME})
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(VirtualThreads.newExecutor("task-"));
+    }
+}
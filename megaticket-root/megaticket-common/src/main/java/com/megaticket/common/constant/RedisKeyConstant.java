@@ -12,9 +12,113 @@ public class RedisKeyConstant {
      * 座位位图 Key
      * 格式: cinema:seat_map:{scheduleId}
      * 示例: cinema:seat_map:2024100101
+     * 按行分段存储时，座位图相关的各个 Key 后缀为 {bucket}:{scheduleId}:{band}，同一段的 Key 落在同一 slot
+     * 示例: cinema:seat_map:{17}:2024100101:2
      */
     public static final String SEAT_MAP_PREFIX="cinema:seat_map:";
 
+    /**
+     * 座位图元数据 Key (Hash: rows=行数, cols=列数, seats=可售座位数, rowOffset=段前行数, hallRows=影厅总行数, scheduleId=场次ID)
+     * 格式: cinema:seat_meta:{scheduleId}
+     */
+    public static final String SEAT_META_PREFIX="cinema:seat_meta:";
+
+    /**
+     * 座位锁定截止时间 Key (ZSet, member=座位下标, score=截止时间戳, 按截止时间排序的过期索引)
+     * 格式: cinema:seat_lock:{scheduleId}
+     * 示例: cinema:seat_lock:2024100101
+     */
+    public static final String SEAT_LOCK_PREFIX="cinema:seat_lock:";
+
+    /**
+     * 有未过期锁定的场次 Key (ZSet, member=scheduleId, score=该场次最早的锁定截止时间戳)
+     * 后台回收任务据此找到需要回收的场次
+     * 按行分段存储或连接 Redis 集群时按桶拆分: cinema:seat_lease_schedules:{bucket}, 分段时 member=scheduleId:band
+     */
+    public static final String SEAT_LEASE_SCHEDULES_KEY="cinema:seat_lease_schedules";
+
+    /**
+     * 座位图版本号 Key (每次座位状态变更 +1)
+     * 格式: cinema:seat_version:{scheduleId}
+     */
+    public static final String SEAT_VERSION_PREFIX="cinema:seat_version:";
+
+    /**
+     * 座位变更环 Key (List, 保存最近若干个版本变更的座位下标, 用于增量查询)
+     * 格式: cinema:seat_changes:{scheduleId}
+     */
+    public static final String SEAT_CHANGES_PREFIX="cinema:seat_changes:";
+
+    /**
+     * 座位持有人 Key (Hash, field=座位下标, value=锁定该座位的 userId)
+     * 格式: cinema:seat_holder:{scheduleId}
+     */
+    public static final String SEAT_HOLDER_PREFIX="cinema:seat_holder:";
+
+    /**
+     * 场次内各用户锁定中的座位数 Key (Hash, field=userId, value=座位数)
+     * 格式: cinema:seat_holds:{scheduleId}
+     */
+    public static final String SEAT_HOLDS_PREFIX="cinema:seat_holds:";
+
+    /**
+     * 各用户在全部场次锁定中的座位数 Key (Hash, field=userId, value=座位数)
+     * 只在座位图不分段且不是 Redis 集群时维护，否则各场次（段）的 Key 分散在不同 slot，无法与锁座原子更新
+     */
+    public static final String SEAT_USER_HOLDS_KEY="cinema:seat_user_holds";
+
+    /**
+     * 座位状态持久化同步流 Key (Stream, 每次座位状态变更一条: sid=scheduleId, v=版本, s=新状态, idx=逗号分隔的座位下标)
+     * 座位脚本在变更时原子追加，megaticket-job 按消费组读取后批量写入 PostgreSQL 并删除已落库的条目
+     * 按行分段存储或连接 Redis 集群时按桶拆分: cinema:seat_sync_stream:{bucket}
+     */
+    public static final String SEAT_SYNC_STREAM_KEY="cinema:seat_sync_stream";
+
+    /**
+     * 座位状态同步消费组
+     */
+    public static final String SEAT_SYNC_GROUP="seat-sync-group";
+
+    /**
+     * 座位变更通知频道 (Pub/Sub, 消息体为 scheduleId)
+     * 格式: cinema:seat_event:{scheduleId}
+     */
+    public static final String SEAT_EVENT_CHANNEL_PREFIX="cinema:seat_event:";
+
+    /**
+     * 售罄/已售座位通知频道 (Pub/Sub, 各座位节点据此同步本地拒绝缓存)
+     * 消息体: {scheduleId}:soldout 或 {scheduleId}:sold:{座位下标,座位下标...}
+     */
+    public static final String SEAT_REJECT_CHANNEL="cinema:seat_reject";
+
+    /**
+     * 开启虚拟排队的场次 Key (Hash, field=scheduleId, value=每秒放行人数)
+     */
+    public static final String QUEUE_ROOMS_KEY="cinema:queue_rooms";
+
+    /**
+     * 场次排队 Key 前缀，同一场次的 Key 带相同的 hash tag:
+     *   cinema:queue:{scheduleId}:seq       已发放的排队号
+     *   cinema:queue:{scheduleId}:admitted  已放行到的排队号
+     *   cinema:queue:{scheduleId}:users     (Hash, field=userId, value=排队号)
+     *   cinema:queue:{scheduleId}:tick      最近一次放行的时间片，多个网关实例同一时间片只放行一次
+     */
+    public static final String QUEUE_PREFIX="cinema:queue:";
+
+    /**
+     * 异步下单凭证 Key (Hash: userId, status, orderId, code, message)
+     * 格式: cinema:order_ticket:{ticketId}
+     * 受理时写入 PENDING，下单流程结束后写入结果，过期后自动删除
+     */
+    public static final String ORDER_TICKET_PREFIX="cinema:order_ticket:";
+
+    /**
+     * 用户订单列表首页缓存 Key (JSON)
+     * 格式: cinema:order_list:{userId}
+     * 下单、取消、支付后删除，过期后自动删除
+     */
+    public static final String ORDER_LIST_PREFIX="cinema:order_list:";
+
     /**
      * 影院排期 Key
      * 格式: cinema:schedule_detail:{scheduleId}
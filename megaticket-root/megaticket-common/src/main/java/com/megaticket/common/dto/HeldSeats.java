@@ -0,0 +1,16 @@
+package com.megaticket.common.dto;
+
+import java.util.List;
+
+/**
+ * 某个用户锁定的座位，按持有人释放座位时使用，座位服务与订单服务的 Feign 接口共用
+ * 座位服务只释放仍由 userId 锁定、且锁定截止时间不晚于 leaseDeadline 的座位:
+ * 锁定过期后已被其他用户锁定、或被同一用户重新锁定（截止时间更晚）的座位不受影响
+ *
+ * leaseDeadline 为秒级时间戳，为 null 时不校验截止时间
+ *
+ * author Yang JunJie
+ * since 2026/1/12
+ */
+public record HeldSeats(Long userId, List<SeatPosition> seats, Long leaseDeadline) {
+}
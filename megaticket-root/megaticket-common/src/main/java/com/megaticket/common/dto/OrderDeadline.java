@@ -0,0 +1,12 @@
+package com.megaticket.common.dto;
+
+/**
+ * 待支付订单的支付截止时间，订单服务与任务服务的 Feign 接口共用
+ *
+ * expireAt 为毫秒时间戳
+ *
+ * author Yang JunJie
+ * since 2026/1/12
+ */
+public record OrderDeadline(Long orderId, long expireAt) {
+}
@@ -0,0 +1,24 @@
+package com.megaticket.common.dto;
+
+/**
+ * 场次剩余座位计数，座位服务随锁定/释放/售出原子维护
+ * 列表页与订单服务据此在锁座前直接拒绝已售罄的场次
+ *
+ * available = seats - locked - sold；已过期但尚未回收的锁定在回收前仍计入 locked
+ *
+ * author Yang JunJie
+ * since 2026/1/12
+ */
+public record SeatCounters(Long scheduleId, int seats, int available, int locked, int sold) {
+
+    public static SeatCounters of(Long scheduleId, int seats, int locked, int sold) {
+        return new SeatCounters(scheduleId, seats, Math.max(0, seats - locked - sold), locked, sold);
+    }
+
+    /**
+     * 是否已无可选座位
+     */
+    public boolean soldOut() {
+        return available == 0;
+    }
+}
@@ -0,0 +1,33 @@
+package com.megaticket.common.dto;
+
+/**
+ * 座位位置（行列号从 1 开始）
+ * JSON 格式与原先的 {"row": 1, "col": 2} 一致，座位服务与订单服务的 Feign 接口共用
+ *
+ * 座位服务内部使用打包后的座位下标: index = (row - 1) * MAX_COLS + (col - 1)
+ *
+ * author Yang JunJie
+ * since 2026/1/12
+ */
+public record SeatPosition(int row, int col) {
+
+    /** 影厅最大行数 */
+    public static final int MAX_ROWS = 50;
+
+    /** 影厅最大列数，同时是座位下标的行跨度 */
+    public static final int MAX_COLS = 100;
+
+    /**
+     * 打包为座位下标
+     */
+    public int index() {
+        return (row - 1) * MAX_COLS + (col - 1);
+    }
+
+    /**
+     * 由座位下标还原
+     */
+    public static SeatPosition ofIndex(int index) {
+        return new SeatPosition(index / MAX_COLS + 1, index % MAX_COLS + 1);
+    }
+}
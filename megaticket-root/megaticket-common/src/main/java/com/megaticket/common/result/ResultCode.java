@@ -30,6 +30,7 @@ public enum ResultCode {
         2.20XX 影院错误
         3.30XX 座位错误
         4.40XX 订单类错误
+        5.50XX 排队类错误
      */
     USER_NOT_LOGIN(1001, "用户未登录"),
     // 影院相关错误 (20XX)
@@ -42,6 +43,7 @@ public enum ResultCode {
     CINEMA_HALL_ROWS_INVALID(2007, "影厅行数无效"),
     CINEMA_HALL_COLS_INVALID(2008, "影厅列数无效"),
     CINEMA_HALL_NAME_INVALID(2009, "影厅名称无效"),
+    CINEMA_HALL_LAYOUT_INVALID(2010, "影厅座位布局无效"),
     // 座位相关错误 (30XX)
     SCHEDULE_NOT_FOUND(3001, "场次不存在"),
     SEAT_NOT_FOUND(3002, "座位不存在"),
@@ -53,12 +55,22 @@ public enum ResultCode {
     SEAT_RELEASE_FAILED(3008, "释放座位失败"),
     SEAT_STATUS_QUERY_FAILED(3009, "查询座位状态失败"),
     SEAT_SOLD_FAILED(3010, "标记座位已售出失败"),
+    SEAT_NOT_ENOUGH_ADJACENT(3011, "没有足够的相邻空座"),
+    SEAT_REBUILD_RUNNING(3012, "座位图重建正在进行中"),
+    SEAT_HOLD_LIMIT_EXCEEDED(3013, "锁定的座位数已达上限，请先支付或释放已锁定的座位"),
+    SEAT_DUPLICATED(3014, "座位重复"),
     // 订单相关错误 (40XX)
     ORDER_CREATE_FAILED(4001, "创建订单失败"),
     ORDER_NOT_FOUND(4002, "订单不存在"),
     ORDER_STATUS_INVALID(4003, "订单状态无效"),
     ORDER_TIMEOUT(4004, "订单已超时"),
-    ORDER_PAID(4005, "订单已支付");
+    ORDER_PAID(4005, "订单已支付"),
+    ORDER_BUSY(4006, "下单人数过多，请稍后再试"),
+    ORDER_TICKET_NOT_FOUND(4007, "下单凭证不存在或已过期"),
+    ORDER_SHARD_MIGRATION_RUNNING(4008, "订单分表迁移正在进行中"),
+    // 排队相关错误 (50XX)
+    QUEUE_NOT_ADMITTED(5001, "排队中，请等待放行后再试"),
+    QUEUE_NOT_JOINED(5002, "尚未加入排队");
 
     private final int code;
     private final String message;
@@ -9,8 +9,12 @@ import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.locks.ReentrantLock;
+
 /**
  * 分布式ID生成器工具类
+ * 并发获取ID用 ReentrantLock 串行，不用 synchronized: 虚拟线程在 synchronized 上等待会钉住载体线程，
+ * 在 ReentrantLock 上等待只挂起虚拟线程（Snowflake 内部的同步块因此不会发生竞争）
  * author Yang JunJie
  * since 2026/1/12
  */
@@ -23,6 +27,7 @@ public class IdGenerator {
     private long datacenterId=1;
     //防止 NPE
     private Snowflake snowflake= IdUtil.getSnowflake(workerId,datacenterId);
+    private final ReentrantLock lock=new ReentrantLock();
 
     /**
      * 初始化方法，计算workerId并创建Snowflake实例
@@ -52,8 +57,13 @@ public class IdGenerator {
      * param null
      * return 下一个ID
      */
-    public synchronized long nextId(){
-        return snowflake.nextId();
+    public long nextId(){
+        lock.lock();
+        try {
+            return snowflake.nextId();
+        }finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -61,8 +71,8 @@ public class IdGenerator {
      * param null
      * return 下一个ID字符串
      */
-    public synchronized String nextIdStr(){
-        return String.valueOf(snowflake.nextId());
+    public String nextIdStr(){
+        return String.valueOf(nextId());
     }
 }
 
@@ -0,0 +1,52 @@
+package com.megaticket.common.util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 虚拟线程工具类
+ * 工程按 Java 17 编译，虚拟线程（Java 21）的 API 通过反射调用，运行在 Java 21+ 上时可用
+ * author Yang JunJie
+ * since 2026/1/12
+ */
+public final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * 当前运行时是否支持虚拟线程
+     * return 是否支持
+     */
+    public static boolean isSupported() {
+        try {
+            Thread.class.getMethod("ofVirtual");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 创建每个任务一个虚拟线程的执行器
+     * param prefix 线程名前缀，线程名为 prefix + 序号
+     * return 执行器
+     */
+    public static ExecutorService newExecutor(String prefix) {
+        try {
+            // 1.Thread.ofVirtual().name(prefix, 0).factory()
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+            ThreadFactory factory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+
+            // 2.Executors.newThreadPerTaskExecutor(factory)
+            Method perTask = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) perTask.invoke(null, factory);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("当前运行时不支持虚拟线程, 需要 Java 21+", e);
+        }
+    }
+}
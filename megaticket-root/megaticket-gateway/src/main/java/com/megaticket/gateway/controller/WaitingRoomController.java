@@ -0,0 +1,114 @@
+package com.megaticket.gateway.controller;
+
+import com.megaticket.common.result.Result;
+import com.megaticket.common.result.ResultCode;
+import com.megaticket.gateway.dto.WaitingRoomStatus;
+import com.megaticket.gateway.queue.WaitingRoomService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * 虚拟排队接口（由网关直接处理，不转发到下游服务）
+ * 用户流程: 加入排队 → 按 retryAfterSeconds 轮询状态 → 放行后携带 X-Queue-Token 锁座 / 下单
+ * 开启 / 关闭排队为运营操作，须在请求头 X-Queue-Admin-Token 中携带配置的管理口令，未配置口令时不可调用
+ *
+ * 配置项:
+ *   megaticket.queue.admin-token 管理口令, 默认为空（禁用开启 / 关闭接口）
+ *
+ * author Yang JunJie
+ * date 2026/1/12
+ */
+@RestController
+@RequestMapping("/api/v1/queue")
+public class WaitingRoomController {
+
+    public static final String ADMIN_TOKEN_HEADER = "X-Queue-Admin-Token";
+
+    private final WaitingRoomService waitingRoomService;
+    private final byte[] adminToken;
+
+    public WaitingRoomController(
+            WaitingRoomService waitingRoomService,
+            @Value("${megaticket.queue.admin-token:}") String adminToken) {
+        this.waitingRoomService = waitingRoomService;
+        this.adminToken = adminToken.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 加入场次排队
+     * @param scheduleId 场次ID
+     * @return 排队状态
+     */
+    @PostMapping("/{scheduleId}/join")
+    public Mono<Result<WaitingRoomStatus>> join(@PathVariable("scheduleId") Long scheduleId, ServerHttpRequest request) {
+        Long userId = waitingRoomService.resolveUserId(request);
+        if (userId == null) {
+            return Mono.just(Result.error(ResultCode.UNAUTHORIZED));
+        }
+        return waitingRoomService.join(scheduleId, userId).map(Result::success);
+    }
+
+    /**
+     * 查询排队状态（轮询接口，一次 Redis 调用）
+     * @param scheduleId 场次ID
+     * @return 排队状态，已放行时带放行凭证
+     */
+    @GetMapping("/{scheduleId}/status")
+    public Mono<Result<WaitingRoomStatus>> status(@PathVariable("scheduleId") Long scheduleId, ServerHttpRequest request) {
+        Long userId = waitingRoomService.resolveUserId(request);
+        if (userId == null) {
+            return Mono.just(Result.error(ResultCode.UNAUTHORIZED));
+        }
+        return waitingRoomService.status(scheduleId, userId).map(status -> status.getTicket() == 0 && !status.isAdmitted()
+            ? Result.<WaitingRoomStatus>error(ResultCode.QUEUE_NOT_JOINED)
+            : Result.success(status));
+    }
+
+    /**
+     * 开启场次排队（热门场次开售前调用）
+     * @param scheduleId 场次ID
+     * @param rate 每秒放行人数
+     */
+    @PostMapping("/{scheduleId}/open")
+    public Mono<Result<Void>> open(@PathVariable("scheduleId") Long scheduleId, @RequestParam("rate") Integer rate,
+                                   ServerHttpRequest request) {
+        if (!isAdmin(request)) {
+            return Mono.just(Result.error(ResultCode.FORBIDDEN));
+        }
+        if (scheduleId == null || scheduleId <= 0 || rate == null || rate <= 0) {
+            return Mono.just(Result.error(ResultCode.PARAM_VALID_ERROR));
+        }
+        return waitingRoomService.open(scheduleId, rate).thenReturn(Result.success());
+    }
+
+    /**
+     * 关闭场次排队
+     * @param scheduleId 场次ID
+     */
+    @PostMapping("/{scheduleId}/close")
+    public Mono<Result<Void>> close(@PathVariable("scheduleId") Long scheduleId, ServerHttpRequest request) {
+        if (!isAdmin(request)) {
+            return Mono.just(Result.error(ResultCode.FORBIDDEN));
+        }
+        return waitingRoomService.close(scheduleId).thenReturn(Result.success());
+    }
+
+    /**
+     * 校验管理口令（定长比较，不因口令前缀相同而提前返回）
+     */
+    private boolean isAdmin(ServerHttpRequest request) {
+        String token = request.getHeaders().getFirst(ADMIN_TOKEN_HEADER);
+        return adminToken.length > 0 && token != null
+            && MessageDigest.isEqual(adminToken, token.getBytes(StandardCharsets.UTF_8));
+    }
+}
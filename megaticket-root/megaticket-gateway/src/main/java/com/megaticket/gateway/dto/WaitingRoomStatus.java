@@ -0,0 +1,31 @@
+package com.megaticket.gateway.dto;
+
+import lombok.Data;
+
+/**
+ * 排队状态
+ *
+ * author Yang JunJie
+ * date 2026/1/12
+ */
+@Data
+public class WaitingRoomStatus {
+
+    /** 场次ID */
+    private Long scheduleId;
+
+    /** 排队号，未开启排队时为 0 */
+    private long ticket;
+
+    /** 前面还有多少人，已放行时为 0 */
+    private long position;
+
+    /** 是否已放行 */
+    private boolean admitted;
+
+    /** 放行凭证，已放行时返回，锁座 / 下单时放在请求头 X-Queue-Token 中 */
+    private String token;
+
+    /** 建议的下次查询间隔(秒) */
+    private int retryAfterSeconds;
+}
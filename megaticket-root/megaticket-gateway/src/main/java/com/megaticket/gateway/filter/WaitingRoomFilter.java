@@ -0,0 +1,185 @@
+package com.megaticket.gateway.filter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.megaticket.common.result.Result;
+import com.megaticket.common.result.ResultCode;
+import com.megaticket.gateway.queue.AdmissionTokens;
+import com.megaticket.gateway.queue.WaitingRoomService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * 虚拟排队过滤器
+ * 开启排队的场次，锁座 / 下单请求必须在请求头 X-Queue-Token 中携带该用户、该场次的放行凭证，
+ * 否则直接返回 429，请求不会到达座位服务与订单服务
+ * 凭证在网关本地校验；没有场次开启排队时不做任何处理
+ * 场次ID可在查询参数（锁座）或 JSON 请求体（下单）中，两处都有且不一致时直接返回 400，
+ * 避免以查询参数中未排队的场次通过校验、下游却按请求体中的场次处理
+ *
+ * 配置项:
+ *   megaticket.queue.guarded-paths 需要凭证的路径, 默认锁座与下单接口
+ *
+ * author Yang JunJie
+ * date 2026/1/12
+ */
+@Slf4j
+@Component
+public class WaitingRoomFilter implements GlobalFilter, Ordered {
+
+    public static final String TOKEN_HEADER = "X-Queue-Token";
+
+    private final WaitingRoomService waitingRoomService;
+    private final AdmissionTokens admissionTokens;
+    private final ObjectMapper objectMapper;
+    private final List<String> guardedPaths;
+    private final AntPathMatcher antPathMatcher = new AntPathMatcher();
+
+    public WaitingRoomFilter(
+            WaitingRoomService waitingRoomService,
+            AdmissionTokens admissionTokens,
+            ObjectMapper objectMapper,
+            @Value("${megaticket.queue.guarded-paths:/api/v1/seat/lock,/api/v1/seat/lock/**,/api/v1/order/create,/api/v1/order/create/**}")
+            List<String> guardedPaths) {
+        this.waitingRoomService = waitingRoomService;
+        this.admissionTokens = admissionTokens;
+        this.objectMapper = objectMapper;
+        this.guardedPaths = guardedPaths;
+    }
+
+    /**
+     * 排队过滤器
+     * @param exchange 交换对象
+     * @param chain 过滤器链
+     * @return 返回过滤结果
+     */
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        //1.没有场次开启排队，或不是锁座/下单请求，直接放行
+        ServerHttpRequest request = exchange.getRequest();
+        if (!waitingRoomService.hasOpenRooms() || !isGuarded(request.getURI().getPath())) {
+            return chain.filter(exchange);
+        }
+
+        //2.查询参数中的场次ID，重复的参数无法确定下游使用哪一个，直接拒绝
+        List<String> queryValues = request.getQueryParams().getOrDefault("scheduleId", List.of());
+        if (queryValues.size() > 1) {
+            return errorResponse(exchange, HttpStatus.BAD_REQUEST, ResultCode.PARAM_VALID_ERROR);
+        }
+        Long queryScheduleId = queryValues.isEmpty() ? null : parseLong(queryValues.get(0));
+
+        //3.请求体中也可能带场次ID，缓存请求体后读取，下游仍能读到完整请求体
+        return ServerWebExchangeUtils.cacheRequestBodyAndRequest(exchange, cachedRequest -> {
+            ServerWebExchange cachedExchange = exchange.mutate().request(cachedRequest).build();
+            DataBuffer body = cachedExchange.getAttribute(ServerWebExchangeUtils.CACHED_REQUEST_BODY_ATTR);
+            Long bodyScheduleId = scheduleIdOf(body);
+
+            //4.两处的场次ID不一致时拒绝，否则按请求体（下单）或查询参数（锁座）中的场次校验
+            if (queryScheduleId != null && bodyScheduleId != null && !queryScheduleId.equals(bodyScheduleId)) {
+                return errorResponse(cachedExchange, HttpStatus.BAD_REQUEST, ResultCode.PARAM_VALID_ERROR);
+            }
+            return check(cachedExchange, chain, bodyScheduleId != null ? bodyScheduleId : queryScheduleId);
+        });
+    }
+
+    /**
+     * 场次开启排队时校验放行凭证
+     */
+    private Mono<Void> check(ServerWebExchange exchange, GatewayFilterChain chain, Long scheduleId) {
+        if (scheduleId == null || !waitingRoomService.isOpen(scheduleId)) {
+            return chain.filter(exchange);
+        }
+        ServerHttpRequest request = exchange.getRequest();
+        Long userId = waitingRoomService.resolveUserId(request);
+        String token = request.getHeaders().getFirst(TOKEN_HEADER);
+        if (admissionTokens.verify(token, userId, scheduleId)) {
+            return chain.filter(exchange);
+        }
+        return errorResponse(exchange, HttpStatus.TOO_MANY_REQUESTS, ResultCode.QUEUE_NOT_ADMITTED);
+    }
+
+    private boolean isGuarded(String path) {
+        for (String pattern : guardedPaths) {
+            if (antPathMatcher.match(pattern.trim(), path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Long scheduleIdOf(DataBuffer body) {
+        if (body == null) {
+            return null;
+        }
+        try {
+            JsonNode node = objectMapper.readTree(body.toString(StandardCharsets.UTF_8)).get("scheduleId");
+            if (node == null) {
+                return null;
+            }
+            // 下游按 Long 绑定时也接受字符串形式的数字
+            if (node.isTextual()) {
+                return parseLong(node.asText());
+            }
+            return node.canConvertToLong() ? node.asLong() : null;
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    private static Long parseLong(String value) {
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 辅助方法：未放行（429）或场次ID不一致（400），生成Json响应
+     * @param exchange 交换对象
+     * @param status HTTP状态码
+     * @param resultCode 错误码
+     * @return 响应结果
+     */
+    private Mono<Void> errorResponse(ServerWebExchange exchange, HttpStatus status, ResultCode resultCode) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(status);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+
+        Result<Object> result = Result.error(resultCode);
+        byte[] bytes;
+        try {
+            bytes = objectMapper.writeValueAsBytes(result);
+        } catch (JsonProcessingException e) {
+            bytes = ("{\"code\":" + resultCode.getCode() + "}").getBytes();
+        }
+        DataBuffer buffer = response.bufferFactory().wrap(bytes);
+        return response.writeWith(Mono.just(buffer));
+    }
+
+    /**
+     * 在认证过滤器之后执行
+     * @return 顺序值
+     */
+    @Override
+    public int getOrder() {
+        return 0;
+    }
+}
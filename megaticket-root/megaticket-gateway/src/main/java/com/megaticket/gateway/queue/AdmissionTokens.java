@@ -0,0 +1,94 @@
+package com.megaticket.gateway.queue;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+/**
+ * 排队放行凭证
+ * 格式: userId.scheduleId.过期时间戳(秒).签名，签名为前三段的 HMAC-SHA256（Base64URL）
+ * 网关本地校验，不访问 Redis；凭证在有效期内可重复使用（锁座失败后重试）
+ *
+ * 配置项:
+ *   megaticket.queue.secret            签名密钥, 默认与 JWT 密钥相同
+ *   megaticket.queue.token-ttl-seconds 凭证有效期, 默认 600 秒
+ *
+ * author Yang JunJie
+ * date 2026/1/12
+ */
+@Component
+public class AdmissionTokens {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec key;
+    private final long ttlSeconds;
+    /** Mac 不是线程安全的，每个线程一个 */
+    private final ThreadLocal<Mac> macs;
+
+    public AdmissionTokens(
+            @Value("${megaticket.queue.secret:${megaticket.jwt.secret}}") String secret,
+            @Value("${megaticket.queue.token-ttl-seconds:600}") long ttlSeconds) {
+        this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.ttlSeconds = ttlSeconds;
+        this.macs = ThreadLocal.withInitial(this::newMac);
+    }
+
+    /**
+     * 签发放行凭证
+     */
+    public String issue(Long userId, Long scheduleId) {
+        long expiresAt = System.currentTimeMillis() / 1000 + ttlSeconds;
+        String payload = userId + "." + scheduleId + "." + expiresAt;
+        return payload + "." + sign(payload);
+    }
+
+    /**
+     * 校验凭证: 签名正确、未过期，且属于该用户与场次
+     */
+    public boolean verify(String token, Long userId, Long scheduleId) {
+        if (token == null || userId == null || scheduleId == null) {
+            return false;
+        }
+        int pos = token.lastIndexOf('.');
+        if (pos < 0) {
+            return false;
+        }
+        String payload = token.substring(0, pos);
+        String[] parts = payload.split("\\.");
+        if (parts.length != 3 || !parts[0].equals(userId.toString()) || !parts[1].equals(scheduleId.toString())) {
+            return false;
+        }
+        try {
+            if (Long.parseLong(parts[2]) < System.currentTimeMillis() / 1000) {
+                return false;
+            }
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        byte[] expected = sign(payload).getBytes(StandardCharsets.UTF_8);
+        byte[] actual = token.substring(pos + 1).getBytes(StandardCharsets.UTF_8);
+        return MessageDigest.isEqual(expected, actual);
+    }
+
+    private String sign(String payload) {
+        byte[] signature = macs.get().doFinal(payload.getBytes(StandardCharsets.UTF_8));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("初始化排队凭证签名失败", e);
+        }
+    }
+}
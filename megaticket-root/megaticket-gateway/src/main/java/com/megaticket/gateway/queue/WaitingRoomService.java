@@ -0,0 +1,234 @@
+package com.megaticket.gateway.queue;
+
+import com.megaticket.common.constant.RedisKeyConstant;
+import com.megaticket.common.util.JwtUtil;
+import com.megaticket.gateway.dto.WaitingRoomStatus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 虚拟排队 - 热门场次的入场控制
+ * 开启排队的场次，用户先加入排队领取排队号，网关按配置的速率逐步放行，
+ * 放行后签发凭证（见 {@link AdmissionTokens}），锁座 / 下单请求凭凭证通过网关，
+ * 座位服务与订单服务看到的是平稳、有上限的请求速率，而不是开售瞬间的全部请求
+ *
+ * 排队状态保存在 Redis（见 RedisKeyConstant#QUEUE_PREFIX），多个网关实例共享:
+ *   加入 / 查询各一次脚本调用，查询只读两个值，可以高频轮询
+ *   每个时间片各实例都尝试放行，脚本保证同一时间片只放行一次
+ *   开启排队的场次每个时间片从 Redis 刷新一次，过滤器只查本地
+ *
+ * 配置项:
+ *   megaticket.queue.enabled     是否开启, 默认 true
+ *   megaticket.queue.interval-ms 放行时间片, 默认 200 毫秒
+ *
+ * author Yang JunJie
+ * date 2026/1/12
+ */
+@Slf4j
+@Service
+public class WaitingRoomService {
+
+    private static final String LUA_SCRIPT_PATH = "lua/waiting_room.lua";
+    /** 建议查询间隔上限(秒) */
+    private static final int MAX_RETRY_AFTER_SECONDS = 30;
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final AdmissionTokens admissionTokens;
+    private final JwtUtil jwtUtil;
+    private final boolean enabled;
+    private final long intervalMillis;
+
+    private RedisScript<List> script;
+    private RedisScript<Long> advanceScript;
+    /** 开启排队的场次 → 每秒放行人数 */
+    private volatile Map<Long, Integer> rooms = Map.of();
+    private Disposable ticker;
+
+    public WaitingRoomService(
+            ReactiveStringRedisTemplate redisTemplate,
+            AdmissionTokens admissionTokens,
+            JwtUtil jwtUtil,
+            @Value("${megaticket.queue.enabled:true}") boolean enabled,
+            @Value("${megaticket.queue.interval-ms:200}") long intervalMillis) {
+        this.redisTemplate = redisTemplate;
+        this.admissionTokens = admissionTokens;
+        this.jwtUtil = jwtUtil;
+        this.enabled = enabled;
+        this.intervalMillis = intervalMillis;
+    }
+
+    @PostConstruct
+    public void init() {
+        ClassPathResource resource = new ClassPathResource(LUA_SCRIPT_PATH);
+        script = RedisScript.of(resource, List.class);
+        advanceScript = RedisScript.of(resource, Long.class);
+        if (!enabled) {
+            return;
+        }
+        // 每个时间片刷新开启排队的场次并放行，单次失败不影响下一时间片
+        ticker = Flux.interval(Duration.ofMillis(intervalMillis))
+            .onBackpressureDrop()
+            .concatMap(i -> tick().onErrorResume(e -> {
+                log.warn("排队放行失败: {}", e.getMessage());
+                return Mono.empty();
+            }))
+            .subscribe();
+        log.info("虚拟排队已启动, intervalMs={}", intervalMillis);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (ticker != null) {
+            ticker.dispose();
+        }
+    }
+
+    /**
+     * 场次是否开启排队（只查本地）
+     */
+    public boolean isOpen(Long scheduleId) {
+        return enabled && rooms.containsKey(scheduleId);
+    }
+
+    /**
+     * 是否有任何场次开启排队
+     */
+    public boolean hasOpenRooms() {
+        return enabled && !rooms.isEmpty();
+    }
+
+    /**
+     * 从请求头的登录 Token 中取用户ID，排队号与放行凭证都绑定该用户
+     *
+     * @return 用户ID，Token 缺失或无效时为 null
+     */
+    public Long resolveUserId(ServerHttpRequest request) {
+        String token = request.getHeaders().getFirst(JwtUtil.HEADER_STRING);
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        try {
+            return jwtUtil.getUserId(token);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * 加入排队，重复加入返回原排队号
+     */
+    public Mono<WaitingRoomStatus> join(Long scheduleId, Long userId) {
+        if (!isOpen(scheduleId)) {
+            return Mono.just(admittedWithoutQueue(scheduleId, userId));
+        }
+        return reply(redisTemplate.execute(script, keys(scheduleId), List.of(userId.toString(), "join")))
+            .map(reply -> toStatus(scheduleId, userId, reply));
+    }
+
+    /**
+     * 查询排队状态，未加入排队时 ticket 为 0
+     */
+    public Mono<WaitingRoomStatus> status(Long scheduleId, Long userId) {
+        if (!isOpen(scheduleId)) {
+            return Mono.just(admittedWithoutQueue(scheduleId, userId));
+        }
+        return reply(redisTemplate.execute(script, keys(scheduleId), List.of(userId.toString(), "status")))
+            .map(reply -> toStatus(scheduleId, userId, reply));
+    }
+
+    /**
+     * 开启场次排队，重复开启时更新放行速率
+     *
+     * @param ratePerSecond 每秒放行人数
+     */
+    public Mono<Void> open(Long scheduleId, int ratePerSecond) {
+        return redisTemplate.opsForHash()
+            .put(RedisKeyConstant.QUEUE_ROOMS_KEY, scheduleId.toString(), Integer.toString(ratePerSecond))
+            .then();
+    }
+
+    /**
+     * 关闭场次排队并删除排队数据，之后该场次的请求不再需要凭证
+     */
+    public Mono<Void> close(Long scheduleId) {
+        return redisTemplate.opsForHash().remove(RedisKeyConstant.QUEUE_ROOMS_KEY, scheduleId.toString())
+            .then(redisTemplate.delete(Flux.fromIterable(keys(scheduleId))))
+            .then();
+    }
+
+    /**
+     * 一个时间片: 刷新开启排队的场次，逐个放行
+     */
+    private Mono<Void> tick() {
+        long tick = System.currentTimeMillis() / intervalMillis;
+        return redisTemplate.<String, String>opsForHash().entries(RedisKeyConstant.QUEUE_ROOMS_KEY)
+            .collectMap(e -> Long.valueOf(e.getKey()), e -> Integer.valueOf(e.getValue()), HashMap::new)
+            .doOnNext(latest -> rooms = latest)
+            .flatMapMany(latest -> Flux.fromIterable(latest.entrySet()))
+            .flatMap(room -> redisTemplate.execute(advanceScript, keys(room.getKey()),
+                List.of(Long.toString(quota(room.getValue())), Long.toString(tick), "advance")))
+            .then();
+    }
+
+    /**
+     * 每个时间片放行人数，速率较低时至少放行 1 人
+     */
+    private long quota(int ratePerSecond) {
+        return Math.max(1, ratePerSecond * intervalMillis / 1000);
+    }
+
+    /**
+     * 数组返回值: 按驱动不同可能是一个 List 元素，也可能逐个元素发出
+     */
+    private static Mono<List<?>> reply(Flux<List> flux) {
+        return flux.collectList().map(items -> items.size() == 1 && items.get(0) instanceof List<?> list
+            ? list
+            : (List<?>) items);
+    }
+
+    private WaitingRoomStatus toStatus(Long scheduleId, Long userId, List<?> reply) {
+        long ticket = ((Number) reply.get(0)).longValue();
+        long admitted = ((Number) reply.get(1)).longValue();
+        WaitingRoomStatus status = new WaitingRoomStatus();
+        status.setScheduleId(scheduleId);
+        status.setTicket(ticket);
+        if (ticket > 0 && ticket <= admitted) {
+            status.setAdmitted(true);
+            status.setToken(admissionTokens.issue(userId, scheduleId));
+        } else if (ticket > 0) {
+            long position = ticket - admitted;
+            int rate = Math.max(1, rooms.getOrDefault(scheduleId, 1));
+            status.setPosition(position);
+            status.setRetryAfterSeconds((int) Math.min(MAX_RETRY_AFTER_SECONDS, Math.max(1, position / rate)));
+        }
+        return status;
+    }
+
+    private WaitingRoomStatus admittedWithoutQueue(Long scheduleId, Long userId) {
+        WaitingRoomStatus status = new WaitingRoomStatus();
+        status.setScheduleId(scheduleId);
+        status.setAdmitted(true);
+        status.setToken(admissionTokens.issue(userId, scheduleId));
+        return status;
+    }
+
+    private static List<String> keys(Long scheduleId) {
+        String prefix = RedisKeyConstant.QUEUE_PREFIX + "{" + scheduleId + "}:";
+        return List.of(prefix + "seq", prefix + "admitted", prefix + "users", prefix + "tick");
+    }
+}
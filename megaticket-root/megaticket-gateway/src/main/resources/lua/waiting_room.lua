@@ -0,0 +1,57 @@
+-- 虚拟排队 Lua 脚本（加入 / 查询 / 放行），在 Redis 内原子执行
+--
+-- KEYS[1]: 已发放的排队号 cinema:queue:{scheduleId}:seq
+-- KEYS[2]: 已放行到的排队号 cinema:queue:{scheduleId}:admitted  排队号 <= 该值的用户可以进入
+-- KEYS[3]: 用户排队号     cinema:queue:{scheduleId}:users     (Hash, field=userId, value=排队号)
+-- KEYS[4]: 放行时间片     cinema:queue:{scheduleId}:tick
+-- ARGV 最后一个参数为操作类型: join / status / advance
+-- 排队 Key 在场次关闭排队后由网关删除，另设过期时间兜底
+
+local TTL_SECONDS = 86400
+local op = ARGV[#ARGV]
+
+local function admitted()
+    return tonumber(redis.call('GET', KEYS[2]) or '0')
+end
+
+-- 加入排队: 同一用户重复加入返回原排队号
+-- ARGV: userId, 'join'
+-- 返回 { 排队号, 已放行到的排队号 }
+if op == 'join' then
+    local ticket = tonumber(redis.call('HGET', KEYS[3], ARGV[1]))
+    if ticket == nil then
+        ticket = redis.call('INCR', KEYS[1])
+        redis.call('HSET', KEYS[3], ARGV[1], ticket)
+        if ticket == 1 then
+            redis.call('EXPIRE', KEYS[1], TTL_SECONDS)
+            redis.call('EXPIRE', KEYS[3], TTL_SECONDS)
+        end
+    end
+    return { ticket, admitted() }
+end
+
+-- ARGV: userId, 'status'
+-- 返回 { 排队号（未加入为 0）, 已放行到的排队号 }
+if op == 'status' then
+    return { tonumber(redis.call('HGET', KEYS[3], ARGV[1]) or '0'), admitted() }
+end
+
+-- 放行一个时间片: 已放行到的排队号前进 quota，不超过已发放的排队号；同一时间片只执行一次
+-- ARGV: quota, tick, 'advance'
+-- 返回: 已放行到的排队号，本时间片已放行过返回 -1
+if op == 'advance' then
+    local tick = tonumber(ARGV[2])
+    if tonumber(redis.call('GET', KEYS[4]) or '-1') >= tick then
+        return -1
+    end
+    redis.call('SET', KEYS[4], tick, 'EX', TTL_SECONDS)
+    local issued = tonumber(redis.call('GET', KEYS[1]) or '0')
+    local current = admitted()
+    local next = math.min(issued, current + tonumber(ARGV[1]))
+    if next > current then
+        redis.call('SET', KEYS[2], next, 'EX', TTL_SECONDS)
+    end
+    return next
+end
+
+return redis.error_reply('unknown op: ' .. tostring(op))
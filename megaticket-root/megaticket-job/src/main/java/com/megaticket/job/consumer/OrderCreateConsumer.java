@@ -1,10 +1,12 @@
 package com.megaticket.job.consumer;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.megaticket.job.expiry.OrderExpiryScheduler;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.rocketmq.spring.annotation.RocketMQMessageListener;
 import org.apache.rocketmq.spring.core.RocketMQListener;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Component;
 
 import java.util.Map;
@@ -25,6 +27,8 @@ import java.util.Map;
 public class OrderCreateConsumer implements RocketMQListener<String> {
     
     private final ObjectMapper objectMapper;
+    /** 开启 megaticket.job.order-expiry.enabled 时存在 */
+    private final ObjectProvider<OrderExpiryScheduler> orderExpiryScheduler;
     
     @Override
     public void onMessage(String message) {
@@ -34,6 +38,12 @@ public class OrderCreateConsumer implements RocketMQListener<String> {
             Map<String, Object> msgBody = objectMapper.readValue(message, Map.class);
             Long orderId = Long.parseLong(msgBody.get("orderId").toString());
             
+            // 开启时间轮关单时登记支付截止时间
+            OrderExpiryScheduler scheduler = orderExpiryScheduler.getIfAvailable();
+            if (scheduler != null && msgBody.get("expireTime") != null) {
+                scheduler.schedule(orderId, Long.parseLong(msgBody.get("expireTime").toString()));
+            }
+            
             log.info("订单创建成功, 进行后续处理, orderId={}", orderId);
             
         } catch (Exception e) {
@@ -1,46 +1,107 @@
 package com.megaticket.job.consumer;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.RequiredArgsConstructor;
+import com.megaticket.common.result.Result;
+import com.megaticket.job.feign.OrderServiceClient;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.client.consumer.DefaultMQPushConsumer;
+import org.apache.rocketmq.client.consumer.listener.ConsumeConcurrentlyStatus;
+import org.apache.rocketmq.client.consumer.listener.MessageListenerConcurrently;
+import org.apache.rocketmq.common.message.MessageExt;
 import org.apache.rocketmq.spring.annotation.RocketMQMessageListener;
 import org.apache.rocketmq.spring.core.RocketMQListener;
+import org.apache.rocketmq.spring.core.RocketMQPushConsumerLifecycleListener;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
 /**
  * 订单超时消息消费者
  * 处理15分钟未支付的订单自动关单
+ * 消息按批消费: 一批最多 batch-size 条，订单ID合并为一次关单请求，由订单服务以条件更新批量关闭仍未支付的订单，
+ * 并按场次合并座位，每个场次释放一次（见订单服务 OrderService#expireOrders）；
+ * 同一场次的锁定集中到期时，只需几条 SQL 和几次座位服务调用
+ * 关单请求失败时整批稍后重新投递，已关闭的订单不会被重复关闭
+ *
+ * 配置项:
+ *   megaticket.job.order-timeout.batch-size 每批最多消息数, 默认 100（不超过订单服务单次关单上限 1000）
+ *
  * @author Yang JunJie
  * @since 2026/1/19
  */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 @RocketMQMessageListener(
     topic = "order-timeout-topic",
     consumerGroup = "order-timeout-consumer-group"
 )
-public class OrderTimeoutConsumer implements RocketMQListener<String> {
-    
+public class OrderTimeoutConsumer implements RocketMQListener<String>, RocketMQPushConsumerLifecycleListener {
+
     private final ObjectMapper objectMapper;
-    
+    private final OrderServiceClient orderServiceClient;
+    private final int batchSize;
+
+    public OrderTimeoutConsumer(
+            ObjectMapper objectMapper,
+            OrderServiceClient orderServiceClient,
+            @Value("${megaticket.job.order-timeout.batch-size:100}") int batchSize) {
+        this.objectMapper = objectMapper;
+        this.orderServiceClient = orderServiceClient;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * 替换逐条消费的监听器为按批消费
+     */
+    @Override
+    public void prepareStart(DefaultMQPushConsumer consumer) {
+        consumer.setConsumeMessageBatchMaxSize(batchSize);
+        consumer.setPullBatchSize(Math.max(batchSize, consumer.getPullBatchSize()));
+        consumer.registerMessageListener((MessageListenerConcurrently) (msgs, context) -> {
+            try {
+                List<String> messages = new ArrayList<>(msgs.size());
+                for (MessageExt msg : msgs) {
+                    messages.add(new String(msg.getBody(), StandardCharsets.UTF_8));
+                }
+                expire(messages);
+                return ConsumeConcurrentlyStatus.CONSUME_SUCCESS;
+            } catch (Exception e) {
+                log.error("批量处理订单超时消息失败，稍后重试, messages={}", msgs.size(), e);
+                return ConsumeConcurrentlyStatus.RECONSUME_LATER;
+            }
+        });
+    }
+
     @Override
     public void onMessage(String message) {
-        try {
-            log.info("收到订单超时消息: {}", message);
-            
-            Map<String, Object> msgBody = objectMapper.readValue(message, Map.class);
-            Long orderId = Long.parseLong(msgBody.get("orderId").toString());
-            Long scheduleId = Long.parseLong(msgBody.get("scheduleId").toString());
-            List<Map<String, Integer>> seats = (List<Map<String, Integer>>) msgBody.get("seats");
-            
-            log.info("处理订单超时, orderId={}, scheduleId={}", orderId, scheduleId);
-            
-        } catch (Exception e) {
-            log.error("处理订单超时消息失败", e);
+        expire(List.of(message));
+    }
+
+    private void expire(List<String> messages) {
+        // 1. 解析订单ID，格式错误的消息无法重试成功，跳过
+        List<Long> orderIds = new ArrayList<>(messages.size());
+        for (String message : messages) {
+            try {
+                Map<String, Object> msgBody = objectMapper.readValue(message, Map.class);
+                orderIds.add(Long.parseLong(msgBody.get("orderId").toString()));
+            } catch (Exception e) {
+                log.warn("跳过无法解析的订单超时消息: {}", message, e);
+            }
+        }
+        if (orderIds.isEmpty()) {
+            return;
         }
+
+        // 2. 一次请求关闭整批订单
+        Result<Integer> result = orderServiceClient.expireOrders(orderIds);
+        if (result.getCode() != 200) {
+            throw new IllegalStateException("超时关单失败: " + result.getMessage());
+        }
+
+        log.info("处理订单超时, orders={}, closed={}", orderIds.size(), result.getData());
     }
 }
@@ -0,0 +1,282 @@
+package com.megaticket.job.consumer;
+
+import com.megaticket.common.constant.RedisKeyConstant;
+import com.megaticket.common.dto.SeatPosition;
+import com.megaticket.job.entity.SeatState;
+import com.megaticket.job.mapper.SeatStateMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 座位状态同步消费者
+ * 从座位脚本写入的同步流（见 RedisKeyConstant#SEAT_SYNC_STREAM_KEY）按消费组批量读取座位状态变更，
+ * 合并后以多行 upsert 写入 PostgreSQL 的 seat_state 表，落库成功后再 ACK 并删除条目
+ *
+ * 检查点: 消费组的 ACK 即检查点，未 ACK 的条目重启后从本消费者的待处理列表重新读取；
+ *        按版本覆盖，重复写入是幂等的
+ * 背压:   每轮最多读取 batch-size 条，落库完成后才读取下一轮，数据库变慢时条目留在流中而不是堆积在内存
+ * 延迟:   有积压时连续处理直到读空，否则每 interval-ms 轮询一次；积压超过 lag-warn 条时告警
+ *        座位脚本不裁剪同步流（裁剪会删除未落库的条目），消费端停止时流持续增长，须关注该告警
+ *
+ * 配置项:
+ *   megaticket.job.seat-sync.enabled     是否开启, 默认 true
+ *   megaticket.job.seat-sync.consumer    消费者名称, 默认主机名（需在重启后保持不变才能接管待处理条目）
+ *   megaticket.job.seat-sync.batch-size  每轮最多读取的条目数, 默认 1000
+ *   megaticket.job.seat-sync.interval-ms 空闲时的轮询间隔, 默认 200 毫秒
+ *   megaticket.job.seat-sync.lag-warn    积压告警阈值（条）, 默认 100000
+ *   megaticket.seat.redis.band-rows / slot-buckets  与座位服务一致，决定同步流是否按桶拆分
+ *   spring.data.redis.cluster.nodes                 连接 Redis 集群时同步流总是按桶拆分（与座位服务一致）
+ *
+ * @author Yang JunJie
+ * @since 2026/1/19
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "megaticket.job.seat-sync", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class SeatStateSyncConsumer {
+
+    /** 单条 upsert 语句的最大行数（PostgreSQL 单条语句最多 65535 个参数，每行 7 个） */
+    private static final int UPSERT_CHUNK = 2000;
+    /** 积压检查间隔 */
+    private static final long LAG_CHECK_MILLIS = 10_000;
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final SeatStateMapper seatStateMapper;
+    private final List<String> streamKeys;
+    private final Consumer consumer;
+    private final int batchSize;
+    private final long intervalMillis;
+    private final long lagWarn;
+    private final ScheduledExecutorService scheduler =
+        Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "seat-state-sync"));
+
+    /** 已读完本消费者待处理条目的流，之后只读取新条目 */
+    private final Set<String> recovered = new HashSet<>();
+    /** 下一轮从哪个流开始读取，轮转以免靠后的桶在高负载时读不到 */
+    private int cursor;
+    private long lastLagCheck;
+
+    public SeatStateSyncConsumer(
+            StringRedisTemplate stringRedisTemplate,
+            SeatStateMapper seatStateMapper,
+            @Value("${megaticket.job.seat-sync.consumer:}") String consumerName,
+            @Value("${megaticket.job.seat-sync.batch-size:1000}") int batchSize,
+            @Value("${megaticket.job.seat-sync.interval-ms:200}") long intervalMillis,
+            @Value("${megaticket.job.seat-sync.lag-warn:100000}") long lagWarn,
+            @Value("${megaticket.seat.redis.band-rows:0}") int bandRows,
+            @Value("${megaticket.seat.redis.slot-buckets:256}") int slotBuckets,
+            @Value("${spring.data.redis.cluster.nodes:}") String clusterNodes) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.seatStateMapper = seatStateMapper;
+        this.streamKeys = streamKeys(bandRows, slotBuckets, !clusterNodes.isBlank());
+        this.consumer = Consumer.from(RedisKeyConstant.SEAT_SYNC_GROUP,
+            consumerName.isEmpty() ? hostName() : consumerName);
+        this.batchSize = batchSize;
+        this.intervalMillis = intervalMillis;
+        this.lagWarn = lagWarn;
+    }
+
+    @PostConstruct
+    public void init() {
+        for (String key : streamKeys) {
+            createGroup(key);
+        }
+        scheduler.scheduleWithFixedDelay(this::drain, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        log.info("座位状态同步已启动, consumer={}, streams={}", consumer.getName(), streamKeys.size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private void drain() {
+        try {
+            // 读满一批说明还有积压，继续处理直到读空
+            while (syncOnce() >= batchSize) {
+                checkLag();
+            }
+            checkLag();
+        } catch (Exception e) {
+            // 未 ACK 的条目仍在本消费者的待处理列表中，下一轮先重新读取
+            recovered.clear();
+            log.error("同步座位状态失败", e);
+        }
+    }
+
+    /**
+     * 读取一批变更并落库
+     *
+     * @return 本轮读取的条目数
+     */
+    private int syncOnce() {
+        // 1. 从各流轮转读取，合计最多 batchSize 条
+        Map<String, List<RecordId>> readIds = new LinkedHashMap<>();
+        Map<SeatKey, SeatState> latest = new LinkedHashMap<>();
+        int total = 0;
+        int start = cursor;
+        cursor = (cursor + 1) % streamKeys.size();
+        for (int i = 0; i < streamKeys.size() && total < batchSize; i++) {
+            String key = streamKeys.get((start + i) % streamKeys.size());
+            List<MapRecord<String, Object, Object>> records = read(key, batchSize - total);
+            if (records.isEmpty()) {
+                continue;
+            }
+            List<RecordId> ids = new ArrayList<>(records.size());
+            for (MapRecord<String, Object, Object> record : records) {
+                ids.add(record.getId());
+                merge(record, latest);
+            }
+            readIds.put(key, ids);
+            total += records.size();
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        // 2. 同一座位只保留最新版本，分块 upsert
+        List<SeatState> states = new ArrayList<>(latest.values());
+        for (int from = 0; from < states.size(); from += UPSERT_CHUNK) {
+            seatStateMapper.upsertBatch(states.subList(from, Math.min(from + UPSERT_CHUNK, states.size())));
+        }
+
+        // 3. 落库成功后 ACK 并删除，流中只留下未落库的条目
+        for (Map.Entry<String, List<RecordId>> entry : readIds.entrySet()) {
+            RecordId[] ids = entry.getValue().toArray(new RecordId[0]);
+            stringRedisTemplate.opsForStream().acknowledge(entry.getKey(), RedisKeyConstant.SEAT_SYNC_GROUP, ids);
+            stringRedisTemplate.opsForStream().delete(entry.getKey(), ids);
+        }
+        log.debug("同步座位状态, entries={}, seats={}", total, states.size());
+        return total;
+    }
+
+    /**
+     * 先读本消费者未 ACK 的条目（上次落库失败或进程退出前未完成的），读完后只读新条目
+     */
+    private List<MapRecord<String, Object, Object>> read(String key, int count) {
+        boolean pending = !recovered.contains(key);
+        ReadOffset offset = pending ? ReadOffset.from("0") : ReadOffset.lastConsumed();
+        List<MapRecord<String, Object, Object>> records = stringRedisTemplate.opsForStream()
+            .read(consumer, StreamReadOptions.empty().count(count), StreamOffset.create(key, offset));
+        if (records == null) {
+            return List.of();
+        }
+        if (pending && records.isEmpty()) {
+            recovered.add(key);
+            return read(key, count);
+        }
+        return records;
+    }
+
+    /**
+     * 解析一条变更，合并到同一座位的最新状态
+     */
+    private void merge(MapRecord<String, Object, Object> record, Map<SeatKey, SeatState> latest) {
+        Map<Object, Object> value = record.getValue();
+        try {
+            Long scheduleId = Long.valueOf(value.get("sid").toString());
+            long version = Long.parseLong(value.get("v").toString());
+            int status = Integer.parseInt(value.get("s").toString());
+            LocalDateTime time = LocalDateTime.ofInstant(
+                Instant.ofEpochMilli(record.getId().getTimestamp()), ZoneId.systemDefault());
+            for (String field : value.get("idx").toString().split(",")) {
+                SeatPosition seat = SeatPosition.ofIndex(Integer.parseInt(field));
+                SeatKey seatKey = new SeatKey(scheduleId, seat.index());
+                SeatState previous = latest.get(seatKey);
+                if (previous != null && previous.getVersion() >= version) {
+                    continue;
+                }
+                SeatState state = new SeatState();
+                state.setScheduleId(scheduleId);
+                state.setSeatIndex(seat.index());
+                state.setSeatRow(seat.row());
+                state.setSeatCol(seat.col());
+                state.setStatus(status);
+                state.setVersion(version);
+                state.setUpdateTime(time);
+                latest.put(seatKey, state);
+            }
+        } catch (Exception e) {
+            // 格式错误的条目无法重试成功，跳过并随本批 ACK
+            log.warn("跳过无法解析的座位变更, id={}, value={}", record.getId(), value, e);
+        }
+    }
+
+    private void checkLag() {
+        long now = System.currentTimeMillis();
+        if (now - lastLagCheck < LAG_CHECK_MILLIS) {
+            return;
+        }
+        lastLagCheck = now;
+        long lag = 0;
+        for (String key : streamKeys) {
+            Long size = stringRedisTemplate.opsForStream().size(key);
+            lag += size == null ? 0 : size;
+        }
+        if (lag > lagWarn) {
+            log.warn("座位状态同步积压, entries={}", lag);
+        }
+    }
+
+    private void createGroup(String key) {
+        try {
+            stringRedisTemplate.opsForStream().createGroup(key, ReadOffset.from("0"), RedisKeyConstant.SEAT_SYNC_GROUP);
+        } catch (RuntimeException e) {
+            // BUSYGROUP: 消费组已存在
+            if (!String.valueOf(NestedExceptionUtils.getMostSpecificCause(e).getMessage()).contains("BUSYGROUP")) {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 同步流的 Key，与座位服务的分段方式一致（单机 / 哨兵模式不分段时只有一个）
+     */
+    private static List<String> streamKeys(int bandRows, int slotBuckets, boolean cluster) {
+        if (!cluster && (bandRows <= 0 || bandRows >= SeatPosition.MAX_ROWS)) {
+            return List.of(RedisKeyConstant.SEAT_SYNC_STREAM_KEY);
+        }
+        List<String> keys = new ArrayList<>(slotBuckets);
+        for (int bucket = 0; bucket < slotBuckets; bucket++) {
+            keys.add(RedisKeyConstant.SEAT_SYNC_STREAM_KEY + ":{" + bucket + "}");
+        }
+        return keys;
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "seat-sync-" + ProcessHandle.current().pid();
+        }
+    }
+
+    private record SeatKey(Long scheduleId, int index) {
+    }
+}
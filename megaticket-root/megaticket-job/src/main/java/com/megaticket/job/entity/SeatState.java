@@ -0,0 +1,50 @@
+package com.megaticket.job.entity;
+
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 座位状态（Redis 座位图的持久化副本，由同步流异步写入）
+ * 只保存发生过变更的座位，没有记录的座位按影厅布局为可选 / 不可售
+ *
+ * CREATE TABLE seat_state (
+ *     schedule_id BIGINT   NOT NULL,
+ *     seat_index  INT      NOT NULL,
+ *     seat_row    INT      NOT NULL,
+ *     seat_col    INT      NOT NULL,
+ *     status      SMALLINT NOT NULL,
+ *     version     BIGINT   NOT NULL,
+ *     update_time TIMESTAMP NOT NULL,
+ *     PRIMARY KEY (schedule_id, seat_index)
+ * );
+ *
+ * @author Yang JunJie
+ * @since 2026/1/19
+ */
+@Data
+@TableName("seat_state")
+public class SeatState {
+
+    // 场次ID
+    private Long scheduleId;
+
+    // 座位下标 = (row - 1) * 100 + (col - 1)
+    private Integer seatIndex;
+
+    // 座位行号
+    private Integer seatRow;
+
+    // 座位列号
+    private Integer seatCol;
+
+    // 座位状态: 0=可选, 1=已锁定, 2=已售出
+    private Integer status;
+
+    // 座位图（段）版本，只有更新的版本才会覆盖
+    private Long version;
+
+    // 状态变更时间
+    private LocalDateTime updateTime;
+}
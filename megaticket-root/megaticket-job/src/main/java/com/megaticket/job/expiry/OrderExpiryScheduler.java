@@ -0,0 +1,159 @@
+package com.megaticket.job.expiry;
+
+import com.megaticket.common.dto.OrderDeadline;
+import com.megaticket.common.result.Result;
+import com.megaticket.job.feign.OrderServiceClient;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 订单超时调度
+ * 待支付订单的支付截止时间放在内存中的分层时间轮上（见 {@link TimingWheel}，秒级精度），
+ * 到期的订单按 batch-size 一批交给订单服务关单并按场次释放座位，不再依赖 RocketMQ 的延迟消息:
+ *   新订单: 订单创建消息中带有 expireTime（见 OrderCreateConsumer）
+ *   重启:   按订单ID分页从订单服务读取全部待支付订单的截止时间（订单服务查询 PostgreSQL），已过期的立即关单
+ *   失败:   关单请求失败的订单 retry-ms 后重新放回时间轮
+ * 已支付或已取消的订单到期时由订单服务的条件更新跳过，不需要从时间轮中删除；多个实例重复关单也是幂等的
+ * 订单的支付截止时间与座位锁定从同一时刻起算，到期时锁定可能已被座位服务回收并重新锁定，
+ * 订单服务只释放仍属于该订单的锁定（按下单用户与锁定截止时间校验）
+ *
+ * 订单服务需同时关闭超时延迟消息（megaticket.order.timeout-message.enabled=false）
+ *
+ * 默认关闭，配置项:
+ *   megaticket.job.order-expiry.enabled    是否开启, 默认 false
+ *   megaticket.job.order-expiry.batch-size 每次关单请求的订单数, 默认 500
+ *   megaticket.job.order-expiry.retry-ms   关单失败后的重试间隔, 默认 5000 毫秒
+ *
+ * @author Yang JunJie
+ * @since 2026/1/19
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "megaticket.job.order-expiry", name = "enabled", havingValue = "true")
+public class OrderExpiryScheduler {
+
+    private static final long TICK_MILLIS = 1000;
+    private static final int WHEEL_SIZE = 60;
+    /** 秒 / 分 / 时三层，一圈 60 小时，更远的截止时间放在溢出列表 */
+    private static final int WHEEL_LEVELS = 3;
+    /** 恢复时每页读取的订单数 */
+    private static final int RECOVER_PAGE_SIZE = 1000;
+
+    private final OrderServiceClient orderServiceClient;
+    private final int batchSize;
+    private final long retryMillis;
+    private final TimingWheel<Long> wheel = new TimingWheel<>(TICK_MILLIS, WHEEL_SIZE, WHEEL_LEVELS, System.currentTimeMillis());
+    private final ScheduledExecutorService ticker =
+        Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "order-expiry-tick"));
+    /** 关单请求在单独的线程上执行，订单服务变慢时不影响时间轮推进 */
+    private final ExecutorService closer = Executors.newSingleThreadExecutor(r -> new Thread(r, "order-expiry-close"));
+    private final Thread recoverer = new Thread(this::recover, "order-expiry-recover");
+
+    public OrderExpiryScheduler(
+            OrderServiceClient orderServiceClient,
+            @Value("${megaticket.job.order-expiry.batch-size:500}") int batchSize,
+            @Value("${megaticket.job.order-expiry.retry-ms:5000}") long retryMillis) {
+        this.orderServiceClient = orderServiceClient;
+        this.batchSize = batchSize;
+        this.retryMillis = retryMillis;
+    }
+
+    @PostConstruct
+    public void init() {
+        ticker.scheduleAtFixedRate(this::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+        recoverer.start();
+        log.info("订单超时调度已启动");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        recoverer.interrupt();
+        ticker.shutdownNow();
+        closer.shutdownNow();
+    }
+
+    /**
+     * 登记订单的支付截止时间（任意线程）
+     *
+     * @param orderId  订单ID
+     * @param expireAt 支付截止时间（毫秒时间戳）
+     */
+    public void schedule(Long orderId, long expireAt) {
+        wheel.add(orderId, expireAt);
+    }
+
+    /**
+     * 推进时间轮，到期的订单分批交给关单线程
+     */
+    private void tick() {
+        try {
+            List<Long> due = new ArrayList<>();
+            wheel.advance(System.currentTimeMillis(), due::add);
+            for (int from = 0; from < due.size(); from += batchSize) {
+                List<Long> batch = due.subList(from, Math.min(from + batchSize, due.size()));
+                closer.execute(() -> close(batch));
+            }
+        } catch (Exception e) {
+            // 异常不能抛出，否则定时任务不再执行
+            log.error("推进订单超时时间轮失败", e);
+        }
+    }
+
+    private void close(List<Long> orderIds) {
+        try {
+            Result<Integer> result = orderServiceClient.expireOrders(orderIds);
+            if (result.getCode() != 200) {
+                throw new IllegalStateException(result.getMessage());
+            }
+            log.info("超时关单, orders={}, closed={}", orderIds.size(), result.getData());
+        } catch (Exception e) {
+            log.error("超时关单失败，{} 毫秒后重试, orders={}", retryMillis, orderIds.size(), e);
+            long retryAt = System.currentTimeMillis() + retryMillis;
+            orderIds.forEach(orderId -> wheel.add(orderId, retryAt));
+        }
+    }
+
+    /**
+     * 启动时恢复全部待支付订单的截止时间，失败时等待后从断点继续
+     */
+    private void recover() {
+        long afterId = 0;
+        int recovered = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Result<List<OrderDeadline>> result = orderServiceClient.listUnpaidOrders(afterId, RECOVER_PAGE_SIZE);
+                if (result.getCode() != 200) {
+                    throw new IllegalStateException(result.getMessage());
+                }
+                List<OrderDeadline> page = result.getData();
+                for (OrderDeadline deadline : page) {
+                    wheel.add(deadline.orderId(), deadline.expireAt());
+                }
+                recovered += page.size();
+                if (page.size() < RECOVER_PAGE_SIZE) {
+                    log.info("恢复待支付订单完成, orders={}", recovered);
+                    return;
+                }
+                afterId = page.get(page.size() - 1).orderId();
+            } catch (Exception e) {
+                log.error("恢复待支付订单失败，{} 毫秒后重试, afterId={}", retryMillis, afterId, e);
+                try {
+                    Thread.sleep(retryMillis);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+}
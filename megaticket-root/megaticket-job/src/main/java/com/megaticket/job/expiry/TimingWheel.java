@@ -0,0 +1,155 @@
+package com.megaticket.job.expiry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 分层时间轮
+ * 每层 wheelSize 个槽，第 0 层每槽 tickMillis，第 i 层每槽是第 i-1 层一圈的时长（默认 1 秒 / 1 分 / 1 小时）；
+ * 超出最高层一圈的任务放在溢出列表，最高层每前进一槽检查一次
+ * 添加、到期都是 O(1)，任务只在所在层的槽转到当前位置时下沉到下一层，不随任务数增加扫描量
+ *
+ * 到期时间按 tickMillis 向上取整，任务不会早于到期时间触发，最多晚一个 tick
+ *
+ * 线程模型: {@link #add} 可在任意线程调用，先放入队列；{@link #advance} 只能由同一个线程调用，
+ *          推进前把队列中的任务放入槽，时间轮本身不加锁
+ *
+ * @author Yang JunJie
+ * @since 2026/1/19
+ */
+public class TimingWheel<T> {
+
+    private final long tickMillis;
+    private final int wheelSize;
+    private final List<Level> levels;
+    /** 超出最高层一圈的任务 */
+    private List<Entry<T>> overflow = new ArrayList<>();
+    private final Queue<Entry<T>> incoming = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    /** 第 0 层当前槽的起始时间 */
+    private long currentTime;
+
+    public TimingWheel(long tickMillis, int wheelSize, int levelCount, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.levels = new ArrayList<>(levelCount);
+        long tick = tickMillis;
+        for (int i = 0; i < levelCount; i++) {
+            levels.add(new Level(tick, wheelSize, startMillis));
+            tick *= wheelSize;
+        }
+        this.currentTime = startMillis - startMillis % tickMillis;
+    }
+
+    /**
+     * 添加任务（任意线程），下次推进时放入时间轮；已到期的任务在下次推进时触发
+     *
+     * @param item       任务
+     * @param deadline   到期时间（毫秒时间戳）
+     */
+    public void add(T item, long deadline) {
+        long rounded = (deadline + tickMillis - 1) / tickMillis * tickMillis;
+        incoming.add(new Entry<>(item, rounded));
+        size.incrementAndGet();
+    }
+
+    /**
+     * 时间轮中（含待放入）的任务数
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * 推进到 now，依次回调到期的任务（只能由同一个线程调用）
+     */
+    public void advance(long now, Consumer<T> expired) {
+        // 1. 放入新添加的任务
+        Entry<T> entry;
+        while ((entry = incoming.poll()) != null) {
+            place(entry, expired);
+        }
+
+        // 2. 逐槽推进第 0 层，高层的槽转到当前位置时下沉
+        while (currentTime + tickMillis <= now) {
+            currentTime += tickMillis;
+            // 先更新各层的当前时间再重新放入，下沉的任务按推进后的时间选择所在层
+            List<Entry<T>> due = new ArrayList<>();
+            for (int i = 0; i < levels.size(); i++) {
+                Level level = levels.get(i);
+                long levelTime = currentTime - currentTime % level.tick;
+                if (levelTime == level.currentTime) {
+                    // 本层未跨槽，更高层也不会跨槽
+                    break;
+                }
+                level.currentTime = levelTime;
+                due.addAll(level.take(levelTime));
+                if (i == levels.size() - 1 && !overflow.isEmpty()) {
+                    due.addAll(overflow);
+                    overflow = new ArrayList<>();
+                }
+            }
+            for (Entry<T> e : due) {
+                place(e, expired);
+            }
+        }
+    }
+
+    /**
+     * 把任务放入能容纳它的最低一层，已到期的直接回调
+     */
+    private void place(Entry<T> entry, Consumer<T> expired) {
+        if (entry.deadline <= currentTime) {
+            size.decrementAndGet();
+            expired.accept(entry.item);
+            return;
+        }
+        for (Level level : levels) {
+            if (entry.deadline < level.currentTime + level.tick * wheelSize) {
+                level.bucket(entry.deadline).add(entry);
+                return;
+            }
+        }
+        overflow.add(entry);
+    }
+
+    private final class Level {
+
+        private final long tick;
+        private final List<Entry<T>>[] buckets;
+        /** 本层当前槽的起始时间 */
+        private long currentTime;
+
+        @SuppressWarnings("unchecked")
+        private Level(long tick, int wheelSize, long startMillis) {
+            this.tick = tick;
+            this.buckets = new List[wheelSize];
+            for (int i = 0; i < wheelSize; i++) {
+                buckets[i] = new ArrayList<>();
+            }
+            this.currentTime = startMillis - startMillis % tick;
+        }
+
+        private List<Entry<T>> bucket(long time) {
+            return buckets[(int) ((time / tick) % buckets.length)];
+        }
+
+        /**
+         * 取出并清空 time 所在的槽
+         */
+        private List<Entry<T>> take(long time) {
+            int index = (int) ((time / tick) % buckets.length);
+            List<Entry<T>> bucket = buckets[index];
+            buckets[index] = new ArrayList<>();
+            return bucket;
+        }
+    }
+
+    private record Entry<T>(T item, long deadline) {
+    }
+}
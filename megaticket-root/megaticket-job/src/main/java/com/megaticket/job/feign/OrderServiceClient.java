@@ -0,0 +1,29 @@
+package com.megaticket.job.feign;
+
+import com.megaticket.common.dto.OrderDeadline;
+import com.megaticket.common.result.Result;
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.List;
+
+/**
+ * 订单服务Feign客户端
+ * @author Yang JunJie
+ * @since 2026/1/19
+ */
+@FeignClient(name = "megaticket-service-order", path = "/internal/v1/order")
+public interface OrderServiceClient {
+    
+    @GetMapping("/unpaid")
+    Result<List<OrderDeadline>> listUnpaidOrders(
+        @RequestParam("afterId") Long afterId,
+        @RequestParam("size") Integer size
+    );
+    
+    @PostMapping("/expire")
+    Result<Integer> expireOrders(@RequestBody List<Long> orderIds);
+}
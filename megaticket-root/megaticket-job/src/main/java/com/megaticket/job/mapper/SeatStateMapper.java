@@ -0,0 +1,37 @@
+package com.megaticket.job.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.megaticket.job.entity.SeatState;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * 座位状态映射器
+ *
+ * @author Yang JunJie
+ * @since 2026/1/19
+ */
+@Mapper
+public interface SeatStateMapper extends BaseMapper<SeatState> {
+
+    /**
+     * 多行 upsert，已有记录只在版本更新时覆盖，重复投递或乱序到达的旧变更不会回退状态
+     * 同一批内 (schedule_id, seat_index) 不能重复
+     */
+    @Insert("""
+        <script>
+        INSERT INTO seat_state (schedule_id, seat_index, seat_row, seat_col, status, version, update_time)
+        VALUES
+        <foreach collection="states" item="s" separator=",">
+            (#{s.scheduleId}, #{s.seatIndex}, #{s.seatRow}, #{s.seatCol}, #{s.status}, #{s.version}, #{s.updateTime})
+        </foreach>
+        ON CONFLICT (schedule_id, seat_index) DO UPDATE
+        SET status = EXCLUDED.status, version = EXCLUDED.version, update_time = EXCLUDED.update_time
+        WHERE seat_state.version &lt; EXCLUDED.version
+        </script>
+        """)
+    int upsertBatch(@Param("states") List<SeatState> states);
+}
@@ -0,0 +1,172 @@
+package com.megaticket.job.expiry;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 分层时间轮: 到期时间在槽边界、跨层下沉、溢出列表中的任务都恰好在向上取整后的到期时间触发
+ * 时间轮配置为每槽 10 毫秒、每层 8 槽、3 层: 第 0 / 1 / 2 层一圈为 80 / 640 / 5120 毫秒，超出的进入溢出列表
+ *
+ * @author Yang JunJie
+ * @since 2026/1/19
+ */
+class TimingWheelTest {
+
+    private static final long TICK = 10;
+    private static final int SIZE = 8;
+    private static final int LEVELS = 3;
+
+    @Test
+    void firesExactlyOnTickBoundary() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, SIZE, LEVELS, 0);
+        wheel.add("a", 30);
+
+        assertEquals(List.of(), advance(wheel, 29));
+        assertEquals(List.of("a"), advance(wheel, 30));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void roundsDeadlineUpToNextTick() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, SIZE, LEVELS, 0);
+        wheel.add("a", 31);
+
+        assertEquals(List.of(), advance(wheel, 39));
+        assertEquals(List.of("a"), advance(wheel, 40));
+    }
+
+    @Test
+    void firesOnBoundaryBetweenLevelZeroAndOne() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, SIZE, LEVELS, 0);
+        // 70 是第 0 层能容纳的最后一槽，80 恰好是第 0 层一圈，放入第 1 层
+        wheel.add("last-in-level-0", 70);
+        wheel.add("first-in-level-1", 80);
+
+        assertEquals(List.of(), advance(wheel, 69));
+        assertEquals(List.of("last-in-level-0"), advance(wheel, 70));
+        assertEquals(List.of(), advance(wheel, 79));
+        assertEquals(List.of("first-in-level-1"), advance(wheel, 80));
+    }
+
+    @Test
+    void cascadesFromHighestLevel() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, SIZE, LEVELS, 0);
+        // 第 2 层: 640 + 80 + 30，经第 1 层、第 0 层两次下沉
+        wheel.add("a", 750);
+        // 恰好是第 2 层的槽边界
+        wheel.add("b", 1280);
+
+        assertEquals(List.of(), advanceByTick(wheel, 740));
+        assertEquals(List.of("a"), advance(wheel, 750));
+        assertEquals(List.of(), advanceByTick(wheel, 1270));
+        assertEquals(List.of("b"), advance(wheel, 1280));
+    }
+
+    @Test
+    void firesFromOverflow() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, SIZE, LEVELS, 0);
+        // 超出最高层一圈（5120）
+        wheel.add("boundary", 5120);
+        wheel.add("far", 12345);
+
+        assertEquals(List.of(), advanceByTick(wheel, 5110));
+        assertEquals(List.of("boundary"), advance(wheel, 5120));
+        assertEquals(List.of(), advanceByTick(wheel, 12340));
+        assertEquals(List.of("far"), advance(wheel, 12350));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void firesPastDeadlineOnNextAdvance() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, SIZE, LEVELS, 1000);
+        wheel.add("late", 500);
+        assertEquals(1, wheel.size());
+
+        assertEquals(List.of("late"), advance(wheel, 1000));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void jumpsOverManyTicksAtOnce() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, SIZE, LEVELS, 0);
+        wheel.add("a", 75);
+        wheel.add("b", 700);
+        wheel.add("c", 9000);
+
+        // 一次推进跨过多个槽、多层与溢出，按到期先后回调
+        assertEquals(List.of("a", "b", "c"), advance(wheel, 20000));
+    }
+
+    @Test
+    void unalignedStartTime() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, SIZE, LEVELS, 1234567);
+        wheel.add("a", 1234570);
+        wheel.add("b", 1234567 + 640 * 3);
+
+        assertEquals(List.of(), advance(wheel, 1234569));
+        assertEquals(List.of("a"), advance(wheel, 1234570));
+        assertEquals(List.of(), advanceByTick(wheel, 1234567 + 640 * 3 - 1));
+        assertEquals(List.of("b"), advance(wheel, 1234567 + 640 * 3 + 3));
+    }
+
+    @Test
+    void everyTaskFiresAtRoundedDeadline() {
+        long start = 1_000_003;
+        TimingWheel<Integer> wheel = new TimingWheel<>(TICK, SIZE, LEVELS, start);
+        Random random = new Random(42);
+        Map<Integer, Long> expected = new HashMap<>();
+        for (int i = 0; i < 2000; i++) {
+            long deadline = start + random.nextInt(20000);
+            expected.put(i, (deadline + TICK - 1) / TICK * TICK);
+            wheel.add(i, deadline);
+        }
+
+        Map<Integer, Long> fired = new HashMap<>();
+        for (long now = start; now <= start + 20000 + TICK; now++) {
+            long at = now;
+            wheel.advance(now, item -> fired.put(item, at));
+        }
+
+        assertEquals(expected, fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void tasksAddedWhileRunningUseCurrentPosition() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, SIZE, LEVELS, 0);
+        advanceByTick(wheel, 3000);
+
+        wheel.add("a", 3080);
+        wheel.add("b", 3000 + 5120 + 10);
+
+        assertEquals(List.of(), advance(wheel, 3079));
+        assertEquals(List.of("a"), advance(wheel, 3080));
+        assertEquals(List.of(), advanceByTick(wheel, 3000 + 5120));
+        assertEquals(List.of("b"), advance(wheel, 3000 + 5120 + 10));
+    }
+
+    private static <T> List<T> advance(TimingWheel<T> wheel, long now) {
+        List<T> fired = new ArrayList<>();
+        wheel.advance(now, fired::add);
+        return fired;
+    }
+
+    /**
+     * 逐个 tick 推进到 now，返回期间触发的全部任务
+     */
+    private static <T> List<T> advanceByTick(TimingWheel<T> wheel, long now) {
+        List<T> fired = new ArrayList<>();
+        for (long time = 0; time <= now; time += TICK) {
+            wheel.advance(time, fired::add);
+        }
+        wheel.advance(now, fired::add);
+        return fired;
+    }
+}
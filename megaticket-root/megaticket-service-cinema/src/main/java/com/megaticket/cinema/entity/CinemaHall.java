@@ -42,6 +42,12 @@ public class CinemaHall {
     @Max(value = 100, message = "座位列数最多为100")
     private Integer totalCols;
 
+    // 过道所在列号，逗号分隔，如 "5,16"（整列不设座位）
+    private String aisleCols;
+
+    // 不可售座位，"行-列" 逗号分隔，如 "1-1,1-2"（损坏/预留座位）
+    private String disabledSeats;
+
     // 影院厅标签
     private List<String> tags;
 
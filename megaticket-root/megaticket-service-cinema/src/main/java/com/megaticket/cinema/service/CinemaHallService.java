@@ -186,8 +186,14 @@ public class CinemaHallService {
             throw new BusinessException(ResultCode.CINEMA_HALL_COLS_INVALID);
         }
 
+        // 5. 校验座位布局
+        if (!isValidLayout(cinemaHall)) {
+            log.warn("影厅座位布局无效: aisleCols={}, disabledSeats={}", cinemaHall.getAisleCols(), cinemaHall.getDisabledSeats());
+            throw new BusinessException(ResultCode.CINEMA_HALL_LAYOUT_INVALID);
+        }
+
         try {
-            // 5. 插入影厅
+            // 6. 插入影厅
             int result = cinemaHallMapper.insert(cinemaHall);
 
             if (result <= 0) {
@@ -224,6 +230,11 @@ public class CinemaHallService {
             throw new BusinessException(ResultCode.CINEMA_HALL_NOT_FOUND);
         }
 
+        if (!isValidLayout(cinemaHall)) {
+            log.warn("影厅座位布局无效: aisleCols={}, disabledSeats={}", cinemaHall.getAisleCols(), cinemaHall.getDisabledSeats());
+            throw new BusinessException(ResultCode.CINEMA_HALL_LAYOUT_INVALID);
+        }
+
         try {
             // 3. 更新影厅
             int result = cinemaHallMapper.updateById(cinemaHall);
@@ -280,4 +291,16 @@ public class CinemaHallService {
             throw new BusinessException(ResultCode.SYSTEM_ERROR);
         }
     }
+
+    /**
+     * 校验过道列与不可售座位的格式（为空表示没有）
+     * @param cinemaHall 影厅信息
+     * @return 格式是否有效
+     */
+    private boolean isValidLayout(CinemaHall cinemaHall) {
+        String aisleCols = cinemaHall.getAisleCols();
+        String disabledSeats = cinemaHall.getDisabledSeats();
+        return (!StringUtils.hasText(aisleCols) || aisleCols.matches("\\d+(,\\d+)*"))
+            && (!StringUtils.hasText(disabledSeats) || disabledSeats.matches("\\d+-\\d+(,\\d+-\\d+)*"));
+    }
 }
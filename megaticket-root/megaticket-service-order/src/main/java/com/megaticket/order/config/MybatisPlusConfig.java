@@ -0,0 +1,45 @@
+package com.megaticket.order.config;
+
+import com.baomidou.mybatisplus.core.injector.AbstractMethod;
+import com.baomidou.mybatisplus.core.injector.DefaultSqlInjector;
+import com.baomidou.mybatisplus.core.injector.ISqlInjector;
+import com.baomidou.mybatisplus.core.metadata.TableInfo;
+import com.baomidou.mybatisplus.extension.injector.methods.InsertBatchSomeColumn;
+import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
+import com.baomidou.mybatisplus.extension.plugins.inner.DynamicTableNameInnerInterceptor;
+import com.megaticket.order.shard.OrderShards;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * MyBatis-Plus 配置
+ * 注入多行插入方法 insertBatchSomeColumn，供订单批量写入使用（见 OrderMapper）
+ * 动态表名插件把订单表替换为当前路由的分表（见 {@link OrderShards}）
+ * @author Yang JunJie
+ * @since 2026/1/19
+ */
+@Configuration
+public class MybatisPlusConfig {
+
+    @Bean
+    public ISqlInjector sqlInjector() {
+        return new DefaultSqlInjector() {
+            @Override
+            public List<AbstractMethod> getMethodList(Class<?> mapperClass, TableInfo tableInfo) {
+                List<AbstractMethod> methods = new ArrayList<>(super.getMethodList(mapperClass, tableInfo));
+                methods.add(new InsertBatchSomeColumn());
+                return methods;
+            }
+        };
+    }
+
+    @Bean
+    public MybatisPlusInterceptor mybatisPlusInterceptor() {
+        MybatisPlusInterceptor interceptor = new MybatisPlusInterceptor();
+        interceptor.addInnerInterceptor(new DynamicTableNameInnerInterceptor((sql, tableName) -> OrderShards.tableName(tableName)));
+        return interceptor;
+    }
+}
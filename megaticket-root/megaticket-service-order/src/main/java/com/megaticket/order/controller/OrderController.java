@@ -1,16 +1,22 @@
 package com.megaticket.order.controller;
 
+import com.megaticket.common.exception.BusinessException;
 import com.megaticket.common.result.Result;
+import com.megaticket.common.result.ResultCode;
 import com.megaticket.order.dto.CreateOrderRequest;
+import com.megaticket.order.dto.OrderPage;
+import com.megaticket.order.dto.OrderTicket;
 import com.megaticket.order.entity.Order;
+import com.megaticket.order.service.OrderPipeline;
 import com.megaticket.order.service.OrderService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 
 /**
  * 订单控制器
+ * 其他服务调用的接口见 {@link OrderInternalController}
  * @author Yang JunJie
  * @since 2026/1/19
  */
@@ -20,6 +26,8 @@ import java.util.List;
 public class OrderController {
     
     private final OrderService orderService;
+    /** 开启 megaticket.order.async.enabled 时存在 */
+    private final ObjectProvider<OrderPipeline> orderPipeline;
     
     @PostMapping("/create")
     public Result<Order> createOrder(
@@ -30,6 +38,25 @@ public class OrderController {
         return Result.success(order);
     }
     
+    /**
+     * 异步下单: 立即返回下单凭证，下单结果通过 /ticket/{ticketId} 查询
+     */
+    @PostMapping("/create/async")
+    public Result<OrderTicket> createOrderAsync(
+        @RequestHeader("X-User-Id") Long userId,
+        @RequestBody CreateOrderRequest request
+    ) {
+        return Result.success(pipeline().submit(userId, request));
+    }
+    
+    @GetMapping("/ticket/{ticketId}")
+    public Result<OrderTicket> getOrderTicket(
+        @RequestHeader("X-User-Id") Long userId,
+        @PathVariable String ticketId
+    ) {
+        return Result.success(pipeline().getTicket(userId, ticketId));
+    }
+    
     @GetMapping("/{orderId}")
     public Result<Order> getOrderDetail(
         @RequestHeader("X-User-Id") Long userId,
@@ -39,10 +66,17 @@ public class OrderController {
         return Result.success(order);
     }
     
+    /**
+     * 订单列表，按下单时间倒序分页；下一页以上一页返回的 nextCursor 作为 cursor 查询
+     */
     @GetMapping("/list")
-    public Result<List<Order>> getUserOrders(@RequestHeader("X-User-Id") Long userId) {
-        List<Order> orders = orderService.getUserOrders(userId);
-        return Result.success(orders);
+    public Result<OrderPage> getUserOrders(
+        @RequestHeader("X-User-Id") Long userId,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(defaultValue = "20") Integer size
+    ) {
+        OrderPage page = orderService.getUserOrders(userId, cursor, size);
+        return Result.success(page);
     }
     
     @PostMapping("/{orderId}/cancel")
@@ -53,4 +87,12 @@ public class OrderController {
         orderService.cancelOrder(userId, orderId);
         return Result.success();
     }
+    
+    private OrderPipeline pipeline() {
+        OrderPipeline pipeline = orderPipeline.getIfAvailable();
+        if (pipeline == null) {
+            throw new BusinessException(ResultCode.NOT_FOUND);
+        }
+        return pipeline;
+    }
 }
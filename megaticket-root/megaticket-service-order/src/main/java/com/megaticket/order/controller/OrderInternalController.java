@@ -0,0 +1,67 @@
+package com.megaticket.order.controller;
+
+import com.megaticket.common.dto.OrderDeadline;
+import com.megaticket.common.result.Result;
+import com.megaticket.order.dto.OrderShardMigrationProgress;
+import com.megaticket.order.service.OrderService;
+import com.megaticket.order.shard.OrderShardMigrator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * 订单内部接口 - 只供其他服务（任务服务、支付服务）通过服务发现直接调用，以及运维在内网执行分表迁移
+ * 路径不在 /api/v1 下，网关没有对应的路由，外部请求无法到达；网关不要为 /internal/** 添加路由
+ * @author Yang JunJie
+ * @since 2026/1/19
+ */
+@RestController
+@RequestMapping("/internal/v1/order")
+@RequiredArgsConstructor
+public class OrderInternalController {
+    
+    private final OrderService orderService;
+    private final OrderShardMigrator orderShardMigrator;
+    
+    /**
+     * 待支付订单的截止时间，按订单ID升序分页（任务服务恢复时间轮时调用）
+     */
+    @GetMapping("/unpaid")
+    public Result<List<OrderDeadline>> listUnpaidOrders(
+        @RequestParam(defaultValue = "0") Long afterId,
+        @RequestParam(defaultValue = "1000") Integer size
+    ) {
+        return Result.success(orderService.listUnpaid(afterId, size));
+    }
+    
+    /**
+     * 支付成功回调（支付服务调用），标记订单已支付并把座位标记为已售出
+     */
+    @PostMapping("/{orderId}/paid")
+    public Result<Void> markOrderPaid(@PathVariable Long orderId) {
+        orderService.markOrderPaid(orderId);
+        return Result.success();
+    }
+    
+    /**
+     * 超时关单（任务服务调用），返回实际关闭的订单数
+     */
+    @PostMapping("/expire")
+    public Result<Integer> expireOrders(@RequestBody List<Long> orderIds) {
+        return Result.success(orderService.expireOrders(orderIds));
+    }
+    
+    /**
+     * 开始把历史订单迁移到分表（后台执行），需先开启分表并设置 legacy-max-id
+     */
+    @PostMapping("/shard/migrate")
+    public Result<OrderShardMigrationProgress> migrateShards() {
+        return Result.success(orderShardMigrator.migrate());
+    }
+    
+    @GetMapping("/shard/migrate/progress")
+    public Result<OrderShardMigrationProgress> getShardMigrationProgress() {
+        return Result.success(orderShardMigrator.getProgress());
+    }
+}
@@ -0,0 +1,21 @@
+package com.megaticket.order.dto;
+
+import com.megaticket.common.dto.SeatPosition;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 创建订单请求
+ * @author Yang JunJie
+ * @since 2026/1/19
+ */
+@Data
+public class CreateOrderRequest {
+
+    /** 场次ID */
+    private Long scheduleId;
+
+    /** 座位列表 [{"row": 1, "col": 1}, ...] */
+    private List<SeatPosition> seats;
+}
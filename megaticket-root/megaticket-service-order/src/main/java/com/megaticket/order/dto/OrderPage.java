@@ -0,0 +1,21 @@
+package com.megaticket.order.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 订单列表的一页
+ * 按下单时间倒序，下一页以 nextCursor 作为 cursor 参数查询
+ * @author Yang JunJie
+ * @since 2026/1/19
+ */
+@Data
+public class OrderPage {
+
+    /** 本页订单 */
+    private List<OrderSummary> orders;
+
+    /** 下一页的游标，没有更多订单时为空 */
+    private String nextCursor;
+}
@@ -0,0 +1,39 @@
+package com.megaticket.order.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 订单分表迁移进度
+ *
+ * @author Yang JunJie
+ * @since 2026/1/19
+ */
+@Data
+public class OrderShardMigrationProgress {
+
+    /** 是否仍在进行 */
+    private boolean running;
+
+    /** 分表数 */
+    private int shards;
+
+    /** 已复制到分表的订单数 */
+    private long copied;
+
+    /** 分表中已存在、跳过的订单数 */
+    private long skipped;
+
+    /** 复制失败的订单数 */
+    private long failed;
+
+    /** 已处理到的订单ID */
+    private long cursor;
+
+    /** 开始时间 */
+    private LocalDateTime startTime;
+
+    /** 结束时间，进行中为空 */
+    private LocalDateTime finishTime;
+}
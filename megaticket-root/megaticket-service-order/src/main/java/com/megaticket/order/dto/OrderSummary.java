@@ -0,0 +1,66 @@
+package com.megaticket.order.dto;
+
+import com.megaticket.order.entity.Order;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 订单列表项
+ * 订单列表只返回列表页展示的字段，座位明细（seatInfo）等在订单详情中查询
+ * @author Yang JunJie
+ * @since 2026/1/19
+ */
+@Data
+public class OrderSummary {
+
+    /** 订单ID */
+    private Long id;
+
+    /** 场次ID */
+    private Long scheduleId;
+
+    /** 影院名称 */
+    private String cinemaName;
+
+    /** 影厅名称 */
+    private String hallName;
+
+    /** 电影名称 */
+    private String movieName;
+
+    /** 放映时间 */
+    private LocalDateTime showTime;
+
+    /** 座位数 */
+    private Integer seatCount;
+
+    /** 总价 */
+    private BigDecimal totalPrice;
+
+    /** 订单状态 */
+    private Integer status;
+
+    /** 下单时间 */
+    private LocalDateTime createTime;
+
+    /** 支付截止时间 */
+    private LocalDateTime expireTime;
+
+    public static OrderSummary of(Order order) {
+        OrderSummary summary = new OrderSummary();
+        summary.setId(order.getId());
+        summary.setScheduleId(order.getScheduleId());
+        summary.setCinemaName(order.getCinemaName());
+        summary.setHallName(order.getHallName());
+        summary.setMovieName(order.getMovieName());
+        summary.setShowTime(order.getShowTime());
+        summary.setSeatCount(order.getSeatCount());
+        summary.setTotalPrice(order.getTotalPrice());
+        summary.setStatus(order.getStatus());
+        summary.setCreateTime(order.getCreateTime());
+        summary.setExpireTime(order.getExpireTime());
+        return summary;
+    }
+}
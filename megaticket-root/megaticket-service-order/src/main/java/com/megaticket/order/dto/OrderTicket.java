@@ -0,0 +1,35 @@
+package com.megaticket.order.dto;
+
+import lombok.Data;
+
+/**
+ * 异步下单凭证
+ * 受理下单请求后立即返回，客户端凭 ticketId 查询下单结果
+ * @author Yang JunJie
+ * @since 2026/1/19
+ */
+@Data
+public class OrderTicket {
+
+    /** 处理中 */
+    public static final String PENDING = "PENDING";
+    /** 下单成功，orderId 为订单ID */
+    public static final String SUCCESS = "SUCCESS";
+    /** 下单失败，code / message 为失败原因 */
+    public static final String FAILED = "FAILED";
+
+    /** 凭证ID */
+    private String ticketId;
+
+    /** 状态: PENDING / SUCCESS / FAILED */
+    private String status;
+
+    /** 订单ID（下单成功后可查询订单详情） */
+    private Long orderId;
+
+    /** 失败时的错误码 */
+    private Integer code;
+
+    /** 失败时的错误信息 */
+    private String message;
+}
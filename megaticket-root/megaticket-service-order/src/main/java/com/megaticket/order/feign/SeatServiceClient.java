@@ -1,13 +1,17 @@
 package com.megaticket.order.feign;
 
+import com.megaticket.common.dto.HeldSeats;
+import com.megaticket.common.dto.SeatCounters;
+import com.megaticket.common.dto.SeatPosition;
 import com.megaticket.common.result.Result;
 import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 
 import java.util.List;
-import java.util.Map;
 
 /**
  * 座位服务Feign客户端
@@ -18,20 +22,39 @@ import java.util.Map;
 public interface SeatServiceClient {
     
     @PostMapping("/lock")
-    Result<List<Map<String, Integer>>> lockSeats(
+    Result<List<SeatPosition>> lockSeats(
         @RequestParam("scheduleId") Long scheduleId,
-        @RequestBody List<Map<String, Integer>> seats
+        @RequestHeader("X-User-Id") Long userId,
+        @RequestBody List<SeatPosition> seats
     );
     
     @PostMapping("/release")
     Result<Integer> releaseSeats(
         @RequestParam("scheduleId") Long scheduleId,
-        @RequestBody List<Map<String, Integer>> seats
+        @RequestBody List<SeatPosition> seats
+    );
+    
+    @PostMapping("/release/held")
+    Result<Integer> releaseHeldSeats(
+        @RequestParam("scheduleId") Long scheduleId,
+        @RequestBody List<HeldSeats> holds
     );
     
     @PostMapping("/sold")
     Result<Integer> markSeatsSold(
         @RequestParam("scheduleId") Long scheduleId,
-        @RequestBody List<Map<String, Integer>> seats
+        @RequestBody List<SeatPosition> seats
+    );
+    
+    @PostMapping("/sold/held")
+    Result<Integer> markHeldSeatsSold(
+        @RequestParam("scheduleId") Long scheduleId,
+        @RequestBody List<HeldSeats> holds
     );
+
+    @GetMapping("/counters")
+    Result<SeatCounters> getSeatCounters(@RequestParam("scheduleId") Long scheduleId);
+
+    @PostMapping("/counters/batch")
+    Result<List<SeatCounters>> getSeatCountersBatch(@RequestBody List<Long> scheduleIds);
 }
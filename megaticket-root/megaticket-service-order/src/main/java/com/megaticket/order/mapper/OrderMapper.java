@@ -3,6 +3,12 @@ package com.megaticket.order.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.megaticket.order.entity.Order;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * 订单Mapper
@@ -11,4 +17,67 @@ import org.apache.ibatis.annotations.Mapper;
  */
 @Mapper
 public interface OrderMapper extends BaseMapper<Order> {
+
+    /**
+     * 多行插入（一条 INSERT ... VALUES (...), (...)），由 MybatisPlusConfig 注入
+     */
+    int insertBatchSomeColumn(List<Order> orders);
+
+    /**
+     * 按原订单表的结构（含索引与约束）创建分表，已存在时跳过
+     */
+    @Update("CREATE TABLE IF NOT EXISTS ${shardTable} (LIKE ${table} INCLUDING ALL)")
+    void createShardTable(@Param("table") String table, @Param("shardTable") String shardTable);
+
+    /**
+     * 订单状态仍为 from 时改为 to，返回更新的行数；状态已被并发修改（如已超时关闭）时为 0
+     */
+    @Update("UPDATE ${table} SET status = #{to}, update_time = #{now} WHERE id = #{id} AND status = #{from}")
+    int updateStatus(@Param("table") String table, @Param("id") Long id,
+                     @Param("from") int from, @Param("to") int to, @Param("now") LocalDateTime now);
+
+    /**
+     * 关闭仍未支付的订单（status 0 → 2），返回实际关闭的订单（只含 id / user_id / schedule_id / seat_info / expire_time）
+     * 已支付或已取消的订单不受影响，重复关闭不会重复返回
+     */
+    @Select("""
+        <script>
+        UPDATE ${table} SET status = 2, update_time = #{now}
+        WHERE status = 0 AND id IN
+        <foreach collection="ids" item="id" open="(" separator="," close=")">#{id}</foreach>
+        RETURNING id, user_id, schedule_id, seat_info, expire_time
+        </script>
+        """)
+    List<Order> closeUnpaid(@Param("table") String table, @Param("ids") List<Long> ids, @Param("now") LocalDateTime now);
+
+    /**
+     * 按订单ID升序读取 afterId 之后的待支付订单的截止时间（只读取 id / user_id / expire_time）
+     */
+    @Select("SELECT id, user_id, expire_time FROM ${table} WHERE status = 0 AND id > #{afterId} ORDER BY id LIMIT #{size}")
+    List<Order> selectUnpaid(@Param("table") String table, @Param("afterId") long afterId, @Param("size") int size);
+
+    /**
+     * ids 中已不是待支付状态的订单ID，用于跳过分表中的副本已支付 / 已关闭的历史订单
+     */
+    @Select("""
+        <script>
+        SELECT id FROM ${table} WHERE status &lt;&gt; 0 AND id IN
+        <foreach collection="ids" item="id" open="(" separator="," close=")">#{id}</foreach>
+        </script>
+        """)
+    List<Long> selectSettledIds(@Param("table") String table, @Param("ids") List<Long> ids);
+
+    /**
+     * 迁移后按原订单表同步分表副本的状态: 复制时读取的是旧状态，复制前后被支付 / 取消 / 关闭的订单在副本中仍为待支付
+     * 只把仍待支付的副本改为原订单表中的最终状态，不会改回待支付
+     */
+    @Update("""
+        <script>
+        UPDATE ${shardTable} AS s SET status = l.status, update_time = l.update_time
+        FROM ${table} AS l
+        WHERE s.id = l.id AND s.status = 0 AND l.status &lt;&gt; 0 AND s.id IN
+        <foreach collection="ids" item="id" open="(" separator="," close=")">#{id}</foreach>
+        </script>
+        """)
+    int syncStatus(@Param("table") String table, @Param("shardTable") String shardTable, @Param("ids") List<Long> ids);
 }
@@ -3,14 +3,19 @@ package com.megaticket.order.mq;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.megaticket.order.entity.Order;
 import com.megaticket.order.mapper.OrderMapper;
+import com.megaticket.order.service.OrderBatchWriter;
+import com.megaticket.order.shard.OrderShards;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.rocketmq.spring.annotation.RocketMQTransactionListener;
 import org.apache.rocketmq.spring.core.RocketMQLocalTransactionListener;
 import org.apache.rocketmq.spring.core.RocketMQLocalTransactionState;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.messaging.Message;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.TimeoutException;
+
 /**
  * RocketMQ事务消息监听器
  * 确保订单创建与消息发送的原子性
@@ -25,6 +30,9 @@ public class OrderTransactionListener implements RocketMQLocalTransactionListene
     
     private final OrderMapper orderMapper;
     private final ObjectMapper objectMapper;
+    private final OrderShards orderShards;
+    /** 开启 megaticket.order.group-commit.enabled 时存在 */
+    private final ObjectProvider<OrderBatchWriter> orderBatchWriter;
     
     @Override
     public RocketMQLocalTransactionState executeLocalTransaction(Message msg, Object arg) {
@@ -33,11 +41,21 @@ public class OrderTransactionListener implements RocketMQLocalTransactionListene
             
             log.info("执行本地事务: 创建订单, orderId={}", order.getId());
             
-            orderMapper.insert(order);
+            // 开启组提交时与并发的订单合并写入，等待所在批次提交完成
+            OrderBatchWriter writer = orderBatchWriter.getIfAvailable();
+            if (writer == null) {
+                orderShards.onShard(orderShards.shardOfUser(order.getUserId()), () -> orderMapper.insert(order));
+            } else if (!writer.insert(order)) {
+                return RocketMQLocalTransactionState.ROLLBACK;
+            }
             
             log.info("本地事务执行成功, orderId={}", order.getId());
             return RocketMQLocalTransactionState.COMMIT;
             
+        } catch (TimeoutException e) {
+            // 订单仍在批次中写入，结果未知，由事务回查确定
+            log.warn("等待订单写入超时，等待事务回查", e);
+            return RocketMQLocalTransactionState.UNKNOWN;
         } catch (Exception e) {
             log.error("本地事务执行失败", e);
             return RocketMQLocalTransactionState.ROLLBACK;
@@ -54,7 +72,16 @@ public class OrderTransactionListener implements RocketMQLocalTransactionListene
                 return RocketMQLocalTransactionState.ROLLBACK;
             }
             
-            Order order = orderMapper.selectById(Long.parseLong(orderId));
+            // 订单仍在批次中等待写入时尚未提交，等待下次回查
+            OrderBatchWriter writer = orderBatchWriter.getIfAvailable();
+            if (writer != null && writer.isPending(Long.parseLong(orderId))) {
+                log.info("事务回查: 订单写入中, orderId={}", orderId);
+                return RocketMQLocalTransactionState.UNKNOWN;
+            }
+            
+            // 新订单的分表号取自订单ID
+            Long id = Long.parseLong(orderId);
+            Order order = orderShards.onShard(orderShards.shardOfOrder(id), () -> orderMapper.selectById(id));
             
             if (order != null) {
                 log.info("事务回查: 订单存在, orderId={}", orderId);
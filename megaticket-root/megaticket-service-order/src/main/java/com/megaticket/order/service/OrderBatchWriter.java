@@ -0,0 +1,226 @@
+package com.megaticket.order.service;
+
+import com.megaticket.order.entity.Order;
+import com.megaticket.order.mapper.OrderMapper;
+import com.megaticket.order.shard.OrderShards;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 订单批量写入（组提交）
+ * 并发写入的订单在一个极短的窗口内（或凑满 max-size 个）合并为一条多行 INSERT，一次往返、一次提交，
+ * 结果再分别回给各调用方；开售时 PostgreSQL 的提交延迟不再限制每秒下单数
+ * 整批写入失败时（如某个订单主键冲突）逐个重试，单个订单的失败不影响同批的其他订单
+ *
+ * 写入中的订单尚未提交，事务回查时应返回 UNKNOWN 等待下次回查（见 {@link #isPending}）
+ * 等待超过 timeout-ms 时抛出 TimeoutException，订单仍可能在之后写入，调用方应返回 UNKNOWN 由回查确定结果
+ * 停机时立即提交正在攒的批次，之后的订单不再攒批，由调用线程直接写入
+ *
+ * 默认关闭，配置项:
+ *   megaticket.order.group-commit.enabled   是否开启, 默认 false
+ *   megaticket.order.group-commit.window-ms 攒批窗口, 默认 2 毫秒
+ *   megaticket.order.group-commit.max-size  每批最多订单数, 默认 200
+ *   megaticket.order.group-commit.threads   执行批次的线程数, 默认 4
+ *   megaticket.order.group-commit.timeout-ms 等待批次提交的最长时间, 默认 5000 毫秒
+ *
+ * @author Yang JunJie
+ * @since 2026/1/19
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "megaticket.order.group-commit", name = "enabled", havingValue = "true")
+public class OrderBatchWriter {
+
+    private final OrderMapper orderMapper;
+    private final OrderShards orderShards;
+    private final long windowMillis;
+    private final int maxSize;
+    private final long timeoutMillis;
+    private final ScheduledExecutorService executor;
+
+    /** 当前正在攒的批次，只在 synchronized (this) 内读写 */
+    private Batch current;
+    /** 已停机，只在 synchronized (this) 内读写 */
+    private boolean closed;
+    /** 已提交给批次、尚未写入完成的订单ID */
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+
+    public OrderBatchWriter(
+            OrderMapper orderMapper,
+            OrderShards orderShards,
+            @Value("${megaticket.order.group-commit.window-ms:2}") long windowMillis,
+            @Value("${megaticket.order.group-commit.max-size:200}") int maxSize,
+            @Value("${megaticket.order.group-commit.threads:4}") int threads,
+            @Value("${megaticket.order.group-commit.timeout-ms:5000}") long timeoutMillis) {
+        this.orderMapper = orderMapper;
+        this.orderShards = orderShards;
+        this.windowMillis = windowMillis;
+        this.maxSize = maxSize;
+        this.timeoutMillis = timeoutMillis;
+        this.executor = Executors.newScheduledThreadPool(threads, r -> new Thread(r, "order-group-commit"));
+    }
+
+    /**
+     * 停机: 提交正在攒的批次并等待已提交的批次写完，否则这些订单的调用方会一直等到超时
+     */
+    @PreDestroy
+    public void shutdown() {
+        Batch last;
+        synchronized (this) {
+            closed = true;
+            last = current;
+            current = null;
+        }
+        if (last != null) {
+            executor.execute(() -> run(last));
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                log.warn("订单批量写入停机超时, pending={}", pending.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 写入一个订单，等待所在批次提交完成
+     *
+     * @param order 订单
+     * @return 是否写入成功
+     * @throws TimeoutException 等待超过 timeout-ms，订单仍在写入中（写入完成前 {@link #isPending} 为 true）
+     */
+    public boolean insert(Order order) throws TimeoutException {
+        WriteRequest request = new WriteRequest(order);
+        pending.add(order.getId());
+        // 写入完成（而不是等待结束）时才移出，超时后回查仍返回 UNKNOWN
+        request.result.whenComplete((written, e) -> pending.remove(order.getId()));
+        Batch full = null;
+        boolean direct;
+
+        // 加入当前批次；新批次开启窗口定时，凑满则立即提交；停机后不再攒批
+        synchronized (this) {
+            direct = closed;
+            if (!direct) {
+                if (current == null) {
+                    Batch created = new Batch();
+                    executor.schedule(() -> flush(created), windowMillis, TimeUnit.MILLISECONDS);
+                    current = created;
+                }
+                current.requests.add(request);
+                if (current.requests.size() >= maxSize) {
+                    full = current;
+                    current = null;
+                }
+            }
+        }
+        if (direct) {
+            orderShards.onShard(orderShards.shardOfUser(order.getUserId()), () -> write(List.of(request)));
+        } else if (full != null) {
+            Batch batch = full;
+            executor.execute(() -> run(batch));
+        }
+
+        try {
+            return request.result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TimeoutException("等待订单写入被中断, orderId=" + order.getId());
+        } catch (ExecutionException e) {
+            // write 只以 true / false 完成，不会异常完成
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * 订单是否正在写入（已提交给批次，尚未提交到数据库）
+     */
+    public boolean isPending(Long orderId) {
+        return pending.contains(orderId);
+    }
+
+    /**
+     * 窗口到期：批次仍未被提交时由这里提交
+     */
+    private void flush(Batch batch) {
+        synchronized (this) {
+            if (current != batch) {
+                return;
+            }
+            current = null;
+        }
+        run(batch);
+    }
+
+    private void run(Batch batch) {
+        // 开启分表时同一批次的订单按用户所在的分表分组，每张分表一条 INSERT
+        Map<Integer, List<WriteRequest>> byShard = new HashMap<>();
+        for (WriteRequest request : batch.requests) {
+            byShard.computeIfAbsent(orderShards.shardOfUser(request.order.getUserId()), k -> new ArrayList<>()).add(request);
+        }
+        byShard.forEach((shard, requests) -> orderShards.onShard(shard, () -> write(requests)));
+    }
+
+    private void write(List<WriteRequest> requests) {
+        List<Order> orders = new ArrayList<>(requests.size());
+        for (WriteRequest request : requests) {
+            orders.add(request.order);
+        }
+
+        // 1. 整批一条多行 INSERT
+        try {
+            orderMapper.insertBatchSomeColumn(orders);
+            requests.forEach(request -> request.result.complete(true));
+            log.debug("批量写入订单完成, orders={}", orders.size());
+            return;
+        } catch (Exception e) {
+            log.warn("批量写入订单失败，逐个重试, orders={}", orders.size(), e);
+        }
+
+        // 2. 整批失败时逐个写入，只有出错的订单失败
+        for (WriteRequest request : requests) {
+            try {
+                orderMapper.insert(request.order);
+                request.result.complete(true);
+            } catch (Exception e) {
+                log.error("写入订单失败, orderId={}", request.order.getId(), e);
+                request.result.complete(false);
+            }
+        }
+    }
+
+    /**
+     * 一次攒批，requests 只在 synchronized (this) 内追加，提交后不再修改
+     */
+    private static final class Batch {
+
+        private final List<WriteRequest> requests = new ArrayList<>();
+    }
+
+    private static final class WriteRequest {
+
+        private final Order order;
+        private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+        private WriteRequest(Order order) {
+            this.order = order;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.megaticket.order.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.megaticket.common.constant.RedisKeyConstant;
+import com.megaticket.order.dto.OrderPage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 用户订单列表首页缓存
+ * 打开订单列表时绝大多数请求只看第一页，首页缓存在 Redis 中（见 RedisKeyConstant#ORDER_LIST_PREFIX），
+ * 用户下单、取消、支付后删除；删除与并发的查询交错时可能写回旧的首页，由较短的过期时间兜底
+ * Redis 不可用时直接查询数据库，不影响订单列表
+ *
+ * 配置项:
+ *   megaticket.order.list-cache.enabled 是否开启, 默认 true
+ *   megaticket.order.list-cache.ttl     缓存时间(秒), 默认 60
+ *
+ * @author Yang JunJie
+ * @since 2026/1/19
+ */
+@Slf4j
+@Component
+public class OrderListCache {
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final Duration ttl;
+
+    public OrderListCache(
+            StringRedisTemplate redisTemplate,
+            ObjectMapper objectMapper,
+            @Value("${megaticket.order.list-cache.enabled:true}") boolean enabled,
+            @Value("${megaticket.order.list-cache.ttl:60}") long ttlSeconds) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+    }
+
+    /**
+     * 读取用户订单列表首页
+     *
+     * @return 首页，未缓存时为 null
+     */
+    public OrderPage get(Long userId) {
+        if (!enabled) {
+            return null;
+        }
+        try {
+            String json = redisTemplate.opsForValue().get(key(userId));
+            return json == null ? null : objectMapper.readValue(json, OrderPage.class);
+        } catch (Exception e) {
+            log.warn("读取订单列表缓存失败, userId={}", userId, e);
+            return null;
+        }
+    }
+
+    public void put(Long userId, OrderPage page) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            redisTemplate.opsForValue().set(key(userId), objectMapper.writeValueAsString(page), ttl);
+        } catch (Exception e) {
+            log.warn("写入订单列表缓存失败, userId={}", userId, e);
+        }
+    }
+
+    /**
+     * 用户的订单有变化时删除首页缓存
+     */
+    public void evict(Long userId) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            redisTemplate.delete(key(userId));
+        } catch (Exception e) {
+            // 删除失败时旧的首页最多保留 ttl
+            log.warn("删除订单列表缓存失败, userId={}", userId, e);
+        }
+    }
+
+    private static String key(Long userId) {
+        return RedisKeyConstant.ORDER_LIST_PREFIX + userId;
+    }
+}
@@ -0,0 +1,251 @@
+package com.megaticket.order.service;
+
+import com.megaticket.common.constant.RedisKeyConstant;
+import com.megaticket.common.exception.BusinessException;
+import com.megaticket.common.result.ResultCode;
+import com.megaticket.order.dto.CreateOrderRequest;
+import com.megaticket.order.dto.OrderTicket;
+import com.megaticket.order.entity.Order;
+import com.megaticket.order.shard.OrderShards;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 异步下单流水线
+ * 受理下单请求后立即返回凭证（见 {@link OrderTicket}），锁座 → 写入订单 → 发送超时消息分三个阶段，
+ * 每个阶段在各自的线程池上执行，结果写入 Redis（见 RedisKeyConstant#ORDER_TICKET_PREFIX），客户端轮询查询
+ * 受理速度不再受座位服务、MQ、数据库延迟的影响；锁座阶段队列已满时直接拒绝，避免请求无限堆积
+ *
+ * 凭证ID即预先分配的订单ID，下单成功后可直接查询订单详情
+ * 各阶段的失败处理同同步下单: 锁座失败返回座位服务的错误，之后的阶段失败时释放已锁定的座位
+ *
+ * 默认关闭，配置项:
+ *   megaticket.order.async.enabled         是否开启, 默认 false
+ *   megaticket.order.async.lock-threads    锁座阶段线程数, 默认 32
+ *   megaticket.order.async.persist-threads 写入订单阶段线程数, 默认 16
+ *   megaticket.order.async.timeout-threads 发送超时消息阶段线程数, 默认 8
+ *   megaticket.order.async.queue-capacity  每个阶段的队列长度, 默认 10000
+ *   megaticket.order.async.ticket-ttl      凭证保留时间(秒), 默认 1800
+ *
+ * @author Yang JunJie
+ * @since 2026/1/19
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "megaticket.order.async", name = "enabled", havingValue = "true")
+public class OrderPipeline {
+
+    private static final String FIELD_USER_ID = "userId";
+    private static final String FIELD_STATUS = "status";
+    private static final String FIELD_ORDER_ID = "orderId";
+    private static final String FIELD_CODE = "code";
+    private static final String FIELD_MESSAGE = "message";
+
+    private final OrderService orderService;
+    private final StringRedisTemplate redisTemplate;
+    private final OrderShards orderShards;
+    private final Duration ticketTtl;
+
+    /** 锁座阶段: 队列满时拒绝受理 */
+    private final ThreadPoolExecutor lockStage;
+    /** 写入订单 / 发送超时消息阶段: 队列满时由上一阶段的线程执行，压力传回锁座阶段 */
+    private final ThreadPoolExecutor persistStage;
+    private final ThreadPoolExecutor timeoutStage;
+
+    public OrderPipeline(
+            OrderService orderService,
+            StringRedisTemplate redisTemplate,
+            OrderShards orderShards,
+            @Value("${megaticket.order.async.lock-threads:32}") int lockThreads,
+            @Value("${megaticket.order.async.persist-threads:16}") int persistThreads,
+            @Value("${megaticket.order.async.timeout-threads:8}") int timeoutThreads,
+            @Value("${megaticket.order.async.queue-capacity:10000}") int queueCapacity,
+            @Value("${megaticket.order.async.ticket-ttl:1800}") long ticketTtlSeconds) {
+        this.orderService = orderService;
+        this.redisTemplate = redisTemplate;
+        this.orderShards = orderShards;
+        this.ticketTtl = Duration.ofSeconds(ticketTtlSeconds);
+        this.lockStage = stage("order-lock", lockThreads, queueCapacity, new ThreadPoolExecutor.AbortPolicy());
+        this.persistStage = stage("order-persist", persistThreads, queueCapacity, new ThreadPoolExecutor.CallerRunsPolicy());
+        this.timeoutStage = stage("order-timeout", timeoutThreads, queueCapacity, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        // 依次关闭，已受理的请求在前一阶段完成后仍能进入下一阶段
+        for (ThreadPoolExecutor stage : List.of(lockStage, persistStage, timeoutStage)) {
+            stage.shutdown();
+            stage.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * 受理下单请求
+     *
+     * @param userId  用户ID
+     * @param request 下单请求
+     * @return 下单凭证，状态为 PENDING
+     */
+    public OrderTicket submit(Long userId, CreateOrderRequest request) {
+        // 1. 参数在受理时校验，不合法的请求不发放凭证
+        orderService.checkRequest(userId, request);
+
+        // 2. 预先分配订单ID作为凭证ID，写入 PENDING
+        Long orderId = orderShards.nextOrderId(userId);
+        String ticketId = orderId.toString();
+        Map<String, String> pending = new HashMap<>();
+        pending.put(FIELD_USER_ID, userId.toString());
+        pending.put(FIELD_STATUS, OrderTicket.PENDING);
+        try {
+            save(ticketId, pending);
+        } catch (Exception e) {
+            log.error("写入下单凭证失败, userId={}", userId, e);
+            throw new BusinessException(ResultCode.ORDER_CREATE_FAILED);
+        }
+
+        // 3. 交给流水线，锁座阶段队列已满时拒绝
+        try {
+            CompletableFuture
+                .supplyAsync(() -> orderService.lockSeats(userId, request), lockStage)
+                .thenApplyAsync(lockedAt -> persist(orderId, userId, request, lockedAt), persistStage)
+                .thenAcceptAsync(order -> scheduleTimeout(order, request), timeoutStage)
+                .whenComplete((ignored, e) -> complete(ticketId, orderId, userId, e));
+        } catch (RejectedExecutionException e) {
+            redisTemplate.delete(key(ticketId));
+            log.warn("下单队列已满, userId={}", userId);
+            throw new BusinessException(ResultCode.ORDER_BUSY);
+        }
+
+        OrderTicket ticket = new OrderTicket();
+        ticket.setTicketId(ticketId);
+        ticket.setStatus(OrderTicket.PENDING);
+        return ticket;
+    }
+
+    /**
+     * 查询下单结果
+     *
+     * @param userId   用户ID，只能查询自己的凭证
+     * @param ticketId 凭证ID
+     * @return 下单凭证
+     */
+    public OrderTicket getTicket(Long userId, String ticketId) {
+        Map<Object, Object> fields = redisTemplate.opsForHash().entries(key(ticketId));
+        if (fields.isEmpty()) {
+            throw new BusinessException(ResultCode.ORDER_TICKET_NOT_FOUND);
+        }
+        if (!String.valueOf(userId).equals(fields.get(FIELD_USER_ID))) {
+            throw new BusinessException(ResultCode.FORBIDDEN);
+        }
+
+        OrderTicket ticket = new OrderTicket();
+        ticket.setTicketId(ticketId);
+        ticket.setStatus((String) fields.get(FIELD_STATUS));
+        Object orderId = fields.get(FIELD_ORDER_ID);
+        if (orderId != null) {
+            ticket.setOrderId(Long.valueOf(orderId.toString()));
+        }
+        Object code = fields.get(FIELD_CODE);
+        if (code != null) {
+            ticket.setCode(Integer.valueOf(code.toString()));
+            ticket.setMessage((String) fields.get(FIELD_MESSAGE));
+        }
+        return ticket;
+    }
+
+    /**
+     * 写入订单，失败时释放已锁定的座位
+     */
+    private Order persist(Long orderId, Long userId, CreateOrderRequest request, LocalDateTime lockedAt) {
+        try {
+            Order order = orderService.buildOrder(orderId, userId, request, lockedAt);
+            orderService.persistOrder(order, request);
+            return order;
+        } catch (Exception e) {
+            log.error("写入订单失败, orderId={}", orderId, e);
+            releaseSeats(orderId, request);
+            throw new BusinessException(ResultCode.ORDER_CREATE_FAILED);
+        }
+    }
+
+    /**
+     * 发送订单超时消息，失败时释放已锁定的座位
+     */
+    private void scheduleTimeout(Order order, CreateOrderRequest request) {
+        try {
+            orderService.scheduleTimeout(order, request);
+        } catch (Exception e) {
+            log.error("发送RocketMQ消息失败, orderId={}", order.getId(), e);
+            releaseSeats(order.getId(), request);
+            throw new BusinessException(ResultCode.ORDER_CREATE_FAILED);
+        }
+    }
+
+    private void releaseSeats(Long orderId, CreateOrderRequest request) {
+        try {
+            orderService.releaseSeats(request);
+        } catch (Exception e) {
+            // 释放失败的座位在锁定超时后由座位服务回收
+            log.error("下单失败后释放座位失败, orderId={}", orderId, e);
+        }
+    }
+
+    /**
+     * 流水线结束: 写入下单结果
+     */
+    private void complete(String ticketId, Long orderId, Long userId, Throwable error) {
+        Map<String, String> result = new HashMap<>();
+        if (error == null) {
+            result.put(FIELD_STATUS, OrderTicket.SUCCESS);
+            result.put(FIELD_ORDER_ID, orderId.toString());
+            log.info("订单创建成功, orderId={}, userId={}", orderId, userId);
+        } else {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            ResultCode code = cause instanceof BusinessException e ? e.getResultCode() : ResultCode.ORDER_CREATE_FAILED;
+            if (!(cause instanceof BusinessException)) {
+                log.error("异步下单失败, orderId={}", orderId, cause);
+            }
+            result.put(FIELD_STATUS, OrderTicket.FAILED);
+            result.put(FIELD_CODE, Integer.toString(code.getCode()));
+            result.put(FIELD_MESSAGE, code.getMessage());
+        }
+        try {
+            save(ticketId, result);
+        } catch (Exception e) {
+            // 凭证一直是 PENDING，客户端超时后可按凭证ID（即订单ID）查询订单
+            log.error("写入下单结果失败, ticketId={}", ticketId, e);
+        }
+    }
+
+    private void save(String ticketId, Map<String, String> fields) {
+        String key = key(ticketId);
+        redisTemplate.opsForHash().putAll(key, fields);
+        redisTemplate.expire(key, ticketTtl);
+    }
+
+    private static String key(String ticketId) {
+        return RedisKeyConstant.ORDER_TICKET_PREFIX + ticketId;
+    }
+
+    private static ThreadPoolExecutor stage(String name, int threads, int queueCapacity, RejectedExecutionHandler rejection) {
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), r -> new Thread(r, name), rejection);
+    }
+}
@@ -4,24 +4,38 @@ import cn.hutool.core.util.IdUtil;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.megaticket.common.dto.HeldSeats;
+import com.megaticket.common.dto.OrderDeadline;
+import com.megaticket.common.dto.SeatPosition;
 import com.megaticket.common.exception.BusinessException;
 import com.megaticket.common.result.Result;
 import com.megaticket.common.result.ResultCode;
 import com.megaticket.order.dto.CreateOrderRequest;
+import com.megaticket.order.dto.OrderPage;
+import com.megaticket.order.dto.OrderSummary;
 import com.megaticket.order.entity.Order;
 import com.megaticket.order.feign.SeatServiceClient;
 import com.megaticket.order.mapper.OrderMapper;
+import com.megaticket.order.shard.OrderShards;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.client.producer.LocalTransactionState;
+import org.apache.rocketmq.client.producer.TransactionSendResult;
 import org.apache.rocketmq.spring.core.RocketMQTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
 /**
  * 订单服务类
@@ -37,11 +51,48 @@ public class OrderService {
     private final SeatServiceClient seatServiceClient;
     private final RocketMQTemplate rocketMQTemplate;
     private final ObjectMapper objectMapper;
+    private final OrderShards orderShards;
+    private final OrderListCache orderListCache;
     
     private static final int ORDER_EXPIRE_MINUTES = 15;
+    /** 订单截止时间与座位服务锁定截止时间的最大偏差（秒），重新锁定的座位截止时间至少晚一个锁定周期 */
+    private static final long LEASE_DEADLINE_SLACK_SECONDS = 300;
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final String CURSOR_SEPARATOR = "_";
+    private static final int MAX_EXPIRE_BATCH = 1000;
+    
+    /** 关闭后由任务服务的时间轮关单（megaticket-job 的 megaticket.job.order-expiry.enabled） */
+    @Value("${megaticket.order.timeout-message.enabled:true}")
+    private boolean timeoutMessageEnabled;
     private static final BigDecimal SEAT_PRICE = new BigDecimal("50.00");
     
     public Order createOrder(Long userId, CreateOrderRequest request) {
+        checkRequest(userId, request);
+        
+        LocalDateTime lockedAt = lockSeats(userId, request);
+        
+        Order order = buildOrder(orderShards.nextOrderId(userId), userId, request, lockedAt);
+        
+        try {
+            persistOrder(order, request);
+            scheduleTimeout(order, request);
+            
+            log.info("订单创建成功, orderId={}, userId={}", order.getId(), userId);
+            
+        } catch (Exception e) {
+            log.error("发送RocketMQ消息失败", e);
+            releaseSeats(request);
+            throw new BusinessException(ResultCode.ORDER_CREATE_FAILED);
+        }
+        
+        return order;
+    }
+    
+    /**
+     * 校验下单参数（异步下单在受理时同步校验）
+     */
+    public void checkRequest(Long userId, CreateOrderRequest request) {
         if (userId == null || userId <= 0) {
             throw new BusinessException(ResultCode.UNAUTHORIZED);
         }
@@ -49,18 +100,36 @@ public class OrderService {
         if (request.getScheduleId() == null || request.getSeats() == null || request.getSeats().isEmpty()) {
             throw new BusinessException(ResultCode.PARAM_VALID_ERROR);
         }
-        
-        Result<List<Map<String, Integer>>> lockResult = seatServiceClient.lockSeats(
+    }
+    
+    /**
+     * 下单第一步: 锁定座位
+     *
+     * @return 发起锁座的时间，订单支付截止时间由此计算，不晚于座位服务的锁定截止时间
+     */
+    public LocalDateTime lockSeats(Long userId, CreateOrderRequest request) {
+        LocalDateTime lockedAt = LocalDateTime.now();
+        Result<List<SeatPosition>> lockResult = seatServiceClient.lockSeats(
             request.getScheduleId(), 
+            userId,
             request.getSeats()
         );
         
+        if (lockResult.getCode() == ResultCode.SEAT_HOLD_LIMIT_EXCEEDED.getCode()) {
+            throw new BusinessException(ResultCode.SEAT_HOLD_LIMIT_EXCEEDED);
+        }
         if (lockResult.getCode() != 200) {
             throw new BusinessException(ResultCode.SEAT_ALREADY_LOCKED);
         }
-        
+        return lockedAt;
+    }
+    
+    /**
+     * 构建订单，支付截止时间从锁座时间起算，与座位锁定同时到期（异步下单时写入订单可能晚于锁座）
+     */
+    public Order buildOrder(Long orderId, Long userId, CreateOrderRequest request, LocalDateTime lockedAt) {
         Order order = new Order();
-        order.setId(IdUtil.getSnowflakeNextId());
+        order.setId(orderId);
         order.setUserId(userId);
         order.setScheduleId(request.getScheduleId());
         order.setCinemaId(1L);
@@ -82,47 +151,64 @@ public class OrderService {
         order.setTransactionId(IdUtil.simpleUUID());
         order.setCreateTime(LocalDateTime.now());
         order.setUpdateTime(LocalDateTime.now());
-        order.setExpireTime(LocalDateTime.now().plusMinutes(ORDER_EXPIRE_MINUTES));
+        order.setExpireTime(lockedAt.plusMinutes(ORDER_EXPIRE_MINUTES));
+        return order;
+    }
+    
+    /**
+     * 下单第二步: 发送事务消息，本地事务中写入订单（见 OrderTransactionListener）
+     */
+    public void persistOrder(Order order, CreateOrderRequest request) throws JsonProcessingException {
+        Map<String, Object> msgBody = new HashMap<>();
+        msgBody.put("orderId", order.getId());
+        msgBody.put("scheduleId", order.getScheduleId());
+        msgBody.put("seats", request.getSeats());
+        msgBody.put("expireTime", order.getExpireTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
         
-        try {
-            Map<String, Object> msgBody = new HashMap<>();
-            msgBody.put("orderId", order.getId());
-            msgBody.put("scheduleId", order.getScheduleId());
-            msgBody.put("seats", request.getSeats());
-            
-            org.springframework.messaging.Message<String> message = MessageBuilder
-                .withPayload(objectMapper.writeValueAsString(msgBody))
-                .setHeader("orderId", order.getId().toString())
-                .build();
-            
-            rocketMQTemplate.sendMessageInTransaction(
-                "order-create-topic",
-                message,
-                order
-            );
-            
-            Map<String, Object> delayMsgBody = new HashMap<>();
-            delayMsgBody.put("orderId", order.getId());
-            delayMsgBody.put("scheduleId", order.getScheduleId());
-            delayMsgBody.put("seats", request.getSeats());
-            
-            // 发送延迟消息，15分钟后触发（900000毫秒）
-            rocketMQTemplate.syncSend(
-                "order-timeout-topic",
-                MessageBuilder.withPayload(objectMapper.writeValueAsString(delayMsgBody)).build(),
-                3000,
-                16  // 延迟级别16对应30分钟
-            );
-            
-            log.info("订单创建成功, orderId={}, userId={}", order.getId(), userId);
-            
-        } catch (Exception e) {
-            log.error("发送RocketMQ消息失败", e);
-            seatServiceClient.releaseSeats(request.getScheduleId(), request.getSeats());
-            throw new BusinessException(ResultCode.ORDER_CREATE_FAILED);
+        org.springframework.messaging.Message<String> message = MessageBuilder
+            .withPayload(objectMapper.writeValueAsString(msgBody))
+            .setHeader("orderId", order.getId().toString())
+            .build();
+        
+        TransactionSendResult sendResult = rocketMQTemplate.sendMessageInTransaction(
+            "order-create-topic",
+            message,
+            order
+        );
+        if (sendResult.getLocalTransactionState() != LocalTransactionState.COMMIT_MESSAGE) {
+            throw new IllegalStateException("写入订单失败, orderId=" + order.getId());
+        }
+        orderListCache.evict(order.getUserId());
+    }
+    
+    /**
+     * 下单第三步: 发送订单超时的延迟消息
+     */
+    public void scheduleTimeout(Order order, CreateOrderRequest request) throws JsonProcessingException {
+        // 由任务服务的时间轮按订单创建消息中的 expireTime 关单时不发送延迟消息
+        if (!timeoutMessageEnabled) {
+            return;
         }
         
-        return order;
+        Map<String, Object> delayMsgBody = new HashMap<>();
+        delayMsgBody.put("orderId", order.getId());
+        delayMsgBody.put("scheduleId", order.getScheduleId());
+        delayMsgBody.put("seats", request.getSeats());
+        
+        // 发送延迟消息，15分钟后触发（900000毫秒）
+        rocketMQTemplate.syncSend(
+            "order-timeout-topic",
+            MessageBuilder.withPayload(objectMapper.writeValueAsString(delayMsgBody)).build(),
+            3000,
+            16  // 延迟级别16对应30分钟
+        );
+    }
+    
+    /**
+     * 下单失败时释放已锁定的座位
+     */
+    public void releaseSeats(CreateOrderRequest request) {
+        seatServiceClient.releaseSeats(request.getScheduleId(), request.getSeats());
     }
     
     public Order getOrderDetail(Long userId, Long orderId) {
@@ -130,7 +216,7 @@ public class OrderService {
             throw new BusinessException(ResultCode.PARAM_VALID_ERROR);
         }
         
-        Order order = orderMapper.selectById(orderId);
+        Order order = findOrder(orderId);
         
         if (order == null) {
             throw new BusinessException(ResultCode.ORDER_NOT_FOUND);
@@ -143,16 +229,119 @@ public class OrderService {
         return order;
     }
     
-    public List<Order> getUserOrders(Long userId) {
+    /**
+     * 用户订单列表，按下单时间倒序分页
+     * 以上一页最后一个订单的 (create_time, id) 为游标向后查询，翻页不随页数变慢（需要 (user_id, create_time, id) 索引）
+     * 首页由 OrderListCache 缓存
+     *
+     * @param cursor 上一页返回的 nextCursor，查询首页时为空
+     * @param size   每页订单数
+     */
+    public OrderPage getUserOrders(Long userId, String cursor, int size) {
         if (userId == null || userId <= 0) {
             throw new BusinessException(ResultCode.UNAUTHORIZED);
         }
         
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new BusinessException(ResultCode.PARAM_VALID_ERROR);
+        }
+        
+        boolean firstPage = cursor == null || cursor.isEmpty();
+        if (firstPage && size == DEFAULT_PAGE_SIZE) {
+            OrderPage cached = orderListCache.get(userId);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        
+        // 只查询列表展示的列，多查一条判断是否还有下一页
         QueryWrapper<Order> qw = new QueryWrapper<>();
+        qw.select("id", "schedule_id", "cinema_name", "hall_name", "movie_name", "show_time",
+            "seat_count", "total_price", "status", "create_time", "expire_time");
         qw.eq("user_id", userId);
-        qw.orderByDesc("create_time");
+        if (!firstPage) {
+            LocalDateTime createTime = cursorTime(cursor);
+            Long id = cursorId(cursor);
+            qw.and(w -> w.lt("create_time", createTime)
+                .or(x -> x.eq("create_time", createTime).lt("id", id)));
+        }
+        qw.orderByDesc("create_time", "id");
+        qw.last("LIMIT " + (size + 1));
+        
+        // 同一用户的订单都在同一张分表
+        List<Order> orders = orderShards.onShard(orderShards.shardOfUser(userId), () -> orderMapper.selectList(qw));
+        
+        OrderPage page = new OrderPage();
+        List<OrderSummary> summaries = new ArrayList<>(Math.min(orders.size(), size));
+        for (int i = 0; i < orders.size() && i < size; i++) {
+            summaries.add(OrderSummary.of(orders.get(i)));
+        }
+        page.setOrders(summaries);
+        if (orders.size() > size) {
+            Order last = orders.get(size - 1);
+            page.setNextCursor(last.getCreateTime() + CURSOR_SEPARATOR + last.getId());
+        }
         
-        return orderMapper.selectList(qw);
+        if (firstPage && size == DEFAULT_PAGE_SIZE) {
+            orderListCache.put(userId, page);
+        }
+        return page;
+    }
+    
+    private static LocalDateTime cursorTime(String cursor) {
+        try {
+            return LocalDateTime.parse(cursor.substring(0, cursor.indexOf(CURSOR_SEPARATOR)));
+        } catch (Exception e) {
+            throw new BusinessException(ResultCode.PARAM_VALID_ERROR);
+        }
+    }
+    
+    private static Long cursorId(String cursor) {
+        try {
+            return Long.parseLong(cursor.substring(cursor.indexOf(CURSOR_SEPARATOR) + 1));
+        } catch (Exception e) {
+            throw new BusinessException(ResultCode.PARAM_VALID_ERROR);
+        }
+    }
+    
+    /**
+     * 按订单ID查找订单，分表号取自订单ID；开启分表前的订单依次查找各分表
+     */
+    public Order findOrder(Long orderId) {
+        for (int shard : orderShards.lookupOrder(orderId)) {
+            Order order = orderShards.onShard(shard, () -> orderMapper.selectById(orderId));
+            if (order != null) {
+                return order;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * 订单状态仍为 from 时改为 to（条件更新，与超时关单等并发修改互斥）
+     * 开启分表前的订单以原订单表中的一份为准: 先条件更新原订单表，成功后同步到分表中的副本（尚未迁移时没有副本，
+     * 迁移工具复制后会按原订单表同步状态），两份不会出现一份已支付、一份仍待支付
+     *
+     * @return 是否由本次调用修改了状态
+     */
+    private boolean updateStatus(Order order, int from, int to) {
+        String table = OrderShards.orderTable();
+        LocalDateTime now = LocalDateTime.now();
+        int shard = orderShards.shardOfUser(order.getUserId());
+        if (!orderShards.isEnabled() || orderShards.shardOfOrder(order.getId()) != OrderShards.LEGACY) {
+            return orderShards.onShard(shard, () -> orderMapper.updateStatus(table, order.getId(), from, to, now)) > 0;
+        }
+        
+        // 分表中的副本已不是 from（只更新了副本的历史数据）时以副本为准，不再修改
+        Order copy = orderShards.onShard(shard, () -> orderMapper.selectById(order.getId()));
+        if (copy != null && copy.getStatus() != from) {
+            return false;
+        }
+        if (orderShards.onShard(OrderShards.LEGACY, () -> orderMapper.updateStatus(table, order.getId(), from, to, now)) == 0) {
+            return false;
+        }
+        orderShards.onShard(shard, () -> orderMapper.updateStatus(table, order.getId(), from, to, now));
+        return true;
     }
     
     public void cancelOrder(Long userId, Long orderId) {
@@ -162,17 +351,20 @@ public class OrderService {
             throw new BusinessException(ResultCode.ORDER_STATUS_INVALID);
         }
         
-        order.setStatus(3);
-        order.setUpdateTime(LocalDateTime.now());
-        orderMapper.updateById(order);
+        // 与超时关单 / 支付并发时只有一方成功，失败的一方不释放座位
+        if (!updateStatus(order, 0, 3)) {
+            throw new BusinessException(ResultCode.ORDER_STATUS_INVALID);
+        }
+        orderListCache.evict(userId);
         
         try {
-            List<Map<String, Integer>> seats = objectMapper.readValue(
+            List<SeatPosition> seats = objectMapper.readValue(
                 order.getSeatInfo(), 
-                objectMapper.getTypeFactory().constructCollectionType(List.class, Map.class)
+                objectMapper.getTypeFactory().constructCollectionType(List.class, SeatPosition.class)
             );
             
-            seatServiceClient.releaseSeats(order.getScheduleId(), seats);
+            // 只释放仍由该用户锁定的座位，锁定过期后已被其他用户锁定的座位不受影响
+            seatServiceClient.releaseHeldSeats(order.getScheduleId(), List.of(heldSeats(order, seats)));
             
             log.info("订单取消成功, orderId={}", orderId);
             
@@ -180,4 +372,256 @@ public class OrderService {
             log.error("释放座位失败, orderId={}", orderId, e);
         }
     }
+    
+    /**
+     * 支付成功后标记订单已支付（支付服务回调），重复通知时直接返回
+     */
+    public void markOrderPaid(Long orderId) {
+        if (orderId == null) {
+            throw new BusinessException(ResultCode.PARAM_VALID_ERROR);
+        }
+        
+        Order order = findOrder(orderId);
+        
+        if (order == null) {
+            throw new BusinessException(ResultCode.ORDER_NOT_FOUND);
+        }
+        
+        // 重复通知: 上次回调可能在标记座位售出前失败，再标记一次（按持有人售出是幂等的）
+        if (order.getStatus() == 1) {
+            markSeatsSold(order);
+            return;
+        }
+        
+        if (order.getStatus() != 0) {
+            throw new BusinessException(ResultCode.ORDER_STATUS_INVALID);
+        }
+        
+        // 条件更新: 读取后订单可能已被超时关闭或取消，此时不能改为已支付
+        if (!updateStatus(order, 0, 1)) {
+            Order current = findOrder(orderId);
+            if (current != null && current.getStatus() == 1) {
+                markSeatsSold(order);
+                return;
+            }
+            throw new BusinessException(ResultCode.ORDER_STATUS_INVALID);
+        }
+        orderListCache.evict(order.getUserId());
+        
+        markSeatsSold(order);
+        
+        log.info("订单支付成功, orderId={}", orderId);
+    }
+    
+    /**
+     * 把已支付订单的座位标记为已售出，否则锁定到期后会被回收任务释放
+     * 只售出仍由下单用户锁定的座位；失败时抛出异常，由支付服务重试回调
+     */
+    private void markSeatsSold(Order order) {
+        int seatCount;
+        Integer soldCount;
+        try {
+            List<SeatPosition> seats = objectMapper.readValue(
+                order.getSeatInfo(), 
+                objectMapper.getTypeFactory().constructCollectionType(List.class, SeatPosition.class)
+            );
+            seatCount = seats.size();
+            
+            soldCount = seatServiceClient.markHeldSeatsSold(order.getScheduleId(), List.of(heldSeats(order, seats)))
+                .getData();
+        } catch (Exception e) {
+            log.error("标记座位已售出失败, orderId={}", order.getId(), e);
+            throw new BusinessException(ResultCode.SEAT_SOLD_FAILED);
+        }
+        
+        // 重复通知时座位已售出，售出数为 0；首次售出数不足说明锁定已过期被回收，需人工处理
+        if (soldCount != null && soldCount > 0 && soldCount < seatCount) {
+            log.error("订单座位未全部售出, orderId={}, seatCount={}, soldCount={}",
+                order.getId(), seatCount, soldCount);
+        }
+    }
+    
+    /**
+     * 按订单ID升序列出待支付订单的截止时间，供任务服务重启后恢复时间轮
+     * 各分表分别按ID取前 size 个后合并，结果仍是全局按ID升序的一页
+     *
+     * @param afterId 上一页最后一个订单ID，首页为 0
+     */
+    public List<OrderDeadline> listUnpaid(long afterId, int size) {
+        if (size < 1 || size > MAX_EXPIRE_BATCH) {
+            throw new BusinessException(ResultCode.PARAM_VALID_ERROR);
+        }
+        
+        String table = OrderShards.orderTable();
+        TreeMap<Long, Order> merged = new TreeMap<>();
+        for (int shard : orderShards.allShards()) {
+            // 已迁移的历史订单在分表与原订单表中各有一份，按ID去重
+            List<Order> unpaid = shard == OrderShards.LEGACY && orderShards.isEnabled()
+                ? selectUnpaidLegacy(table, afterId, size)
+                : orderShards.onShard(shard, () -> orderMapper.selectUnpaid(table, afterId, size));
+            unpaid.forEach(order -> merged.putIfAbsent(order.getId(), order));
+        }
+        
+        List<OrderDeadline> deadlines = new ArrayList<>(Math.min(merged.size(), size));
+        for (Order order : merged.values()) {
+            if (deadlines.size() == size) {
+                break;
+            }
+            deadlines.add(new OrderDeadline(order.getId(),
+                order.getExpireTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()));
+        }
+        return deadlines;
+    }
+    
+    /**
+     * 原订单表中 afterId 之后的至少 size 个待支付订单（不足时为全部），跳过分表中的副本已支付或已关闭的订单
+     * 跳过的订单不计入 size，否则本页之后的订单会被漏掉
+     */
+    private List<Order> selectUnpaidLegacy(String table, long afterId, int size) {
+        List<Order> unpaid = new ArrayList<>();
+        long cursor = afterId;
+        while (unpaid.size() < size) {
+            long from = cursor;
+            List<Order> page = orderShards.onShard(OrderShards.LEGACY, () -> orderMapper.selectUnpaid(table, from, size));
+            Set<Long> settled = settledCopies(page);
+            for (Order order : page) {
+                if (!settled.contains(order.getId())) {
+                    unpaid.add(order);
+                }
+            }
+            if (page.size() < size) {
+                break;
+            }
+            cursor = page.get(page.size() - 1).getId();
+        }
+        return unpaid;
+    }
+    
+    /**
+     * 原订单表中仍待支付、但分表中的副本已不是待支付的订单ID（按 userId 定位副本所在的分表）
+     */
+    private Set<Long> settledCopies(List<Order> legacyOrders) {
+        Map<Integer, List<Long>> byShard = new HashMap<>();
+        for (Order order : legacyOrders) {
+            byShard.computeIfAbsent(orderShards.shardOfUser(order.getUserId()), k -> new ArrayList<>()).add(order.getId());
+        }
+        
+        String table = OrderShards.orderTable();
+        Set<Long> settled = new HashSet<>();
+        byShard.forEach((shard, ids) -> settled.addAll(orderShards.onShard(shard, () -> orderMapper.selectSettledIds(table, ids))));
+        return settled;
+    }
+    
+    /**
+     * 超时关单（任务服务调用）
+     * 每张分表一条条件更新，只关闭仍未支付的订单；关闭的订单按场次合并座位，每个场次调用一次座位服务释放
+     * 释放时带上下单用户与订单的锁定截止时间，座位服务只释放该订单的锁定：
+     * 关单时锁定可能已过期，并被其他用户或同一用户重新锁定
+     *
+     * @param orderIds 已到支付截止时间的订单ID
+     * @return 实际关闭的订单数
+     */
+    public int expireOrders(List<Long> orderIds) {
+        if (orderIds == null || orderIds.isEmpty()) {
+            return 0;
+        }
+        
+        if (orderIds.size() > MAX_EXPIRE_BATCH) {
+            throw new BusinessException(ResultCode.PARAM_VALID_ERROR);
+        }
+        
+        // 1. 按所在分表分组；开启分表前的订单以原订单表为准，单独处理
+        Map<Integer, List<Long>> byShard = new HashMap<>();
+        List<Long> legacyIds = new ArrayList<>();
+        for (Long orderId : orderIds) {
+            int shard = orderShards.shardOfOrder(orderId);
+            if (shard == OrderShards.LEGACY && orderShards.isEnabled()) {
+                legacyIds.add(orderId);
+            } else {
+                byShard.computeIfAbsent(shard, k -> new ArrayList<>()).add(orderId);
+            }
+        }
+        
+        // 2. 每张分表一条条件更新
+        String table = OrderShards.orderTable();
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, Order> closed = new HashMap<>();
+        byShard.forEach((shard, ids) ->
+            orderShards.onShard(shard, () -> orderMapper.closeUnpaid(table, ids, now))
+                .forEach(order -> closed.put(order.getId(), order)));
+        closeUnpaidLegacy(legacyIds, now).forEach(order -> closed.put(order.getId(), order));
+        if (closed.isEmpty()) {
+            return 0;
+        }
+        
+        // 3. 按场次合并各订单的座位与下单用户，每个场次释放一次；释放失败的座位在锁定超时后由座位服务回收
+        Map<Long, List<HeldSeats>> seatsBySchedule = new HashMap<>();
+        Set<Long> userIds = new HashSet<>();
+        for (Order order : closed.values()) {
+            userIds.add(order.getUserId());
+            try {
+                List<SeatPosition> seats = objectMapper.readValue(
+                    order.getSeatInfo(),
+                    objectMapper.getTypeFactory().constructCollectionType(List.class, SeatPosition.class)
+                );
+                seatsBySchedule.computeIfAbsent(order.getScheduleId(), k -> new ArrayList<>())
+                    .add(heldSeats(order, seats));
+            } catch (Exception e) {
+                log.error("解析订单座位失败, orderId={}", order.getId(), e);
+            }
+        }
+        seatsBySchedule.forEach((scheduleId, holds) -> {
+            try {
+                seatServiceClient.releaseHeldSeats(scheduleId, holds);
+            } catch (Exception e) {
+                log.error("超时关单释放座位失败, scheduleId={}, orders={}", scheduleId, holds.size(), e);
+            }
+        });
+        userIds.forEach(orderListCache::evict);
+        
+        log.info("超时关单完成, requested={}, closed={}, schedules={}", orderIds.size(), closed.size(), seatsBySchedule.size());
+        return closed.size();
+    }
+    
+    /**
+     * 关闭开启分表前的订单: 先条件更新原订单表（与支付、取消互斥），关闭的订单再同步到分表中的副本
+     * 分表中的副本已支付或已取消（只更新了副本的历史数据）时跳过，不关闭、不释放座位
+     */
+    private List<Order> closeUnpaidLegacy(List<Long> orderIds, LocalDateTime now) {
+        if (orderIds.isEmpty()) {
+            return List.of();
+        }
+        
+        QueryWrapper<Order> qw = new QueryWrapper<>();
+        qw.select("id", "user_id").eq("status", 0).in("id", orderIds);
+        List<Order> unpaid = orderShards.onShard(OrderShards.LEGACY, () -> orderMapper.selectList(qw));
+        Set<Long> settled = settledCopies(unpaid);
+        List<Long> ids = new ArrayList<>();
+        for (Order order : unpaid) {
+            if (!settled.contains(order.getId())) {
+                ids.add(order.getId());
+            }
+        }
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        
+        String table = OrderShards.orderTable();
+        List<Order> closed = orderShards.onShard(OrderShards.LEGACY, () -> orderMapper.closeUnpaid(table, ids, now));
+        Map<Integer, List<Long>> copies = new HashMap<>();
+        for (Order order : closed) {
+            copies.computeIfAbsent(orderShards.shardOfUser(order.getUserId()), k -> new ArrayList<>()).add(order.getId());
+        }
+        copies.forEach((shard, copyIds) -> orderShards.onShard(shard, () -> orderMapper.closeUnpaid(table, copyIds, now)));
+        return closed;
+    }
+    
+    /**
+     * 订单锁定的座位；锁定截止时间取订单支付截止时间加偏差，之后重新锁定的座位截止时间更晚，不会被释放
+     */
+    private static HeldSeats heldSeats(Order order, List<SeatPosition> seats) {
+        Long leaseDeadline = order.getExpireTime() == null ? null
+            : order.getExpireTime().atZone(ZoneId.systemDefault()).toEpochSecond() + LEASE_DEADLINE_SLACK_SECONDS;
+        return new HeldSeats(order.getUserId(), seats, leaseDeadline);
+    }
 }
@@ -0,0 +1,210 @@
+package com.megaticket.order.shard;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.megaticket.common.exception.BusinessException;
+import com.megaticket.common.result.ResultCode;
+import com.megaticket.order.dto.OrderShardMigrationProgress;
+import com.megaticket.order.entity.Order;
+import com.megaticket.order.mapper.OrderMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 订单分表迁移 - 开启分表后把原订单表中的历史订单复制到各分表
+ * 迁移在后台进行，调用方通过进度接口查看:
+ *   先按原订单表的结构创建各分表（已存在时跳过）
+ *   按订单ID升序分页读取 ID 不大于 legacy-max-id 的订单（键集分页，不使用 OFFSET），
+ *   每页按 userId 分组，每张分表一条多行 INSERT；整页写入失败时逐个写入，分表中已存在的订单跳过
+ *   原订单表不删除数据，可重复执行；迁移完成前，按ID查询历史订单时仍可在原订单表中找到
+ *   历史订单的状态以原订单表为准: 每页写入后按原订单表同步副本的状态，之后的状态变更同时写入两份
+ *
+ * 切换步骤: 停止下单 → 设置 megaticket.order.shard.count 与 legacy-max-id（当前最大订单ID）并重启 → 执行迁移
+ * 迁移完成前，用户订单列表中只有开启分表后的订单
+ *
+ * @author Yang JunJie
+ * @since 2026/1/19
+ */
+@Slf4j
+@Service
+public class OrderShardMigrator {
+
+    private static final int PAGE_SIZE = 500; // 每页读取的订单数
+
+    private final OrderMapper orderMapper;
+    private final OrderShards orderShards;
+
+    /** 最近一次迁移，未迁移过时为 null */
+    private final AtomicReference<Run> current = new AtomicReference<>();
+
+    public OrderShardMigrator(OrderMapper orderMapper, OrderShards orderShards) {
+        this.orderMapper = orderMapper;
+        this.orderShards = orderShards;
+    }
+
+    /**
+     * 开始迁移历史订单（后台执行，立即返回）
+     *
+     * @return 迁移进度
+     */
+    public OrderShardMigrationProgress migrate() {
+        // 1. 未开启分表时没有可迁移的目标
+        if (!orderShards.isEnabled()) {
+            throw new BusinessException(ResultCode.PARAM_VALID_ERROR);
+        }
+
+        // 2. 同时只允许一次迁移
+        Run previous = current.get();
+        if (previous != null && previous.running()) {
+            throw new BusinessException(ResultCode.ORDER_SHARD_MIGRATION_RUNNING);
+        }
+        Run run = new Run(orderShards.count());
+        if (!current.compareAndSet(previous, run)) {
+            throw new BusinessException(ResultCode.ORDER_SHARD_MIGRATION_RUNNING);
+        }
+
+        Thread thread = new Thread(() -> {
+            try {
+                createShardTables();
+                copyLegacyOrders(run);
+            } catch (Exception e) {
+                log.error("订单分表迁移失败, cursor={}", run.cursor.get(), e);
+            } finally {
+                run.finishTime = LocalDateTime.now();
+                log.info("订单分表迁移完成, copied={}, skipped={}, failed={}",
+                    run.copied.get(), run.skipped.get(), run.failed.get());
+            }
+        }, "order-shard-migrate");
+        thread.start();
+
+        log.info("开始订单分表迁移, shards={}, legacyMaxId={}", orderShards.count(), orderShards.legacyMaxId());
+        return run.progress();
+    }
+
+    /**
+     * 查询最近一次迁移的进度
+     *
+     * @return 迁移进度，未迁移过时为 null
+     */
+    public OrderShardMigrationProgress getProgress() {
+        Run run = current.get();
+        return run == null ? null : run.progress();
+    }
+
+    private void createShardTables() {
+        String table = OrderShards.orderTable();
+        for (int shard = 0; shard < orderShards.count(); shard++) {
+            orderMapper.createShardTable(table, OrderShards.physicalTable(table, shard));
+        }
+    }
+
+    /**
+     * 按订单ID升序逐页复制，每页按用户所在的分表分组写入
+     */
+    private void copyLegacyOrders(Run run) {
+        while (true) {
+            long cursor = run.cursor.get();
+            QueryWrapper<Order> qw = new QueryWrapper<>();
+            qw.gt("id", cursor)
+              .le("id", orderShards.legacyMaxId())
+              .orderByAsc("id")
+              .last("LIMIT " + PAGE_SIZE);
+            List<Order> page = orderShards.onShard(OrderShards.LEGACY, () -> orderMapper.selectList(qw));
+            if (page.isEmpty()) {
+                return;
+            }
+
+            Map<Integer, List<Order>> byShard = new HashMap<>();
+            for (Order order : page) {
+                byShard.computeIfAbsent(orderShards.shardOfUser(order.getUserId()), k -> new ArrayList<>()).add(order);
+            }
+            byShard.forEach((shard, orders) -> {
+                orderShards.onShard(shard, () -> copy(orders, run));
+                syncStatus(shard, orders);
+            });
+
+            run.cursor.set(page.get(page.size() - 1).getId());
+            log.info("订单分表迁移进度, cursor={}, copied={}", run.cursor.get(), run.copied.get());
+        }
+    }
+
+    private void copy(List<Order> orders, Run run) {
+        // 1. 整页一条多行 INSERT
+        try {
+            orderMapper.insertBatchSomeColumn(orders);
+            run.copied.addAndGet(orders.size());
+            return;
+        } catch (Exception e) {
+            log.debug("批量复制订单失败，逐个复制, orders={}", orders.size(), e);
+        }
+
+        // 2. 逐个写入，重复执行时分表中已存在的订单跳过
+        for (Order order : orders) {
+            try {
+                orderMapper.insert(order);
+                run.copied.incrementAndGet();
+            } catch (DuplicateKeyException e) {
+                run.skipped.incrementAndGet();
+            } catch (Exception e) {
+                log.error("复制订单失败, orderId={}", order.getId(), e);
+                run.failed.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 复制后按原订单表同步副本的状态: 读取本页后、写入分表前被支付 / 取消 / 关闭的订单，副本中仍是读取时的待支付
+     * 复制之后的状态变更由订单服务同时写入两份（见 OrderService#updateStatus）
+     */
+    private void syncStatus(int shard, List<Order> orders) {
+        String table = OrderShards.orderTable();
+        List<Long> ids = orders.stream().map(Order::getId).toList();
+        int synced = orderMapper.syncStatus(table, OrderShards.physicalTable(table, shard), ids);
+        if (synced > 0) {
+            log.info("同步订单副本状态, shard={}, orders={}", shard, synced);
+        }
+    }
+
+    /**
+     * 一次迁移的进度计数
+     */
+    private static final class Run {
+
+        private final int shards;
+        private final AtomicLong copied = new AtomicLong();
+        private final AtomicLong skipped = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong cursor = new AtomicLong();
+        private final LocalDateTime startTime = LocalDateTime.now();
+        private volatile LocalDateTime finishTime;
+
+        private Run(int shards) {
+            this.shards = shards;
+        }
+
+        private boolean running() {
+            return finishTime == null;
+        }
+
+        private OrderShardMigrationProgress progress() {
+            OrderShardMigrationProgress progress = new OrderShardMigrationProgress();
+            progress.setRunning(running());
+            progress.setShards(shards);
+            progress.setCopied(copied.get());
+            progress.setSkipped(skipped.get());
+            progress.setFailed(failed.get());
+            progress.setCursor(cursor.get());
+            progress.setStartTime(startTime);
+            progress.setFinishTime(finishTime);
+            return progress;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.megaticket.order.shard;
+
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.megaticket.common.util.IdGenerator;
+import com.megaticket.order.entity.Order;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 订单分表路由
+ * 订单按 userId 散列到 count 张物理表（订单表名_0 ~ 订单表名_{count-1}），同一用户的订单都在同一张表:
+ *   订单ID的低位即为分表号（见 {@link #nextOrderId}），按订单ID查询时直接定位，不需要映射表
+ *   按用户查询订单列表只查一张表
+ * 调用方在 {@link #onShard} 中访问 OrderMapper，SQL 中的订单表名由 MyBatis-Plus 动态表名插件替换为物理表名
+ * （见 MybatisPlusConfig），不在 onShard 中的访问仍落在原订单表
+ *
+ * 订单ID布局同 Snowflake: 时间戳(41) | 数据中心(5) | 机器(5) | 序列号(12)，序列号的低 shardBits 位为分表号，
+ * 因此每台机器每毫秒可生成的订单ID数为 2^(12 - shardBits)
+ *
+ * 开启分表前的订单（ID 不大于 legacy-max-id）的ID中没有分表号，由迁移工具按 userId 复制到各分表后
+ * 按ID查询时逐个分表查找，都没有时再查原订单表（见 OrderShardMigrator）
+ *
+ * 配置项:
+ *   megaticket.order.shard.count         分表数, 2 的幂, 最多 64, 默认 1（不分表，使用原订单表）
+ *   megaticket.order.shard.legacy-max-id 开启分表前的最大订单ID, 默认 0（没有历史订单）
+ *
+ * @author Yang JunJie
+ * @since 2026/1/19
+ */
+@Slf4j
+@Component
+public class OrderShards {
+
+    /** 不分表: 使用原订单表 */
+    public static final int LEGACY = -1;
+    private static final int MAX_SHARDS = 64;
+    /** Hutool Snowflake 的起始时间，与其他服务生成的ID保持同一时间轴 */
+    private static final long EPOCH = 1288834974657L;
+    private static final int SEQUENCE_BITS = 12;
+    /** Fibonacci 散列的乘数，userId 的低位分布不均（Snowflake 低位多为 0） */
+    private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+
+    /** 当前线程访问的分表，为 null 时不替换表名 */
+    private static final ThreadLocal<Integer> ROUTE = new ThreadLocal<>();
+
+    private final IdGenerator idGenerator;
+    private final int count;
+    private final int shardBits;
+    private final long legacyMaxId;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private long lastTimestamp = -1;
+    private long sequence;
+
+    public OrderShards(
+            IdGenerator idGenerator,
+            @Value("${megaticket.order.shard.count:1}") int count,
+            @Value("${megaticket.order.shard.legacy-max-id:0}") long legacyMaxId) {
+        if (count < 1 || count > MAX_SHARDS || Integer.bitCount(count) != 1) {
+            throw new IllegalArgumentException("megaticket.order.shard.count 必须是不大于 " + MAX_SHARDS + " 的 2 的幂: " + count);
+        }
+        this.idGenerator = idGenerator;
+        this.count = count;
+        this.shardBits = Integer.numberOfTrailingZeros(count);
+        this.legacyMaxId = legacyMaxId;
+        log.info("订单分表数: {}, legacyMaxId={}", count, legacyMaxId);
+    }
+
+    public boolean isEnabled() {
+        return count > 1;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public long legacyMaxId() {
+        return legacyMaxId;
+    }
+
+    /**
+     * 用户订单所在的分表，不分表时为 LEGACY
+     */
+    public int shardOfUser(Long userId) {
+        if (!isEnabled()) {
+            return LEGACY;
+        }
+        return (int) ((userId * GOLDEN_RATIO) >>> (Long.SIZE - shardBits));
+    }
+
+    /**
+     * 订单所在的分表，取自订单ID的低位；不分表或开启分表前的订单为 LEGACY
+     */
+    public int shardOfOrder(Long orderId) {
+        if (!isEnabled() || orderId <= legacyMaxId) {
+            return LEGACY;
+        }
+        return (int) (orderId & (count - 1));
+    }
+
+    /**
+     * 按ID查找订单时依次查询的分表: 新订单只有所在的分表，开启分表前的订单依次查询各分表与原订单表
+     */
+    public List<Integer> lookupOrder(Long orderId) {
+        int shard = shardOfOrder(orderId);
+        if (shard != LEGACY || !isEnabled()) {
+            return List.of(shard);
+        }
+        return allShards();
+    }
+
+    /**
+     * 扫描全部订单时依次查询的分表: 各分表与原订单表；不分表时只有原订单表
+     */
+    public List<Integer> allShards() {
+        if (!isEnabled()) {
+            return List.of(LEGACY);
+        }
+        List<Integer> shards = new ArrayList<>(count + 1);
+        for (int i = 0; i < count; i++) {
+            shards.add(i);
+        }
+        shards.add(LEGACY);
+        return shards;
+    }
+
+    /**
+     * 生成订单ID，低位为用户所在的分表号；不分表时同 IdGenerator#nextId
+     */
+    public long nextOrderId(Long userId) {
+        if (!isEnabled()) {
+            return idGenerator.nextId();
+        }
+        long shard = shardOfUser(userId);
+        long sequenceMask = (1L << (SEQUENCE_BITS - shardBits)) - 1;
+        lock.lock();
+        try {
+            long timestamp = System.currentTimeMillis();
+            if (timestamp < lastTimestamp) {
+                // 时钟回拨时沿用上次的时间戳，序列号继续递增
+                timestamp = lastTimestamp;
+            }
+            if (timestamp == lastTimestamp) {
+                sequence = (sequence + 1) & sequenceMask;
+                if (sequence == 0) {
+                    timestamp = waitNextMillis(lastTimestamp);
+                }
+            } else {
+                sequence = 0;
+            }
+            lastTimestamp = timestamp;
+            return ((timestamp - EPOCH) << 22)
+                | (idGenerator.getDatacenterId() << 17)
+                | (idGenerator.getWorkerId() << 12)
+                | (sequence << shardBits)
+                | shard;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 在指定分表上执行，LEGACY 为原订单表
+     */
+    public <T> T onShard(int shard, Supplier<T> action) {
+        Integer previous = ROUTE.get();
+        ROUTE.set(shard);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                ROUTE.remove();
+            } else {
+                ROUTE.set(previous);
+            }
+        }
+    }
+
+    public void onShard(int shard, Runnable action) {
+        onShard(shard, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * 动态表名: 在 onShard 中访问订单表时替换为物理表名，其他表不变
+     */
+    public static String tableName(String tableName) {
+        Integer shard = ROUTE.get();
+        if (shard == null || shard == LEGACY || !tableName.equalsIgnoreCase(orderTable())) {
+            return tableName;
+        }
+        return physicalTable(tableName, shard);
+    }
+
+    /**
+     * 原订单表名
+     */
+    public static String orderTable() {
+        return TableInfoHelper.getTableInfo(Order.class).getTableName();
+    }
+
+    static String physicalTable(String tableName, int shard) {
+        return tableName + "_" + shard;
+    }
+
+    private static long waitNextMillis(long lastTimestamp) {
+        long timestamp = System.currentTimeMillis();
+        while (timestamp <= lastTimestamp) {
+            Thread.onSpinWait();
+            timestamp = System.currentTimeMillis();
+        }
+        return timestamp;
+    }
+}
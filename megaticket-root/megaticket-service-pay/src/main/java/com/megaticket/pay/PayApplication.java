@@ -1,10 +1,13 @@
 package com.megaticket.pay;
 
+import com.megaticket.common.config.VirtualThreadConfig;
+import com.megaticket.common.util.IdGenerator;
 import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.context.annotation.Import;
 
 /**
  * 支付服务启动类
@@ -15,6 +18,7 @@ import org.springframework.cloud.openfeign.EnableFeignClients;
 @EnableDiscoveryClient
 @EnableFeignClients
 @MapperScan("com.megaticket.pay.mapper")
+@Import({VirtualThreadConfig.class, IdGenerator.class})
 public class PayApplication {
     public static void main(String[] args) {
         SpringApplication.run(PayApplication.class, args);
@@ -10,7 +10,7 @@ import org.springframework.web.bind.annotation.PostMapping;
  * @author Yang JunJie
  * @since 2026/1/19
  */
-@FeignClient(name = "megaticket-service-order", path = "/api/v1/order")
+@FeignClient(name = "megaticket-service-order", path = "/internal/v1/order")
 public interface OrderServiceClient {
     
     @PostMapping("/{orderId}/paid")
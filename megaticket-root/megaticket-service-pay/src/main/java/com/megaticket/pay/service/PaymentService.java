@@ -3,6 +3,7 @@ package com.megaticket.pay.service;
 import cn.hutool.core.util.IdUtil;
 import com.megaticket.common.exception.BusinessException;
 import com.megaticket.common.result.ResultCode;
+import com.megaticket.common.util.IdGenerator;
 import com.megaticket.pay.dto.PaymentCallbackRequest;
 import com.megaticket.pay.dto.PaymentRequest;
 import com.megaticket.pay.entity.Payment;
@@ -27,6 +28,7 @@ public class PaymentService {
     
     private final PaymentMapper paymentMapper;
     private final OrderServiceClient orderServiceClient;
+    private final IdGenerator idGenerator;
     
     public Payment createPayment(Long userId, PaymentRequest request) {
         if (userId == null || request.getOrderId() == null) {
@@ -34,7 +36,7 @@ public class PaymentService {
         }
         
         Payment payment = new Payment();
-        payment.setId(IdUtil.getSnowflakeNextId());
+        payment.setId(idGenerator.nextId());
         payment.setOrderId(request.getOrderId());
         payment.setUserId(userId);
         payment.setAmount(new BigDecimal("100.00"));
@@ -0,0 +1,190 @@
+package com.megaticket.seat.codec;
+
+/**
+ * 座位图二进制编码
+ * 用于 /api/v1/seat/status 的紧凑响应，每个座位 2 bit，避免 JSON 与装箱 Integer 的开销
+ *
+ * 格式 (大端):
+ *   偏移  长度  字段
+ *   0     2     魔数 "SM" (0x534D)
+ *   2     1     格式版本 (2)
+ *   3     1     每个座位的位数 (2)
+ *   4     2     起始行
+ *   6     2     行数
+ *   8     2     起始列
+ *   10    2     列数
+ *   12    8     座位图版本号 (可作为下一次增量查询的 sinceVersion)
+ *   20    ...   座位状态，行优先，每个座位 2 bit，高位在前，末尾补 0 到整字节
+ *
+ * 座位状态: 0=可选, 1=已锁定, 2=已售出, 3=不可售（过道/不可售座位/影厅范围外）
+ * 第 i 个座位 (i = (row - rowStart) * 列数 + (col - colStart)) 位于 body[i / 4] 的 (6 - 2 * (i % 4)) 位
+ *
+ * @author Yang JunJie
+ * @since 2026/1/14
+ */
+public final class SeatMapCodec {
+
+    /** 二进制响应类型 */
+    public static final String MEDIA_TYPE = "application/octet-stream";
+    /** 魔数 "SM" */
+    public static final short MAGIC = 0x534D;
+    /** 格式版本 */
+    public static final byte FORMAT_VERSION = 2;
+    /** 每个座位位数 */
+    public static final byte BITS_PER_SEAT = 2;
+    /** 头部长度 */
+    public static final int HEADER_BYTES = 20;
+
+    private SeatMapCodec() {
+    }
+
+    /**
+     * 按座位读取状态
+     */
+    @FunctionalInterface
+    public interface SeatStatusReader {
+        int status(int row, int col);
+    }
+
+    /**
+     * 逐个座位读取状态并编码
+     *
+     * @param rowStart 起始行
+     * @param rowEnd   结束行
+     * @param colStart 起始列
+     * @param colEnd   结束列
+     * @param version  座位图版本号
+     * @param reader   座位状态读取
+     * @return 编码后的座位图
+     */
+    public static byte[] encode(int rowStart, int rowEnd, int colStart, int colEnd, long version, SeatStatusReader reader) {
+        int rows = rowEnd - rowStart + 1;
+        int cols = colEnd - colStart + 1;
+        byte[] out = allocate(rowStart, rows, colStart, cols, version);
+
+        int i = 0;
+        for (int row = rowStart; row <= rowEnd; row++) {
+            for (int col = colStart; col <= colEnd; col++) {
+                put(out, i++, reader.status(row, col));
+            }
+        }
+        return out;
+    }
+
+    /**
+     * 直接从 2 bit 位图编码（与 Redis Bitfield 的位序一致）
+     * 请求的列范围覆盖整行时直接拷贝字节，否则按位截取
+     *
+     * @param source         位图，从 sourceFirstRow 行开始，每行 sourceStride 个座位
+     * @param sourceFirstRow 位图中第一行的行号
+     * @param sourceStride   位图每行座位数
+     * @param rowStart       起始行
+     * @param rowEnd         结束行
+     * @param colStart       起始列
+     * @param colEnd         结束列
+     * @param version        座位图版本号
+     * @return 编码后的座位图
+     */
+    public static byte[] encode(byte[] source, int sourceFirstRow, int sourceStride,
+                                int rowStart, int rowEnd, int colStart, int colEnd, long version) {
+        int rows = rowEnd - rowStart + 1;
+        int cols = colEnd - colStart + 1;
+        byte[] out = allocate(rowStart, rows, colStart, cols, version);
+
+        int firstSeat = (rowStart - sourceFirstRow) * sourceStride;
+        if (colStart == 1 && cols == sourceStride && (firstSeat & 3) == 0) {
+            // 整行且按字节对齐，直接拷贝
+            int from = firstSeat >> 2;
+            int length = Math.min(out.length - HEADER_BYTES, Math.max(0, source.length - from));
+            System.arraycopy(source, from, out, HEADER_BYTES, length);
+            return out;
+        }
+
+        int i = 0;
+        for (int row = rowStart; row <= rowEnd; row++) {
+            int base = (row - sourceFirstRow) * sourceStride - 1;
+            for (int col = colStart; col <= colEnd; col++) {
+                put(out, i++, get(source, base + col));
+            }
+        }
+        return out;
+    }
+
+    /**
+     * 座位图缩略图: 每个座位 1 bit，1=可选，行优先，高位在前，末尾补 0 到整字节
+     * 第 i 个座位 (i = (row - 1) * cols + (col - 1)) 位于 out[i / 8] 的 (7 - i % 8) 位
+     * 用于列表页的场次概览，不区分已锁定 / 已售出 / 不可售
+     *
+     * @param rows   行数
+     * @param cols   列数
+     * @param reader 座位状态读取
+     * @return 缩略图
+     */
+    public static byte[] thumbnail(int rows, int cols, SeatStatusReader reader) {
+        byte[] out = new byte[(rows * cols + 7) / 8];
+        int i = 0;
+        for (int row = 1; row <= rows; row++) {
+            for (int col = 1; col <= cols; col++, i++) {
+                if (reader.status(row, col) == 0) {
+                    out[i >> 3] |= (byte) (0x80 >>> (i & 7));
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * 读取 2 bit 位图中第 index 个座位的状态，超出位图长度视为 0
+     */
+    public static int get(byte[] bitmap, int index) {
+        int pos = index >> 2;
+        if (pos >= bitmap.length) {
+            return 0;
+        }
+        return (bitmap[pos] >> (6 - ((index & 3) << 1))) & 0b11;
+    }
+
+    /**
+     * 清除 2 bit 位图中第 index 个座位的状态
+     */
+    public static void clear(byte[] bitmap, int index) {
+        int pos = index >> 2;
+        if (pos < bitmap.length) {
+            bitmap[pos] &= (byte) ~(0b11 << (6 - ((index & 3) << 1)));
+        }
+    }
+
+    /**
+     * 设置 2 bit 位图中第 index 个座位的状态
+     */
+    public static void set(byte[] bitmap, int index, int status) {
+        int shift = 6 - ((index & 3) << 1);
+        int pos = index >> 2;
+        bitmap[pos] = (byte) ((bitmap[pos] & ~(0b11 << shift)) | ((status & 0b11) << shift));
+    }
+
+    private static void put(byte[] out, int index, int status) {
+        out[HEADER_BYTES + (index >> 2)] |= (byte) ((status & 0b11) << (6 - ((index & 3) << 1)));
+    }
+
+    private static byte[] allocate(int rowStart, int rows, int colStart, int cols, long version) {
+        byte[] out = new byte[HEADER_BYTES + (rows * cols * BITS_PER_SEAT + 7) / 8];
+        out[0] = (byte) (MAGIC >> 8);
+        out[1] = (byte) MAGIC;
+        out[2] = FORMAT_VERSION;
+        out[3] = BITS_PER_SEAT;
+        putShort(out, 4, rowStart);
+        putShort(out, 6, rows);
+        putShort(out, 8, colStart);
+        putShort(out, 10, cols);
+        for (int i = 0; i < Long.BYTES; i++) {
+            out[12 + i] = (byte) (version >> (56 - 8 * i));
+        }
+        return out;
+    }
+
+    private static void putShort(byte[] out, int offset, int value) {
+        out[offset] = (byte) (value >> 8);
+        out[offset + 1] = (byte) value;
+    }
+}
@@ -0,0 +1,125 @@
+package com.megaticket.seat.controller;
+
+import com.megaticket.common.dto.SeatPosition;
+import com.megaticket.common.result.Result;
+import com.megaticket.seat.engine.ReactiveRedisSeatEngine;
+import com.megaticket.seat.service.ReactiveSeatService;
+import jakarta.validation.constraints.*;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * 非阻塞锁座控制器
+ * 路径、参数与返回的 Result 同 {@link SeatLockController}，返回 Mono，
+ * 请求线程在发起 Redis 调用后即释放，结果由 Redis 连接的事件循环线程回写
+ * 业务异常仍由全局异常处理转换为 Result
+ *
+ * @author Yang JunJie
+ * @since 2026/1/14
+ */
+@RestController
+@RequestMapping("/api/v1/seat")
+@RequiredArgsConstructor
+@Validated
+@ConditionalOnExpression(ReactiveRedisSeatEngine.ENABLED)
+public class ReactiveSeatLockController {
+
+    private final ReactiveSeatService seatService;
+
+    /**
+     * 锁定座位
+     *
+     * @param scheduleId      场次ID
+     * @param userId          锁座用户ID（网关从登录 Token 中解析），锁定的座位计入该用户的锁座额度，开启额度时必填
+     * @param seatPositions   座位位置列表 [{"row": 1, "col": 1}, {"row": 1, "col": 2}]
+     * @return 锁定成功的座位列表
+     */
+    @PostMapping("/lock")
+    public Mono<Result<List<SeatPosition>>> lockSeats(
+            @RequestParam("scheduleId")
+            @NotNull(message = "场次ID不能为空")
+            @Positive(message = "场次ID必须为正数")
+            Long scheduleId,
+
+            @RequestHeader(value = "X-User-Id", required = false) Long userId,
+
+            @RequestBody
+            @NotNull(message = "座位列表不能为空")
+            List<SeatPosition> seatPositions) {
+
+        return seatService.lockSeats(scheduleId, userId, seatPositions).map(Result::success);
+    }
+
+    /**
+     * 自动选座：锁定同一排连续 count 个最佳座位
+     *
+     * @param scheduleId 场次ID
+     * @param userId     锁座用户ID（网关从登录 Token 中解析），开启锁座额度时必填
+     * @param count      座位数
+     * @return 锁定成功的座位列表
+     */
+    @PostMapping("/lock/best")
+    public Mono<Result<List<SeatPosition>>> lockBestAvailable(
+            @RequestParam("scheduleId")
+            @NotNull(message = "场次ID不能为空")
+            @Positive(message = "场次ID必须为正数")
+            Long scheduleId,
+
+            @RequestHeader(value = "X-User-Id", required = false) Long userId,
+
+            @RequestParam("count")
+            @NotNull(message = "座位数不能为空")
+            @Min(value = 1, message = "座位数至少为1")
+            @Max(value = 10, message = "座位数最多为10")
+            Integer count) {
+
+        return seatService.lockBestAvailable(scheduleId, userId, count).map(Result::success);
+    }
+
+    /**
+     * 释放座位
+     *
+     * @param scheduleId      场次ID
+     * @param seatPositions   座位位置列表
+     * @return 释放成功的座位数量
+     */
+    @PostMapping("/release")
+    public Mono<Result<Integer>> releaseSeats(
+            @RequestParam("scheduleId")
+            @NotNull(message = "场次ID不能为空")
+            @Positive(message = "场次ID必须为正数")
+            Long scheduleId,
+
+            @RequestBody
+            @NotNull(message = "座位列表不能为空")
+            List<SeatPosition> seatPositions) {
+
+        return seatService.releaseSeats(scheduleId, seatPositions).map(Result::success);
+    }
+
+    /**
+     * 标记座位已售出
+     *
+     * @param scheduleId      场次ID
+     * @param seatPositions   座位位置列表
+     * @return 售出的座位数量
+     */
+    @PostMapping("/sold")
+    public Mono<Result<Integer>> markSeatsSold(
+            @RequestParam("scheduleId")
+            @NotNull(message = "场次ID不能为空")
+            @Positive(message = "场次ID必须为正数")
+            Long scheduleId,
+
+            @RequestBody
+            @NotNull(message = "座位列表不能为空")
+            List<SeatPosition> seatPositions) {
+
+        return seatService.markSeatsSold(scheduleId, seatPositions).map(Result::success);
+    }
+}
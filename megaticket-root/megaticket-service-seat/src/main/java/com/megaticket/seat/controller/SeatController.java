@@ -1,19 +1,34 @@
 package com.megaticket.seat.controller;
 
+import com.megaticket.common.dto.HeldSeats;
+import com.megaticket.common.dto.SeatCounters;
 import com.megaticket.common.result.Result;
+import com.megaticket.seat.codec.SeatMapCodec;
+import com.megaticket.seat.dto.SeatMapInitRequest;
+import com.megaticket.seat.dto.SeatMapRebuildProgress;
+import com.megaticket.seat.dto.SeatMapRebuildRequest;
+import com.megaticket.seat.dto.SeatStatusDelta;
+import com.megaticket.seat.dto.SeatSummary;
+import com.megaticket.seat.service.SeatMapRebuilder;
 import com.megaticket.seat.service.SeatService;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.util.Base64;
 import java.util.List;
 import java.util.Map;
 
 /**
  * 座位控制器 - 项目核心 API
  * 提供高并发座位管理接口
+ * 锁座 / 自动选座 / 释放 / 售出接口见 {@link SeatLockController}（非阻塞版本见 {@link ReactiveSeatLockController}），
+ * 按持有人释放不在热点路径上，由本控制器处理
  *
  * @author Yang JunJie
  * @since 2026/1/14
@@ -26,68 +41,57 @@ import java.util.Map;
 public class SeatController {
 
     private final SeatService seatService;
+    private final SeatMapRebuilder seatMapRebuilder;
 
     /**
-     * 锁定座位
+     * 获取场次剩余座位计数（不扫描座位图）
      *
-     * @param scheduleId      场次ID
-     * @param seatPositions   座位位置列表 [{"row": 1, "col": 1}, {"row": 1, "col": 2}]
-     * @return 锁定成功的座位列表
+     * @param scheduleId 场次ID
+     * @return 剩余座位计数
      */
-    @PostMapping("/lock")
-    public Result<List<Map<String, Integer>>> lockSeats(
+    @GetMapping("/counters")
+    public Result<SeatCounters> getSeatCounters(
             @RequestParam("scheduleId")
             @NotNull(message = "场次ID不能为空")
             @Positive(message = "场次ID必须为正数")
-            Long scheduleId,
-
-            @RequestBody
-            @NotNull(message = "座位列表不能为空")
-            List<Map<String, Integer>> seatPositions) {
+            Long scheduleId) {
 
-        return Result.success(seatService.lockSeats(scheduleId, seatPositions));
+        return Result.success(seatService.getSeatCounters(scheduleId));
     }
 
     /**
-     * 释放座位
+     * 批量获取场次剩余座位计数（列表页一次取多个场次）
      *
-     * @param scheduleId      场次ID
-     * @param seatPositions   座位位置列表
-     * @return 释放成功的座位数量
+     * @param scheduleIds 场次ID列表
+     * @return 剩余座位计数，座位图不存在的场次不返回
      */
-    @PostMapping("/release")
-    public Result<Integer> releaseSeats(
-            @RequestParam("scheduleId")
-            @NotNull(message = "场次ID不能为空")
-            @Positive(message = "场次ID必须为正数")
-            Long scheduleId,
-
+    @PostMapping("/counters/batch")
+    public Result<List<SeatCounters>> getSeatCountersBatch(
             @RequestBody
-            @NotNull(message = "座位列表不能为空")
-            List<Map<String, Integer>> seatPositions) {
+            @NotEmpty(message = "场次列表不能为空")
+            @Size(max = 500, message = "单次最多查询500个场次")
+            List<Long> scheduleIds) {
 
-        return Result.success(seatService.releaseSeats(scheduleId, seatPositions));
+        return Result.success(seatService.getSeatCounters(scheduleIds));
     }
 
     /**
-     * 标记座位已售出
+     * 批量获取场次座位概览（列表页一次取一页场次的剩余座位与缩略图）
      *
-     * @param scheduleId      场次ID
-     * @param seatPositions   座位位置列表
-     * @return 售出的座位数量
+     * @param thumbnail   是否返回缩略图，格式见 SeatMapCodec#thumbnail
+     * @param scheduleIds 场次ID列表
+     * @return 座位概览，座位图不存在的场次不返回
      */
-    @PostMapping("/sold")
-    public Result<Integer> markSeatsSold(
-            @RequestParam("scheduleId")
-            @NotNull(message = "场次ID不能为空")
-            @Positive(message = "场次ID必须为正数")
-            Long scheduleId,
+    @PostMapping("/summary/batch")
+    public Result<List<SeatSummary>> getSeatSummaries(
+            @RequestParam(value = "thumbnail", defaultValue = "false") Boolean thumbnail,
 
             @RequestBody
-            @NotNull(message = "座位列表不能为空")
-            List<Map<String, Integer>> seatPositions) {
+            @NotEmpty(message = "场次列表不能为空")
+            @Size(max = 500, message = "单次最多查询500个场次")
+            List<Long> scheduleIds) {
 
-        return Result.success(seatService.markSeatsSold(scheduleId, seatPositions));
+        return Result.success(seatService.getSeatSummaries(scheduleIds, thumbnail));
     }
 
     /**
@@ -100,7 +104,8 @@ public class SeatController {
      * @param colEnd     结束列
      * @return 座位状态图 {row: {col: status}}
      *
-     * 座位状态: 0=可选, 1=已锁定, 2=已售出
+     * 座位状态: 0=可选, 1=已锁定, 2=已售出, 3=不可售
+     * 默认返回 JSON；二进制格式见 getSeatStatusBinary / getSeatStatusBase64
      */
     @GetMapping("/status")
     public Result<Map<Integer, Map<Integer, Integer>>> getSeatStatus(
@@ -135,34 +140,249 @@ public class SeatController {
     }
 
     /**
-     * 初始化场次座位图（用于排期发布时调用）
+     * 获取座位状态图（二进制）
+     * 请求头 Accept: application/octet-stream 时返回，每个座位 2 bit，格式见 SeatMapCodec
+     *
+     * @return 编码后的座位图
+     */
+    @GetMapping(value = "/status", produces = SeatMapCodec.MEDIA_TYPE)
+    public byte[] getSeatStatusBinary(
+            @RequestParam("scheduleId")
+            @NotNull(message = "场次ID不能为空")
+            @Positive(message = "场次ID必须为正数")
+            Long scheduleId,
+
+            @RequestParam(value = "rowStart", defaultValue = "1")
+            @Min(value = 1, message = "起始行至少为1")
+            @Max(value = 50, message = "起始行最多为50")
+            Integer rowStart,
+
+            @RequestParam(value = "rowEnd", defaultValue = "15")
+            @Min(value = 1, message = "结束行至少为1")
+            @Max(value = 50, message = "结束行最多为50")
+            Integer rowEnd,
+
+            @RequestParam(value = "colStart", defaultValue = "1")
+            @Min(value = 1, message = "起始列至少为1")
+            @Max(value = 100, message = "起始列最多为100")
+            Integer colStart,
+
+            @RequestParam(value = "colEnd", defaultValue = "20")
+            @Min(value = 1, message = "结束列至少为1")
+            @Max(value = 100, message = "结束列最多为100")
+            Integer colEnd) {
+
+        return seatService.getSeatStatusBinary(scheduleId, rowStart, rowEnd, colStart, colEnd);
+    }
+
+    /**
+     * 获取座位状态图（二进制的 Base64 形式）
+     * 参数 format=base64 时返回，便于无法处理二进制响应的客户端仍走 Result 包装；
+     * 同时带 sinceVersion 时按增量查询处理（见 getSeatStatusDelta），两个映射不会同时匹配
+     *
+     * @return Base64 编码的座位图
+     */
+    @GetMapping(value = "/status", params = {"format=base64", "!sinceVersion"})
+    public Result<String> getSeatStatusBase64(
+            @RequestParam("scheduleId")
+            @NotNull(message = "场次ID不能为空")
+            @Positive(message = "场次ID必须为正数")
+            Long scheduleId,
+
+            @RequestParam(value = "rowStart", defaultValue = "1")
+            @Min(value = 1, message = "起始行至少为1")
+            @Max(value = 50, message = "起始行最多为50")
+            Integer rowStart,
+
+            @RequestParam(value = "rowEnd", defaultValue = "15")
+            @Min(value = 1, message = "结束行至少为1")
+            @Max(value = 50, message = "结束行最多为50")
+            Integer rowEnd,
+
+            @RequestParam(value = "colStart", defaultValue = "1")
+            @Min(value = 1, message = "起始列至少为1")
+            @Max(value = 100, message = "起始列最多为100")
+            Integer colStart,
+
+            @RequestParam(value = "colEnd", defaultValue = "20")
+            @Min(value = 1, message = "结束列至少为1")
+            @Max(value = 100, message = "结束列最多为100")
+            Integer colEnd) {
+
+        return Result.success(Base64.getEncoder().encodeToString(
+            seatService.getSeatStatusBinary(scheduleId, rowStart, rowEnd, colStart, colEnd)
+        ));
+    }
+
+    /**
+     * 增量获取座位状态
+     * 携带 sinceVersion 参数时返回，只包含该版本之后变化过的座位；
+     * 响应 full=true 表示变更记录已不足，seats 为完整状态，客户端应整体替换。
+     * 响应中的 version 作为下一次请求的 sinceVersion（二进制座位图头部同样带有版本号）
+     *
+     * @param sinceVersion 客户端已持有的座位图版本
+     * @return 座位状态增量
+     */
+    @GetMapping(value = "/status", params = "sinceVersion")
+    public Result<SeatStatusDelta> getSeatStatusDelta(
+            @RequestParam("scheduleId")
+            @NotNull(message = "场次ID不能为空")
+            @Positive(message = "场次ID必须为正数")
+            Long scheduleId,
+
+            @RequestParam("sinceVersion")
+            @NotNull(message = "版本号不能为空")
+            @PositiveOrZero(message = "版本号不能为负数")
+            Long sinceVersion,
+
+            @RequestParam(value = "rowStart", defaultValue = "1")
+            @Min(value = 1, message = "起始行至少为1")
+            @Max(value = 50, message = "起始行最多为50")
+            Integer rowStart,
+
+            @RequestParam(value = "rowEnd", defaultValue = "15")
+            @Min(value = 1, message = "结束行至少为1")
+            @Max(value = 50, message = "结束行最多为50")
+            Integer rowEnd,
+
+            @RequestParam(value = "colStart", defaultValue = "1")
+            @Min(value = 1, message = "起始列至少为1")
+            @Max(value = 100, message = "起始列最多为100")
+            Integer colStart,
+
+            @RequestParam(value = "colEnd", defaultValue = "20")
+            @Min(value = 1, message = "结束列至少为1")
+            @Max(value = 100, message = "结束列最多为100")
+            Integer colEnd) {
+
+        return Result.success(seatService.getSeatStatusDelta(
+            scheduleId, sinceVersion, rowStart, rowEnd, colStart, colEnd
+        ));
+    }
+
+    /**
+     * 订阅座位图变更（Server-Sent Events）
+     * 建立连接后先推送 snapshot 事件，之后每 200 毫秒合并推送一次 delta 事件，数据格式同增量查询
+     *
+     * @param scheduleId 场次ID
+     * @return SSE 连接
+     */
+    @GetMapping(value = "/subscribe", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeSeatStatus(
+            @RequestParam("scheduleId")
+            @NotNull(message = "场次ID不能为空")
+            @Positive(message = "场次ID必须为正数")
+            Long scheduleId) {
+
+        return seatService.subscribeSeatStatus(scheduleId);
+    }
+
+    /**
+     * 初始化场次座位图（用于排期发布时调用，座位布局取自影厅）
      *
      * @param scheduleId 场次ID
-     * @param totalRows  总行数
-     * @param totalCols  总列数
-     * @return 操作结果
+     * @param hallId     影厅ID
+     * @return 新初始化的场次数量（座位图已存在时为 0）
      */
     @PostMapping("/init")
-    public Result<Void> initSeatMap(
+    public Result<Integer> initSeatMap(
+            @RequestParam("scheduleId")
+            @NotNull(message = "场次ID不能为空")
+            @Positive(message = "场次ID必须为正数")
+            Long scheduleId,
+
+            @RequestParam("hallId")
+            @NotNull(message = "影厅ID不能为空")
+            @Positive(message = "影厅ID必须为正数")
+            Long hallId) {
+
+        return Result.success(seatService.initSeatMap(scheduleId, hallId));
+    }
+
+    /**
+     * 按持有人释放座位（订单服务关单 / 取消订单时调用），只释放仍由对应用户锁定的座位
+     *
+     * @param scheduleId 场次ID
+     * @param holds      各用户锁定的座位 [{"userId": 1, "seats": [{"row": 1, "col": 1}], "leaseDeadline": 1768800000}, ...]
+     * @return 释放成功的座位数量
+     */
+    @PostMapping("/release/held")
+    public Result<Integer> releaseHeldSeats(
             @RequestParam("scheduleId")
             @NotNull(message = "场次ID不能为空")
             @Positive(message = "场次ID必须为正数")
             Long scheduleId,
 
-            @RequestParam("totalRows")
-            @NotNull(message = "总行数不能为空")
-            @Min(value = 1, message = "总行数至少为1")
-            @Max(value = 50, message = "总行数最多为50")
-            Integer totalRows,
+            @RequestBody
+            @NotEmpty(message = "座位列表不能为空")
+            @Size(max = 1000, message = "单次最多释放1000个订单的座位")
+            List<HeldSeats> holds) {
 
-            @RequestParam("totalCols")
-            @NotNull(message = "总列数不能为空")
-            @Min(value = 1, message = "总列数至少为1")
-            @Max(value = 100, message = "总列数最多为100")
-            Integer totalCols) {
+        return Result.success(seatService.releaseHeldSeats(scheduleId, holds));
+    }
 
-        seatService.initSeatMap(scheduleId, totalRows, totalCols);
-        return Result.success();
+    /**
+     * 按持有人标记座位已售出（订单支付成功时由订单服务调用），只售出仍由对应用户锁定的座位
+     *
+     * @param scheduleId 场次ID
+     * @param holds      各用户锁定的座位 [{"userId": 1, "seats": [{"row": 1, "col": 1}], "leaseDeadline": 1768800000}, ...]
+     * @return 售出的座位数量
+     */
+    @PostMapping("/sold/held")
+    public Result<Integer> markHeldSeatsSold(
+            @RequestParam("scheduleId")
+            @NotNull(message = "场次ID不能为空")
+            @Positive(message = "场次ID必须为正数")
+            Long scheduleId,
+
+            @RequestBody
+            @NotEmpty(message = "座位列表不能为空")
+            @Size(max = 1000, message = "单次最多售出1000个订单的座位")
+            List<HeldSeats> holds) {
+
+        return Result.success(seatService.markHeldSeatsSold(scheduleId, holds));
+    }
+
+    /**
+     * 批量初始化场次座位图（一次发布多个场次）
+     *
+     * @param requests 场次与影厅列表 [{"scheduleId": 1, "hallId": 1}, ...]
+     * @return 新初始化的场次数量
+     */
+    @PostMapping("/init/batch")
+    public Result<Integer> initSeatMaps(
+            @RequestBody
+            @NotEmpty(message = "场次列表不能为空")
+            @Size(max = 5000, message = "单次最多初始化5000个场次")
+            List<@Valid SeatMapInitRequest> requests) {
+
+        return Result.success(seatService.initSeatMaps(requests));
+    }
+
+    /**
+     * 重建场次座位图（Redis 座位图丢失后从数据库恢复，后台执行）
+     *
+     * @param requests 场次、影厅与放映时间列表 [{"scheduleId": 1, "hallId": 1, "showTime": "2026-01-20T19:30:00"}, ...]
+     * @return 重建进度
+     */
+    @PostMapping("/rebuild")
+    public Result<SeatMapRebuildProgress> rebuildSeatMaps(
+            @RequestBody
+            @NotEmpty(message = "场次列表不能为空")
+            @Size(max = 50000, message = "单次最多重建50000个场次")
+            List<@Valid SeatMapRebuildRequest> requests) {
+
+        return Result.success(seatMapRebuilder.rebuild(requests));
+    }
+
+    /**
+     * 查询最近一次座位图重建的进度
+     *
+     * @return 重建进度，未重建过时为空
+     */
+    @GetMapping("/rebuild/progress")
+    public Result<SeatMapRebuildProgress> getRebuildProgress() {
+        return Result.success(seatMapRebuilder.getProgress());
     }
 
     /**
@@ -0,0 +1,123 @@
+package com.megaticket.seat.controller;
+
+import com.megaticket.common.dto.SeatPosition;
+import com.megaticket.common.result.Result;
+import com.megaticket.seat.engine.ReactiveRedisSeatEngine;
+import com.megaticket.seat.service.SeatService;
+import jakarta.validation.constraints.*;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * 锁座控制器 - 锁座 / 自动选座 / 释放 / 售出
+ * 秒杀时的热点接口，与查询类接口（见 {@link SeatController}）分开，
+ * 开启非阻塞锁座时由 {@link ReactiveSeatLockController} 以相同的路径与参数代替
+ *
+ * @author Yang JunJie
+ * @since 2026/1/14
+ */
+@RestController
+@RequestMapping("/api/v1/seat")
+@RequiredArgsConstructor
+@Validated
+@ConditionalOnExpression(ReactiveRedisSeatEngine.DISABLED)
+public class SeatLockController {
+
+    private final SeatService seatService;
+
+    /**
+     * 锁定座位
+     *
+     * @param scheduleId      场次ID
+     * @param userId          锁座用户ID（网关从登录 Token 中解析），锁定的座位计入该用户的锁座额度，开启额度时必填
+     * @param seatPositions   座位位置列表 [{"row": 1, "col": 1}, {"row": 1, "col": 2}]
+     * @return 锁定成功的座位列表
+     */
+    @PostMapping("/lock")
+    public Result<List<SeatPosition>> lockSeats(
+            @RequestParam("scheduleId")
+            @NotNull(message = "场次ID不能为空")
+            @Positive(message = "场次ID必须为正数")
+            Long scheduleId,
+
+            @RequestHeader(value = "X-User-Id", required = false) Long userId,
+
+            @RequestBody
+            @NotNull(message = "座位列表不能为空")
+            List<SeatPosition> seatPositions) {
+
+        return Result.success(seatService.lockSeats(scheduleId, userId, seatPositions));
+    }
+
+    /**
+     * 自动选座：锁定同一排连续 count 个最佳座位
+     *
+     * @param scheduleId 场次ID
+     * @param userId     锁座用户ID（网关从登录 Token 中解析），开启锁座额度时必填
+     * @param count      座位数
+     * @return 锁定成功的座位列表
+     */
+    @PostMapping("/lock/best")
+    public Result<List<SeatPosition>> lockBestAvailable(
+            @RequestParam("scheduleId")
+            @NotNull(message = "场次ID不能为空")
+            @Positive(message = "场次ID必须为正数")
+            Long scheduleId,
+
+            @RequestHeader(value = "X-User-Id", required = false) Long userId,
+
+            @RequestParam("count")
+            @NotNull(message = "座位数不能为空")
+            @Min(value = 1, message = "座位数至少为1")
+            @Max(value = 10, message = "座位数最多为10")
+            Integer count) {
+
+        return Result.success(seatService.lockBestAvailable(scheduleId, userId, count));
+    }
+
+    /**
+     * 释放座位
+     *
+     * @param scheduleId      场次ID
+     * @param seatPositions   座位位置列表
+     * @return 释放成功的座位数量
+     */
+    @PostMapping("/release")
+    public Result<Integer> releaseSeats(
+            @RequestParam("scheduleId")
+            @NotNull(message = "场次ID不能为空")
+            @Positive(message = "场次ID必须为正数")
+            Long scheduleId,
+
+            @RequestBody
+            @NotNull(message = "座位列表不能为空")
+            List<SeatPosition> seatPositions) {
+
+        return Result.success(seatService.releaseSeats(scheduleId, seatPositions));
+    }
+
+    /**
+     * 标记座位已售出
+     *
+     * @param scheduleId      场次ID
+     * @param seatPositions   座位位置列表
+     * @return 售出的座位数量
+     */
+    @PostMapping("/sold")
+    public Result<Integer> markSeatsSold(
+            @RequestParam("scheduleId")
+            @NotNull(message = "场次ID不能为空")
+            @Positive(message = "场次ID必须为正数")
+            Long scheduleId,
+
+            @RequestBody
+            @NotNull(message = "座位列表不能为空")
+            List<SeatPosition> seatPositions) {
+
+        return Result.success(seatService.markSeatsSold(scheduleId, seatPositions));
+    }
+}
@@ -0,0 +1,24 @@
+package com.megaticket.seat.dto;
+
+import com.megaticket.common.dto.SeatPosition;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 批量锁座中的单个锁座请求
+ *
+ * @author Yang JunJie
+ * @since 2026/1/14
+ */
+@Data
+@AllArgsConstructor
+public class SeatLockRequest {
+
+    /** 锁座用户ID，为 null 时不校验锁座额度 */
+    private Long userId;
+
+    /** 座位位置列表 */
+    private List<SeatPosition> seatPositions;
+}
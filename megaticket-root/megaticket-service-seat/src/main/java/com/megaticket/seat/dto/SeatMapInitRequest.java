@@ -0,0 +1,25 @@
+package com.megaticket.seat.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+/**
+ * 场次座位图初始化请求
+ *
+ * @author Yang JunJie
+ * @since 2026/1/14
+ */
+@Data
+public class SeatMapInitRequest {
+
+    /** 场次ID */
+    @NotNull(message = "场次ID不能为空")
+    @Positive(message = "场次ID必须为正数")
+    private Long scheduleId;
+
+    /** 影厅ID，座位布局取自该影厅 */
+    @NotNull(message = "影厅ID不能为空")
+    @Positive(message = "影厅ID必须为正数")
+    private Long hallId;
+}
@@ -0,0 +1,38 @@
+package com.megaticket.seat.dto;
+
+import com.megaticket.common.dto.SeatPosition;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 场次座位布局（由影厅布局解析而来，座位引擎据此初始化座位图）
+ * 过道与不可售座位都在 disabledSeats 中，初始化后状态为 3（不可售）
+ *
+ * @author Yang JunJie
+ * @since 2026/1/14
+ */
+@Data
+@AllArgsConstructor
+public class SeatMapLayout {
+
+    /** 场次ID */
+    private Long scheduleId;
+
+    /** 行数 */
+    private int totalRows;
+
+    /** 列数 */
+    private int totalCols;
+
+    /** 不可售座位（已去重，均在影厅范围内） */
+    private List<SeatPosition> disabledSeats;
+
+    /**
+     * 可售座位数
+     */
+    public int sellableSeats() {
+        return totalRows * totalCols - disabledSeats.size();
+    }
+}
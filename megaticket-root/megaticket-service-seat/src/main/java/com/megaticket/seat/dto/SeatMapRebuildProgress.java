@@ -0,0 +1,36 @@
+package com.megaticket.seat.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 座位图重建进度
+ *
+ * @author Yang JunJie
+ * @since 2026/1/14
+ */
+@Data
+public class SeatMapRebuildProgress {
+
+    /** 是否仍在进行 */
+    private boolean running;
+
+    /** 场次总数 */
+    private int total;
+
+    /** 已重建的场次数 */
+    private int rebuilt;
+
+    /** 座位图仍存在、未覆盖的场次数 */
+    private int skipped;
+
+    /** 重建失败的场次数 */
+    private int failed;
+
+    /** 开始时间 */
+    private LocalDateTime startTime;
+
+    /** 结束时间，进行中为空 */
+    private LocalDateTime finishTime;
+}
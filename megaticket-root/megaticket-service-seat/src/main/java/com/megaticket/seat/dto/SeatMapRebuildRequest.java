@@ -0,0 +1,30 @@
+package com.megaticket.seat.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 场次座位图重建请求
+ *
+ * @author Yang JunJie
+ * @since 2026/1/14
+ */
+@Data
+public class SeatMapRebuildRequest {
+
+    /** 场次ID */
+    @NotNull(message = "场次ID不能为空")
+    @Positive(message = "场次ID必须为正数")
+    private Long scheduleId;
+
+    /** 影厅ID，座位布局取自该影厅 */
+    @NotNull(message = "影厅ID不能为空")
+    @Positive(message = "影厅ID必须为正数")
+    private Long hallId;
+
+    /** 放映时间，未开场的场次按放映时间先后优先重建；为空时排在最后 */
+    private LocalDateTime showTime;
+}
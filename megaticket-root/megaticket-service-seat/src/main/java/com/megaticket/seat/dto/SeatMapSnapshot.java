@@ -0,0 +1,31 @@
+package com.megaticket.seat.dto;
+
+import com.megaticket.common.dto.SeatPosition;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 场次座位图快照（由影厅布局与已落库的座位状态组成，座位引擎据此重建座位图）
+ *
+ * @author Yang JunJie
+ * @since 2026/1/14
+ */
+@Data
+@AllArgsConstructor
+public class SeatMapSnapshot {
+
+    /** 场次座位布局 */
+    private SeatMapLayout layout;
+
+    /** 已售出的座位 */
+    private List<SeatPosition> soldSeats;
+
+    /** 仍在锁定期内的座位 {座位: 锁定截止时间戳/秒} */
+    private Map<SeatPosition, Long> lockedSeats;
+
+    /** 已落库的最大座位图版本，重建后从该版本继续 */
+    private long version;
+}
@@ -0,0 +1,26 @@
+package com.megaticket.seat.dto;
+
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * 座位状态增量查询结果
+ * full=false 时 seats 只包含 sinceVersion 之后发生变化的座位，客户端合并到本地座位图；
+ * full=true  时变更记录已不足以计算增量，seats 为查询窗口内的完整状态，客户端整体替换
+ *
+ * @author Yang JunJie
+ * @since 2026/1/14
+ */
+@Data
+public class SeatStatusDelta {
+
+    /** 当前座位图版本，下次查询作为 sinceVersion 传入 */
+    private long version;
+
+    /** 是否为完整快照 */
+    private boolean full;
+
+    /** 座位状态 {row: {col: status}} */
+    private Map<Integer, Map<Integer, Integer>> seats;
+}
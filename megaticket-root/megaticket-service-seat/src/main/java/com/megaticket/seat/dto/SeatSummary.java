@@ -0,0 +1,50 @@
+package com.megaticket.seat.dto;
+
+import lombok.Data;
+
+/**
+ * 场次座位概览（列表页批量查询）
+ * 计数同 {@link com.megaticket.common.dto.SeatCounters}，已过期但尚未回收的锁定在回收前仍计入 locked
+ *
+ * @author Yang JunJie
+ * @since 2026/1/14
+ */
+@Data
+public class SeatSummary {
+
+    /** 场次ID */
+    private Long scheduleId;
+
+    /** 可售座位数 */
+    private int seats;
+
+    /** 可选座位数 */
+    private int available;
+
+    /** 已锁定座位数 */
+    private int locked;
+
+    /** 已售出座位数 */
+    private int sold;
+
+    /** 影厅行数 */
+    private int rows;
+
+    /** 影厅列数 */
+    private int cols;
+
+    /** 缩略图，格式见 {@link com.megaticket.seat.codec.SeatMapCodec#thumbnail}，JSON 中为 Base64；未请求时为 null */
+    private byte[] thumbnail;
+
+    public static SeatSummary of(Long scheduleId, int seats, int locked, int sold, int rows, int cols) {
+        SeatSummary summary = new SeatSummary();
+        summary.setScheduleId(scheduleId);
+        summary.setSeats(seats);
+        summary.setAvailable(Math.max(0, seats - locked - sold));
+        summary.setLocked(locked);
+        summary.setSold(sold);
+        summary.setRows(rows);
+        summary.setCols(cols);
+        return summary;
+    }
+}
@@ -0,0 +1,760 @@
+package com.megaticket.seat.engine;
+
+import com.megaticket.common.dto.HeldSeats;
+import com.megaticket.common.dto.SeatCounters;
+import com.megaticket.common.dto.SeatPosition;
+import com.megaticket.common.exception.BusinessException;
+import com.megaticket.common.result.ResultCode;
+import com.megaticket.seat.codec.SeatMapCodec;
+import com.megaticket.seat.dto.SeatMapLayout;
+import com.megaticket.seat.dto.SeatMapSnapshot;
+import com.megaticket.seat.dto.SeatStatusDelta;
+import com.megaticket.seat.dto.SeatSummary;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * 进程内座位引擎
+ * 每个场次的 2 bit 座位矩阵保存在堆外内存中，按 scheduleId 哈希归属到一个单线程分片（事件循环），
+ * 同一场次的所有读写都在该线程串行执行，无需加锁，锁座只是几次内存读写
+ *
+ * 持久化：每次状态变更先追加到分片日志，再修改内存；定期写快照并截断日志，见 {@link SeatJournal}
+ *
+ * 锁座额度：场次内的持有数在分片线程上随锁座维护；全部场次的持有数跨分片，保存在 userHolds 中原子增减。
+ * 持有人不写入日志，重启后恢复的锁定不占用额度
+ *
+ * 适用于按场次路由到固定节点的部署（同一场次的请求必须落在同一座位节点上）
+ * 配置项:
+ *   megaticket.seat.engine=memory
+ *   megaticket.seat.memory.shards                    分片（事件循环）数量, 默认 CPU 核数
+ *   megaticket.seat.memory.data-dir                  快照/日志目录, 默认 data/seat
+ *   megaticket.seat.memory.snapshot-interval-seconds 快照间隔, 默认 60 秒
+ *   megaticket.seat.memory.force-interval-ms         日志刷盘间隔, 默认 0（每条日志写入后刷盘再返回）；
+ *                                                    大于 0 时定期刷盘，机器崩溃最多丢失最近一个间隔内的变更，见 {@link SeatJournal}
+ *   megaticket.seat.hold.*                           锁座额度, 见 {@link SeatEngine}
+ *
+ * @author Yang JunJie
+ * @since 2026/1/14
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "megaticket.seat", name = "engine", havingValue = "memory")
+public class MemorySeatEngine implements SeatEngine {
+
+    private final Shard[] shards;
+    private final long snapshotIntervalSeconds;
+    private final long forceIntervalMillis;
+    private final ScheduledExecutorService snapshotScheduler =
+        Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "seat-snapshot"));
+    private final int maxHoldsPerSchedule;
+    private final int maxHoldsPerUser;
+    /** 各用户在全部场次锁定中的座位数 */
+    private final ConcurrentHashMap<Long, Integer> userHolds = new ConcurrentHashMap<>();
+
+    public MemorySeatEngine(
+            @Value("${megaticket.seat.memory.shards:0}") int shardCount,
+            @Value("${megaticket.seat.memory.data-dir:data/seat}") String dataDir,
+            @Value("${megaticket.seat.memory.snapshot-interval-seconds:60}") long snapshotIntervalSeconds,
+            @Value("${megaticket.seat.memory.force-interval-ms:0}") long forceIntervalMillis,
+            @Value("${megaticket.seat.hold.max-per-schedule:0}") int maxHoldsPerSchedule,
+            @Value("${megaticket.seat.hold.max-per-user:0}") int maxHoldsPerUser) {
+        int count = shardCount > 0 ? shardCount : Runtime.getRuntime().availableProcessors();
+        this.shards = new Shard[count];
+        for (int i = 0; i < count; i++) {
+            shards[i] = new Shard(i, new SeatJournal(Path.of(dataDir), i, forceIntervalMillis));
+        }
+        this.snapshotIntervalSeconds = snapshotIntervalSeconds;
+        this.forceIntervalMillis = forceIntervalMillis;
+        this.maxHoldsPerSchedule = maxHoldsPerSchedule;
+        this.maxHoldsPerUser = maxHoldsPerUser;
+    }
+
+    /**
+     * 启动时在各分片线程上恢复数据，并开启定期快照
+     */
+    @PostConstruct
+    public void init() {
+        List<CompletableFuture<Void>> recoveries = new ArrayList<>();
+        for (Shard shard : shards) {
+            recoveries.add(CompletableFuture.runAsync(shard::recover, shard.loop));
+        }
+        CompletableFuture.allOf(recoveries.toArray(new CompletableFuture[0])).join();
+
+        snapshotScheduler.scheduleWithFixedDelay(this::snapshotAll,
+            snapshotIntervalSeconds, snapshotIntervalSeconds, TimeUnit.SECONDS);
+        if (forceIntervalMillis > 0) {
+            // 刷盘在各分片线程上执行，与日志写入串行
+            snapshotScheduler.scheduleWithFixedDelay(() -> {
+                for (Shard shard : shards) {
+                    shard.loop.execute(shard::flush);
+                }
+            }, forceIntervalMillis, forceIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+        log.info("内存座位引擎启动完成, shards={}", shards.length);
+    }
+
+    /**
+     * 停机前写一次快照，保证下次启动只需加载快照
+     */
+    @PreDestroy
+    public void shutdown() {
+        snapshotScheduler.shutdownNow();
+        snapshotAll();
+        for (Shard shard : shards) {
+            CompletableFuture.runAsync(shard::close, shard.loop).join();
+            shard.loop.shutdown();
+        }
+    }
+
+    @Override
+    public boolean exists(Long scheduleId) {
+        return execute(scheduleId, shard -> shard.matrices.containsKey(scheduleId));
+    }
+
+    @Override
+    public List<SeatPosition> lockSeats(Long scheduleId, Long userId, List<SeatPosition> seatPositions, int timeoutSeconds) {
+        return execute(scheduleId, shard -> {
+            SeatMatrix matrix = shard.matrix(scheduleId);
+            long now = System.currentTimeMillis() / 1000;
+            int[] indices = indices(matrix, seatPositions);
+
+            // 1. 先校验全部座位，任意一个不可选则整体失败
+            for (int index : indices) {
+                int status = matrix.effectiveStatus(index, now);
+                if (status == SeatMatrix.STATUS_SOLD) {
+                    throw new BusinessException(ResultCode.SEAT_SOLD_OUT);
+                }
+                if (status == SeatMatrix.STATUS_LOCKED) {
+                    throw new BusinessException(ResultCode.SEAT_ALREADY_LOCKED);
+                }
+                if (status == SeatMatrix.STATUS_DISABLED) {
+                    throw new BusinessException(ResultCode.SEAT_NOT_FOUND);
+                }
+            }
+
+            // 2. 校验并占用锁座额度
+            reserveHolds(matrix, userId, indices, now);
+
+            // 3. 先写日志再修改内存
+            int deadline = (int) (now + timeoutSeconds);
+            appendLock(shard, scheduleId, userId, deadline, indices);
+            for (int index : indices) {
+                matrix.lock(index, deadline);
+            }
+            hold(matrix, userId, indices);
+            matrix.recordChange(indices, indices.length);
+            return seatPositions;
+        });
+    }
+
+    @Override
+    public List<SeatPosition> lockBestAvailable(Long scheduleId, Long userId, int count, int timeoutSeconds) {
+        return execute(scheduleId, shard -> {
+            SeatMatrix matrix = shard.matrix(scheduleId);
+            long now = System.currentTimeMillis() / 1000;
+
+            // 1. 查找，与锁定在同一分片线程上执行，中间不会被其他请求抢占
+            int first = matrix.findAdjacentFree(count, now);
+            if (first < 0) {
+                throw new BusinessException(ResultCode.SEAT_NOT_ENOUGH_ADJACENT);
+            }
+
+            // 2. 校验并占用锁座额度，先写日志再修改内存
+            int[] indices = new int[count];
+            List<SeatPosition> seats = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                indices[i] = first + i;
+                seats.add(new SeatPosition(first / matrix.getCols() + 1, first % matrix.getCols() + 1 + i));
+            }
+            reserveHolds(matrix, userId, indices, now);
+            int deadline = (int) (now + timeoutSeconds);
+            appendLock(shard, scheduleId, userId, deadline, indices);
+            for (int index : indices) {
+                matrix.lock(index, deadline);
+            }
+            hold(matrix, userId, indices);
+            matrix.recordChange(indices, indices.length);
+            return seats;
+        });
+    }
+
+    @Override
+    public int releaseSeats(Long scheduleId, List<SeatPosition> seatPositions) {
+        return execute(scheduleId, shard -> {
+            SeatMatrix matrix = shard.matrix(scheduleId);
+            int[] indices = indices(matrix, seatPositions);
+
+            // 只释放仍处于锁定状态的座位
+            int released = 0;
+            for (int index : indices) {
+                if (matrix.status(index) == SeatMatrix.STATUS_LOCKED) {
+                    indices[released++] = index;
+                }
+            }
+            if (released > 0) {
+                shard.append(SeatJournal.OP_RELEASE, scheduleId, 0, indices, released);
+                for (int i = 0; i < released; i++) {
+                    matrix.free(indices[i]);
+                }
+                unhold(matrix, indices, released);
+                matrix.recordChange(indices, released);
+            }
+            return released;
+        });
+    }
+
+    @Override
+    public int releaseHeldSeats(Long scheduleId, List<HeldSeats> holds) {
+        return execute(scheduleId, shard -> {
+            SeatMatrix matrix = shard.matrix(scheduleId);
+            int[] indices = heldIndices(matrix, holds);
+            int released = indices.length;
+            if (released > 0) {
+                shard.append(SeatJournal.OP_RELEASE, scheduleId, 0, indices, released);
+                for (int index : indices) {
+                    matrix.free(index);
+                }
+                unhold(matrix, indices, released);
+                matrix.recordChange(indices, released);
+            }
+            return released;
+        });
+    }
+
+    @Override
+    public int markHeldSeatsSold(Long scheduleId, List<HeldSeats> holds) {
+        return execute(scheduleId, shard -> {
+            SeatMatrix matrix = shard.matrix(scheduleId);
+            int[] indices = heldIndices(matrix, holds);
+            int sold = indices.length;
+            if (sold > 0) {
+                shard.append(SeatJournal.OP_SOLD, scheduleId, 0, indices, sold);
+                for (int index : indices) {
+                    matrix.sell(index);
+                }
+                unhold(matrix, indices, sold);
+                matrix.recordChange(indices, sold);
+            }
+            return sold;
+        });
+    }
+
+    /**
+     * 仍属于订单的座位: 仍处于锁定状态、仍记在该用户名下、且截止时间不晚于订单锁定截止时间
+     */
+    private int[] heldIndices(SeatMatrix matrix, List<HeldSeats> holds) {
+        List<Integer> held = new ArrayList<>();
+        for (HeldSeats hold : holds) {
+            if (hold.userId() == null) {
+                continue;
+            }
+            for (int index : indices(matrix, hold.seats())) {
+                if (matrix.status(index) == SeatMatrix.STATUS_LOCKED && hold.userId().equals(matrix.holder(index))
+                        && (hold.leaseDeadline() == null || matrix.deadline(index) <= hold.leaseDeadline())
+                        && !held.contains(index)) {
+                    held.add(index);
+                }
+            }
+        }
+        return held.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    @Override
+    public int markSeatsSold(Long scheduleId, List<SeatPosition> seatPositions) {
+        return execute(scheduleId, shard -> {
+            SeatMatrix matrix = shard.matrix(scheduleId);
+            int[] indices = indices(matrix, seatPositions);
+
+            // 不可售座位不会被售出
+            int sold = 0;
+            for (int index : indices) {
+                int status = matrix.status(index);
+                if (status != SeatMatrix.STATUS_SOLD && status != SeatMatrix.STATUS_DISABLED) {
+                    indices[sold++] = index;
+                }
+            }
+            if (sold > 0) {
+                shard.append(SeatJournal.OP_SOLD, scheduleId, 0, indices, sold);
+                for (int i = 0; i < sold; i++) {
+                    matrix.sell(indices[i]);
+                }
+                unhold(matrix, indices, sold);
+                matrix.recordChange(indices, sold);
+            }
+            return sold;
+        });
+    }
+
+    @Override
+    public List<Long> sweepExpiredLocks(int batchSize) {
+        int now = (int) (System.currentTimeMillis() / 1000);
+        List<Long> changed = new ArrayList<>();
+        for (Shard shard : shards) {
+            List<Long> swept = CompletableFuture.supplyAsync(() -> {
+                List<Long> ids = new ArrayList<>();
+                for (Map.Entry<Long, SeatMatrix> entry : shard.matrices.entrySet()) {
+                    SeatMatrix matrix = entry.getValue();
+                    if (matrix.getEarliestDeadline() > now) {
+                        continue;
+                    }
+                    // 内存中回收无需分批；与释放相同，先写日志再修改内存
+                    int[] expired = matrix.expiredLocks(now);
+                    if (expired.length > 0) {
+                        shard.append(SeatJournal.OP_RELEASE, entry.getKey(), 0, expired, expired.length);
+                        for (int index : expired) {
+                            matrix.free(index);
+                        }
+                        unhold(matrix, expired, expired.length);
+                        matrix.recordChange(expired, expired.length);
+                        ids.add(entry.getKey());
+                    }
+                }
+                return ids;
+            }, shard.loop).join();
+            changed.addAll(swept);
+        }
+        return changed;
+    }
+
+    @Override
+    public List<SeatCounters> getSeatCounters(List<Long> scheduleIds) {
+        return readMatrices(scheduleIds, (scheduleId, matrix) -> SeatCounters.of(scheduleId,
+            matrix.seatCount() - matrix.count(SeatMatrix.STATUS_DISABLED),
+            matrix.count(SeatMatrix.STATUS_LOCKED), matrix.count(SeatMatrix.STATUS_SOLD)));
+    }
+
+    @Override
+    public List<SeatSummary> getSeatSummaries(List<Long> scheduleIds, boolean thumbnail) {
+        return readMatrices(scheduleIds, (scheduleId, matrix) -> {
+            SeatSummary summary = SeatSummary.of(scheduleId,
+                matrix.seatCount() - matrix.count(SeatMatrix.STATUS_DISABLED),
+                matrix.count(SeatMatrix.STATUS_LOCKED), matrix.count(SeatMatrix.STATUS_SOLD),
+                matrix.getRows(), matrix.getCols());
+            if (thumbnail) {
+                summary.setThumbnail(SeatMapCodec.thumbnail(matrix.getRows(), matrix.getCols(),
+                    (row, col) -> matrix.status(matrix.index(row, col))));
+            }
+            return summary;
+        });
+    }
+
+    /**
+     * 批量读取场次座位图: 按所属分片分组，各分片在自己的线程上并行读取
+     * 座位图不存在的场次不返回，结果顺序与 scheduleIds 一致
+     */
+    private <T> List<T> readMatrices(List<Long> scheduleIds, BiFunction<Long, SeatMatrix, T> reader) {
+        Map<Shard, List<Long>> byShard = new LinkedHashMap<>();
+        for (Long scheduleId : scheduleIds) {
+            byShard.computeIfAbsent(shard(scheduleId), k -> new ArrayList<>()).add(scheduleId);
+        }
+        Map<Long, T> values = new HashMap<>();
+        List<CompletableFuture<Void>> futures = new ArrayList<>(byShard.size());
+        for (Map.Entry<Shard, List<Long>> entry : byShard.entrySet()) {
+            Shard shard = entry.getKey();
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                Map<Long, T> result = new HashMap<>();
+                for (Long scheduleId : entry.getValue()) {
+                    SeatMatrix matrix = shard.matrices.get(scheduleId);
+                    if (matrix != null) {
+                        result.put(scheduleId, reader.apply(scheduleId, matrix));
+                    }
+                }
+                return result;
+            }, shard.loop).thenAccept(result -> {
+                synchronized (values) {
+                    values.putAll(result);
+                }
+            }));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+        List<T> result = new ArrayList<>(values.size());
+        for (Long scheduleId : scheduleIds) {
+            T value = values.get(scheduleId);
+            if (value != null) {
+                result.add(value);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Map<Integer, Map<Integer, Integer>> getSeatStatus(Long scheduleId, int rowStart, int rowEnd, int colStart, int colEnd) {
+        return execute(scheduleId, shard -> {
+            SeatMatrix matrix = shard.matrix(scheduleId);
+            long now = System.currentTimeMillis() / 1000;
+
+            Map<Integer, Map<Integer, Integer>> result = new LinkedHashMap<>();
+            for (int row = rowStart; row <= Math.min(rowEnd, matrix.getRows()); row++) {
+                Map<Integer, Integer> cols = new LinkedHashMap<>();
+                for (int col = colStart; col <= Math.min(colEnd, matrix.getCols()); col++) {
+                    cols.put(col, matrix.effectiveStatus(matrix.index(row, col), now));
+                }
+                result.put(row, cols);
+            }
+            return result;
+        });
+    }
+
+    @Override
+    public byte[] getSeatStatusBinary(Long scheduleId, int rowStart, int rowEnd, int colStart, int colEnd) {
+        return execute(scheduleId, shard -> {
+            SeatMatrix matrix = shard.matrix(scheduleId);
+            if (rowStart > matrix.getRows() || colStart > matrix.getCols()) {
+                throw new BusinessException(ResultCode.PARAM_VALID_ERROR);
+            }
+            long now = System.currentTimeMillis() / 1000;
+
+            return SeatMapCodec.encode(rowStart, Math.min(rowEnd, matrix.getRows()),
+                colStart, Math.min(colEnd, matrix.getCols()), matrix.getVersion(),
+                (row, col) -> matrix.effectiveStatus(matrix.index(row, col), now));
+        });
+    }
+
+    @Override
+    public SeatStatusDelta getSeatStatusDelta(Long scheduleId, long sinceVersion,
+                                              int rowStart, int rowEnd, int colStart, int colEnd) {
+        return execute(scheduleId, shard -> {
+            SeatMatrix matrix = shard.matrix(scheduleId);
+            long now = System.currentTimeMillis() / 1000;
+            int lastRow = Math.min(rowEnd, matrix.getRows());
+            int lastCol = Math.min(colEnd, matrix.getCols());
+
+            SeatStatusDelta delta = new SeatStatusDelta();
+            delta.setVersion(matrix.getVersion());
+            Map<Integer, Map<Integer, Integer>> seats = new LinkedHashMap<>();
+
+            if (matrix.hasChangesSince(sinceVersion)) {
+                // 增量: 只返回窗口内变化过的座位
+                matrix.forEachChangeSince(sinceVersion, index -> {
+                    int row = index / matrix.getCols() + 1;
+                    int col = index % matrix.getCols() + 1;
+                    if (row >= rowStart && row <= lastRow && col >= colStart && col <= lastCol) {
+                        seats.computeIfAbsent(row, k -> new LinkedHashMap<>())
+                            .put(col, matrix.effectiveStatus(index, now));
+                    }
+                });
+            } else {
+                // 变更环已覆盖 sinceVersion，返回完整快照
+                delta.setFull(true);
+                for (int row = rowStart; row <= lastRow; row++) {
+                    Map<Integer, Integer> cols = new LinkedHashMap<>();
+                    for (int col = colStart; col <= lastCol; col++) {
+                        cols.put(col, matrix.effectiveStatus(matrix.index(row, col), now));
+                    }
+                    seats.put(row, cols);
+                }
+            }
+            delta.setSeats(seats);
+            return delta;
+        });
+    }
+
+    @Override
+    public int initSeatMaps(List<SeatMapLayout> layouts) {
+        List<SeatMapSnapshot> snapshots = new ArrayList<>(layouts.size());
+        for (SeatMapLayout layout : layouts) {
+            snapshots.add(new SeatMapSnapshot(layout, List.of(), Map.of(), 0));
+        }
+        return restoreSeatMaps(snapshots);
+    }
+
+    @Override
+    public int restoreSeatMaps(List<SeatMapSnapshot> snapshots) {
+        // 1. 按所属分片分组，每个分片一次任务
+        Map<Shard, List<SeatMapSnapshot>> byShard = new HashMap<>();
+        for (SeatMapSnapshot snapshot : snapshots) {
+            byShard.computeIfAbsent(shard(snapshot.getLayout().getScheduleId()), k -> new ArrayList<>()).add(snapshot);
+        }
+
+        // 2. 各分片并行初始化
+        List<CompletableFuture<Integer>> futures = new ArrayList<>(byShard.size());
+        for (Map.Entry<Shard, List<SeatMapSnapshot>> entry : byShard.entrySet()) {
+            Shard shard = entry.getKey();
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                int initialized = 0;
+                for (SeatMapSnapshot snapshot : entry.getValue()) {
+                    if (shard.init(snapshot)) {
+                        initialized++;
+                    }
+                }
+                return initialized;
+            }, shard.loop));
+        }
+
+        int initialized = 0;
+        for (CompletableFuture<Integer> future : futures) {
+            initialized += future.join();
+        }
+        return initialized;
+    }
+
+    /**
+     * 在场次所属分片线程上执行任务并等待结果
+     */
+    private <T> T execute(Long scheduleId, Function<Shard, T> task) {
+        Shard shard = shard(scheduleId);
+        try {
+            return CompletableFuture.supplyAsync(() -> task.apply(shard), shard.loop).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 校验并占用锁座额度，在场次所属分片线程上、座位校验通过后调用
+     * 锁定已过期的座位先归还原持有人的额度；场次内持有数只在分片线程上读写，
+     * 全部场次的持有数先原子累加再校验，超出时撤回
+     */
+    private void reserveHolds(SeatMatrix matrix, Long userId, int[] indices, long now) {
+        for (int index : indices) {
+            if (matrix.status(index) == SeatMatrix.STATUS_LOCKED && matrix.deadline(index) <= now) {
+                releaseUserHolds(matrix.unhold(index), 1);
+            }
+        }
+        if (userId == null) {
+            return;
+        }
+        if (maxHoldsPerSchedule > 0 && matrix.holdCount(userId) + indices.length > maxHoldsPerSchedule) {
+            throw new BusinessException(ResultCode.SEAT_HOLD_LIMIT_EXCEEDED);
+        }
+        int held = userHolds.merge(userId, indices.length, Integer::sum);
+        if (maxHoldsPerUser > 0 && held > maxHoldsPerUser) {
+            releaseUserHolds(userId, indices.length);
+            throw new BusinessException(ResultCode.SEAT_HOLD_LIMIT_EXCEEDED);
+        }
+    }
+
+    /**
+     * 写入锁定日志，写入失败时撤回 reserveHolds 已占用的全部场次额度（场次内持有数在 hold 之前尚未变更）
+     */
+    private void appendLock(Shard shard, Long scheduleId, Long userId, int deadline, int[] indices) {
+        try {
+            shard.append(SeatJournal.OP_LOCK, scheduleId, deadline, indices, indices.length);
+        } catch (RuntimeException e) {
+            releaseUserHolds(userId, indices.length);
+            throw e;
+        }
+    }
+
+    /**
+     * 锁定的座位记到用户名下（额度已由 reserveHolds 占用）
+     */
+    private static void hold(SeatMatrix matrix, Long userId, int[] indices) {
+        if (userId == null) {
+            return;
+        }
+        for (int index : indices) {
+            matrix.hold(index, userId);
+        }
+    }
+
+    /**
+     * 释放 / 售出 / 回收的座位移出持有人名下并归还额度
+     */
+    private void unhold(SeatMatrix matrix, int[] indices, int count) {
+        for (int i = 0; i < count; i++) {
+            releaseUserHolds(matrix.unhold(indices[i]), 1);
+        }
+    }
+
+    private void releaseUserHolds(Long userId, int count) {
+        if (userId != null) {
+            userHolds.computeIfPresent(userId, (k, held) -> held > count ? held - count : null);
+        }
+    }
+
+    private Shard shard(Long scheduleId) {
+        return shards[Math.floorMod(Long.hashCode(scheduleId), shards.length)];
+    }
+
+    /**
+     * 座位位置转换为矩阵下标，并按场次实际行列数校验
+     * 重复的座位只保留一个，同一座位不会重复占用额度或写入日志
+     */
+    private static int[] indices(SeatMatrix matrix, List<SeatPosition> seatPositions) {
+        int[] indices = new int[seatPositions.size()];
+        int count = 0;
+        for (SeatPosition seat : seatPositions) {
+            int row = seat.row();
+            int col = seat.col();
+            if (row > matrix.getRows()) {
+                throw new BusinessException(ResultCode.SEAT_INVALID_ROW);
+            }
+            if (col > matrix.getCols()) {
+                throw new BusinessException(ResultCode.SEAT_INVALID_COL);
+            }
+            int index = matrix.index(row, col);
+            if (!contains(indices, count, index)) {
+                indices[count++] = index;
+            }
+        }
+        return count == indices.length ? indices : Arrays.copyOf(indices, count);
+    }
+
+    private static boolean contains(int[] indices, int count, int index) {
+        for (int i = 0; i < count; i++) {
+            if (indices[i] == index) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void snapshotAll() {
+        for (Shard shard : shards) {
+            try {
+                CompletableFuture.runAsync(shard::snapshot, shard.loop).join();
+            } catch (Exception e) {
+                log.error("座位分片快照失败, shard={}", shard.id, e);
+            }
+        }
+    }
+
+    /**
+     * 分片：一个单线程事件循环 + 其拥有的场次矩阵 + 持久化日志
+     * matrices 只在 loop 线程上访问
+     */
+    private static final class Shard {
+
+        private final int id;
+        private final SeatJournal journal;
+        private final ExecutorService loop;
+        private Map<Long, SeatMatrix> matrices = new HashMap<>();
+
+        private Shard(int id, SeatJournal journal) {
+            this.id = id;
+            this.journal = journal;
+            this.loop = Executors.newSingleThreadExecutor(r -> new Thread(r, "seat-shard-" + id));
+        }
+
+        private SeatMatrix matrix(Long scheduleId) {
+            SeatMatrix matrix = matrices.get(scheduleId);
+            if (matrix == null) {
+                throw new BusinessException(ResultCode.SCHEDULE_NOT_FOUND);
+            }
+            return matrix;
+        }
+
+        /**
+         * 初始化场次矩阵，已存在的场次不重复初始化，避免覆盖已售座位
+         * 重建时同时恢复快照中的已售 / 已锁定座位（内存引擎的版本号不落库，不恢复）
+         *
+         * @return 是否新建
+         */
+        private boolean init(SeatMapSnapshot snapshot) {
+            SeatMapLayout layout = snapshot.getLayout();
+            Long scheduleId = layout.getScheduleId();
+            if (matrices.containsKey(scheduleId)) {
+                return false;
+            }
+            SeatMatrix matrix = new SeatMatrix(layout.getTotalRows(), layout.getTotalCols());
+            List<SeatPosition> disabledSeats = layout.getDisabledSeats();
+            int[] disabled = new int[disabledSeats.size()];
+            for (int i = 0; i < disabled.length; i++) {
+                disabled[i] = matrix.index(disabledSeats.get(i).row(), disabledSeats.get(i).col());
+            }
+
+            append(SeatJournal.OP_INIT, scheduleId, layout.getTotalRows() << 16 | layout.getTotalCols(),
+                disabled, disabled.length);
+            for (int index : disabled) {
+                matrix.disable(index);
+            }
+
+            List<SeatPosition> soldSeats = snapshot.getSoldSeats();
+            if (!soldSeats.isEmpty()) {
+                int[] sold = new int[soldSeats.size()];
+                for (int i = 0; i < sold.length; i++) {
+                    sold[i] = matrix.index(soldSeats.get(i).row(), soldSeats.get(i).col());
+                }
+                append(SeatJournal.OP_SOLD, scheduleId, 0, sold, sold.length);
+                for (int index : sold) {
+                    matrix.sell(index);
+                }
+            }
+
+            // 锁定日志按截止时间分组
+            Map<Integer, List<Integer>> byDeadline = new TreeMap<>();
+            for (Map.Entry<SeatPosition, Long> entry : snapshot.getLockedSeats().entrySet()) {
+                byDeadline.computeIfAbsent(entry.getValue().intValue(), k -> new ArrayList<>())
+                    .add(matrix.index(entry.getKey().row(), entry.getKey().col()));
+            }
+            for (Map.Entry<Integer, List<Integer>> entry : byDeadline.entrySet()) {
+                int[] locked = entry.getValue().stream().mapToInt(Integer::intValue).toArray();
+                append(SeatJournal.OP_LOCK, scheduleId, entry.getKey(), locked, locked.length);
+                for (int index : locked) {
+                    matrix.lock(index, entry.getKey());
+                }
+            }
+            matrices.put(scheduleId, matrix);
+            return true;
+        }
+
+        private void append(byte op, long scheduleId, int arg, int[] indices, int count) {
+            try {
+                journal.append(op, scheduleId, arg, indices, count);
+            } catch (IOException e) {
+                throw new UncheckedIOException("写座位日志失败", e);
+            }
+        }
+
+        private void recover() {
+            try {
+                matrices = journal.recover();
+            } catch (IOException e) {
+                throw new UncheckedIOException("恢复座位分片失败, shard=" + id, e);
+            }
+        }
+
+        private void flush() {
+            try {
+                journal.flush();
+            } catch (IOException e) {
+                log.error("座位日志刷盘失败, shard={}", id, e);
+            }
+        }
+
+        private void snapshot() {
+            try {
+                journal.snapshot(matrices);
+            } catch (IOException e) {
+                throw new UncheckedIOException("写座位快照失败, shard=" + id, e);
+            }
+        }
+
+        private void close() {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                log.warn("关闭座位日志失败, shard={}", id, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.megaticket.seat.engine;
+
+import com.megaticket.common.dto.SeatPosition;
+import com.megaticket.common.exception.BusinessException;
+import com.megaticket.common.result.ResultCode;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 非阻塞的 Redis 座位引擎
+ * 与 {@link RedisSeatEngine} 使用同一个 Lua 脚本、同样的 Key 与分段方式，只实现锁座 / 自动选座 / 释放 / 售出，
+ * 通过响应式 Redis 连接执行，脚本的执行与结果解码都在连接的事件循环线程上完成，不占用请求线程
+ * 查询、初始化与回收等其余操作仍由 {@link RedisSeatEngine} 执行
+ *
+ * 开启条件（见 {@link #ENABLED}）:
+ *   megaticket.seat.reactive.enabled 是否开启, 默认 false
+ *   megaticket.seat.engine           须为 redis（内存引擎的操作本身不经过网络，无需开启）
+ * 分段与锁座额度的配置与 {@link RedisSeatEngine} 共用
+ *
+ * @author Yang JunJie
+ * @since 2026/1/14
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression(ReactiveRedisSeatEngine.ENABLED)
+public class ReactiveRedisSeatEngine {
+
+    /** 开启非阻塞锁座的条件，锁座接口按同一条件在阻塞与非阻塞实现之间切换 */
+    public static final String ENABLED =
+        "${megaticket.seat.reactive.enabled:false} and '${megaticket.seat.engine:redis}' == 'redis'";
+    public static final String DISABLED = "!(" + ENABLED + ")";
+
+    private static final String LUA_SCRIPT_PATH = "lua/lock_seat.lua";
+    /** 脚本中表示“未带用户、不校验额度”的 userId */
+    private static final String NO_HOLDER = "0";
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final SeatBands bands;
+    /** 锁座额度: 单个场次 / 全部场次每个用户最多锁定的座位数 */
+    private final String maxHoldsPerSchedule;
+    private final String maxHoldsPerUser;
+
+    /** lock / release / sold: 返回单个整数 */
+    private RedisScript<Long> integerScript;
+    /** best: 返回数组 */
+    private RedisScript<List> listScript;
+
+    public ReactiveRedisSeatEngine(
+            ReactiveStringRedisTemplate redisTemplate,
+            @Value("${megaticket.seat.redis.band-rows:0}") int bandRows,
+            @Value("${megaticket.seat.redis.slot-buckets:256}") int slotBuckets,
+            @Value("${megaticket.seat.hold.max-per-schedule:0}") int maxHoldsPerSchedule,
+            @Value("${megaticket.seat.hold.max-per-user:0}") int maxHoldsPerUser,
+            @Value("${spring.data.redis.cluster.nodes:}") String clusterNodes) {
+        this.redisTemplate = redisTemplate;
+        this.bands = new SeatBands(bandRows, slotBuckets, !clusterNodes.isBlank());
+        this.maxHoldsPerSchedule = Integer.toString(maxHoldsPerSchedule);
+        this.maxHoldsPerUser = Integer.toString(maxHoldsPerUser);
+    }
+
+    @PostConstruct
+    public void init() {
+        ClassPathResource resource = new ClassPathResource(LUA_SCRIPT_PATH);
+        integerScript = RedisScript.of(resource, Long.class);
+        listScript = RedisScript.of(resource, List.class);
+        log.info("非阻塞座位引擎已启动, bands={}", bands.count());
+    }
+
+    /**
+     * 场次座位图是否存在
+     */
+    public Mono<Boolean> exists(Long scheduleId) {
+        // 各段同时初始化，第一段存在即座位图存在
+        return redisTemplate.hasKey(bands.keys(scheduleId, 0).get(0));
+    }
+
+    /**
+     * 原子锁定座位，语义同 {@link SeatEngine#lockSeats}
+     */
+    public Mono<List<SeatPosition>> lockSeats(Long scheduleId, Long userId, List<SeatPosition> seatPositions, int timeoutSeconds) {
+        Map<Integer, List<SeatPosition>> groups = bands.group(seatPositions);
+
+        // 1. 常见情况: 座位都在同一段内，一次脚本调用原子锁定
+        if (groups.size() == 1) {
+            Map.Entry<Integer, List<SeatPosition>> group = groups.entrySet().iterator().next();
+            return lockBand(scheduleId, group.getKey(), userId, group.getValue(), timeoutSeconds)
+                .thenReturn(seatPositions);
+        }
+
+        // 2. 跨段: 逐段锁定，某段失败时释放已锁定的段
+        return Mono.defer(() -> {
+            List<Map.Entry<Integer, List<SeatPosition>>> locked = new ArrayList<>();
+            return Flux.fromIterable(groups.entrySet())
+                .concatMap(group -> lockBand(scheduleId, group.getKey(), userId, group.getValue(), timeoutSeconds)
+                    .doOnSuccess(ignored -> locked.add(group)))
+                .then(Mono.just(seatPositions))
+                .onErrorResume(e -> Flux.fromIterable(locked)
+                    .concatMap(group -> execute(integerScript, scheduleId, group.getKey(),
+                            indexArgs(group.getKey(), group.getValue(), "release"))
+                        .onErrorResume(releaseError -> {
+                            // 释放失败的座位在锁定超时后由回收任务恢复
+                            log.error("跨段锁座失败后释放座位失败, scheduleId={}, band={}",
+                                scheduleId, group.getKey(), releaseError);
+                            return Mono.empty();
+                        }))
+                    .then(Mono.error(e)));
+        });
+    }
+
+    /**
+     * 锁定同一段内的座位
+     */
+    private Mono<Void> lockBand(Long scheduleId, int band, Long userId, List<SeatPosition> seatPositions, int timeoutSeconds) {
+        // 1. 构建 Lua 脚本参数: timeout, now, leaseMember, userId, maxScheduleHolds, maxUserHolds, index..., 'lock'
+        List<String> args = new ArrayList<>(seatPositions.size() + 7);
+        args.add(Integer.toString(timeoutSeconds));
+        args.add(Long.toString(System.currentTimeMillis() / 1000));
+        args.add(bands.leaseMember(scheduleId, band));
+        args.add(holder(userId));
+        args.add(maxHoldsPerSchedule);
+        args.add(maxHoldsPerUser);
+        for (SeatPosition seat : seatPositions) {
+            args.add(Integer.toString(bands.localIndex(band, seat)));
+        }
+        args.add("lock");
+
+        // 2. 执行 Lua 脚本，返回 0=成功, 1=已锁定, 2=已售出, 3=不可售, 5=超过锁座额度
+        return execute(integerScript, scheduleId, band, args)
+            .switchIfEmpty(Mono.error(() -> new BusinessException(ResultCode.SEAT_STATUS_QUERY_FAILED)))
+            .flatMap(result -> switch (result.intValue()) {
+                case 0 -> Mono.<Void>empty();
+                case 2 -> Mono.error(new BusinessException(ResultCode.SEAT_SOLD_OUT));
+                case 3 -> Mono.error(new BusinessException(ResultCode.SEAT_NOT_FOUND));
+                case 5 -> Mono.error(new BusinessException(ResultCode.SEAT_HOLD_LIMIT_EXCEEDED));
+                default -> Mono.error(new BusinessException(ResultCode.SEAT_ALREADY_LOCKED));
+            });
+    }
+
+    /**
+     * 自动选座，语义同 {@link SeatEngine#lockBestAvailable}
+     */
+    public Mono<List<SeatPosition>> lockBestAvailable(Long scheduleId, Long userId, int count, int timeoutSeconds) {
+        // 从最佳区域所在的段开始逐段查找，每段内找到即锁定
+        return bestBandOrder(scheduleId)
+            .flatMapMany(Flux::fromIterable)
+            .concatMap(band -> lockBestInBand(scheduleId, band, userId, count, timeoutSeconds))
+            .next()
+            .switchIfEmpty(Mono.error(() -> new BusinessException(ResultCode.SEAT_NOT_ENOUGH_ADJACENT)));
+    }
+
+    /**
+     * 在一段内查找并锁定，没有足够的相邻空座时为空
+     */
+    private Mono<List<SeatPosition>> lockBestInBand(Long scheduleId, int band, Long userId, int count, int timeoutSeconds) {
+        List<String> args = List.of(
+            Integer.toString(timeoutSeconds), Long.toString(System.currentTimeMillis() / 1000),
+            bands.leaseMember(scheduleId, band), Integer.toString(count), holder(userId),
+            maxHoldsPerSchedule, maxHoldsPerUser, "best");
+
+        // 返回 {0, row, col}=成功, {1}=没有足够的相邻空座, {4}=场次不存在, {5}=超过锁座额度
+        return reply(redisTemplate.execute(listScript, bands.keys(scheduleId, band), args))
+            .flatMap(reply -> {
+                int code = ((Number) reply.get(0)).intValue();
+                if (code == 4) {
+                    return Mono.error(new BusinessException(ResultCode.SCHEDULE_NOT_FOUND));
+                }
+                if (code == 5) {
+                    return Mono.error(new BusinessException(ResultCode.SEAT_HOLD_LIMIT_EXCEEDED));
+                }
+                if (code != 0) {
+                    return Mono.empty();
+                }
+                int row = ((Number) reply.get(1)).intValue() + bands.rowOffset(band);
+                int col = ((Number) reply.get(2)).intValue();
+                List<SeatPosition> seats = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    seats.add(new SeatPosition(row, col + i));
+                }
+                return Mono.just(seats);
+            });
+    }
+
+    /**
+     * 自动选座查找各段的顺序: 按与最佳行（约 2/3 处）的距离由近到远，跳过影厅范围外的段
+     */
+    private Mono<List<Integer>> bestBandOrder(Long scheduleId) {
+        if (!bands.isEnabled()) {
+            return Mono.just(List.of(0));
+        }
+        return redisTemplate.opsForHash().get(bands.keys(scheduleId, 0).get(5), "hallRows")
+            .switchIfEmpty(Mono.error(() -> new BusinessException(ResultCode.SCHEDULE_NOT_FOUND)))
+            .map(hallRows -> {
+                int rows = Integer.parseInt(hallRows.toString());
+                int preferred = bands.of((rows * 2 + 2) / 3);
+
+                List<Integer> order = new ArrayList<>();
+                for (int band = 0; band <= bands.of(rows); band++) {
+                    order.add(band);
+                }
+                order.sort(Comparator.comparingInt(band -> Math.abs(band - preferred)));
+                return order;
+            });
+    }
+
+    /**
+     * 释放座位，返回实际释放的座位数
+     */
+    public Mono<Integer> releaseSeats(Long scheduleId, List<SeatPosition> seatPositions) {
+        return countByBand(scheduleId, seatPositions, "release", ResultCode.SEAT_RELEASE_FAILED);
+    }
+
+    /**
+     * 标记座位已售出，返回实际售出的座位数
+     */
+    public Mono<Integer> markSeatsSold(Long scheduleId, List<SeatPosition> seatPositions) {
+        return countByBand(scheduleId, seatPositions, "sold", ResultCode.SEAT_SOLD_FAILED);
+    }
+
+    /**
+     * 按段执行 release / sold，各段并发，返回变更的座位总数
+     */
+    private Mono<Integer> countByBand(Long scheduleId, List<SeatPosition> seatPositions, String op, ResultCode failure) {
+        return Flux.fromIterable(bands.group(seatPositions).entrySet())
+            .flatMap(group -> execute(integerScript, scheduleId, group.getKey(), indexArgs(group.getKey(), group.getValue(), op))
+                .switchIfEmpty(Mono.error(() -> new BusinessException(failure))))
+            .reduce(0, (total, count) -> total + count.intValue());
+    }
+
+    private static String holder(Long userId) {
+        return userId == null ? NO_HOLDER : userId.toString();
+    }
+
+    /**
+     * 段内座位下标参数: index..., op
+     */
+    private List<String> indexArgs(int band, List<SeatPosition> seatPositions, String op) {
+        List<String> args = new ArrayList<>(seatPositions.size() + 1);
+        for (SeatPosition seat : seatPositions) {
+            args.add(Integer.toString(bands.localIndex(band, seat)));
+        }
+        args.add(op);
+        return args;
+    }
+
+    /**
+     * 在一段上执行返回单个整数的脚本操作
+     */
+    private Mono<Long> execute(RedisScript<Long> script, Long scheduleId, int band, List<String> args) {
+        return redisTemplate.execute(script, bands.keys(scheduleId, band), args).next();
+    }
+
+    /**
+     * 数组返回值: 按驱动不同可能是一个 List 元素，也可能逐个元素发出
+     */
+    private static Mono<List<?>> reply(Flux<List> flux) {
+        return flux.collectList()
+            .flatMap(items -> items.isEmpty()
+                ? Mono.error(new BusinessException(ResultCode.SEAT_STATUS_QUERY_FAILED))
+                : Mono.just(items.size() == 1 && items.get(0) instanceof List<?> list ? list : (List<?>) items));
+    }
+}
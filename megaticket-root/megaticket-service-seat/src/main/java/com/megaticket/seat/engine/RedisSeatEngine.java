@@ -0,0 +1,1016 @@
+package com.megaticket.seat.engine;
+
+import com.megaticket.common.dto.HeldSeats;
+import com.megaticket.common.dto.SeatCounters;
+import com.megaticket.common.dto.SeatPosition;
+import com.megaticket.common.exception.BusinessException;
+import com.megaticket.common.result.ResultCode;
+import com.megaticket.seat.codec.SeatMapCodec;
+import com.megaticket.seat.dto.SeatLockRequest;
+import com.megaticket.seat.dto.SeatMapLayout;
+import com.megaticket.seat.dto.SeatMapSnapshot;
+import com.megaticket.seat.dto.SeatStatusDelta;
+import com.megaticket.seat.dto.SeatSummary;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Redis 座位引擎
+ * 使用 Redis Bitfield + Lua 脚本实现座位原子操作，每次操作一次 Redis 往返
+ * 座位以打包后的座位下标传给脚本，脚本返回整数编码的结果，全程不经过 JSON
+ *
+ * 可选按行分段存储（见 {@link SeatBands}），热门场次的座位图分散到集群的多个 slot:
+ *   锁座: 座位都在同一段时仍是一次原子操作；跨段时逐段锁定，某段失败则释放已锁定的段
+ *   查询: 并行读取相关的段后合并，座位图版本为各段版本之和
+ *   自动选座: 从最佳区域所在的段开始逐段查找
+ *
+ * 连接 Redis 集群（配置了 spring.data.redis.cluster.nodes）时不分段也使用带 hash tag 的 Key，每次脚本调用只访问一个 slot；
+ * 此时与分段相同，不校验全部场次的锁座上限（见 {@link SeatBands}）
+ *
+ * 每次状态变更由脚本原子追加到持久化同步流，megaticket-job 据此异步写入 PostgreSQL（见 RedisKeyConstant#SEAT_SYNC_STREAM_KEY）
+ *
+ * 锁座额度由脚本在锁座时原子校验与占用（见 RedisKeyConstant#SEAT_HOLDER_PREFIX）；
+ * 分段时各段分别计数，场次内上限对每段分别生效，不校验全部场次的上限
+ *
+ * 配置项:
+ *   megaticket.seat.redis.band-rows    每段行数, 默认 0（不分段）
+ *   megaticket.seat.redis.slot-buckets 分段 / 集群时 Key 的 hash tag 桶数, 默认 256
+ *   megaticket.seat.redis.band-threads 并行读写各段的线程数, 默认 16
+ *   megaticket.seat.hold.*             锁座额度, 见 {@link SeatEngine}
+ *
+ * @author Yang JunJie
+ * @since 2026/1/14
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "megaticket.seat", name = "engine", havingValue = "redis", matchIfMissing = true)
+public class RedisSeatEngine implements SeatEngine {
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final SeatBands bands;
+    /** 分段时并行读写各段，不分段时为 null */
+    private final ExecutorService bandExecutor;
+
+    /** init / lock / release / releaseheld / sold / soldheld: 返回单个整数 */
+    private DefaultRedisScript<Long> integerScript;
+    /** lockbatch / best / sweep / status / bitmap / delta: 返回数组 */
+    private DefaultRedisScript<List> listScript;
+    private static final String LUA_SCRIPT_PATH = "lua/lock_seat.lua";
+    /** 脚本返回值中的字符串按原始字节读取，整数保持为 Long */
+    @SuppressWarnings("rawtypes")
+    private static final RedisSerializer RESULT_SERIALIZER = RedisSerializer.byteArray();
+    /** 单次回收每个待回收集合最多处理的场次（段）数，其余留到下一轮 */
+    private static final int MAX_SWEEP_SCHEDULES = 1000;
+    /** 脚本中位图每行的座位数 */
+    private static final int MAX_COLS = SeatPosition.MAX_COLS;
+    /** 位图每行字节数 */
+    private static final int ROW_BYTES = MAX_COLS / 4;
+    /** 已锁定 / 已售出 / 不可售座位状态 */
+    private static final int SEAT_LOCKED = 1;
+    private static final int SEAT_SOLD = 2;
+    private static final int SEAT_DISABLED = 3;
+    /** 脚本中表示“未带用户、不校验额度”的 userId */
+    private static final String NO_HOLDER = "0";
+    /** 脚本原文与 SHA1，批量初始化的流水线中使用 EVALSHA */
+    private String scriptText;
+    private String scriptSha;
+    /** 锁座额度: 单个场次 / 全部场次每个用户最多锁定的座位数 */
+    private final String maxHoldsPerSchedule;
+    private final String maxHoldsPerUser;
+
+    public RedisSeatEngine(
+            RedisTemplate<String, Object> redisTemplate,
+            StringRedisTemplate stringRedisTemplate,
+            @Value("${megaticket.seat.redis.band-rows:0}") int bandRows,
+            @Value("${megaticket.seat.redis.slot-buckets:256}") int slotBuckets,
+            @Value("${megaticket.seat.redis.band-threads:16}") int bandThreads,
+            @Value("${megaticket.seat.hold.max-per-schedule:0}") int maxHoldsPerSchedule,
+            @Value("${megaticket.seat.hold.max-per-user:0}") int maxHoldsPerUser,
+            @Value("${spring.data.redis.cluster.nodes:}") String clusterNodes) {
+        this.redisTemplate = redisTemplate;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.bands = new SeatBands(bandRows, slotBuckets, !clusterNodes.isBlank());
+        this.maxHoldsPerSchedule = Integer.toString(maxHoldsPerSchedule);
+        this.maxHoldsPerUser = Integer.toString(maxHoldsPerUser);
+        this.bandExecutor = bands.isEnabled()
+            ? Executors.newFixedThreadPool(bandThreads, r -> new Thread(r, "seat-band-io"))
+            : null;
+    }
+
+    /**
+     * 初始化时校验 Redis 部署方式并加载 Lua 脚本
+     * 非阻塞引擎（{@link ReactiveRedisSeatEngine}）与本引擎共用配置与 Redis，在此一并校验
+     */
+    @PostConstruct
+    public void init() {
+        // 1. Key 不带 hash tag 时脚本同时访问场次 Key 与全局 Key，在集群中每次执行都会 CROSSSLOT，启动时直接失败
+        //    （连接工厂不是由 spring.data.redis.cluster.nodes 创建的集群连接）
+        if (!bands.isTagged() && isCluster()) {
+            throw new IllegalStateException(
+                "Redis 集群模式下须配置 spring.data.redis.cluster.nodes 或开启座位图分段（megaticket.seat.redis.band-rows 大于 0）");
+        }
+        if (bands.isTagged() && !"0".equals(maxHoldsPerUser)) {
+            log.warn("座位图 Key 按桶拆分，不校验全部场次的锁座上限 megaticket.seat.hold.max-per-user={}", maxHoldsPerUser);
+        }
+
+        // 2. 加载 Lua 脚本
+        try {
+            ClassPathResource resource = new ClassPathResource(LUA_SCRIPT_PATH);
+            String lockSeatLuaScript = new String(resource.getContentAsByteArray(), StandardCharsets.UTF_8);
+            scriptText = lockSeatLuaScript;
+
+            integerScript = new DefaultRedisScript<>();
+            integerScript.setScriptText(lockSeatLuaScript);
+            integerScript.setResultType(Long.class);
+
+            listScript = new DefaultRedisScript<>();
+            listScript.setScriptText(lockSeatLuaScript);
+            listScript.setResultType(List.class);
+            scriptSha = integerScript.getSha1();
+
+            log.info("座位锁定 Lua 脚本加载成功, bands={}", bands.count());
+        } catch (IOException e) {
+            log.error("加载 Lua 脚本失败: {}", LUA_SCRIPT_PATH, e);
+            throw new RuntimeException("加载 Lua 脚本失败", e);
+        }
+    }
+
+    /**
+     * 当前连接是否为 Redis 集群，Redis 不可用时不校验（由后续操作报错）
+     */
+    private boolean isCluster() {
+        RedisConnectionFactory connectionFactory = redisTemplate.getConnectionFactory();
+        if (connectionFactory == null) {
+            return false;
+        }
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            return connection instanceof RedisClusterConnection;
+        } catch (Exception e) {
+            log.warn("无法获取 Redis 连接，跳过集群模式校验", e);
+            return false;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (bandExecutor != null) {
+            bandExecutor.shutdown();
+        }
+    }
+
+    @Override
+    public boolean exists(Long scheduleId) {
+        // 各段同时初始化，第一段存在即座位图存在
+        return Boolean.TRUE.equals(redisTemplate.hasKey(bands.keys(scheduleId, 0).get(0)));
+    }
+
+    @Override
+    public List<SeatPosition> lockSeats(Long scheduleId, Long userId, List<SeatPosition> seatPositions, int timeoutSeconds) {
+        Map<Integer, List<SeatPosition>> groups = bands.group(seatPositions);
+
+        // 1. 常见情况: 座位都在同一段内，一次脚本调用原子锁定
+        if (groups.size() == 1) {
+            Map.Entry<Integer, List<SeatPosition>> group = groups.entrySet().iterator().next();
+            lockBand(scheduleId, group.getKey(), userId, group.getValue(), timeoutSeconds);
+            return seatPositions;
+        }
+
+        // 2. 跨段: 逐段锁定，某段失败时释放已锁定的段
+        List<Map.Entry<Integer, List<SeatPosition>>> locked = new ArrayList<>();
+        try {
+            for (Map.Entry<Integer, List<SeatPosition>> group : groups.entrySet()) {
+                lockBand(scheduleId, group.getKey(), userId, group.getValue(), timeoutSeconds);
+                locked.add(group);
+            }
+        } catch (RuntimeException e) {
+            for (Map.Entry<Integer, List<SeatPosition>> group : locked) {
+                try {
+                    execute(integerScript, scheduleId, group.getKey(), indexArgs(group.getKey(), group.getValue(), "release"));
+                } catch (Exception releaseError) {
+                    // 释放失败的座位在锁定超时后由回收任务恢复
+                    log.error("跨段锁座失败后释放座位失败, scheduleId={}, band={}", scheduleId, group.getKey(), releaseError);
+                }
+            }
+            throw e;
+        }
+        return seatPositions;
+    }
+
+    /**
+     * 锁定同一段内的座位
+     */
+    private void lockBand(Long scheduleId, int band, Long userId, List<SeatPosition> seatPositions, int timeoutSeconds) {
+        // 1. 构建 Lua 脚本参数: timeout, now, leaseMember, userId, maxScheduleHolds, maxUserHolds, index..., 'lock'
+        int size = seatPositions.size();
+        Object[] args = new Object[size + 7];
+        args[0] = Integer.toString(timeoutSeconds);
+        args[1] = Long.toString(System.currentTimeMillis() / 1000);
+        args[2] = bands.leaseMember(scheduleId, band);
+        args[3] = holder(userId);
+        args[4] = maxHoldsPerSchedule;
+        args[5] = maxHoldsPerUser;
+        for (int i = 0; i < size; i++) {
+            args[i + 6] = Integer.toString(bands.localIndex(band, seatPositions.get(i)));
+        }
+        args[size + 6] = "lock";
+
+        // 2. 执行 Lua 脚本，返回 0=成功, 1=已锁定, 2=已售出, 3=不可售, 5=超过锁座额度
+        Long result = execute(integerScript, scheduleId, band, args);
+
+        if (result == null) {
+            throw new BusinessException(ResultCode.SEAT_STATUS_QUERY_FAILED);
+        }
+        if (result == 5) {
+            throw new BusinessException(ResultCode.SEAT_HOLD_LIMIT_EXCEEDED);
+        }
+        if (result == 2) {
+            throw new BusinessException(ResultCode.SEAT_SOLD_OUT);
+        }
+        if (result == 3) {
+            throw new BusinessException(ResultCode.SEAT_NOT_FOUND);
+        }
+        if (result != 0) {
+            throw new BusinessException(ResultCode.SEAT_ALREADY_LOCKED);
+        }
+    }
+
+    @Override
+    public List<ResultCode> lockSeatsBatch(Long scheduleId, List<SeatLockRequest> requests, int timeoutSeconds) {
+        if (!bands.isEnabled()) {
+            return lockBatchBand(scheduleId, 0, requests, timeoutSeconds);
+        }
+
+        // 1. 座位在同一段内的请求按段分组，每段一次脚本调用，各段并行
+        ResultCode[] results = new ResultCode[requests.size()];
+        Map<Integer, List<Integer>> groups = new LinkedHashMap<>();
+        List<Integer> crossBand = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            int band = bands.single(requests.get(i).getSeatPositions());
+            if (band < 0) {
+                crossBand.add(i);
+            } else {
+                groups.computeIfAbsent(band, k -> new ArrayList<>()).add(i);
+            }
+        }
+        fanOut(new ArrayList<>(groups.entrySet()), group -> {
+            List<SeatLockRequest> batch = new ArrayList<>(group.getValue().size());
+            for (int i : group.getValue()) {
+                batch.add(requests.get(i));
+            }
+            List<ResultCode> codes = lockBatchBand(scheduleId, group.getKey(), batch, timeoutSeconds);
+            for (int i = 0; i < codes.size(); i++) {
+                results[group.getValue().get(i)] = codes.get(i);
+            }
+            return null;
+        });
+
+        // 2. 跨段的请求逐个锁定
+        for (int i : crossBand) {
+            try {
+                SeatLockRequest request = requests.get(i);
+                lockSeats(scheduleId, request.getUserId(), request.getSeatPositions(), timeoutSeconds);
+                results[i] = ResultCode.SUCCESS;
+            } catch (BusinessException e) {
+                results[i] = e.getResultCode();
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * 批量锁定同一段内的座位
+     */
+    private List<ResultCode> lockBatchBand(Long scheduleId, int band, List<SeatLockRequest> requests, int timeoutSeconds) {
+        // 1. 构建 Lua 脚本参数: timeout, now, leaseMember, maxScheduleHolds, maxUserHolds, requestCount,
+        //    {seatCount, userId, index...}..., 'lockbatch'
+        int size = 7 + 2 * requests.size();
+        for (SeatLockRequest request : requests) {
+            size += request.getSeatPositions().size();
+        }
+        Object[] args = new Object[size];
+        int pos = 0;
+        args[pos++] = Integer.toString(timeoutSeconds);
+        args[pos++] = Long.toString(System.currentTimeMillis() / 1000);
+        args[pos++] = bands.leaseMember(scheduleId, band);
+        args[pos++] = maxHoldsPerSchedule;
+        args[pos++] = maxHoldsPerUser;
+        args[pos++] = Integer.toString(requests.size());
+        for (SeatLockRequest request : requests) {
+            args[pos++] = Integer.toString(request.getSeatPositions().size());
+            args[pos++] = holder(request.getUserId());
+            for (SeatPosition seat : request.getSeatPositions()) {
+                args[pos++] = Integer.toString(bands.localIndex(band, seat));
+            }
+        }
+        args[pos] = "lockbatch";
+
+        // 2. 整批一次执行
+        List<?> reply = executeList(scheduleId, band, args);
+
+        if (reply.size() != requests.size()) {
+            throw new BusinessException(ResultCode.SYSTEM_ERROR);
+        }
+
+        // 3. 结果码: 0=成功, 1=已锁定, 2=已售出, 3=不可售, 4=场次不存在, 5=超过锁座额度
+        List<ResultCode> results = new ArrayList<>(reply.size());
+        for (Object code : reply) {
+            results.add(switch (((Number) code).intValue()) {
+                case 0 -> ResultCode.SUCCESS;
+                case 2 -> ResultCode.SEAT_SOLD_OUT;
+                case 3 -> ResultCode.SEAT_NOT_FOUND;
+                case 4 -> ResultCode.SCHEDULE_NOT_FOUND;
+                case 5 -> ResultCode.SEAT_HOLD_LIMIT_EXCEEDED;
+                default -> ResultCode.SEAT_ALREADY_LOCKED;
+            });
+        }
+        return results;
+    }
+
+    @Override
+    public List<SeatPosition> lockBestAvailable(Long scheduleId, Long userId, int count, int timeoutSeconds) {
+        Object[] args = {
+            Integer.toString(timeoutSeconds), Long.toString(System.currentTimeMillis() / 1000),
+            null, Integer.toString(count), holder(userId), maxHoldsPerSchedule, maxHoldsPerUser, "best"
+        };
+
+        // 从最佳区域所在的段开始逐段查找，每段内找到即锁定
+        for (int band : bestBandOrder(scheduleId)) {
+            args[2] = bands.leaseMember(scheduleId, band);
+
+            // 返回 {0, row, col}=成功, {1}=没有足够的相邻空座, {4}=场次不存在, {5}=超过锁座额度
+            List<?> reply = executeList(scheduleId, band, args);
+
+            int code = ((Number) reply.get(0)).intValue();
+            if (code == 4) {
+                throw new BusinessException(ResultCode.SCHEDULE_NOT_FOUND);
+            }
+            if (code == 5) {
+                throw new BusinessException(ResultCode.SEAT_HOLD_LIMIT_EXCEEDED);
+            }
+            if (code != 0) {
+                continue;
+            }
+            int row = ((Number) reply.get(1)).intValue() + bands.rowOffset(band);
+            int col = ((Number) reply.get(2)).intValue();
+            List<SeatPosition> seats = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                seats.add(new SeatPosition(row, col + i));
+            }
+            return seats;
+        }
+        throw new BusinessException(ResultCode.SEAT_NOT_ENOUGH_ADJACENT);
+    }
+
+    /**
+     * 自动选座查找各段的顺序: 按与最佳行（约 2/3 处）的距离由近到远，跳过影厅范围外的段
+     */
+    private List<Integer> bestBandOrder(Long scheduleId) {
+        if (!bands.isEnabled()) {
+            return List.of(0);
+        }
+        Object hallRows = stringRedisTemplate.opsForHash().get(bands.keys(scheduleId, 0).get(5), "hallRows");
+        if (hallRows == null) {
+            throw new BusinessException(ResultCode.SCHEDULE_NOT_FOUND);
+        }
+        int rows = Integer.parseInt(hallRows.toString());
+        int preferred = bands.of((rows * 2 + 2) / 3);
+
+        List<Integer> order = new ArrayList<>();
+        for (int band = 0; band <= bands.of(rows); band++) {
+            order.add(band);
+        }
+        order.sort(Comparator.comparingInt(band -> Math.abs(band - preferred)));
+        return order;
+    }
+
+    @Override
+    public int releaseSeats(Long scheduleId, List<SeatPosition> seatPositions) {
+        return countByBand(scheduleId, seatPositions, "release", ResultCode.SEAT_RELEASE_FAILED);
+    }
+
+    @Override
+    public int releaseHeldSeats(Long scheduleId, List<HeldSeats> holds) {
+        return heldByBand(scheduleId, holds, "releaseheld", ResultCode.SEAT_RELEASE_FAILED);
+    }
+
+    @Override
+    public int markHeldSeatsSold(Long scheduleId, List<HeldSeats> holds) {
+        return heldByBand(scheduleId, holds, "soldheld", ResultCode.SEAT_SOLD_FAILED);
+    }
+
+    /**
+     * 按段执行 releaseheld / soldheld，各段并行，返回变更的座位总数
+     */
+    private int heldByBand(Long scheduleId, List<HeldSeats> holds, String op, ResultCode failure) {
+        // 1. 按段构建脚本参数: { userId, maxDeadline, seatCount, index... }..., op，没有持有人的座位不处理
+        Map<Integer, List<Object>> bandArgs = new TreeMap<>();
+        for (HeldSeats hold : holds) {
+            if (hold.userId() == null) {
+                continue;
+            }
+            for (Map.Entry<Integer, List<SeatPosition>> group : bands.group(hold.seats()).entrySet()) {
+                List<Object> args = bandArgs.computeIfAbsent(group.getKey(), k -> new ArrayList<>());
+                args.add(hold.userId().toString());
+                args.add(hold.leaseDeadline() == null ? "0" : hold.leaseDeadline().toString());
+                args.add(Integer.toString(group.getValue().size()));
+                for (SeatPosition seat : group.getValue()) {
+                    args.add(Integer.toString(bands.localIndex(group.getKey(), seat)));
+                }
+            }
+        }
+
+        // 2. 各段并行执行
+        List<Long> counts = fanOut(new ArrayList<>(bandArgs.entrySet()), group -> {
+            List<Object> args = group.getValue();
+            args.add(op);
+            return execute(integerScript, scheduleId, group.getKey(), args.toArray());
+        });
+
+        int total = 0;
+        for (Long count : counts) {
+            if (count == null) {
+                throw new BusinessException(failure);
+            }
+            total += count.intValue();
+        }
+        return total;
+    }
+
+    @Override
+    public int markSeatsSold(Long scheduleId, List<SeatPosition> seatPositions) {
+        return countByBand(scheduleId, seatPositions, "sold", ResultCode.SEAT_SOLD_FAILED);
+    }
+
+    /**
+     * 按段执行 release / sold，各段并行，返回变更的座位总数
+     */
+    private int countByBand(Long scheduleId, List<SeatPosition> seatPositions, String op, ResultCode failure) {
+        List<Long> counts = fanOut(new ArrayList<>(bands.group(seatPositions).entrySet()),
+            group -> execute(integerScript, scheduleId, group.getKey(), indexArgs(group.getKey(), group.getValue(), op)));
+
+        int total = 0;
+        for (Long count : counts) {
+            if (count == null) {
+                throw new BusinessException(failure);
+            }
+            total += count.intValue();
+        }
+        return total;
+    }
+
+    @Override
+    public List<Long> sweepExpiredLocks(int batchSize) {
+        long now = System.currentTimeMillis() / 1000;
+        Set<Long> changed = ConcurrentHashMap.newKeySet();
+
+        fanOut(bands.leaseKeys(), leaseKey -> {
+            Set<String> due = stringRedisTemplate.opsForZSet().rangeByScore(leaseKey, 0, now, 0, MAX_SWEEP_SCHEDULES);
+            if (due == null || due.isEmpty()) {
+                return null;
+            }
+
+            Object[] args = {Long.toString(now), Integer.toString(batchSize), null, "sweep"};
+            for (String member : due) {
+                Long scheduleId = SeatBands.scheduleIdOf(member);
+                int band = SeatBands.bandOf(member);
+                args[2] = member;
+
+                // 每次最多回收 batchSize 个，脚本返回 {回收数, 是否还有}
+                int swept = 0;
+                List<?> reply;
+                do {
+                    reply = executeList(scheduleId, band, args);
+                    swept += ((Number) reply.get(0)).intValue();
+                } while (((Number) reply.get(1)).intValue() == 1);
+
+                if (swept > 0) {
+                    changed.add(scheduleId);
+                    log.info("回收过期锁定座位, scheduleId={}, band={}, count={}", scheduleId, band, swept);
+                }
+            }
+            return null;
+        });
+        return new ArrayList<>(changed);
+    }
+
+    @Override
+    public List<SeatCounters> getSeatCounters(List<Long> scheduleIds) {
+        if (scheduleIds.isEmpty()) {
+            return List.of();
+        }
+        byte[][] fields = {
+            "seats".getBytes(StandardCharsets.UTF_8),
+            "locked".getBytes(StandardCharsets.UTF_8),
+            "sold".getBytes(StandardCharsets.UTF_8)
+        };
+
+        // 一次流水线读取全部场次（各段）的计数
+        List<Object> replies = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Long scheduleId : scheduleIds) {
+                for (int band = 0; band < bands.count(); band++) {
+                    byte[] key = bands.keys(scheduleId, band).get(5).getBytes(StandardCharsets.UTF_8);
+                    connection.hashCommands().hMGet(key, fields);
+                }
+            }
+            return null;
+        });
+
+        // 分段时各段计数相加，座位图不存在（没有 seats）的场次跳过
+        List<SeatCounters> result = new ArrayList<>(scheduleIds.size());
+        int i = 0;
+        for (Long scheduleId : scheduleIds) {
+            int seats = 0;
+            int locked = 0;
+            int sold = 0;
+            boolean exists = true;
+            for (int band = 0; band < bands.count(); band++) {
+                List<?> values = (List<?>) replies.get(i++);
+                if (values == null || values.get(0) == null) {
+                    exists = false;
+                    continue;
+                }
+                seats += parseCount(values.get(0));
+                locked += parseCount(values.get(1));
+                sold += parseCount(values.get(2));
+            }
+            if (exists) {
+                result.add(SeatCounters.of(scheduleId, seats, locked, sold));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<SeatSummary> getSeatSummaries(List<Long> scheduleIds, boolean thumbnail) {
+        if (scheduleIds.isEmpty()) {
+            return List.of();
+        }
+        byte[][] fields = {
+            "seats".getBytes(StandardCharsets.UTF_8),
+            "locked".getBytes(StandardCharsets.UTF_8),
+            "sold".getBytes(StandardCharsets.UTF_8),
+            "hallRows".getBytes(StandardCharsets.UTF_8),
+            "cols".getBytes(StandardCharsets.UTF_8)
+        };
+
+        // 1. 一次流水线读取全部场次（各段）的计数，需要缩略图时同时读取原始位图
+        //    集群模式下各命令发往所在节点，每个节点一次往返
+        List<Object> replies = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Long scheduleId : scheduleIds) {
+                for (int band = 0; band < bands.count(); band++) {
+                    List<String> keys = bands.keys(scheduleId, band);
+                    connection.hashCommands().hMGet(keys.get(5).getBytes(StandardCharsets.UTF_8), fields);
+                    if (thumbnail) {
+                        connection.stringCommands().get(keys.get(0).getBytes(StandardCharsets.UTF_8));
+                    }
+                }
+            }
+            return null;
+        }, RESULT_SERIALIZER);
+
+        // 2. 分段时各段计数相加，座位图不存在（没有 seats）的场次跳过
+        List<SeatSummary> result = new ArrayList<>(scheduleIds.size());
+        int i = 0;
+        for (Long scheduleId : scheduleIds) {
+            int seats = 0;
+            int locked = 0;
+            int sold = 0;
+            int rows = 0;
+            int cols = 0;
+            boolean exists = true;
+            byte[][] bitmaps = new byte[bands.count()][];
+            for (int band = 0; band < bands.count(); band++) {
+                List<?> values = (List<?>) replies.get(i++);
+                if (thumbnail) {
+                    bitmaps[band] = (byte[]) replies.get(i++);
+                }
+                if (values == null || values.get(0) == null) {
+                    exists = false;
+                    continue;
+                }
+                seats += parseCount(values.get(0));
+                locked += parseCount(values.get(1));
+                sold += parseCount(values.get(2));
+                rows = parseCount(values.get(3));
+                cols = parseCount(values.get(4));
+            }
+            if (!exists) {
+                continue;
+            }
+            SeatSummary summary = SeatSummary.of(scheduleId, seats, locked, sold, rows, cols);
+            if (thumbnail) {
+                // 3. 缩略图直接由各段的原始位图生成，段内每行 MAX_COLS 个座位
+                summary.setThumbnail(SeatMapCodec.thumbnail(rows, cols, (row, col) -> {
+                    int band = bands.of(row);
+                    byte[] bitmap = bitmaps[band];
+                    return bitmap == null
+                        ? SEAT_DISABLED
+                        : SeatMapCodec.get(bitmap, (row - bands.firstRow(band)) * MAX_COLS + col - 1);
+                }));
+            }
+            result.add(summary);
+        }
+        return result;
+    }
+
+    private static int parseCount(Object value) {
+        if (value instanceof byte[] bytes) {
+            return Integer.parseInt(new String(bytes, StandardCharsets.UTF_8));
+        }
+        return value == null ? 0 : Integer.parseInt(value.toString());
+    }
+
+    @Override
+    public Map<Integer, Map<Integer, Integer>> getSeatStatus(Long scheduleId, int rowStart, int rowEnd, int colStart, int colEnd) {
+        List<Integer> covered = bands.between(rowStart, rowEnd);
+
+        // 各段并行查询窗口内的座位状态，行优先
+        List<List<?>> replies = fanOut(covered, band -> {
+            int first = Math.max(rowStart, bands.firstRow(band));
+            int last = Math.min(rowEnd, bands.lastRow(band));
+            Object[] args = {
+                Integer.toString(first - bands.rowOffset(band)), Integer.toString(last - bands.rowOffset(band)),
+                Integer.toString(colStart), Integer.toString(colEnd), "status"
+            };
+            List<?> reply = executeList(scheduleId, band, args);
+            if (reply.size() != (last - first + 1) * (colEnd - colStart + 1)) {
+                throw new BusinessException(ResultCode.SEAT_STATUS_QUERY_FAILED);
+            }
+            return reply;
+        });
+
+        Map<Integer, Map<Integer, Integer>> result = new LinkedHashMap<>();
+        for (int b = 0; b < covered.size(); b++) {
+            int band = covered.get(b);
+            List<?> reply = replies.get(b);
+            int i = 0;
+            for (int row = Math.max(rowStart, bands.firstRow(band)); row <= Math.min(rowEnd, bands.lastRow(band)); row++) {
+                Map<Integer, Integer> cols = new LinkedHashMap<>();
+                for (int col = colStart; col <= colEnd; col++) {
+                    cols.put(col, ((Number) reply.get(i++)).intValue());
+                }
+                result.put(row, cols);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public byte[] getSeatStatusBinary(Long scheduleId, int rowStart, int rowEnd, int colStart, int colEnd) {
+        List<Integer> covered = bands.between(rowStart, rowEnd);
+
+        List<List<?>> replies = fanOut(covered, band -> {
+            int first = Math.max(rowStart, bands.firstRow(band));
+            int last = Math.min(rowEnd, bands.lastRow(band));
+            Object[] args = {
+                Integer.toString(first - bands.rowOffset(band)), Integer.toString(last - bands.rowOffset(band)), "bitmap"
+            };
+            List<?> reply = executeList(scheduleId, band, args);
+            if (reply.size() < 2) {
+                throw new BusinessException(ResultCode.SEAT_STATUS_QUERY_FAILED);
+            }
+            return reply;
+        });
+
+        // 1. 拼接各段的原始位图，从 rowStart 行开始，每行 MAX_COLS 个座位
+        byte[] bitmap = new byte[(rowEnd - rowStart + 1) * ROW_BYTES];
+        long version = 0;
+        int offset = (rowStart - 1) * MAX_COLS;
+        for (int b = 0; b < covered.size(); b++) {
+            int band = covered.get(b);
+            List<?> reply = replies.get(b);
+            byte[] part = (byte[]) reply.get(0);
+            int to = (Math.max(rowStart, bands.firstRow(band)) - rowStart) * ROW_BYTES;
+            System.arraycopy(part, 0, bitmap, to, Math.min(part.length, bitmap.length - to));
+            version += ((Number) reply.get(1)).longValue();
+
+            // 2. 已过期的锁定视为可选
+            for (int i = 2; i < reply.size(); i++) {
+                SeatMapCodec.clear(bitmap, bands.globalIndex(band, ((Number) reply.get(i)).intValue()) - offset);
+            }
+        }
+
+        return SeatMapCodec.encode(bitmap, rowStart, MAX_COLS, rowStart, rowEnd, colStart, colEnd, version);
+    }
+
+    @Override
+    public SeatStatusDelta getSeatStatusDelta(Long scheduleId, long sinceVersion,
+                                              int rowStart, int rowEnd, int colStart, int colEnd) {
+        List<Integer> covered = bands.between(rowStart, rowEnd);
+        Map<Integer, Long> since = new LinkedHashMap<>();
+        long uncoveredVersion = 0;
+
+        if (!bands.isEnabled()) {
+            since.put(0, sinceVersion);
+        } else {
+            // 1. 分段时座位图版本为各段版本之和: 先读各段版本，客户端版本之后的变更数 pending 是每段变更数的上界，
+            //    每段从 (段版本 - pending) 开始查增量即可覆盖客户端缺少的全部变更
+            List<Integer> all = bands.all();
+            List<Long> versions = fanOut(all, band -> {
+                String value = stringRedisTemplate.opsForValue().get(bands.keys(scheduleId, band).get(2));
+                return value == null ? 0L : Long.parseLong(value);
+            });
+            long current = versions.stream().mapToLong(Long::longValue).sum();
+            if (current == sinceVersion) {
+                SeatStatusDelta delta = new SeatStatusDelta();
+                delta.setVersion(current);
+                delta.setSeats(new LinkedHashMap<>());
+                return delta;
+            }
+            long pending = current - sinceVersion;
+            for (int i = 0; i < all.size(); i++) {
+                int band = all.get(i);
+                if (covered.contains(band)) {
+                    // 客户端版本大于当前版本（座位图被重建）时 -1 让脚本返回完整状态
+                    since.put(band, pending < 0 ? -1 : Math.max(0, versions.get(i) - pending));
+                } else {
+                    uncoveredVersion += versions.get(i);
+                }
+            }
+        }
+
+        // 2. 各段并行查询增量
+        List<List<?>> replies = fanOut(covered, band -> deltaBand(scheduleId, band, since.get(band),
+            rowStart, rowEnd, colStart, colEnd));
+
+        // 3. 只要有一段返回了完整状态，其余段也取完整状态，整体作为完整快照返回
+        boolean full = replies.stream().anyMatch(reply -> ((Number) reply.get(1)).intValue() == 1);
+        if (full) {
+            for (int b = 0; b < covered.size(); b++) {
+                if (((Number) replies.get(b).get(1)).intValue() == 0) {
+                    replies.set(b, deltaBand(scheduleId, covered.get(b), -1, rowStart, rowEnd, colStart, colEnd));
+                }
+            }
+        }
+
+        SeatStatusDelta delta = new SeatStatusDelta();
+        delta.setFull(full);
+        long version = uncoveredVersion;
+        Map<Integer, Map<Integer, Integer>> seats = new LinkedHashMap<>();
+        for (int b = 0; b < covered.size(); b++) {
+            int band = covered.get(b);
+            List<?> reply = replies.get(b);
+            version += ((Number) reply.get(0)).longValue();
+
+            if (full) {
+                // 完整快照: 窗口内全部座位状态，行优先
+                int i = 2;
+                for (int row = Math.max(rowStart, bands.firstRow(band)); row <= Math.min(rowEnd, bands.lastRow(band)); row++) {
+                    Map<Integer, Integer> cols = new LinkedHashMap<>();
+                    for (int col = colStart; col <= colEnd; col++) {
+                        cols.put(col, ((Number) reply.get(i++)).intValue());
+                    }
+                    seats.put(row, cols);
+                }
+            } else {
+                // 增量: [座位下标, 状态] 成对出现
+                for (int i = 2; i + 1 < reply.size(); i += 2) {
+                    int index = bands.globalIndex(band, ((Number) reply.get(i)).intValue());
+                    seats.computeIfAbsent(index / MAX_COLS + 1, k -> new LinkedHashMap<>())
+                        .put(index % MAX_COLS + 1, ((Number) reply.get(i + 1)).intValue());
+                }
+            }
+        }
+        delta.setVersion(version);
+        delta.setSeats(seats);
+        return delta;
+    }
+
+    /**
+     * 查询一段的增量，行号为整张座位图的行号
+     */
+    private List<?> deltaBand(Long scheduleId, int band, long sinceVersion,
+                              int rowStart, int rowEnd, int colStart, int colEnd) {
+        int first = Math.max(rowStart, bands.firstRow(band));
+        int last = Math.min(rowEnd, bands.lastRow(band));
+        Object[] args = {
+            Long.toString(sinceVersion),
+            Integer.toString(first - bands.rowOffset(band)), Integer.toString(last - bands.rowOffset(band)),
+            Integer.toString(colStart), Integer.toString(colEnd), "delta"
+        };
+
+        List<?> reply = executeList(scheduleId, band, args);
+
+        if (reply.size() < 2) {
+            throw new BusinessException(ResultCode.SEAT_STATUS_QUERY_FAILED);
+        }
+        return reply;
+    }
+
+    @Override
+    public int initSeatMaps(List<SeatMapLayout> layouts) {
+        List<SeatMapSnapshot> snapshots = new ArrayList<>(layouts.size());
+        for (SeatMapLayout layout : layouts) {
+            snapshots.add(new SeatMapSnapshot(layout, List.of(), Map.of(), 0));
+        }
+        return restoreSeatMaps(snapshots);
+    }
+
+    @Override
+    public int restoreSeatMaps(List<SeatMapSnapshot> snapshots) {
+        if (snapshots.isEmpty()) {
+            return 0;
+        }
+        byte[] sha = scriptSha.getBytes(StandardCharsets.UTF_8);
+        byte[] op = "init".getBytes(StandardCharsets.UTF_8);
+
+        // 1. 确保脚本已加载，流水线中统一使用 EVALSHA
+        stringRedisTemplate.execute((RedisCallback<String>) connection ->
+            connection.scriptingCommands().scriptLoad(scriptText.getBytes(StandardCharsets.UTF_8)));
+
+        // 2. 所有场次的初始化在一次流水线中发送，每个场次（段）一次 SET NX + HSET 元数据
+        List<Object> replies = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (SeatMapSnapshot snapshot : snapshots) {
+                SeatMapLayout layout = snapshot.getLayout();
+                Long scheduleId = layout.getScheduleId();
+                byte[] bitmap = bitmap(layout);
+                for (SeatPosition seat : snapshot.getSoldSeats()) {
+                    SeatMapCodec.set(bitmap, seat.index(), SEAT_SOLD);
+                }
+                for (SeatPosition seat : snapshot.getLockedSeats().keySet()) {
+                    SeatMapCodec.set(bitmap, seat.index(), SEAT_LOCKED);
+                }
+
+                for (int band = 0; band < bands.count(); band++) {
+                    // 段内的实际行数、可售座位数、已售座位数与锁定座位
+                    int rowOffset = bands.rowOffset(band);
+                    int rows = Math.max(0, Math.min(bands.bandRows(), layout.getTotalRows() - rowOffset));
+                    int seats = rows * layout.getTotalCols();
+                    for (SeatPosition seat : layout.getDisabledSeats()) {
+                        if (bands.of(seat.row()) == band) {
+                            seats--;
+                        }
+                    }
+                    int sold = 0;
+                    for (SeatPosition seat : snapshot.getSoldSeats()) {
+                        if (bands.of(seat.row()) == band) {
+                            sold++;
+                        }
+                    }
+                    List<byte[]> locks = new ArrayList<>();
+                    for (Map.Entry<SeatPosition, Long> entry : snapshot.getLockedSeats().entrySet()) {
+                        if (bands.of(entry.getKey().row()) == band) {
+                            locks.add(entry.getValue().toString().getBytes(StandardCharsets.UTF_8));
+                            locks.add(bytes(bands.localIndex(band, entry.getKey())));
+                        }
+                    }
+
+                    List<String> keys = bands.keys(scheduleId, band);
+                    byte[][] keysAndArgs = new byte[keys.size() + 11 + locks.size()][];
+                    for (int i = 0; i < keys.size(); i++) {
+                        keysAndArgs[i] = keys.get(i).getBytes(StandardCharsets.UTF_8);
+                    }
+                    int pos = keys.size();
+                    keysAndArgs[pos++] = bytes(rows);
+                    keysAndArgs[pos++] = bytes(layout.getTotalCols());
+                    keysAndArgs[pos++] = bytes(seats);
+                    keysAndArgs[pos++] = bytes(rowOffset);
+                    keysAndArgs[pos++] = bytes(layout.getTotalRows());
+                    keysAndArgs[pos++] = Arrays.copyOfRange(bitmap, rowOffset * ROW_BYTES, bands.lastRow(band) * ROW_BYTES);
+                    keysAndArgs[pos++] = scheduleId.toString().getBytes(StandardCharsets.UTF_8);
+                    keysAndArgs[pos++] = bytes(sold);
+                    keysAndArgs[pos++] = Long.toString(snapshot.getVersion()).getBytes(StandardCharsets.UTF_8);
+                    keysAndArgs[pos++] = bands.leaseMember(scheduleId, band).getBytes(StandardCharsets.UTF_8);
+                    for (byte[] lock : locks) {
+                        keysAndArgs[pos++] = lock;
+                    }
+                    keysAndArgs[pos] = op;
+                    connection.scriptingCommands().evalSha(sha, ReturnType.INTEGER, keys.size(), keysAndArgs);
+                }
+            }
+            return null;
+        });
+
+        // 3. 第一段返回 1 的为新初始化，0 为座位图已存在
+        int initialized = 0;
+        for (int i = 0; i < replies.size(); i += bands.count()) {
+            if (replies.get(i) instanceof Number number && number.intValue() == 1) {
+                initialized++;
+            }
+        }
+        return initialized;
+    }
+
+    /**
+     * 按布局生成整张座位位图: 影厅内座位为 0（可选），过道、不可售座位及影厅范围外为 3（不可售）
+     */
+    private static byte[] bitmap(SeatMapLayout layout) {
+        byte[] bitmap = new byte[SeatPosition.MAX_ROWS * ROW_BYTES];
+        Arrays.fill(bitmap, (byte) 0xFF);
+        for (int row = 1; row <= layout.getTotalRows(); row++) {
+            int base = (row - 1) * MAX_COLS;
+            for (int col = 0; col < layout.getTotalCols(); col++) {
+                SeatMapCodec.clear(bitmap, base + col);
+            }
+        }
+        for (SeatPosition seat : layout.getDisabledSeats()) {
+            SeatMapCodec.set(bitmap, seat.index(), SEAT_DISABLED);
+        }
+        return bitmap;
+    }
+
+    private static String holder(Long userId) {
+        return userId == null ? NO_HOLDER : userId.toString();
+    }
+
+    private static byte[] bytes(int value) {
+        return Integer.toString(value).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 段内座位下标参数: index..., op
+     */
+    private Object[] indexArgs(int band, List<SeatPosition> seatPositions, String op) {
+        int size = seatPositions.size();
+        Object[] args = new Object[size + 1];
+        for (int i = 0; i < size; i++) {
+            args[i] = Integer.toString(bands.localIndex(band, seatPositions.get(i)));
+        }
+        args[size] = op;
+        return args;
+    }
+
+    /**
+     * 在一段上执行座位脚本
+     * 参数按纯字符串传输，不经过 RedisTemplate 的 JSON 序列化
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T execute(DefaultRedisScript<T> script, Long scheduleId, int band, Object[] args) {
+        return redisTemplate.execute(script, RedisSerializer.string(), (RedisSerializer<T>) RESULT_SERIALIZER,
+            bands.keys(scheduleId, band), args);
+    }
+
+    /**
+     * 执行返回数组的脚本操作
+     */
+    private List<?> executeList(Long scheduleId, int band, Object[] args) {
+        List<?> reply = execute(listScript, scheduleId, band, args);
+        if (reply == null) {
+            throw new BusinessException(ResultCode.SEAT_STATUS_QUERY_FAILED);
+        }
+        return reply;
+    }
+
+    /**
+     * 对每一项执行任务，多于一项时在 bandExecutor 上并行执行，结果与输入顺序一致
+     */
+    private <E, T> List<T> fanOut(List<E> items, Function<E, T> task) {
+        if (items.size() <= 1 || bandExecutor == null) {
+            List<T> results = new ArrayList<>(items.size());
+            for (E item : items) {
+                results.add(task.apply(item));
+            }
+            return results;
+        }
+
+        List<CompletableFuture<T>> futures = new ArrayList<>(items.size());
+        for (E item : items) {
+            futures.add(CompletableFuture.supplyAsync(() -> task.apply(item), bandExecutor));
+        }
+        List<T> results = new ArrayList<>(items.size());
+        try {
+            for (CompletableFuture<T> future : futures) {
+                results.add(future.join());
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return results;
+    }
+}
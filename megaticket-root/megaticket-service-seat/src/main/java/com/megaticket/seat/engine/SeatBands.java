@@ -0,0 +1,232 @@
+package com.megaticket.seat.engine;
+
+import com.megaticket.common.constant.RedisKeyConstant;
+import com.megaticket.common.dto.SeatPosition;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Redis 座位图的行段划分与 Key 路由
+ *
+ * 不分段（bandRows = 0）时整个场次只有一段，沿用原有 Key: cinema:seat_map:{scheduleId} 等
+ * 分段时每 bandRows 行为一段，每段是一组独立的 Key，段内行号从 1 开始，座位下标为段内下标；
+ * 同一段的 Key 带相同的 hash tag（由 scheduleId 与段号散列到 slotBuckets 个桶之一），
+ * 因此同一段的脚本在集群中落在同一个 slot，不同段分散到不同 slot / 节点:
+ *   cinema:seat_map:{bucket}:{scheduleId}:{band}
+ *   cinema:seat_lease_schedules:{bucket}   该桶内有锁定的段, member = scheduleId:band
+ *   cinema:seat_sync_stream:{bucket}       该桶内各段的持久化同步流
+ * 分段时用户的锁座额度按段计数（场次内上限对每段分别生效），不维护跨场次的用户持有数
+ *
+ * 单机 / 哨兵模式不分段时脚本除场次的 Key 外还访问全局的 cinema:seat_lease_schedules、cinema:seat_sync_stream 与
+ * cinema:seat_user_holds；连接 Redis 集群（配置了 spring.data.redis.cluster.nodes）时不分段也使用带 hash tag 的 Key，
+ * 整个场次为一段，待回收集合与同步流同样按桶拆分，不维护跨场次的用户持有数:
+ *   cinema:seat_map:{bucket}:{scheduleId}
+ *
+ * @author Yang JunJie
+ * @since 2026/1/14
+ */
+final class SeatBands {
+
+    private static final int MAX_ROWS = SeatPosition.MAX_ROWS;
+    private static final int MAX_COLS = SeatPosition.MAX_COLS;
+
+    private final boolean enabled;
+    /** 分段或连接集群时 Key 带 hash tag，待回收集合与同步流按桶拆分 */
+    private final boolean tagged;
+    private final int bandRows;
+    private final int count;
+    private final int slotBuckets;
+
+    SeatBands(int bandRows, int slotBuckets, boolean cluster) {
+        this.enabled = bandRows > 0 && bandRows < MAX_ROWS;
+        this.tagged = enabled || cluster;
+        this.bandRows = enabled ? bandRows : MAX_ROWS;
+        this.count = (MAX_ROWS + this.bandRows - 1) / this.bandRows;
+        this.slotBuckets = slotBuckets;
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 同一场次（段）的 Key 是否都在同一个 slot，连接 Redis 集群时必须为 true
+     */
+    boolean isTagged() {
+        return tagged;
+    }
+
+    /**
+     * 段数
+     */
+    int count() {
+        return count;
+    }
+
+    /**
+     * 每段行数
+     */
+    int bandRows() {
+        return bandRows;
+    }
+
+    /**
+     * 行号所在的段
+     */
+    int of(int row) {
+        return (row - 1) / bandRows;
+    }
+
+    /**
+     * 段内第一行之前的行数（段内行号 = 行号 - rowOffset）
+     */
+    int rowOffset(int band) {
+        return band * bandRows;
+    }
+
+    int firstRow(int band) {
+        return rowOffset(band) + 1;
+    }
+
+    int lastRow(int band) {
+        return Math.min(rowOffset(band) + bandRows, MAX_ROWS);
+    }
+
+    /**
+     * 段内座位下标
+     */
+    int localIndex(int band, SeatPosition seat) {
+        return seat.index() - rowOffset(band) * MAX_COLS;
+    }
+
+    /**
+     * 段内座位下标转换为整张座位图的下标
+     */
+    int globalIndex(int band, int localIndex) {
+        return localIndex + rowOffset(band) * MAX_COLS;
+    }
+
+    /**
+     * 与 [rowStart, rowEnd] 相交的段
+     */
+    List<Integer> between(int rowStart, int rowEnd) {
+        List<Integer> bands = new ArrayList<>();
+        for (int band = of(rowStart); band <= of(rowEnd); band++) {
+            bands.add(band);
+        }
+        return bands;
+    }
+
+    /**
+     * 全部段
+     */
+    List<Integer> all() {
+        return between(1, MAX_ROWS);
+    }
+
+    /**
+     * 按段分组座位，段号升序
+     */
+    Map<Integer, List<SeatPosition>> group(List<SeatPosition> seatPositions) {
+        Map<Integer, List<SeatPosition>> groups = new TreeMap<>();
+        for (SeatPosition seat : seatPositions) {
+            groups.computeIfAbsent(of(seat.row()), k -> new ArrayList<>()).add(seat);
+        }
+        return groups;
+    }
+
+    /**
+     * 座位都在同一段时返回段号，否则返回 -1
+     */
+    int single(List<SeatPosition> seatPositions) {
+        int band = of(seatPositions.get(0).row());
+        for (SeatPosition seat : seatPositions) {
+            if (of(seat.row()) != band) {
+                return -1;
+            }
+        }
+        return band;
+    }
+
+    /**
+     * 脚本使用的 Key: [座位位图, 锁定截止时间, 座位图版本, 变更环, 待回收场次, 座位图元数据, 同步流,
+     * 座位持有人, 场次内用户持有数, 用户全部场次持有数（只在 Key 不带 hash tag 时有）]
+     */
+    List<String> keys(Long scheduleId, int band) {
+        String suffix = suffix(scheduleId, band);
+        List<String> keys = new ArrayList<>(10);
+        keys.add(RedisKeyConstant.SEAT_MAP_PREFIX + suffix);
+        keys.add(RedisKeyConstant.SEAT_LOCK_PREFIX + suffix);
+        keys.add(RedisKeyConstant.SEAT_VERSION_PREFIX + suffix);
+        keys.add(RedisKeyConstant.SEAT_CHANGES_PREFIX + suffix);
+        keys.add(leaseKey(bucket(scheduleId, band)));
+        keys.add(RedisKeyConstant.SEAT_META_PREFIX + suffix);
+        keys.add(syncStreamKey(bucket(scheduleId, band)));
+        keys.add(RedisKeyConstant.SEAT_HOLDER_PREFIX + suffix);
+        keys.add(RedisKeyConstant.SEAT_HOLDS_PREFIX + suffix);
+        if (!tagged) {
+            keys.add(RedisKeyConstant.SEAT_USER_HOLDS_KEY);
+        }
+        return keys;
+    }
+
+    /**
+     * 段在待回收集合中的 member
+     */
+    String leaseMember(Long scheduleId, int band) {
+        return enabled ? scheduleId + ":" + band : scheduleId.toString();
+    }
+
+    static Long scheduleIdOf(String leaseMember) {
+        int pos = leaseMember.indexOf(':');
+        return Long.valueOf(pos < 0 ? leaseMember : leaseMember.substring(0, pos));
+    }
+
+    static int bandOf(String leaseMember) {
+        int pos = leaseMember.indexOf(':');
+        return pos < 0 ? 0 : Integer.parseInt(leaseMember.substring(pos + 1));
+    }
+
+    /**
+     * 全部待回收集合的 Key（Key 不带 hash tag 时只有一个）
+     */
+    List<String> leaseKeys() {
+        if (!tagged) {
+            return List.of(RedisKeyConstant.SEAT_LEASE_SCHEDULES_KEY);
+        }
+        List<String> keys = new ArrayList<>(slotBuckets);
+        for (int bucket = 0; bucket < slotBuckets; bucket++) {
+            keys.add(leaseKey(bucket));
+        }
+        return keys;
+    }
+
+    private String suffix(Long scheduleId, int band) {
+        if (!tagged) {
+            return scheduleId.toString();
+        }
+        if (!enabled) {
+            return "{" + bucket(scheduleId, band) + "}:" + scheduleId;
+        }
+        return "{" + bucket(scheduleId, band) + "}:" + scheduleId + ":" + band;
+    }
+
+    private String leaseKey(int bucket) {
+        return tagged
+            ? RedisKeyConstant.SEAT_LEASE_SCHEDULES_KEY + ":{" + bucket + "}"
+            : RedisKeyConstant.SEAT_LEASE_SCHEDULES_KEY;
+    }
+
+    private String syncStreamKey(int bucket) {
+        return tagged
+            ? RedisKeyConstant.SEAT_SYNC_STREAM_KEY + ":{" + bucket + "}"
+            : RedisKeyConstant.SEAT_SYNC_STREAM_KEY;
+    }
+
+    private int bucket(Long scheduleId, int band) {
+        return Math.floorMod(Long.hashCode(scheduleId) * 31 + band, slotBuckets);
+    }
+}
@@ -0,0 +1,195 @@
+package com.megaticket.seat.engine;
+
+import com.megaticket.common.dto.HeldSeats;
+import com.megaticket.common.dto.SeatCounters;
+import com.megaticket.common.dto.SeatPosition;
+import com.megaticket.common.exception.BusinessException;
+import com.megaticket.common.result.ResultCode;
+import com.megaticket.seat.dto.SeatLockRequest;
+import com.megaticket.seat.dto.SeatMapLayout;
+import com.megaticket.seat.dto.SeatMapSnapshot;
+import com.megaticket.seat.dto.SeatStatusDelta;
+import com.megaticket.seat.dto.SeatSummary;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 座位引擎接口 - 座位状态的存储与原子操作
+ * 通过配置 megaticket.seat.engine 选择实现:
+ *   redis  (默认) Redis Bitfield + Lua 脚本, 见 {@link RedisSeatEngine}
+ *   memory 进程内分片位图 + 快照/日志持久化, 见 {@link MemorySeatEngine}
+ *
+ * 参数校验由 SeatService 完成, 引擎只负责状态读写;
+ * 业务失败（座位已锁定/已售出/不可售/场次不存在/超过锁座额度）以 BusinessException 抛出
+ *
+ * 锁座额度: 锁定中的座位记在锁座用户名下，用户在单个场次、全部场次锁定中的座位数各有上限，
+ * 额度的校验与占用和锁座在同一原子操作内完成，释放 / 售出 / 锁定过期回收时归还
+ *   megaticket.seat.hold.max-per-schedule 单个场次每个用户最多锁定的座位数, 默认 0（不限）
+ *   megaticket.seat.hold.max-per-user     每个用户在全部场次最多锁定的座位数, 默认 0（不限）
+ *                                         Redis 座位图分段或连接 Redis 集群时不生效（见 SeatBands）
+ * 额度按网关传入的 X-User-Id 计数，网关恢复按登录 Token 解析用户之前不要开启（否则全站共用一个用户的额度）；
+ * 开启后锁座请求必须带用户ID（见 SeatService#checkHolder）
+ *
+ * @author Yang JunJie
+ * @since 2026/1/14
+ */
+public interface SeatEngine {
+
+    /**
+     * 场次座位图是否存在
+     *
+     * @param scheduleId 场次ID
+     * @return 是否存在
+     */
+    boolean exists(Long scheduleId);
+
+    /**
+     * 锁定座位（全部成功或全部失败）
+     *
+     * @param scheduleId     场次ID
+     * @param userId         锁座用户ID，为 null 时不校验锁座额度
+     * @param seatPositions  座位位置列表
+     * @param timeoutSeconds 锁定超时时间(秒)
+     * @return 锁定成功的座位列表
+     */
+    List<SeatPosition> lockSeats(Long scheduleId, Long userId, List<SeatPosition> seatPositions, int timeoutSeconds);
+
+    /**
+     * 批量锁定：同一场次的多个锁座请求按顺序逐个判定，每个请求内部全部成功或全部失败
+     * 默认逐个调用 {@link #lockSeats}，远程存储的实现应合并为一次往返
+     *
+     * @param scheduleId     场次ID
+     * @param requests       锁座请求列表
+     * @param timeoutSeconds 锁定超时时间(秒)
+     * @return 每个请求的结果: SUCCESS / SEAT_ALREADY_LOCKED / SEAT_SOLD_OUT / SEAT_NOT_FOUND / SCHEDULE_NOT_FOUND
+     *         / SEAT_HOLD_LIMIT_EXCEEDED
+     */
+    default List<ResultCode> lockSeatsBatch(Long scheduleId, List<SeatLockRequest> requests, int timeoutSeconds) {
+        List<ResultCode> results = new ArrayList<>(requests.size());
+        for (SeatLockRequest request : requests) {
+            try {
+                lockSeats(scheduleId, request.getUserId(), request.getSeatPositions(), timeoutSeconds);
+                results.add(ResultCode.SUCCESS);
+            } catch (BusinessException e) {
+                results.add(e.getResultCode());
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 自动选座：找出同一排连续 count 个可选座位中离影厅最佳区域最近的一组，并原子锁定
+     *
+     * @param scheduleId     场次ID
+     * @param userId         锁座用户ID，为 null 时不校验锁座额度
+     * @param count          座位数
+     * @param timeoutSeconds 锁定超时时间(秒)
+     * @return 锁定成功的座位列表（同一排、列号连续）
+     */
+    List<SeatPosition> lockBestAvailable(Long scheduleId, Long userId, int count, int timeoutSeconds);
+
+    /**
+     * 释放已锁定的座位
+     *
+     * @param scheduleId    场次ID
+     * @param seatPositions 座位位置列表
+     * @return 释放成功的座位数量
+     */
+    int releaseSeats(Long scheduleId, List<SeatPosition> seatPositions);
+
+    /**
+     * 按持有人释放座位：只释放仍处于锁定状态、仍记在对应用户名下、且截止时间不晚于 leaseDeadline 的座位
+     * 锁定过期被回收后又被其他用户或同一用户重新锁定的座位不受影响；没有持有人的锁定（座位图重建 / 重启恢复的锁定）不释放，等待过期回收
+     *
+     * @param scheduleId 场次ID
+     * @param holds      各用户锁定的座位
+     * @return 释放成功的座位数量
+     */
+    int releaseHeldSeats(Long scheduleId, List<HeldSeats> holds);
+
+    /**
+     * 标记座位已售出
+     *
+     * @param scheduleId    场次ID
+     * @param seatPositions 座位位置列表
+     * @return 售出的座位数量
+     */
+    int markSeatsSold(Long scheduleId, List<SeatPosition> seatPositions);
+
+    /**
+     * 按持有人标记座位已售出（订单支付成功）：条件与 {@link #releaseHeldSeats} 相同，
+     * 锁定已过期被回收、或已被其他用户重新锁定的座位不会售给该订单
+     *
+     * @param scheduleId 场次ID
+     * @param holds      各用户锁定的座位
+     * @return 售出的座位数量
+     */
+    int markHeldSeatsSold(Long scheduleId, List<HeldSeats> holds);
+
+    /**
+     * 回收已过期的锁定：把锁定超时的座位恢复为可选并推进座位图版本
+     * 由后台回收任务定期调用，锁座路径不承担回收工作
+     *
+     * @param batchSize 每个场次单次最多回收的座位数
+     * @return 本次有座位被回收的场次ID
+     */
+    List<Long> sweepExpiredLocks(int batchSize);
+
+    /**
+     * 批量查询场次剩余座位计数（不扫描座位图），座位图不存在的场次不返回
+     *
+     * @param scheduleIds 场次ID列表
+     * @return 剩余座位计数，顺序与 scheduleIds 一致
+     */
+    List<SeatCounters> getSeatCounters(List<Long> scheduleIds);
+
+    /**
+     * 批量查询场次座位概览（计数 + 可选的缩略图），座位图不存在的场次不返回
+     *
+     * @param scheduleIds 场次ID列表
+     * @param thumbnail   是否生成缩略图
+     * @return 座位概览，顺序与 scheduleIds 一致
+     */
+    List<SeatSummary> getSeatSummaries(List<Long> scheduleIds, boolean thumbnail);
+
+    /**
+     * 查询座位状态图
+     *
+     * @return 座位状态图 {row: {col: status}}
+     */
+    Map<Integer, Map<Integer, Integer>> getSeatStatus(Long scheduleId, int rowStart, int rowEnd, int colStart, int colEnd);
+
+    /**
+     * 查询座位状态图（二进制编码）
+     *
+     * @return 编码后的座位图，格式见 {@link com.megaticket.seat.codec.SeatMapCodec}
+     */
+    byte[] getSeatStatusBinary(Long scheduleId, int rowStart, int rowEnd, int colStart, int colEnd);
+
+    /**
+     * 增量查询座位状态
+     * 返回 sinceVersion 之后窗口内变化过的座位；变更记录已不足以覆盖 sinceVersion 时返回窗口内的完整状态
+     *
+     * @param sinceVersion 客户端已持有的座位图版本
+     * @return 座位状态增量
+     */
+    SeatStatusDelta getSeatStatusDelta(Long scheduleId, long sinceVersion, int rowStart, int rowEnd, int colStart, int colEnd);
+
+    /**
+     * 批量初始化场次座位图（过道与不可售座位初始化为不可售），已存在的座位图不会被覆盖
+     *
+     * @param layouts 场次座位布局列表
+     * @return 新初始化的场次数量
+     */
+    int initSeatMaps(List<SeatMapLayout> layouts);
+
+    /**
+     * 批量重建场次座位图（座位图丢失后按快照恢复已售 / 已锁定座位），已存在的座位图不会被覆盖
+     *
+     * @param snapshots 场次座位图快照列表
+     * @return 重建的场次数量
+     */
+    int restoreSeatMaps(List<SeatMapSnapshot> snapshots);
+}
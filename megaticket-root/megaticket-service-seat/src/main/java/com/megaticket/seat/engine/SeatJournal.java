@@ -0,0 +1,217 @@
+package com.megaticket.seat.engine;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 内存座位引擎的持久化：每个分片一个快照文件 + 一个追加写日志
+ *
+ * 日志记录的是操作生效后的结果（而非原始请求），重放时无需再做校验：
+ *   [int 记录长度][byte 操作][long scheduleId][int 参数][int 座位数][int 座位下标...]
+ *   OP_INIT 的参数为 rows << 16 | cols，座位下标为不可售座位
+ * 快照:
+ *   [int 场次数] { [long scheduleId][int rows][int cols][long 版本号][状态位图][锁定截止时间] } ...
+ *
+ * 写快照后截断日志；恢复时先加载快照，再重放日志（忽略崩溃时写了一半的尾部记录）
+ * 只允许所属分片的事件循环线程调用
+ *
+ * 刷盘: forceIntervalMillis 为 0 时每条记录写入后 force，返回即已落盘（进程或机器崩溃都不丢失）；
+ * 大于 0 时由调用方每隔该间隔调用 {@link #flush}，记录只写入页缓存，机器崩溃或断电最多丢失最近一个间隔内的变更
+ * （进程崩溃不丢失）
+ *
+ * @author Yang JunJie
+ * @since 2026/1/14
+ */
+@Slf4j
+final class SeatJournal implements Closeable {
+
+    static final byte OP_INIT = 1;
+    static final byte OP_LOCK = 2;
+    static final byte OP_RELEASE = 3;
+    static final byte OP_SOLD = 4;
+
+    private static final int RECORD_HEADER_BYTES = 1 + Long.BYTES + Integer.BYTES + Integer.BYTES;
+
+    private final Path journalPath;
+    private final Path snapshotPath;
+    private final long forceIntervalMillis;
+    private FileChannel channel;
+    /** 上次刷盘后是否有新写入的记录 */
+    private boolean dirty;
+
+    SeatJournal(Path dataDir, int shardId, long forceIntervalMillis) {
+        this.journalPath = dataDir.resolve("shard-" + shardId + ".journal");
+        this.snapshotPath = dataDir.resolve("shard-" + shardId + ".snapshot");
+        this.forceIntervalMillis = forceIntervalMillis;
+    }
+
+    /**
+     * 从快照和日志恢复该分片的全部场次，并打开日志用于追加
+     */
+    Map<Long, SeatMatrix> recover() throws IOException {
+        Files.createDirectories(journalPath.getParent());
+        Map<Long, SeatMatrix> matrices = new HashMap<>();
+
+        // 1. 加载快照
+        if (Files.exists(snapshotPath)) {
+            ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(snapshotPath));
+            int count = in.getInt();
+            for (int i = 0; i < count; i++) {
+                long scheduleId = in.getLong();
+                SeatMatrix matrix = new SeatMatrix(in.getInt(), in.getInt());
+                matrix.readFrom(in);
+                matrices.put(scheduleId, matrix);
+            }
+        }
+
+        // 2. 重放日志
+        int replayed = 0;
+        if (Files.exists(journalPath)) {
+            ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(journalPath));
+            while (in.remaining() >= Integer.BYTES) {
+                int length = in.getInt();
+                if (in.remaining() < length) {
+                    log.warn("座位日志尾部记录不完整, 已忽略, file={}", journalPath);
+                    break;
+                }
+                apply(in, matrices);
+                replayed++;
+            }
+        }
+
+        channel = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        log.info("座位分片恢复完成, file={}, schedules={}, replayed={}", journalPath, matrices.size(), replayed);
+        return matrices;
+    }
+
+    /**
+     * 追加一条日志记录
+     *
+     * @param op         操作类型
+     * @param scheduleId 场次ID
+     * @param arg        操作参数（初始化为 rows<<16|cols，锁定为截止时间，其余为 0）
+     * @param indices    座位下标
+     * @param count      有效座位数
+     */
+    void append(byte op, long scheduleId, int arg, int[] indices, int count) throws IOException {
+        int length = RECORD_HEADER_BYTES + count * Integer.BYTES;
+        ByteBuffer record = ByteBuffer.allocate(Integer.BYTES + length);
+        record.putInt(length).put(op).putLong(scheduleId).putInt(arg).putInt(count);
+        for (int i = 0; i < count; i++) {
+            record.putInt(indices[i]);
+        }
+        record.flip();
+        while (record.hasRemaining()) {
+            channel.write(record);
+        }
+
+        // 只刷数据不刷元数据，追加导致的文件长度变化仍会落盘
+        if (forceIntervalMillis == 0) {
+            channel.force(false);
+        } else {
+            dirty = true;
+        }
+    }
+
+    /**
+     * 刷盘上次刷盘后写入的记录（forceIntervalMillis 大于 0 时定期调用）
+     */
+    void flush() throws IOException {
+        if (dirty) {
+            channel.force(false);
+            dirty = false;
+        }
+    }
+
+    /**
+     * 写快照并截断日志
+     */
+    void snapshot(Map<Long, SeatMatrix> matrices) throws IOException {
+        int size = Integer.BYTES;
+        for (SeatMatrix matrix : matrices.values()) {
+            size += Long.BYTES + Integer.BYTES * 2 + matrix.snapshotBytes();
+        }
+
+        ByteBuffer out = ByteBuffer.allocate(size);
+        out.putInt(matrices.size());
+        for (Map.Entry<Long, SeatMatrix> entry : matrices.entrySet()) {
+            SeatMatrix matrix = entry.getValue();
+            out.putLong(entry.getKey()).putInt(matrix.getRows()).putInt(matrix.getCols());
+            matrix.writeTo(out);
+        }
+        out.flip();
+
+        // 先写临时文件再原子替换，避免快照写一半时崩溃
+        Path tmp = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+        try (FileChannel snapshot = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (out.hasRemaining()) {
+                snapshot.write(out);
+            }
+            snapshot.force(true);
+        }
+        Files.move(tmp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        channel.truncate(0);
+        channel.force(true);
+        dirty = false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.force(true);
+            channel.close();
+        }
+    }
+
+    /**
+     * 重放一条记录
+     */
+    private static void apply(ByteBuffer in, Map<Long, SeatMatrix> matrices) {
+        byte op = in.get();
+        long scheduleId = in.getLong();
+        int arg = in.getInt();
+        int count = in.getInt();
+
+        if (op == OP_INIT) {
+            // 参数为 rows << 16 | cols，座位下标为不可售座位
+            SeatMatrix matrix = new SeatMatrix(arg >>> 16, arg & 0xFFFF);
+            for (int i = 0; i < count; i++) {
+                matrix.disable(in.getInt());
+            }
+            matrices.put(scheduleId, matrix);
+            return;
+        }
+
+        SeatMatrix matrix = matrices.get(scheduleId);
+        int[] indices = new int[count];
+        for (int i = 0; i < count; i++) {
+            int index = in.getInt();
+            indices[i] = index;
+            if (matrix == null) {
+                continue;
+            }
+            switch (op) {
+                case OP_LOCK -> matrix.lock(index, arg);
+                case OP_RELEASE -> matrix.free(index);
+                case OP_SOLD -> matrix.sell(index);
+                default -> throw new IllegalStateException("未知的座位日志操作: " + op);
+            }
+        }
+        // 重放同样推进版本号，恢复后的版本与崩溃前一致
+        if (matrix != null) {
+            matrix.recordChange(indices, count);
+        }
+    }
+}
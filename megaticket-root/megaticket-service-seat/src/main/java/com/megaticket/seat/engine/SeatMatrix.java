@@ -0,0 +1,336 @@
+package com.megaticket.seat.engine;
+
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * 单个场次的座位矩阵（堆外内存）
+ * 状态位图: 每个座位 2 bit (0=可选, 1=已锁定, 2=已售出, 3=不可售)，按行优先、高位在前排列，与 Redis Bitfield 的位序一致
+ * 锁定截止: 每个座位一个 int (epoch 秒)，0 表示无锁
+ * 版本号: 每次状态变更 +1，最近 CHANGE_RING_SIZE 个版本变更的座位下标保存在变更环中，用于增量查询
+ *
+ * 非线程安全：只允许所属分片的事件循环线程访问
+ *
+ * @author Yang JunJie
+ * @since 2026/1/14
+ */
+final class SeatMatrix {
+
+    public static final int STATUS_FREE = 0;
+    public static final int STATUS_LOCKED = 1;
+    public static final int STATUS_SOLD = 2;
+    public static final int STATUS_DISABLED = 3;
+
+    /** 变更环容量（保留的版本数） */
+    static final int CHANGE_RING_SIZE = 512;
+
+    @Getter
+    private final int rows;
+    @Getter
+    private final int cols;
+    private final ByteBuffer states;
+    private final IntBuffer deadlines;
+    private final int[][] changes = new int[CHANGE_RING_SIZE][];
+    @Getter
+    private long version;
+    /** 变更环中最早可用的起始版本（快照恢复后之前的变更记录已丢失） */
+    private long changeFloor;
+    /** 锁定截止时间的下界，回收任务据此跳过没有到期锁定的场次 */
+    @Getter
+    private int earliestDeadline = Integer.MAX_VALUE;
+    /** 各状态的座位数，随 setStatus 维护，用于 O(1) 查询剩余座位 */
+    private final int[] statusCounts = new int[4];
+    /** 锁定中座位的持有人 {座位下标: userId}，不写入快照与日志，重启后恢复的锁定不带持有人 */
+    private final Map<Integer, Long> holders = new HashMap<>();
+    /** 各用户在本场次锁定中的座位数 */
+    private final Map<Long, Integer> holds = new HashMap<>();
+
+    SeatMatrix(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        int seats = rows * cols;
+        this.states = ByteBuffer.allocateDirect(stateBytes(seats));
+        this.deadlines = ByteBuffer.allocateDirect(seats * Integer.BYTES).asIntBuffer();
+        this.statusCounts[STATUS_FREE] = seats;
+    }
+
+    /**
+     * 状态位图字节数
+     */
+    static int stateBytes(int seats) {
+        return (seats * 2 + 7) / 8;
+    }
+
+    int seatCount() {
+        return rows * cols;
+    }
+
+    /**
+     * 座位下标 (行列号从 1 开始)
+     */
+    int index(int row, int col) {
+        return (row - 1) * cols + (col - 1);
+    }
+
+    int status(int index) {
+        int shift = 6 - ((index & 3) << 1);
+        return (states.get(index >> 2) >> shift) & 0b11;
+    }
+
+    void setStatus(int index, int status) {
+        statusCounts[status(index)]--;
+        statusCounts[status]++;
+        int shift = 6 - ((index & 3) << 1);
+        int pos = index >> 2;
+        int b = states.get(pos) & ~(0b11 << shift) | (status << shift);
+        states.put(pos, (byte) b);
+    }
+
+    /**
+     * 处于某状态的座位数（已过期但尚未回收的锁定仍计入已锁定）
+     */
+    int count(int status) {
+        return statusCounts[status];
+    }
+
+    int deadline(int index) {
+        return deadlines.get(index);
+    }
+
+    void setDeadline(int index, int deadline) {
+        deadlines.put(index, deadline);
+    }
+
+    /**
+     * 考虑锁定过期后的实际状态：锁定已过截止时间的座位视为可选
+     */
+    int effectiveStatus(int index, long now) {
+        int status = status(index);
+        if (status == STATUS_LOCKED && deadline(index) <= now) {
+            return STATUS_FREE;
+        }
+        return status;
+    }
+
+    /**
+     * 锁定座位并记录截止时间
+     */
+    void lock(int index, int deadline) {
+        setStatus(index, STATUS_LOCKED);
+        setDeadline(index, deadline);
+        earliestDeadline = Math.min(earliestDeadline, deadline);
+    }
+
+    /**
+     * 将座位恢复为可选
+     */
+    void free(int index) {
+        setStatus(index, STATUS_FREE);
+        setDeadline(index, 0);
+    }
+
+    /**
+     * 用户在本场次锁定中的座位数
+     */
+    int holdCount(Long userId) {
+        return holds.getOrDefault(userId, 0);
+    }
+
+    /**
+     * 座位的持有人，没有时为 null
+     */
+    Long holder(int index) {
+        return holders.get(index);
+    }
+
+    /**
+     * 座位记到用户名下
+     */
+    void hold(int index, Long userId) {
+        holders.put(index, userId);
+        holds.merge(userId, 1, Integer::sum);
+    }
+
+    /**
+     * 座位移出持有人名下
+     *
+     * @return 原持有人，没有时为 null
+     */
+    Long unhold(int index) {
+        Long userId = holders.remove(index);
+        if (userId != null) {
+            holds.computeIfPresent(userId, (k, count) -> count > 1 ? count - 1 : null);
+        }
+        return userId;
+    }
+
+    /**
+     * 标记座位已售出
+     */
+    void sell(int index) {
+        setStatus(index, STATUS_SOLD);
+        setDeadline(index, 0);
+    }
+
+    /**
+     * 标记座位不可售（过道/损坏座位，只在初始化时设置）
+     */
+    void disable(int index) {
+        setStatus(index, STATUS_DISABLED);
+    }
+
+    /**
+     * 自动选座: 找出连续 count 个可选座位中离最佳区域最近的一组（评分规则与 Redis 脚本的 best 操作一致）
+     * 按 64 位字扫描状态位图，整字为 0（32 个座位都可选）时一次跳过
+     *
+     * @return 该组第一个座位的下标，没有足够的相邻空座时返回 -1
+     */
+    int findAdjacentFree(int count, long now) {
+        int preferredRow = (rows * 2 + 2) / 3;
+        int centerCol = (cols + 2 - count) / 2;
+        int bestScore = Integer.MAX_VALUE;
+        int best = -1;
+
+        for (int row = 1; row <= rows; row++) {
+            int first = index(row, 1);
+            int end = first + cols;
+            int runStart = 0;
+            int runLen = 0;
+            int index = first;
+            while (index <= end) {
+                if (index < end && (index & 31) == 0 && index + 32 <= end && states.getLong(index >> 2) == 0) {
+                    // 整字 32 个座位都可选
+                    if (runLen == 0) {
+                        runStart = index;
+                    }
+                    runLen += 32;
+                    index += 32;
+                    continue;
+                }
+                if (index < end && effectiveStatus(index, now) == STATUS_FREE) {
+                    if (runLen == 0) {
+                        runStart = index;
+                    }
+                    runLen++;
+                } else if (runLen >= count) {
+                    // 连续空座中离中间列最近的一组，距离 = 4 * 行距 + |组中心与中间列的距离 * 2|
+                    int startCol = runStart - first + 1;
+                    int col = Math.min(Math.max(centerCol, startCol), startCol + runLen - count);
+                    int score = 4 * Math.abs(row - preferredRow) + Math.abs(2 * col + count - 2 - cols);
+                    if (score < bestScore) {
+                        bestScore = score;
+                        best = index(row, col);
+                    }
+                    runLen = 0;
+                } else {
+                    runLen = 0;
+                }
+                index++;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 找出截止时间不晚于 now 的锁定座位，并重新计算最早截止时间
+     *
+     * @return 已过期的座位下标
+     */
+    int[] expiredLocks(long now) {
+        int[] expired = new int[16];
+        int count = 0;
+        int earliest = Integer.MAX_VALUE;
+        for (int index = 0; index < deadlines.capacity(); index++) {
+            int deadline = deadlines.get(index);
+            if (deadline == 0 || status(index) != STATUS_LOCKED) {
+                continue;
+            }
+            if (deadline <= now) {
+                if (count == expired.length) {
+                    expired = Arrays.copyOf(expired, count * 2);
+                }
+                expired[count++] = index;
+            } else {
+                earliest = Math.min(earliest, deadline);
+            }
+        }
+        earliestDeadline = earliest;
+        return Arrays.copyOf(expired, count);
+    }
+
+    /**
+     * 记录一次状态变更: 版本 +1，变更的座位下标写入变更环
+     */
+    void recordChange(int[] indices, int count) {
+        version++;
+        changes[(int) (version % CHANGE_RING_SIZE)] = Arrays.copyOf(indices, count);
+    }
+
+    /**
+     * sinceVersion 之后的变更是否仍全部保存在变更环中
+     */
+    boolean hasChangesSince(long sinceVersion) {
+        return sinceVersion <= version
+            && sinceVersion >= changeFloor
+            && version - sinceVersion <= CHANGE_RING_SIZE;
+    }
+
+    /**
+     * 遍历 sinceVersion 之后变更过的座位下标（可能重复），调用前需先判断 {@link #hasChangesSince}
+     */
+    void forEachChangeSince(long sinceVersion, IntConsumer action) {
+        for (long v = sinceVersion + 1; v <= version; v++) {
+            for (int index : changes[(int) (v % CHANGE_RING_SIZE)]) {
+                action.accept(index);
+            }
+        }
+    }
+
+    /**
+     * 写出完整状态（用于快照）
+     */
+    void writeTo(ByteBuffer out) {
+        out.putLong(version);
+        for (int i = 0; i < states.capacity(); i++) {
+            out.put(states.get(i));
+        }
+        for (int i = 0; i < deadlines.capacity(); i++) {
+            out.putInt(deadlines.get(i));
+        }
+    }
+
+    /**
+     * 从快照恢复完整状态（变更环不在快照中，恢复后只能从快照版本开始做增量）
+     */
+    void readFrom(ByteBuffer in) {
+        version = in.getLong();
+        changeFloor = version;
+        for (int i = 0; i < states.capacity(); i++) {
+            states.put(i, in.get());
+        }
+        for (int i = 0; i < deadlines.capacity(); i++) {
+            int deadline = in.getInt();
+            deadlines.put(i, deadline);
+            if (deadline != 0) {
+                earliestDeadline = Math.min(earliestDeadline, deadline);
+            }
+        }
+        Arrays.fill(statusCounts, 0);
+        for (int index = 0; index < seatCount(); index++) {
+            statusCounts[status(index)]++;
+        }
+    }
+
+    /**
+     * 快照中该矩阵的数据字节数（不含头部）
+     */
+    int snapshotBytes() {
+        return Long.BYTES + states.capacity() + deadlines.capacity() * Integer.BYTES;
+    }
+}
@@ -0,0 +1,38 @@
+package com.megaticket.seat.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableLogic;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+/**
+ * 影厅座位布局（cinema_hall 表的只读视图，只映射初始化座位图需要的列）
+ *
+ * @author Yang JunJie
+ * @since 2026/1/14
+ */
+@Data
+@TableName("cinema_hall")
+public class HallLayout {
+
+    // 影厅ID
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    // 座位行数
+    private Integer totalRows;
+
+    // 座位列数
+    private Integer totalCols;
+
+    // 过道所在列号，逗号分隔
+    private String aisleCols;
+
+    // 不可售座位，"行-列" 逗号分隔
+    private String disabledSeats;
+
+    // 逻辑删除标志
+    @TableLogic
+    private int isDeleted;
+}
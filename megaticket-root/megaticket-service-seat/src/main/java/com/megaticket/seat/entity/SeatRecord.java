@@ -0,0 +1,33 @@
+package com.megaticket.seat.entity;
+
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 已落库的座位状态（seat_state 表的只读视图，由 megaticket-job 从同步流写入，重建座位图时读取）
+ * 只有发生过变更的座位才有记录
+ *
+ * @author Yang JunJie
+ * @since 2026/1/14
+ */
+@Data
+@TableName("seat_state")
+public class SeatRecord {
+
+    // 场次ID
+    private Long scheduleId;
+
+    // 座位下标 = (row - 1) * 100 + (col - 1)
+    private Integer seatIndex;
+
+    // 座位状态: 0=可选, 1=已锁定, 2=已售出
+    private Integer status;
+
+    // 座位图（段）版本
+    private Long version;
+
+    // 状态变更时间
+    private LocalDateTime updateTime;
+}
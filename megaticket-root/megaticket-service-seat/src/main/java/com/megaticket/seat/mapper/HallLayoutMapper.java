@@ -0,0 +1,15 @@
+package com.megaticket.seat.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.megaticket.seat.entity.HallLayout;
+import org.apache.ibatis.annotations.Mapper;
+
+/**
+ * 影厅座位布局映射器（只读）
+ *
+ * @author Yang JunJie
+ * @since 2026/1/14
+ */
+@Mapper
+public interface HallLayoutMapper extends BaseMapper<HallLayout> {
+}
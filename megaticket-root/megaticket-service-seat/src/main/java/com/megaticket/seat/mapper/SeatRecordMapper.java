@@ -0,0 +1,15 @@
+package com.megaticket.seat.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.megaticket.seat.entity.SeatRecord;
+import org.apache.ibatis.annotations.Mapper;
+
+/**
+ * 已落库座位状态映射器（只读）
+ *
+ * @author Yang JunJie
+ * @since 2026/1/14
+ */
+@Mapper
+public interface SeatRecordMapper extends BaseMapper<SeatRecord> {
+}
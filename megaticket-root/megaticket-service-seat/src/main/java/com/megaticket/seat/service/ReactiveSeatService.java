@@ -0,0 +1,230 @@
+package com.megaticket.seat.service;
+
+import com.megaticket.common.dto.SeatPosition;
+import com.megaticket.common.exception.BusinessException;
+import com.megaticket.common.result.ResultCode;
+import com.megaticket.seat.engine.ReactiveRedisSeatEngine;
+import com.megaticket.seat.stream.SeatStreamHub;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+
+/**
+ * 非阻塞座位服务
+ * 锁座 / 自动选座 / 释放 / 售出的非阻塞版本，参数校验、拒绝缓存与异常转换同 {@link SeatService}，
+ * 座位操作由 {@link ReactiveRedisSeatEngine} 在 Redis 连接的事件循环上完成，等待 Redis 期间不占用请求线程
+ * 开启锁座批处理时请求交给 {@link SeatLockBatcher}，批次完成后在批处理线程上回调
+ *
+ * 开启条件见 {@link ReactiveRedisSeatEngine#ENABLED}
+ *
+ * @author Yang JunJie
+ * @since 2026/1/14
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnExpression(ReactiveRedisSeatEngine.ENABLED)
+public class ReactiveSeatService {
+
+    private final ReactiveRedisSeatEngine seatEngine;
+    private final ReactiveStringRedisTemplate redisTemplate;
+    /** 售出后更新拒绝缓存需要查询剩余座位，仍由阻塞的座位服务完成 */
+    private final SeatService seatService;
+    /** 开启 megaticket.seat.lock-batch.enabled 时存在 */
+    private final ObjectProvider<SeatLockBatcher> seatLockBatcher;
+    /** 关闭 megaticket.seat.reject-cache.enabled 时不存在 */
+    private final ObjectProvider<SeatRejectCache> seatRejectCache;
+
+    private static final int LOCK_TIMEOUT_SECONDS = SeatService.LOCK_TIMEOUT_SECONDS;
+    private static final int MAX_AUTO_SEATS = 10; // 自动选座单次最多座位数
+
+    /**
+     * 锁定座位
+     *
+     * @param scheduleId  场次ID
+     * @param userId      锁座用户ID，开启锁座额度时必填
+     * @param seatPositions 座位位置列表
+     * @return 锁定成功的座位列表
+     */
+    public Mono<List<SeatPosition>> lockSeats(Long scheduleId, Long userId, List<SeatPosition> seatPositions) {
+        // 1. 参数校验
+        if (scheduleId == null || scheduleId <= 0) {
+            return Mono.error(new BusinessException(ResultCode.SCHEDULE_NOT_FOUND));
+        }
+
+        if (seatPositions == null || seatPositions.isEmpty()) {
+            return Mono.error(new BusinessException(ResultCode.PARAM_VALID_ERROR));
+        }
+
+        // 2. 校验用户与每个座位的行列号
+        try {
+            seatService.checkHolder(userId);
+            SeatService.checkSeatPositions(seatPositions);
+        } catch (BusinessException e) {
+            return Mono.error(e);
+        }
+
+        // 3. 已售罄的场次或包含已售座位的请求直接在本地拒绝，不访问 Redis
+        SeatRejectCache rejectCache = seatRejectCache.getIfAvailable();
+        if (rejectCache != null && rejectCache.isRejected(scheduleId, seatPositions)) {
+            return Mono.error(new BusinessException(ResultCode.SEAT_SOLD_OUT));
+        }
+
+        // 4. 检查场次是否存在后原子锁定；开启批处理时由批次一并判断场次是否存在
+        SeatLockBatcher batcher = seatLockBatcher.getIfAvailable();
+        Mono<List<SeatPosition>> lock = batcher != null
+            ? Mono.fromFuture(() -> batcher.submit(scheduleId, userId, seatPositions, LOCK_TIMEOUT_SECONDS))
+                .flatMap(result -> result == ResultCode.SUCCESS
+                    ? Mono.just(seatPositions)
+                    : Mono.error(new BusinessException(result)))
+            : seatEngine.exists(scheduleId)
+                .flatMap(exists -> exists
+                    ? seatEngine.lockSeats(scheduleId, userId, seatPositions, LOCK_TIMEOUT_SECONDS)
+                    : Mono.error(new BusinessException(ResultCode.SCHEDULE_NOT_FOUND)));
+
+        return lock
+            .flatMap(resultSeats -> publish(scheduleId).thenReturn(resultSeats))
+            .doOnNext(resultSeats ->
+                log.info("锁定座位成功, scheduleId={}, userId={}, seats={}", scheduleId, userId, resultSeats.size()))
+            .doOnError(BusinessException.class, e -> {
+                // 单个座位的请求因已售出失败时，该座位即是已售座位，记录到本地
+                if (rejectCache != null && e.getResultCode() == ResultCode.SEAT_SOLD_OUT && seatPositions.size() == 1) {
+                    rejectCache.seatsSold(scheduleId, seatPositions, false);
+                }
+            })
+            .onErrorMap(e -> !(e instanceof BusinessException), e -> {
+                log.error("锁定座位失败, scheduleId={}", scheduleId, e);
+                return new BusinessException(ResultCode.SYSTEM_ERROR);
+            });
+    }
+
+    /**
+     * 自动选座：锁定同一排连续 count 个离最佳区域最近的座位
+     *
+     * @param scheduleId  场次ID
+     * @param userId      锁座用户ID，开启锁座额度时必填
+     * @param count       座位数
+     * @return 锁定成功的座位列表
+     */
+    public Mono<List<SeatPosition>> lockBestAvailable(Long scheduleId, Long userId, Integer count) {
+        // 1. 参数校验
+        if (scheduleId == null || scheduleId <= 0) {
+            return Mono.error(new BusinessException(ResultCode.SCHEDULE_NOT_FOUND));
+        }
+
+        if (count == null || count < 1 || count > MAX_AUTO_SEATS) {
+            return Mono.error(new BusinessException(ResultCode.PARAM_VALID_ERROR));
+        }
+        try {
+            seatService.checkHolder(userId);
+        } catch (BusinessException e) {
+            return Mono.error(e);
+        }
+
+        SeatRejectCache rejectCache = seatRejectCache.getIfAvailable();
+        if (rejectCache != null && rejectCache.isSoldOut(scheduleId)) {
+            return Mono.error(new BusinessException(ResultCode.SEAT_SOLD_OUT));
+        }
+
+        // 2. 由座位引擎查找并原子锁定
+        return seatEngine.lockBestAvailable(scheduleId, userId, count, LOCK_TIMEOUT_SECONDS)
+            .flatMap(resultSeats -> publish(scheduleId).thenReturn(resultSeats))
+            .doOnNext(resultSeats -> log.info("自动选座成功, scheduleId={}, seats={}", scheduleId, resultSeats))
+            .onErrorMap(e -> !(e instanceof BusinessException), e -> {
+                log.error("自动选座失败, scheduleId={}, count={}", scheduleId, count, e);
+                return new BusinessException(ResultCode.SYSTEM_ERROR);
+            });
+    }
+
+    /**
+     * 释放座位
+     *
+     * @param scheduleId  场次ID
+     * @param seatPositions 座位位置列表
+     * @return 释放成功的座位数量
+     */
+    public Mono<Integer> releaseSeats(Long scheduleId, List<SeatPosition> seatPositions) {
+        // 1. 参数校验
+        if (scheduleId == null || scheduleId <= 0) {
+            return Mono.error(new BusinessException(ResultCode.SCHEDULE_NOT_FOUND));
+        }
+
+        if (seatPositions == null || seatPositions.isEmpty()) {
+            return Mono.error(new BusinessException(ResultCode.PARAM_VALID_ERROR));
+        }
+        try {
+            SeatService.checkSeatPositions(seatPositions);
+        } catch (BusinessException e) {
+            return Mono.error(e);
+        }
+
+        // 2. 由座位引擎释放
+        return seatEngine.releaseSeats(scheduleId, seatPositions)
+            .flatMap(releasedCount -> releasedCount > 0
+                ? publish(scheduleId).thenReturn(releasedCount)
+                : Mono.just(releasedCount))
+            .doOnNext(releasedCount -> log.info("释放座位成功, scheduleId={}, count={}", scheduleId, releasedCount))
+            .onErrorMap(e -> !(e instanceof BusinessException), e -> {
+                log.error("释放座位失败, scheduleId={}", scheduleId, e);
+                return new BusinessException(ResultCode.SEAT_RELEASE_FAILED);
+            });
+    }
+
+    /**
+     * 标记座位已售出
+     *
+     * @param scheduleId  场次ID
+     * @param seatPositions 座位位置列表
+     * @return 售出的座位数量
+     */
+    public Mono<Integer> markSeatsSold(Long scheduleId, List<SeatPosition> seatPositions) {
+        // 1. 参数校验
+        if (scheduleId == null || scheduleId <= 0) {
+            return Mono.error(new BusinessException(ResultCode.SCHEDULE_NOT_FOUND));
+        }
+
+        if (seatPositions == null || seatPositions.isEmpty()) {
+            return Mono.error(new BusinessException(ResultCode.PARAM_VALID_ERROR));
+        }
+        try {
+            SeatService.checkSeatPositions(seatPositions);
+        } catch (BusinessException e) {
+            return Mono.error(e);
+        }
+
+        // 2. 由座位引擎标记售出；拒绝缓存的更新需要阻塞查询，放到弹性线程池上执行，不等待其完成
+        return seatEngine.markSeatsSold(scheduleId, seatPositions)
+            .flatMap(soldCount -> {
+                if (soldCount == 0) {
+                    return Mono.just(soldCount);
+                }
+                Schedulers.boundedElastic().schedule(() -> seatService.rememberSold(scheduleId, seatPositions));
+                return publish(scheduleId).thenReturn(soldCount);
+            })
+            .doOnNext(soldCount -> log.info("标记座位已售出, scheduleId={}, count={}", scheduleId, soldCount))
+            .onErrorMap(e -> !(e instanceof BusinessException), e -> {
+                log.error("标记座位已售出失败, scheduleId={}", scheduleId, e);
+                return new BusinessException(ResultCode.SYSTEM_ERROR);
+            });
+    }
+
+    /**
+     * 通知各实例座位已变更，同 {@link SeatStreamHub#publish}
+     */
+    private Mono<Void> publish(Long scheduleId) {
+        return redisTemplate.convertAndSend(SeatStreamHub.channel(scheduleId), scheduleId.toString())
+            .then()
+            .onErrorResume(e -> {
+                // 通知失败不影响座位操作本身，观看端最多晚一次变更
+                log.warn("发布座位变更通知失败, scheduleId={}", scheduleId, e);
+                return Mono.empty();
+            });
+    }
+}
@@ -0,0 +1,79 @@
+package com.megaticket.seat.service;
+
+import com.megaticket.seat.engine.SeatEngine;
+import com.megaticket.seat.stream.SeatStreamHub;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 过期锁定回收任务
+ * 定期把锁定超时（未支付）的座位恢复为可选，推进座位图版本并通知推送，
+ * 使放弃支付的座位及时回到可选池，而不是等到下一次有人访问该座位
+ *
+ * 多个座位节点同时回收是安全的：回收在 Lua 脚本中原子执行，重复回收什么也不做
+ * 配置项:
+ *   megaticket.seat.sweeper.enabled     是否开启, 默认 true
+ *   megaticket.seat.sweeper.interval-ms 回收间隔, 默认 1000 毫秒
+ *   megaticket.seat.sweeper.batch-size  每个场次单次回收的座位数, 默认 256
+ *
+ * @author Yang JunJie
+ * @since 2026/1/14
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "megaticket.seat.sweeper", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class SeatLeaseSweeper {
+
+    private final SeatEngine seatEngine;
+    private final SeatStreamHub seatStreamHub;
+    private final long intervalMillis;
+    private final int batchSize;
+    private final ScheduledExecutorService scheduler =
+        Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "seat-lease-sweeper"));
+
+    public SeatLeaseSweeper(
+            SeatEngine seatEngine,
+            SeatStreamHub seatStreamHub,
+            @Value("${megaticket.seat.sweeper.interval-ms:1000}") long intervalMillis,
+            @Value("${megaticket.seat.sweeper.batch-size:256}") int batchSize) {
+        // 单次回收 0 个时脚本仍报告有未回收的锁定，回收会一直循环
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("megaticket.seat.sweeper.batch-size 必须大于 0: " + batchSize);
+        }
+        this.seatEngine = seatEngine;
+        this.seatStreamHub = seatStreamHub;
+        this.intervalMillis = intervalMillis;
+        this.batchSize = batchSize;
+    }
+
+    @PostConstruct
+    public void init() {
+        scheduler.scheduleWithFixedDelay(this::sweep, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private void sweep() {
+        try {
+            List<Long> changed = seatEngine.sweepExpiredLocks(batchSize);
+            for (Long scheduleId : changed) {
+                seatStreamHub.publish(scheduleId);
+            }
+        } catch (Exception e) {
+            // 下一轮重试
+            log.error("回收过期锁定失败", e);
+        }
+    }
+}
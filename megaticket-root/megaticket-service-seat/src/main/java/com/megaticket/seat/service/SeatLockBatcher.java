@@ -0,0 +1,178 @@
+package com.megaticket.seat.service;
+
+import com.megaticket.common.dto.SeatPosition;
+import com.megaticket.common.exception.BusinessException;
+import com.megaticket.common.result.ResultCode;
+import com.megaticket.seat.dto.SeatLockRequest;
+import com.megaticket.seat.engine.SeatEngine;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 锁座批处理（组提交）
+ * 同一场次的并发锁座请求在一个极短的窗口内（或凑满 max-size 个）合并为一次
+ * {@link SeatEngine#lockSeatsBatch} 调用，按到达顺序逐个判定，结果再分别回给各调用方
+ * 秒杀时同一场次的请求在 Redis 上本来就是串行的，合并后每批只有一次往返
+ *
+ * 默认关闭，配置项:
+ *   megaticket.seat.lock-batch.enabled       是否开启, 默认 false
+ *   megaticket.seat.lock-batch.window-micros 攒批窗口, 默认 500 微秒
+ *   megaticket.seat.lock-batch.max-size      每批最多请求数, 默认 64
+ *   megaticket.seat.lock-batch.threads       执行批次的线程数, 默认 4
+ *
+ * @author Yang JunJie
+ * @since 2026/1/14
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "megaticket.seat.lock-batch", name = "enabled", havingValue = "true")
+public class SeatLockBatcher {
+
+    private final SeatEngine seatEngine;
+    private final long windowMicros;
+    private final int maxSize;
+    private final ScheduledExecutorService executor;
+
+    /** 每个场次当前正在攒的批次 */
+    private final Map<Long, Batch> pending = new ConcurrentHashMap<>();
+
+    public SeatLockBatcher(
+            SeatEngine seatEngine,
+            @Value("${megaticket.seat.lock-batch.window-micros:500}") long windowMicros,
+            @Value("${megaticket.seat.lock-batch.max-size:64}") int maxSize,
+            @Value("${megaticket.seat.lock-batch.threads:4}") int threads) {
+        this.seatEngine = seatEngine;
+        this.windowMicros = windowMicros;
+        this.maxSize = maxSize;
+        this.executor = Executors.newScheduledThreadPool(threads, r -> new Thread(r, "seat-lock-batch"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * 提交一个锁座请求，等待所在批次执行完成
+     *
+     * @param scheduleId     场次ID
+     * @param userId         锁座用户ID，为 null 时不校验锁座额度
+     * @param seatPositions  座位位置列表
+     * @param timeoutSeconds 锁定超时时间(秒)
+     * @return 锁定成功的座位列表
+     */
+    public List<SeatPosition> lockSeats(Long scheduleId, Long userId, List<SeatPosition> seatPositions, int timeoutSeconds) {
+        ResultCode result;
+        try {
+            result = submit(scheduleId, userId, seatPositions, timeoutSeconds).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        if (result != ResultCode.SUCCESS) {
+            throw new BusinessException(result);
+        }
+        return seatPositions;
+    }
+
+    /**
+     * 提交一个锁座请求，不等待批次执行（非阻塞锁座使用）
+     *
+     * @return 批次执行完成后得到该请求的结果码
+     */
+    public CompletableFuture<ResultCode> submit(Long scheduleId, Long userId, List<SeatPosition> seatPositions, int timeoutSeconds) {
+        LockRequest request = new LockRequest(new SeatLockRequest(userId, seatPositions));
+        Batch[] full = new Batch[1];
+
+        // 加入当前批次；新批次开启窗口定时，凑满则立即提交
+        pending.compute(scheduleId, (id, batch) -> {
+            if (batch == null || batch.timeoutSeconds != timeoutSeconds) {
+                // 锁定时长不同的请求不能同批，先提交当前批次
+                if (batch != null) {
+                    full[0] = batch;
+                }
+                Batch created = new Batch(timeoutSeconds);
+                executor.schedule(() -> flush(id, created), windowMicros, TimeUnit.MICROSECONDS);
+                batch = created;
+            }
+            batch.requests.add(request);
+            if (batch.requests.size() >= maxSize) {
+                full[0] = batch;
+                return null;
+            }
+            return batch;
+        });
+        if (full[0] != null) {
+            Batch batch = full[0];
+            executor.execute(() -> run(scheduleId, batch));
+        }
+        return request.result;
+    }
+
+    /**
+     * 窗口到期：批次仍未被提交时由这里提交
+     */
+    private void flush(Long scheduleId, Batch batch) {
+        if (pending.remove(scheduleId, batch)) {
+            run(scheduleId, batch);
+        }
+    }
+
+    private void run(Long scheduleId, Batch batch) {
+        List<LockRequest> requests = batch.requests;
+        try {
+            List<SeatLockRequest> seats = new ArrayList<>(requests.size());
+            for (LockRequest request : requests) {
+                seats.add(request.request);
+            }
+            List<ResultCode> results = seatEngine.lockSeatsBatch(scheduleId, seats, batch.timeoutSeconds);
+            for (int i = 0; i < requests.size(); i++) {
+                requests.get(i).result.complete(results.get(i));
+            }
+            log.debug("批量锁座完成, scheduleId={}, requests={}", scheduleId, requests.size());
+        } catch (Exception e) {
+            log.error("批量锁座失败, scheduleId={}, requests={}", scheduleId, requests.size(), e);
+            for (LockRequest request : requests) {
+                request.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * 一次攒批，requests 只在 pending.compute 内追加，提交后不再修改
+     */
+    private static final class Batch {
+
+        private final int timeoutSeconds;
+        private final List<LockRequest> requests = new ArrayList<>();
+
+        private Batch(int timeoutSeconds) {
+            this.timeoutSeconds = timeoutSeconds;
+        }
+    }
+
+    private static final class LockRequest {
+
+        private final SeatLockRequest request;
+        private final CompletableFuture<ResultCode> result = new CompletableFuture<>();
+
+        private LockRequest(SeatLockRequest request) {
+            this.request = request;
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.megaticket.seat.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.megaticket.common.dto.SeatPosition;
+import com.megaticket.common.exception.BusinessException;
+import com.megaticket.common.result.ResultCode;
+import com.megaticket.seat.dto.SeatMapLayout;
+import com.megaticket.seat.dto.SeatMapRebuildProgress;
+import com.megaticket.seat.dto.SeatMapRebuildRequest;
+import com.megaticket.seat.dto.SeatMapSnapshot;
+import com.megaticket.seat.engine.SeatEngine;
+import com.megaticket.seat.entity.HallLayout;
+import com.megaticket.seat.entity.SeatRecord;
+import com.megaticket.seat.mapper.HallLayoutMapper;
+import com.megaticket.seat.mapper.SeatRecordMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 座位图重建 - Redis 座位图丢失后从数据库恢复
+ * 座位布局取自影厅，已售 / 已锁定座位取自 seat_state 表（由 megaticket-job 从同步流落库），
+ * 锁定截止时间按最后一次变更时间加锁定时长推算，已过期的锁定恢复为可选
+ *
+ * 重建在后台进行，调用方通过进度接口查看:
+ *   按放映时间排序，未开场的场次先重建，已开场的次之，没有放映时间的最后
+ *   每 REBUILD_BATCH_SIZE 个场次一批: 一次查询影厅、一次查询座位状态、一次流水线写入
+ *   各批在 rebuild-threads 个线程上并行执行，同时只允许一次重建
+ *   已存在的座位图不会被覆盖，可对同一批场次重复执行
+ *
+ * 配置项:
+ *   megaticket.seat.rebuild.threads 并行重建的线程数, 默认 8
+ *
+ * @author Yang JunJie
+ * @since 2026/1/14
+ */
+@Slf4j
+@Service
+public class SeatMapRebuilder {
+
+    private static final int REBUILD_BATCH_SIZE = 200; // 每批重建的场次数
+    private static final int STATUS_LOCKED = 1;
+    private static final int STATUS_SOLD = 2;
+
+    private final SeatEngine seatEngine;
+    private final HallLayoutMapper hallLayoutMapper;
+    private final SeatRecordMapper seatRecordMapper;
+    private final int threads;
+
+    /** 最近一次重建，未重建过时为 null */
+    private final AtomicReference<Run> current = new AtomicReference<>();
+
+    public SeatMapRebuilder(
+            SeatEngine seatEngine,
+            HallLayoutMapper hallLayoutMapper,
+            SeatRecordMapper seatRecordMapper,
+            @Value("${megaticket.seat.rebuild.threads:8}") int threads) {
+        this.seatEngine = seatEngine;
+        this.hallLayoutMapper = hallLayoutMapper;
+        this.seatRecordMapper = seatRecordMapper;
+        this.threads = threads;
+    }
+
+    /**
+     * 开始重建场次座位图（后台执行，立即返回）
+     *
+     * @param requests 场次、影厅与放映时间列表
+     * @return 重建进度
+     */
+    public SeatMapRebuildProgress rebuild(List<SeatMapRebuildRequest> requests) {
+        // 1. 参数校验
+        if (requests == null || requests.isEmpty()) {
+            throw new BusinessException(ResultCode.PARAM_VALID_ERROR);
+        }
+        for (SeatMapRebuildRequest request : requests) {
+            if (request == null || request.getScheduleId() == null || request.getScheduleId() <= 0) {
+                throw new BusinessException(ResultCode.SCHEDULE_NOT_FOUND);
+            }
+            if (request.getHallId() == null || request.getHallId() <= 0) {
+                throw new BusinessException(ResultCode.CINEMA_HALL_NOT_FOUND);
+            }
+        }
+
+        // 2. 同时只允许一次重建
+        Run previous = current.get();
+        if (previous != null && previous.running()) {
+            throw new BusinessException(ResultCode.SEAT_REBUILD_RUNNING);
+        }
+        Run run = new Run(requests.size());
+        if (!current.compareAndSet(previous, run)) {
+            throw new BusinessException(ResultCode.SEAT_REBUILD_RUNNING);
+        }
+
+        // 3. 按放映时间排序后分批，按优先顺序提交到线程池
+        List<SeatMapRebuildRequest> ordered = new ArrayList<>(requests);
+        ordered.sort(priority(LocalDateTime.now()));
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> new Thread(r, "seat-map-rebuild"));
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int from = 0; from < ordered.size(); from += REBUILD_BATCH_SIZE) {
+            List<SeatMapRebuildRequest> batch = ordered.subList(from, Math.min(from + REBUILD_BATCH_SIZE, ordered.size()));
+            futures.add(CompletableFuture.runAsync(() -> rebuildBatch(batch, run), executor));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).whenComplete((v, e) -> {
+            run.finishTime = LocalDateTime.now();
+            executor.shutdown();
+            log.info("座位图重建完成, total={}, rebuilt={}, skipped={}, failed={}",
+                run.total, run.rebuilt.get(), run.skipped.get(), run.failed.get());
+        });
+
+        log.info("开始重建座位图, schedules={}, batches={}", ordered.size(), futures.size());
+        return run.progress();
+    }
+
+    /**
+     * 查询最近一次重建的进度
+     *
+     * @return 重建进度，未重建过时为 null
+     */
+    public SeatMapRebuildProgress getProgress() {
+        Run run = current.get();
+        return run == null ? null : run.progress();
+    }
+
+    /**
+     * 重建一批场次，失败只影响本批
+     */
+    private void rebuildBatch(List<SeatMapRebuildRequest> batch, Run run) {
+        try {
+            // 1. 一次查询本批涉及的影厅
+            Set<Long> hallIds = new HashSet<>();
+            List<Long> scheduleIds = new ArrayList<>(batch.size());
+            for (SeatMapRebuildRequest request : batch) {
+                hallIds.add(request.getHallId());
+                scheduleIds.add(request.getScheduleId());
+            }
+            Map<Long, HallLayout> halls = new HashMap<>();
+            for (HallLayout hall : hallLayoutMapper.selectBatchIds(hallIds)) {
+                halls.put(hall.getId(), hall);
+            }
+
+            // 2. 一次查询本批场次的已落库座位状态
+            QueryWrapper<SeatRecord> qw = new QueryWrapper<>();
+            qw.in("schedule_id", scheduleIds);
+            Map<Long, List<SeatRecord>> records = new HashMap<>();
+            for (SeatRecord record : seatRecordMapper.selectList(qw)) {
+                records.computeIfAbsent(record.getScheduleId(), k -> new ArrayList<>()).add(record);
+            }
+
+            // 3. 生成快照，影厅不存在或布局无效的场次记为失败
+            long now = System.currentTimeMillis() / 1000;
+            List<SeatMapSnapshot> snapshots = new ArrayList<>(batch.size());
+            for (SeatMapRebuildRequest request : batch) {
+                HallLayout hall = halls.get(request.getHallId());
+                if (hall == null) {
+                    log.warn("重建座位图失败, 影厅不存在, scheduleId={}, hallId={}", request.getScheduleId(), request.getHallId());
+                    run.failed.incrementAndGet();
+                    continue;
+                }
+                try {
+                    SeatMapLayout layout = SeatService.toLayout(request.getScheduleId(), hall);
+                    snapshots.add(toSnapshot(layout, records.getOrDefault(request.getScheduleId(), List.of()), now));
+                } catch (BusinessException e) {
+                    log.warn("重建座位图失败, 影厅座位布局无效, scheduleId={}, hallId={}", request.getScheduleId(), request.getHallId());
+                    run.failed.incrementAndGet();
+                }
+            }
+
+            // 4. 一次流水线写入
+            int rebuilt = seatEngine.restoreSeatMaps(snapshots);
+            run.rebuilt.addAndGet(rebuilt);
+            run.skipped.addAndGet(snapshots.size() - rebuilt);
+            log.info("座位图重建进度 {}/{}", run.done(), run.total);
+
+        } catch (Exception e) {
+            log.error("重建座位图失败, schedules={}", batch.size(), e);
+            run.failed.addAndGet(batch.size());
+        }
+    }
+
+    /**
+     * 由已落库的座位状态生成快照: 已售座位保持已售，锁定未到期的座位保持锁定，其余为可选
+     */
+    private static SeatMapSnapshot toSnapshot(SeatMapLayout layout, List<SeatRecord> records, long now) {
+        Set<SeatPosition> disabled = new HashSet<>(layout.getDisabledSeats());
+        List<SeatPosition> soldSeats = new ArrayList<>();
+        Map<SeatPosition, Long> lockedSeats = new LinkedHashMap<>();
+        long version = 0;
+        for (SeatRecord record : records) {
+            version = Math.max(version, record.getVersion());
+            SeatPosition seat = SeatPosition.ofIndex(record.getSeatIndex());
+            // 影厅布局调整后已不在可售范围内的座位不恢复
+            if (seat.row() > layout.getTotalRows() || seat.col() > layout.getTotalCols() || disabled.contains(seat)) {
+                continue;
+            }
+            if (record.getStatus() == STATUS_SOLD) {
+                soldSeats.add(seat);
+            } else if (record.getStatus() == STATUS_LOCKED) {
+                long deadline = record.getUpdateTime().atZone(ZoneId.systemDefault()).toEpochSecond()
+                    + SeatService.LOCK_TIMEOUT_SECONDS;
+                if (deadline > now) {
+                    lockedSeats.put(seat, deadline);
+                }
+            }
+        }
+        return new SeatMapSnapshot(layout, soldSeats, lockedSeats, version);
+    }
+
+    /**
+     * 重建顺序: 未开场的按放映时间升序，其次已开场的按放映时间降序，没有放映时间的最后
+     */
+    private static Comparator<SeatMapRebuildRequest> priority(LocalDateTime now) {
+        return Comparator.comparingInt((SeatMapRebuildRequest r) ->
+                r.getShowTime() == null ? 2 : r.getShowTime().isBefore(now) ? 1 : 0)
+            .thenComparing((a, b) -> {
+                if (a.getShowTime() == null || b.getShowTime() == null) {
+                    return 0;
+                }
+                return a.getShowTime().isBefore(now)
+                    ? b.getShowTime().compareTo(a.getShowTime())
+                    : a.getShowTime().compareTo(b.getShowTime());
+            });
+    }
+
+    /**
+     * 一次重建的进度计数
+     */
+    private static final class Run {
+
+        private final int total;
+        private final AtomicInteger rebuilt = new AtomicInteger();
+        private final AtomicInteger skipped = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final LocalDateTime startTime = LocalDateTime.now();
+        private volatile LocalDateTime finishTime;
+
+        private Run(int total) {
+            this.total = total;
+        }
+
+        private boolean running() {
+            return finishTime == null;
+        }
+
+        private int done() {
+            return rebuilt.get() + skipped.get() + failed.get();
+        }
+
+        private SeatMapRebuildProgress progress() {
+            SeatMapRebuildProgress progress = new SeatMapRebuildProgress();
+            progress.setRunning(running());
+            progress.setTotal(total);
+            progress.setRebuilt(rebuilt.get());
+            progress.setSkipped(skipped.get());
+            progress.setFailed(failed.get());
+            progress.setStartTime(startTime);
+            progress.setFinishTime(finishTime);
+            return progress;
+        }
+    }
+}
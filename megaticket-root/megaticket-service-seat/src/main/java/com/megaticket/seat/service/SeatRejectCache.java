@@ -0,0 +1,170 @@
+package com.megaticket.seat.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.megaticket.common.constant.RedisKeyConstant;
+import com.megaticket.common.dto.SeatPosition;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 本地拒绝缓存（负缓存）
+ * 记录已售罄的场次和已售出的座位，命中的锁座请求在本节点直接拒绝，不再访问 Redis
+ * 售出不可逆，缓存只会增加不会失效；各节点通过 Redis Pub/Sub 频道 {@link RedisKeyConstant#SEAT_REJECT_CHANNEL} 同步，
+ * 未收到通知的节点最多多走一次 Redis 后从锁座失败中学到
+ *
+ * 配置项:
+ *   megaticket.seat.reject-cache.enabled        是否开启, 默认 true
+ *   megaticket.seat.reject-cache.max-schedules  最多缓存的场次数, 默认 10000
+ *   megaticket.seat.reject-cache.expire-minutes 场次无访问后的过期时间, 默认 30 分钟
+ *
+ * @author Yang JunJie
+ * @since 2026/1/14
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "megaticket.seat.reject-cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class SeatRejectCache implements MessageListener {
+
+    private static final String SOLD_OUT = "soldout";
+    private static final String SOLD = "sold";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    /** 内存引擎的场次固定在本节点，无需通知其他节点 */
+    private final boolean localOnly;
+
+    /** 已售罄的场次 */
+    private final Cache<Long, Boolean> soldOutSchedules;
+    /** 各场次已售出的座位下标 */
+    private final Cache<Long, Set<Integer>> soldSeats;
+
+    public SeatRejectCache(
+            StringRedisTemplate stringRedisTemplate,
+            RedisMessageListenerContainer listenerContainer,
+            @Value("${megaticket.seat.reject-cache.max-schedules:10000}") long maxSchedules,
+            @Value("${megaticket.seat.reject-cache.expire-minutes:30}") long expireMinutes,
+            @Value("${megaticket.seat.engine:redis}") String engine) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.localOnly = "memory".equals(engine);
+        this.soldOutSchedules = Caffeine.newBuilder()
+            .maximumSize(maxSchedules)
+            .expireAfterAccess(Duration.ofMinutes(expireMinutes))
+            .build();
+        this.soldSeats = Caffeine.newBuilder()
+            .maximumSize(maxSchedules)
+            .expireAfterAccess(Duration.ofMinutes(expireMinutes))
+            .build();
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!localOnly) {
+            listenerContainer.addMessageListener(this, new ChannelTopic(RedisKeyConstant.SEAT_REJECT_CHANNEL));
+        }
+    }
+
+    /**
+     * 场次是否已售罄
+     */
+    public boolean isSoldOut(Long scheduleId) {
+        return soldOutSchedules.getIfPresent(scheduleId) != null;
+    }
+
+    /**
+     * 请求的座位中是否有已售出的座位（或场次已售罄）
+     */
+    public boolean isRejected(Long scheduleId, List<SeatPosition> seatPositions) {
+        if (isSoldOut(scheduleId)) {
+            return true;
+        }
+        Set<Integer> sold = soldSeats.getIfPresent(scheduleId);
+        if (sold == null) {
+            return false;
+        }
+        for (SeatPosition seat : seatPositions) {
+            if (sold.contains(seat.index())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 记录已售出的座位
+     *
+     * @param broadcast 是否通知其他节点（售出成功时通知；从锁座失败中得知的只记录在本地）
+     */
+    public void seatsSold(Long scheduleId, List<SeatPosition> seatPositions, boolean broadcast) {
+        Set<Integer> sold = soldSeats.get(scheduleId, id -> ConcurrentHashMap.newKeySet());
+        StringJoiner indices = new StringJoiner(",");
+        for (SeatPosition seat : seatPositions) {
+            sold.add(seat.index());
+            indices.add(Integer.toString(seat.index()));
+        }
+        if (broadcast) {
+            publish(scheduleId + ":" + SOLD + ":" + indices);
+        }
+    }
+
+    /**
+     * 记录场次已售罄并通知其他节点
+     */
+    public void scheduleSoldOut(Long scheduleId) {
+        soldOutSchedules.put(scheduleId, Boolean.TRUE);
+        soldSeats.invalidate(scheduleId);
+        publish(scheduleId + ":" + SOLD_OUT);
+        log.info("场次已售罄, scheduleId={}", scheduleId);
+    }
+
+    /**
+     * 其他节点（也包括本节点）的通知，重复应用无副作用
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        try {
+            String[] parts = body.split(":", 3);
+            Long scheduleId = Long.valueOf(parts[0]);
+            if (SOLD_OUT.equals(parts[1])) {
+                soldOutSchedules.put(scheduleId, Boolean.TRUE);
+                soldSeats.invalidate(scheduleId);
+            } else if (SOLD.equals(parts[1]) && !isSoldOut(scheduleId)) {
+                Set<Integer> sold = soldSeats.get(scheduleId, id -> ConcurrentHashMap.newKeySet());
+                for (String index : parts[2].split(",")) {
+                    sold.add(Integer.valueOf(index));
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("忽略无法解析的拒绝缓存通知: {}", body);
+        }
+    }
+
+    private void publish(String message) {
+        if (localOnly) {
+            return;
+        }
+        try {
+            stringRedisTemplate.convertAndSend(RedisKeyConstant.SEAT_REJECT_CHANNEL, message);
+        } catch (Exception e) {
+            // 通知失败只影响其他节点的缓存命中率
+            log.warn("发布拒绝缓存通知失败: {}", message, e);
+        }
+    }
+}
@@ -1,28 +1,36 @@
 package com.megaticket.seat.service;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.megaticket.common.constant.RedisKeyConstant;
+import com.megaticket.common.dto.HeldSeats;
+import com.megaticket.common.dto.SeatCounters;
+import com.megaticket.common.dto.SeatPosition;
 import com.megaticket.common.exception.BusinessException;
 import com.megaticket.common.result.ResultCode;
-import jakarta.annotation.PostConstruct;
+import com.megaticket.seat.dto.SeatMapInitRequest;
+import com.megaticket.seat.dto.SeatMapLayout;
+import com.megaticket.seat.dto.SeatStatusDelta;
+import com.megaticket.seat.dto.SeatSummary;
+import com.megaticket.seat.engine.SeatEngine;
+import com.megaticket.seat.entity.HallLayout;
+import com.megaticket.seat.mapper.HallLayoutMapper;
+import com.megaticket.seat.stream.SeatStreamHub;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.ClassPathResource;
-import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * 座位服务 - 项目核心
- * 使用 Redis Bitfield + Lua 脚本实现高并发座位管理
+ * 负责参数校验与异常转换，座位状态的存储与原子操作委托给 {@link SeatEngine}
  *
  * @author Yang JunJie
  * @since 2026/1/14
@@ -32,42 +40,33 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class SeatService {
 
-    private final RedisTemplate<String, Object> redisTemplate;
-    private final ObjectMapper objectMapper;
+    private final SeatEngine seatEngine;
+    private final SeatStreamHub seatStreamHub;
+    /** 开启 megaticket.seat.lock-batch.enabled 时存在 */
+    private final ObjectProvider<SeatLockBatcher> seatLockBatcher;
+    /** 关闭 megaticket.seat.reject-cache.enabled 时不存在 */
+    private final ObjectProvider<SeatRejectCache> seatRejectCache;
+    private final HallLayoutMapper hallLayoutMapper;
 
-    private String lockSeatLuaScript;
-    private DefaultRedisScript<String> redisScript;
-    private static final String LUA_SCRIPT_PATH = "lua/lock_seat.lua";
-    private static final int LOCK_TIMEOUT_SECONDS = 900; // 15分钟锁定时间
+    /** 开启锁座额度（任一上限大于 0）时锁座请求必须带用户ID，否则不计入任何用户的额度 */
+    @Value("#{${megaticket.seat.hold.max-per-schedule:0} > 0 or ${megaticket.seat.hold.max-per-user:0} > 0}")
+    private boolean holdsEnabled;
 
-    /**
-     * 初始化时加载 Lua 脚本
-     */
-    @PostConstruct
-    public void init() {
-        try {
-            ClassPathResource resource = new ClassPathResource(LUA_SCRIPT_PATH);
-            lockSeatLuaScript = new String(resource.getContentAsByteArray(), StandardCharsets.UTF_8);
-            
-            redisScript = new DefaultRedisScript<>();
-            redisScript.setScriptText(lockSeatLuaScript);
-            redisScript.setResultType(String.class);
-            
-            log.info("座位锁定 Lua 脚本加载成功");
-        } catch (IOException e) {
-            log.error("加载 Lua 脚本失败: {}", LUA_SCRIPT_PATH, e);
-            throw new RuntimeException("加载 Lua 脚本失败", e);
-        }
-    }
+    static final int LOCK_TIMEOUT_SECONDS = 900; // 15分钟锁定时间
+    private static final int INIT_BATCH_SIZE = 500; // 每次流水线初始化的场次数
+    private static final int MAX_AUTO_SEATS = 10; // 自动选座单次最多座位数
+    private static final int MAX_COUNTER_SCHEDULES = 500; // 单次最多查询剩余座位的场次数
+    private static final int MAX_THUMBNAIL_SCHEDULES = 100; // 单次最多查询缩略图的场次数
 
     /**
      * 锁定座位
      *
      * @param scheduleId  场次ID
-     * @param seatPositions 座位位置列表 [{row, col}, ...]
+     * @param userId      锁座用户ID，开启锁座额度时必填
+     * @param seatPositions 座位位置列表
      * @return 锁定成功的座位列表
      */
-    public List<Map<String, Integer>> lockSeats(Long scheduleId, List<Map<String, Integer>> seatPositions) {
+    public List<SeatPosition> lockSeats(Long scheduleId, Long userId, List<SeatPosition> seatPositions) {
         // 1. 参数校验
         if (scheduleId == null || scheduleId <= 0) {
             throw new BusinessException(ResultCode.SCHEDULE_NOT_FOUND);
@@ -77,97 +76,81 @@ public class SeatService {
             throw new BusinessException(ResultCode.PARAM_VALID_ERROR);
         }
 
-        // 2. 检查场次是否存在
-        String seatMapKey = RedisKeyConstant.SEAT_MAP_PREFIX + scheduleId;
-        Boolean exists = redisTemplate.hasKey(seatMapKey);
-        if (Boolean.FALSE.equals(exists)) {
-            throw new BusinessException(ResultCode.SCHEDULE_NOT_FOUND);
-        }
+        // 2. 校验用户与每个座位的行列号
+        checkHolder(userId);
+        checkSeatPositions(seatPositions);
 
-        // 3. 校验每个座位的行列号
-        for (Map<String, Integer> seat : seatPositions) {
-            Integer row = seat.get("row");
-            Integer col = seat.get("col");
+        // 3. 已售罄的场次或包含已售座位的请求直接在本地拒绝，不访问 Redis
+        SeatRejectCache rejectCache = seatRejectCache.getIfAvailable();
+        if (rejectCache != null && rejectCache.isRejected(scheduleId, seatPositions)) {
+            throw new BusinessException(ResultCode.SEAT_SOLD_OUT);
+        }
 
-            if (row == null || row < 1 || row > 50) {
-                throw new BusinessException(ResultCode.SEAT_INVALID_ROW);
-            }
-            if (col == null || col < 1 || col > 100) {
-                throw new BusinessException(ResultCode.SEAT_INVALID_COL);
-            }
+        // 4. 检查场次是否存在（批量锁座时由批次一并判断，省去一次往返）
+        SeatLockBatcher batcher = seatLockBatcher.getIfAvailable();
+        if (batcher == null && !seatEngine.exists(scheduleId)) {
+            throw new BusinessException(ResultCode.SCHEDULE_NOT_FOUND);
         }
 
         try {
-            // 4. 构建 Lua 脚本参数
-            List<String> keys = List.of(seatMapKey);
-            List<Object> args = new ArrayList<>();
-
-            args.add(LOCK_TIMEOUT_SECONDS);        // ARGV[1]: 锁定超时时间
-            args.add(System.currentTimeMillis() / 1000);  // ARGV[2]: 当前时间戳
-            args.add(seatPositions.size());        // ARGV[3]: 座位数量
-
-            // ARGV[4...]: 座位位置 (row1, col1, row2, col2, ...)
-            for (Map<String, Integer> seat : seatPositions) {
-                args.add(seat.get("row"));
-                args.add(seat.get("col"));
-            }
-            args.add("lock");                      // 最后一个参数: 操作类型
-
-            // 5. 执行 Lua 脚本
-            String result = redisTemplate.execute(
-                redisScript,
-                keys,
-                args.toArray()
-            );
-
-            // 6. 解析结果
-            if (result == null) {
-                throw new BusinessException(ResultCode.SEAT_STATUS_QUERY_FAILED);
-            }
+            // 5. 由座位引擎原子锁定，开启批处理时与同场次的并发请求合并执行
+            List<SeatPosition> resultSeats = batcher != null
+                ? batcher.lockSeats(scheduleId, userId, seatPositions, LOCK_TIMEOUT_SECONDS)
+                : seatEngine.lockSeats(scheduleId, userId, seatPositions, LOCK_TIMEOUT_SECONDS);
+            seatStreamHub.publish(scheduleId);
 
-            String jsonResult = result;
-            @SuppressWarnings("unchecked")
-            Map<String, Object> resultMap = objectMapper.readValue(jsonResult, new TypeReference<>() {});
-
-            Boolean success = (Boolean) resultMap.get("success");
+            log.info("锁定座位成功, scheduleId={}, userId={}, seats={}", scheduleId, userId, resultSeats.size());
+            return resultSeats;
 
-            if (Boolean.FALSE.equals(success)) {
-                @SuppressWarnings("unchecked")
-                List<Map<String, Object>> failedSeats = (List<Map<String, Object>>) resultMap.get("failed_seats");
+        } catch (BusinessException e) {
+            // 单个座位的请求因已售出失败时，该座位即是已售座位，记录到本地
+            if (rejectCache != null && e.getResultCode() == ResultCode.SEAT_SOLD_OUT && seatPositions.size() == 1) {
+                rejectCache.seatsSold(scheduleId, seatPositions, false);
+            }
+            throw e;
+        } catch (Exception e) {
+            log.error("锁定座位失败, scheduleId={}", scheduleId, e);
+            throw new BusinessException(ResultCode.SYSTEM_ERROR);
+        }
+    }
 
-                if (failedSeats != null && !failedSeats.isEmpty()) {
-                    Map<String, Object> firstFailed = failedSeats.get(0);
-                    String reason = (String) firstFailed.get("reason");
+    /**
+     * 自动选座：锁定同一排连续 count 个离最佳区域最近的座位
+     * 代替客户端挑选具体座位后因已被锁定而反复重试，一次调用即可拿到座位
+     *
+     * @param scheduleId  场次ID
+     * @param userId      锁座用户ID，开启锁座额度时必填
+     * @param count       座位数
+     * @return 锁定成功的座位列表
+     */
+    public List<SeatPosition> lockBestAvailable(Long scheduleId, Long userId, Integer count) {
+        // 1. 参数校验
+        if (scheduleId == null || scheduleId <= 0) {
+            throw new BusinessException(ResultCode.SCHEDULE_NOT_FOUND);
+        }
 
-                    if ("sold_out".equals(reason)) {
-                        throw new BusinessException(ResultCode.SEAT_SOLD_OUT);
-                    } else if ("locked".equals(reason)) {
-                        throw new BusinessException(ResultCode.SEAT_ALREADY_LOCKED);
-                    }
-                }
-                throw new BusinessException(ResultCode.SEAT_ALREADY_LOCKED);
-            }
+        if (count == null || count < 1 || count > MAX_AUTO_SEATS) {
+            throw new BusinessException(ResultCode.PARAM_VALID_ERROR);
+        }
+        checkHolder(userId);
 
-            @SuppressWarnings("unchecked")
-            List<Map<String, Object>> lockedSeats = (List<Map<String, Object>>) resultMap.get("locked_seats");
-            List<Map<String, Integer>> resultSeats = new ArrayList<>();
+        SeatRejectCache rejectCache = seatRejectCache.getIfAvailable();
+        if (rejectCache != null && rejectCache.isSoldOut(scheduleId)) {
+            throw new BusinessException(ResultCode.SEAT_SOLD_OUT);
+        }
 
-            if (lockedSeats != null) {
-                for (Map<String, Object> seat : lockedSeats) {
-                    Map<String, Integer> seatInfo = new HashMap<>();
-                    seatInfo.put("row", ((Number) seat.get("row")).intValue());
-                    seatInfo.put("col", ((Number) seat.get("col")).intValue());
-                    resultSeats.add(seatInfo);
-                }
-            }
+        try {
+            // 2. 由座位引擎查找并原子锁定
+            List<SeatPosition> resultSeats = seatEngine.lockBestAvailable(scheduleId, userId, count, LOCK_TIMEOUT_SECONDS);
+            seatStreamHub.publish(scheduleId);
 
-            log.info("锁定座位成功, scheduleId={}, seats={}", scheduleId, resultSeats.size());
+            log.info("自动选座成功, scheduleId={}, seats={}", scheduleId, resultSeats);
             return resultSeats;
 
         } catch (BusinessException e) {
             throw e;
         } catch (Exception e) {
-            log.error("锁定座位失败, scheduleId={}", scheduleId, e);
+            log.error("自动选座失败, scheduleId={}, count={}", scheduleId, count, e);
             throw new BusinessException(ResultCode.SYSTEM_ERROR);
         }
     }
@@ -179,7 +162,7 @@ public class SeatService {
      * @param seatPositions 座位位置列表
      * @return 释放成功的座位数量
      */
-    public Integer releaseSeats(Long scheduleId, List<Map<String, Integer>> seatPositions) {
+    public Integer releaseSeats(Long scheduleId, List<SeatPosition> seatPositions) {
         // 1. 参数校验
         if (scheduleId == null || scheduleId <= 0) {
             throw new BusinessException(ResultCode.SCHEDULE_NOT_FOUND);
@@ -188,48 +171,116 @@ public class SeatService {
         if (seatPositions == null || seatPositions.isEmpty()) {
             throw new BusinessException(ResultCode.PARAM_VALID_ERROR);
         }
-
-        String seatMapKey = RedisKeyConstant.SEAT_MAP_PREFIX + scheduleId;
+        checkSeatPositions(seatPositions);
 
         try {
-            // 2. 构建 Lua 脚本参数
-            List<String> keys = List.of(seatMapKey);
-            List<Object> args = new ArrayList<>();
+            // 2. 由座位引擎释放
+            int releasedCount = seatEngine.releaseSeats(scheduleId, seatPositions);
+            if (releasedCount > 0) {
+                seatStreamHub.publish(scheduleId);
+            }
+            log.info("释放座位成功, scheduleId={}, count={}", scheduleId, releasedCount);
 
-            args.add(System.currentTimeMillis() / 1000);  // ARGV[1]: 当前时间戳
-            args.add(seatPositions.size());               // ARGV[2]: 座位数量
+            return releasedCount;
 
-            // ARGV[3...]: 座位位置
-            for (Map<String, Integer> seat : seatPositions) {
-                args.add(seat.get("row"));
-                args.add(seat.get("col"));
-            }
-            args.add("release");                         // 操作类型
+        } catch (BusinessException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("释放座位失败, scheduleId={}", scheduleId, e);
+            throw new BusinessException(ResultCode.SEAT_RELEASE_FAILED);
+        }
+    }
 
-            // 3. 执行 Lua 脚本
-            String result = redisTemplate.execute(
-                redisScript,
-                keys,
-                args.toArray()
-            );
+    /**
+     * 按持有人释放座位（订单超时关闭 / 取消时由订单服务调用）
+     * 只释放仍由对应用户锁定、且截止时间不晚于订单锁定截止时间的座位，锁定过期后被重新锁定的座位不受影响
+     *
+     * @param scheduleId 场次ID
+     * @param holds      各用户锁定的座位
+     * @return 释放成功的座位数量
+     */
+    public Integer releaseHeldSeats(Long scheduleId, List<HeldSeats> holds) {
+        // 1. 参数校验
+        if (scheduleId == null || scheduleId <= 0) {
+            throw new BusinessException(ResultCode.SCHEDULE_NOT_FOUND);
+        }
 
-            if (result == null) {
-                throw new BusinessException(ResultCode.SEAT_RELEASE_FAILED);
+        if (holds == null || holds.isEmpty()) {
+            throw new BusinessException(ResultCode.PARAM_VALID_ERROR);
+        }
+        for (HeldSeats hold : holds) {
+            if (hold == null || hold.seats() == null || hold.seats().isEmpty()) {
+                throw new BusinessException(ResultCode.PARAM_VALID_ERROR);
             }
+            checkSeatPositions(hold.seats());
+        }
 
-            Integer releasedCount = Integer.parseInt(result);
-            log.info("释放座位成功, scheduleId={}, count={}", scheduleId, releasedCount);
+        try {
+            // 2. 由座位引擎按持有人释放
+            int releasedCount = seatEngine.releaseHeldSeats(scheduleId, holds);
+            if (releasedCount > 0) {
+                seatStreamHub.publish(scheduleId);
+            }
+            log.info("按持有人释放座位成功, scheduleId={}, holds={}, count={}", scheduleId, holds.size(), releasedCount);
 
             return releasedCount;
 
         } catch (BusinessException e) {
             throw e;
         } catch (Exception e) {
-            log.error("释放座位失败, scheduleId={}", scheduleId, e);
+            log.error("按持有人释放座位失败, scheduleId={}", scheduleId, e);
             throw new BusinessException(ResultCode.SEAT_RELEASE_FAILED);
         }
     }
 
+    /**
+     * 按持有人标记座位已售出（订单支付成功时由订单服务调用）
+     * 只售出仍由对应用户锁定、且截止时间不晚于订单锁定截止时间的座位，锁定过期后被其他用户锁定的座位不会售给该订单
+     *
+     * @param scheduleId 场次ID
+     * @param holds      各用户锁定的座位
+     * @return 售出的座位数量
+     */
+    public Integer markHeldSeatsSold(Long scheduleId, List<HeldSeats> holds) {
+        // 1. 参数校验
+        if (scheduleId == null || scheduleId <= 0) {
+            throw new BusinessException(ResultCode.SCHEDULE_NOT_FOUND);
+        }
+
+        if (holds == null || holds.isEmpty()) {
+            throw new BusinessException(ResultCode.PARAM_VALID_ERROR);
+        }
+        List<SeatPosition> seatPositions = new ArrayList<>();
+        for (HeldSeats hold : holds) {
+            if (hold == null || hold.seats() == null || hold.seats().isEmpty()) {
+                throw new BusinessException(ResultCode.PARAM_VALID_ERROR);
+            }
+            checkSeatPositions(hold.seats());
+            seatPositions.addAll(hold.seats());
+        }
+
+        try {
+            // 2. 由座位引擎按持有人标记售出
+            int soldCount = seatEngine.markHeldSeatsSold(scheduleId, holds);
+            if (soldCount > 0) {
+                seatStreamHub.publish(scheduleId);
+            }
+            // 3. 全部售出时才能整体写入拒绝缓存，部分座位已被他人锁定时不能记为售出
+            if (soldCount > 0 && soldCount == seatPositions.size()) {
+                rememberSold(scheduleId, seatPositions);
+            }
+            log.info("按持有人标记座位已售出, scheduleId={}, holds={}, count={}", scheduleId, holds.size(), soldCount);
+
+            return soldCount;
+
+        } catch (BusinessException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("按持有人标记座位已售出失败, scheduleId={}", scheduleId, e);
+            throw new BusinessException(ResultCode.SEAT_SOLD_FAILED);
+        }
+    }
+
     /**
      * 标记座位已售出
      *
@@ -237,7 +288,7 @@ public class SeatService {
      * @param seatPositions 座位位置列表
      * @return 售出的座位数量
      */
-    public Integer markSeatsSold(Long scheduleId, List<Map<String, Integer>> seatPositions) {
+    public Integer markSeatsSold(Long scheduleId, List<SeatPosition> seatPositions) {
         // 1. 参数校验
         if (scheduleId == null || scheduleId <= 0) {
             throw new BusinessException(ResultCode.SCHEDULE_NOT_FOUND);
@@ -246,44 +297,100 @@ public class SeatService {
         if (seatPositions == null || seatPositions.isEmpty()) {
             throw new BusinessException(ResultCode.PARAM_VALID_ERROR);
         }
-
-        String seatMapKey = RedisKeyConstant.SEAT_MAP_PREFIX + scheduleId;
+        checkSeatPositions(seatPositions);
 
         try {
-            // 2. 构建 Lua 脚本参数
-            List<String> keys = List.of(seatMapKey);
-            List<Object> args = new ArrayList<>();
+            // 2. 由座位引擎标记售出
+            int soldCount = seatEngine.markSeatsSold(scheduleId, seatPositions);
+            if (soldCount > 0) {
+                seatStreamHub.publish(scheduleId);
+                rememberSold(scheduleId, seatPositions);
+            }
+            log.info("标记座位已售出, scheduleId={}, count={}", scheduleId, soldCount);
 
-            args.add(seatPositions.size());  // ARGV[1]: 座位数量
+            return soldCount;
 
-            // ARGV[2...]: 座位位置
-            for (Map<String, Integer> seat : seatPositions) {
-                args.add(seat.get("row"));
-                args.add(seat.get("col"));
-            }
-            args.add("sold");  // 操作类型
+        } catch (BusinessException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("标记座位已售出失败, scheduleId={}", scheduleId, e);
+            throw new BusinessException(ResultCode.SYSTEM_ERROR);
+        }
+    }
 
-            // 3. 执行 Lua 脚本
-            String result = redisTemplate.execute(
-                redisScript,
-                keys,
-                args.toArray()
-            );
+    /**
+     * 获取场次剩余座位计数
+     *
+     * @param scheduleId 场次ID
+     * @return 剩余座位计数
+     */
+    public SeatCounters getSeatCounters(Long scheduleId) {
+        List<SeatCounters> counters = getSeatCounters(List.of(scheduleId));
+        if (counters.isEmpty()) {
+            throw new BusinessException(ResultCode.SCHEDULE_NOT_FOUND);
+        }
+        return counters.get(0);
+    }
 
-            if (result == null) {
-                throw new BusinessException(ResultCode.SEAT_SOLD_FAILED);
+    /**
+     * 批量获取场次剩余座位计数
+     * 不扫描座位图，供列表页与订单服务在锁座前判断是否售罄
+     *
+     * @param scheduleIds 场次ID列表
+     * @return 剩余座位计数（座位图不存在的场次不返回）
+     */
+    public List<SeatCounters> getSeatCounters(List<Long> scheduleIds) {
+        // 1. 参数校验
+        if (scheduleIds == null || scheduleIds.isEmpty() || scheduleIds.size() > MAX_COUNTER_SCHEDULES) {
+            throw new BusinessException(ResultCode.PARAM_VALID_ERROR);
+        }
+        for (Long scheduleId : scheduleIds) {
+            if (scheduleId == null || scheduleId <= 0) {
+                throw new BusinessException(ResultCode.SCHEDULE_NOT_FOUND);
             }
+        }
 
-            Integer soldCount = Integer.parseInt(result);
-            log.info("标记座位已售出, scheduleId={}, count={}", scheduleId, soldCount);
+        try {
+            // 2. 由座位引擎一次批量读取
+            return seatEngine.getSeatCounters(scheduleIds.stream().distinct().toList());
 
-            return soldCount;
+        } catch (BusinessException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("获取剩余座位计数失败, schedules={}", scheduleIds.size(), e);
+            throw new BusinessException(ResultCode.SEAT_STATUS_QUERY_FAILED);
+        }
+    }
+
+    /**
+     * 批量获取场次座位概览
+     * 列表页一次取一页场次的剩余座位与缩略图，代替逐个场次查询座位状态图
+     *
+     * @param scheduleIds 场次ID列表
+     * @param thumbnail   是否返回缩略图
+     * @return 座位概览（座位图不存在的场次不返回）
+     */
+    public List<SeatSummary> getSeatSummaries(List<Long> scheduleIds, boolean thumbnail) {
+        // 1. 参数校验，缩略图按场次读取整张位图，单次场次数更少
+        int maxSchedules = thumbnail ? MAX_THUMBNAIL_SCHEDULES : MAX_COUNTER_SCHEDULES;
+        if (scheduleIds == null || scheduleIds.isEmpty() || scheduleIds.size() > maxSchedules) {
+            throw new BusinessException(ResultCode.PARAM_VALID_ERROR);
+        }
+        for (Long scheduleId : scheduleIds) {
+            if (scheduleId == null || scheduleId <= 0) {
+                throw new BusinessException(ResultCode.SCHEDULE_NOT_FOUND);
+            }
+        }
+
+        try {
+            // 2. 由座位引擎一次批量读取
+            return seatEngine.getSeatSummaries(scheduleIds.stream().distinct().toList(), thumbnail);
 
         } catch (BusinessException e) {
             throw e;
         } catch (Exception e) {
-            log.error("标记座位已售出失败, scheduleId={}", scheduleId, e);
-            throw new BusinessException(ResultCode.SYSTEM_ERROR);
+            log.error("获取座位概览失败, schedules={}", scheduleIds.size(), e);
+            throw new BusinessException(ResultCode.SEAT_STATUS_QUERY_FAILED);
         }
     }
 
@@ -305,44 +412,44 @@ public class SeatService {
             Integer colEnd) {
 
         // 1. 参数校验
-        if (scheduleId == null || scheduleId <= 0) {
-            throw new BusinessException(ResultCode.SCHEDULE_NOT_FOUND);
-        }
+        checkStatusRange(scheduleId, rowStart, rowEnd, colStart, colEnd);
 
-        if (rowStart == null || rowStart < 1 || rowStart > 50 ||
-            rowEnd == null || rowEnd < rowStart || rowEnd > 50 ||
-            colStart == null || colStart < 1 || colStart > 100 ||
-            colEnd == null || colEnd < colStart || colEnd > 100) {
-            throw new BusinessException(ResultCode.PARAM_VALID_ERROR);
+        try {
+            // 2. 由座位引擎查询
+            return seatEngine.getSeatStatus(scheduleId, rowStart, rowEnd, colStart, colEnd);
+
+        } catch (BusinessException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("获取座位状态失败, scheduleId={}", scheduleId, e);
+            throw new BusinessException(ResultCode.SEAT_STATUS_QUERY_FAILED);
         }
+    }
 
-        String seatMapKey = RedisKeyConstant.SEAT_MAP_PREFIX + scheduleId;
+    /**
+     * 获取座位状态图（二进制编码）
+     * 直接由座位位图编码，不经过中间 Map，格式见 SeatMapCodec
+     *
+     * @param scheduleId  场次ID
+     * @param rowStart    起始行
+     * @param rowEnd      结束行
+     * @param colStart    起始列
+     * @param colEnd      结束列
+     * @return 编码后的座位图
+     */
+    public byte[] getSeatStatusBinary(
+            Long scheduleId,
+            Integer rowStart,
+            Integer rowEnd,
+            Integer colStart,
+            Integer colEnd) {
 
-        try {
-            // 2. 构建 Lua 脚本参数
-            List<String> keys = List.of(seatMapKey);
-            List<Object> args = new ArrayList<>();
-
-            args.add(rowStart);
-            args.add(rowEnd);
-            args.add(colStart);
-            args.add(colEnd);
-            args.add("status");                       // 操作类型
-
-            // 3. 执行 Lua 脚本
-            String result = redisTemplate.execute(
-                redisScript,
-                keys,
-                args.toArray()
-            );
-
-            if (result == null) {
-                throw new BusinessException(ResultCode.SEAT_STATUS_QUERY_FAILED);
-            }
+        // 1. 参数校验
+        checkStatusRange(scheduleId, rowStart, rowEnd, colStart, colEnd);
 
-            // 4. 解析结果
-            String jsonResult = result;
-            return objectMapper.readValue(jsonResult, new TypeReference<>() {});
+        try {
+            // 2. 由座位引擎查询
+            return seatEngine.getSeatStatusBinary(scheduleId, rowStart, rowEnd, colStart, colEnd);
 
         } catch (BusinessException e) {
             throw e;
@@ -353,32 +460,245 @@ public class SeatService {
     }
 
     /**
-     * 初始化场次座位图
+     * 增量获取座位状态
+     * 只返回 sinceVersion 之后变化过的座位；变更记录不足时返回完整状态（full=true）
+     *
+     * @param scheduleId   场次ID
+     * @param sinceVersion 客户端已持有的座位图版本
+     * @param rowStart     起始行
+     * @param rowEnd       结束行
+     * @param colStart     起始列
+     * @param colEnd       结束列
+     * @return 座位状态增量
+     */
+    public SeatStatusDelta getSeatStatusDelta(
+            Long scheduleId,
+            Long sinceVersion,
+            Integer rowStart,
+            Integer rowEnd,
+            Integer colStart,
+            Integer colEnd) {
+
+        // 1. 参数校验
+        checkStatusRange(scheduleId, rowStart, rowEnd, colStart, colEnd);
+        if (sinceVersion == null || sinceVersion < 0) {
+            throw new BusinessException(ResultCode.PARAM_VALID_ERROR);
+        }
+
+        try {
+            // 2. 由座位引擎查询
+            return seatEngine.getSeatStatusDelta(scheduleId, sinceVersion, rowStart, rowEnd, colStart, colEnd);
+
+        } catch (BusinessException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("增量获取座位状态失败, scheduleId={}, sinceVersion={}", scheduleId, sinceVersion, e);
+            throw new BusinessException(ResultCode.SEAT_STATUS_QUERY_FAILED);
+        }
+    }
+
+    /**
+     * 订阅座位图变更推送 (SSE)
      *
      * @param scheduleId  场次ID
-     * @param totalRows   总行数
-     * @param totalCols   总列数
+     * @return SSE 连接
      */
-    public void initSeatMap(Long scheduleId, Integer totalRows, Integer totalCols) {
+    public SseEmitter subscribeSeatStatus(Long scheduleId) {
+        // 1. 参数校验
         if (scheduleId == null || scheduleId <= 0) {
             throw new BusinessException(ResultCode.SCHEDULE_NOT_FOUND);
         }
 
-        if (totalRows == null || totalRows < 1 || totalRows > 50 ||
-            totalCols == null || totalCols < 1 || totalCols > 100) {
-            throw new BusinessException(ResultCode.PARAM_VALID_ERROR);
+        // 2. 检查场次是否存在
+        if (!seatEngine.exists(scheduleId)) {
+            throw new BusinessException(ResultCode.SCHEDULE_NOT_FOUND);
+        }
+
+        try {
+            // 3. 加入场次推送
+            return seatStreamHub.subscribe(scheduleId);
+
+        } catch (BusinessException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("订阅座位图失败, scheduleId={}", scheduleId, e);
+            throw new BusinessException(ResultCode.SEAT_STATUS_QUERY_FAILED);
         }
+    }
+
+    /**
+     * 初始化场次座位图（座位布局取自影厅）
+     *
+     * @param scheduleId  场次ID
+     * @param hallId      影厅ID
+     * @return 新初始化的场次数量（座位图已存在时为 0）
+     */
+    public Integer initSeatMap(Long scheduleId, Long hallId) {
+        SeatMapInitRequest request = new SeatMapInitRequest();
+        request.setScheduleId(scheduleId);
+        request.setHallId(hallId);
+        return initSeatMaps(List.of(request));
+    }
 
-        String seatMapKey = RedisKeyConstant.SEAT_MAP_PREFIX + scheduleId;
+    /**
+     * 批量初始化场次座位图（排期发布时一次提交当天全部场次）
+     * 影厅布局一次查询，座位图按 INIT_BATCH_SIZE 分批交给座位引擎
+     *
+     * @param requests 场次与影厅列表
+     * @return 新初始化的场次数量（座位图已存在的场次不覆盖、不计数）
+     */
+    public Integer initSeatMaps(List<SeatMapInitRequest> requests) {
+        // 1. 参数校验
+        if (requests == null || requests.isEmpty()) {
+            throw new BusinessException(ResultCode.PARAM_VALID_ERROR);
+        }
+        for (SeatMapInitRequest request : requests) {
+            if (request == null || request.getScheduleId() == null || request.getScheduleId() <= 0) {
+                throw new BusinessException(ResultCode.SCHEDULE_NOT_FOUND);
+            }
+            if (request.getHallId() == null || request.getHallId() <= 0) {
+                throw new BusinessException(ResultCode.CINEMA_HALL_NOT_FOUND);
+            }
+        }
 
         try {
-            // 初始化 Bitfield，所有座位设为 0（可选）
-            // Redis 会自动处理，访问不存在的位时返回 0
-            log.info("初始化场次座位图, scheduleId={}, rows={}, cols={}", scheduleId, totalRows, totalCols);
+            // 2. 一次查询涉及的全部影厅，并解析座位布局
+            Set<Long> hallIds = new HashSet<>();
+            for (SeatMapInitRequest request : requests) {
+                hallIds.add(request.getHallId());
+            }
+            Map<Long, HallLayout> halls = new HashMap<>();
+            for (HallLayout hall : hallLayoutMapper.selectBatchIds(hallIds)) {
+                halls.put(hall.getId(), hall);
+            }
+
+            List<SeatMapLayout> layouts = new ArrayList<>(requests.size());
+            for (SeatMapInitRequest request : requests) {
+                HallLayout hall = halls.get(request.getHallId());
+                if (hall == null) {
+                    throw new BusinessException(ResultCode.CINEMA_HALL_NOT_FOUND);
+                }
+                layouts.add(toLayout(request.getScheduleId(), hall));
+            }
 
+            // 3. 分批初始化，每批一次流水线
+            int initialized = 0;
+            for (int from = 0; from < layouts.size(); from += INIT_BATCH_SIZE) {
+                initialized += seatEngine.initSeatMaps(
+                    layouts.subList(from, Math.min(from + INIT_BATCH_SIZE, layouts.size())));
+            }
+            log.info("初始化场次座位图, schedules={}, initialized={}", layouts.size(), initialized);
+            return initialized;
+
+        } catch (BusinessException e) {
+            throw e;
         } catch (Exception e) {
-            log.error("初始化场次座位图失败, scheduleId={}", scheduleId, e);
+            log.error("初始化场次座位图失败, schedules={}", requests.size(), e);
             throw new BusinessException(ResultCode.SYSTEM_ERROR);
         }
     }
+
+    /**
+     * 解析影厅布局: 过道列整列不可售，不可售座位按 "行-列" 逗号分隔
+     */
+    static SeatMapLayout toLayout(Long scheduleId, HallLayout hall) {
+        Integer rows = hall.getTotalRows();
+        Integer cols = hall.getTotalCols();
+        if (rows == null || rows < 1 || rows > SeatPosition.MAX_ROWS ||
+            cols == null || cols < 1 || cols > SeatPosition.MAX_COLS) {
+            throw new BusinessException(ResultCode.CINEMA_HALL_LAYOUT_INVALID);
+        }
+
+        Set<SeatPosition> disabled = new LinkedHashSet<>();
+        try {
+            if (hall.getAisleCols() != null && !hall.getAisleCols().isBlank()) {
+                for (String item : hall.getAisleCols().split(",")) {
+                    int col = Integer.parseInt(item.trim());
+                    for (int row = 1; row <= rows; row++) {
+                        disabled.add(new SeatPosition(row, col));
+                    }
+                }
+            }
+            if (hall.getDisabledSeats() != null && !hall.getDisabledSeats().isBlank()) {
+                for (String item : hall.getDisabledSeats().split(",")) {
+                    String[] parts = item.trim().split("-");
+                    disabled.add(new SeatPosition(Integer.parseInt(parts[0]), Integer.parseInt(parts[1])));
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("影厅座位布局格式错误, hallId={}", hall.getId());
+            throw new BusinessException(ResultCode.CINEMA_HALL_LAYOUT_INVALID);
+        }
+
+        for (SeatPosition seat : disabled) {
+            if (seat.row() < 1 || seat.row() > rows || seat.col() < 1 || seat.col() > cols) {
+                throw new BusinessException(ResultCode.CINEMA_HALL_LAYOUT_INVALID);
+            }
+        }
+        return new SeatMapLayout(scheduleId, rows, cols, new ArrayList<>(disabled));
+    }
+
+    /**
+     * 售出后更新拒绝缓存: 记录已售座位，全部可售座位都已售出时标记场次售罄
+     * 只影响缓存命中率，失败不影响售出结果
+     */
+    void rememberSold(Long scheduleId, List<SeatPosition> seatPositions) {
+        SeatRejectCache rejectCache = seatRejectCache.getIfAvailable();
+        if (rejectCache == null) {
+            return;
+        }
+        try {
+            rejectCache.seatsSold(scheduleId, seatPositions, true);
+            List<SeatCounters> counters = seatEngine.getSeatCounters(List.of(scheduleId));
+            if (!counters.isEmpty() && counters.get(0).sold() >= counters.get(0).seats()) {
+                rejectCache.scheduleSoldOut(scheduleId);
+            }
+        } catch (Exception e) {
+            log.warn("更新拒绝缓存失败, scheduleId={}", scheduleId, e);
+        }
+    }
+
+    /**
+     * 开启锁座额度时校验锁座用户，没有用户ID的请求无法计入额度，直接拒绝
+     */
+    void checkHolder(Long userId) {
+        if (holdsEnabled && (userId == null || userId <= 0)) {
+            throw new BusinessException(ResultCode.UNAUTHORIZED);
+        }
+    }
+
+    /**
+     * 校验座位行列号（座位下标按最大影厅打包，超出范围会落到其他座位上）
+     * 同一请求中的座位不能重复，否则锁定时同一座位会重复计入锁座额度与锁定计数
+     */
+    static void checkSeatPositions(List<SeatPosition> seatPositions) {
+        Set<SeatPosition> seen = new HashSet<>(seatPositions.size() * 2);
+        for (SeatPosition seat : seatPositions) {
+            if (seat == null || seat.row() < 1 || seat.row() > SeatPosition.MAX_ROWS) {
+                throw new BusinessException(ResultCode.SEAT_INVALID_ROW);
+            }
+            if (seat.col() < 1 || seat.col() > SeatPosition.MAX_COLS) {
+                throw new BusinessException(ResultCode.SEAT_INVALID_COL);
+            }
+            if (!seen.add(seat)) {
+                throw new BusinessException(ResultCode.SEAT_DUPLICATED);
+            }
+        }
+    }
+
+    /**
+     * 校验座位状态查询范围
+     */
+    private void checkStatusRange(Long scheduleId, Integer rowStart, Integer rowEnd, Integer colStart, Integer colEnd) {
+        if (scheduleId == null || scheduleId <= 0) {
+            throw new BusinessException(ResultCode.SCHEDULE_NOT_FOUND);
+        }
+
+        if (rowStart == null || rowStart < 1 || rowStart > 50 ||
+            rowEnd == null || rowEnd < rowStart || rowEnd > 50 ||
+            colStart == null || colStart < 1 || colStart > 100 ||
+            colEnd == null || colEnd < colStart || colEnd > 100) {
+            throw new BusinessException(ResultCode.PARAM_VALID_ERROR);
+        }
+    }
 }
@@ -0,0 +1,36 @@
+package com.megaticket.seat.stream;
+
+import com.megaticket.common.constant.RedisKeyConstant;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.PatternTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 座位推送配置
+ * 订阅所有场次的座位变更频道，收到通知后标记对应 Topic，由 {@link SeatStreamHub} 合并推送
+ * 任意实例上的锁座/释放/售出都会通知到所有实例，各实例只推送给自己持有的连接
+ *
+ * @author Yang JunJie
+ * @since 2026/1/14
+ */
+@Configuration
+public class SeatStreamConfig {
+
+    @Bean
+    public RedisMessageListenerContainer seatEventListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                    SeatStreamHub seatStreamHub) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener((message, pattern) -> {
+            // 频道名 cinema:seat_event:{scheduleId}
+            String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+            String scheduleId = channel.substring(RedisKeyConstant.SEAT_EVENT_CHANNEL_PREFIX.length());
+            seatStreamHub.markChanged(Long.valueOf(scheduleId));
+        }, new PatternTopic(RedisKeyConstant.SEAT_EVENT_CHANNEL_PREFIX + "*"));
+        return container;
+    }
+}
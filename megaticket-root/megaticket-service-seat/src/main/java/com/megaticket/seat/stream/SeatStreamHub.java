@@ -0,0 +1,235 @@
+package com.megaticket.seat.stream;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.megaticket.common.constant.RedisKeyConstant;
+import com.megaticket.seat.dto.SeatStatusDelta;
+import com.megaticket.seat.engine.SeatEngine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 座位图推送中心 (SSE)
+ * 每个场次一个 Topic，所有观看该场次的连接共享：
+ *   1. 座位变更后只标记 Topic 为 dirty（跨实例通过 Redis Pub/Sub 通知，见 {@link SeatStreamConfig}）
+ *   2. 定时任务每 interval 毫秒对 dirty 的 Topic 查询一次增量，序列化一次后推送给全部连接
+ * 因此座位引擎的查询次数只与变更频率有关，与观看人数无关
+ *
+ * 事件:
+ *   snapshot 连接建立时的座位图，未出现的座位为可选
+ *   delta    之后的增量，客户端丢弃 version 不大于本地版本的事件
+ * 数据格式同 {@link SeatStatusDelta}
+ *
+ * 配置项:
+ *   megaticket.seat.stream.interval-ms 合并推送间隔, 默认 200 毫秒
+ *   megaticket.seat.stream.timeout-ms  连接超时, 默认 30 分钟
+ *
+ * @author Yang JunJie
+ * @since 2026/1/14
+ */
+@Slf4j
+@Component
+public class SeatStreamHub {
+
+    /** 推送整个影厅，客户端按需裁剪 */
+    private static final int MAX_ROWS = 50;
+    private static final int MAX_COLS = 100;
+
+    private final SeatEngine seatEngine;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final long intervalMillis;
+    private final long timeoutMillis;
+    /** 内存引擎的场次固定在本节点，变更只需通知本地 */
+    private final boolean localOnly;
+
+    private final Map<Long, Topic> topics = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher =
+        Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "seat-stream-flusher"));
+
+    public SeatStreamHub(
+            SeatEngine seatEngine,
+            RedisTemplate<String, Object> redisTemplate,
+            ObjectMapper objectMapper,
+            @Value("${megaticket.seat.stream.interval-ms:200}") long intervalMillis,
+            @Value("${megaticket.seat.stream.timeout-ms:1800000}") long timeoutMillis,
+            @Value("${megaticket.seat.engine:redis}") String engine) {
+        this.seatEngine = seatEngine;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.intervalMillis = intervalMillis;
+        this.timeoutMillis = timeoutMillis;
+        this.localOnly = "memory".equals(engine);
+    }
+
+    @PostConstruct
+    public void init() {
+        flusher.scheduleWithFixedDelay(this::flushAll, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdownNow();
+        topics.values().forEach(topic -> topic.emitters.forEach(SseEmitter::complete));
+        topics.clear();
+    }
+
+    /**
+     * 订阅场次座位图，立即推送一次当前座位图
+     *
+     * @param scheduleId 场次ID
+     * @return SSE 连接
+     */
+    public SseEmitter subscribe(Long scheduleId) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        // 创建 / 取得 Topic 与加入连接在同一次 compute 中完成: 分开两步时，最后一个连接退出可能在两步之间
+        // 移除 Topic，新连接会加入一个已不在 topics 中的 Topic，之后再也收不到推送
+        Topic topic = topics.compute(scheduleId, (id, existing) -> {
+            Topic current = existing != null ? existing : new Topic(id);
+            current.emitters.add(emitter);
+            return current;
+        });
+
+        emitter.onCompletion(() -> unsubscribe(scheduleId, emitter));
+        emitter.onTimeout(() -> unsubscribe(scheduleId, emitter));
+        emitter.onError(e -> unsubscribe(scheduleId, emitter));
+
+        SeatStatusDelta snapshot = seatEngine.getSeatStatusDelta(scheduleId, 0, 1, MAX_ROWS, 1, MAX_COLS);
+        if (topic.version == 0) {
+            // 新建的 Topic 从快照版本开始推送增量，避免第一次推送变成整图
+            topic.version = snapshot.getVersion();
+        }
+        if (!send(emitter, "snapshot", snapshot.getVersion(), toJson(snapshot))) {
+            unsubscribe(scheduleId, emitter);
+        }
+        return emitter;
+    }
+
+    /**
+     * 座位状态已变更（锁定/释放/售出成功后调用）
+     *
+     * @param scheduleId 场次ID
+     */
+    public void publish(Long scheduleId) {
+        if (localOnly) {
+            markChanged(scheduleId);
+            return;
+        }
+        try {
+            redisTemplate.convertAndSend(channel(scheduleId), scheduleId);
+        } catch (Exception e) {
+            // 通知失败不影响座位操作本身，观看端最多晚一次变更
+            log.warn("发布座位变更通知失败, scheduleId={}", scheduleId, e);
+        }
+    }
+
+    /**
+     * 场次座位变更的通知频道，订阅端只按频道名识别场次，不读取消息内容
+     */
+    public static String channel(Long scheduleId) {
+        return RedisKeyConstant.SEAT_EVENT_CHANNEL_PREFIX + scheduleId;
+    }
+
+    /**
+     * 标记场次有待推送的变更，没有订阅者的场次直接忽略
+     *
+     * @param scheduleId 场次ID
+     */
+    public void markChanged(Long scheduleId) {
+        Topic topic = topics.get(scheduleId);
+        if (topic != null) {
+            topic.dirty.set(true);
+        }
+    }
+
+    private void unsubscribe(Long scheduleId, SseEmitter emitter) {
+        topics.computeIfPresent(scheduleId, (id, topic) -> {
+            topic.emitters.remove(emitter);
+            return topic.emitters.isEmpty() ? null : topic;
+        });
+    }
+
+    /**
+     * 合并推送：每个 dirty 的场次只查询、序列化一次
+     */
+    private void flushAll() {
+        for (Topic topic : topics.values()) {
+            if (!topic.dirty.getAndSet(false)) {
+                continue;
+            }
+            try {
+                flush(topic);
+            } catch (Exception e) {
+                // 下一轮重试
+                topic.dirty.set(true);
+                log.error("推送座位变更失败, scheduleId={}", topic.scheduleId, e);
+            }
+        }
+    }
+
+    private void flush(Topic topic) {
+        SeatStatusDelta delta = seatEngine.getSeatStatusDelta(topic.scheduleId, topic.version, 1, MAX_ROWS, 1, MAX_COLS);
+        topic.version = delta.getVersion();
+        if (!delta.isFull() && delta.getSeats().isEmpty()) {
+            return;
+        }
+
+        String data = toJson(delta);
+        List<SseEmitter> emitters = topic.emitters;
+        for (SseEmitter emitter : emitters) {
+            if (!send(emitter, "delta", delta.getVersion(), data)) {
+                unsubscribe(topic.scheduleId, emitter);
+            }
+        }
+    }
+
+    private boolean send(SseEmitter emitter, String event, long version, String data) {
+        try {
+            emitter.send(SseEmitter.event().name(event).id(String.valueOf(version)).data(data));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // 客户端已断开
+            emitter.completeWithError(e);
+            return false;
+        }
+    }
+
+    private String toJson(SeatStatusDelta delta) {
+        try {
+            return objectMapper.writeValueAsString(delta);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("序列化座位变更失败", e);
+        }
+    }
+
+    /**
+     * 单个场次的订阅者与推送进度
+     * version 为已推送到的版本，除新建 Topic 时外只在 flusher 线程上更新
+     */
+    private static final class Topic {
+
+        private final Long scheduleId;
+        private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+        private final AtomicBoolean dirty = new AtomicBoolean();
+        private volatile long version;
+
+        private Topic(Long scheduleId) {
+            this.scheduleId = scheduleId;
+        }
+    }
+}
@@ -0,0 +1,684 @@
+-- 座位操作 Lua 脚本（初始化 / 锁定 / 释放 / 售出 / 查询），在 Redis 内原子执行
+--
+-- KEYS[1]: 座位位图   cinema:seat_map:{scheduleId}     (Bitfield, 每个座位 2 bit: 0=可选, 1=已锁定, 2=已售出, 3=不可售)
+-- KEYS[2]: 锁定截止   cinema:seat_lock:{scheduleId}    (ZSet, member=座位下标, score=锁定截止时间戳/秒, 即过期索引)
+-- KEYS[3]: 座位图版本 cinema:seat_version:{scheduleId} (每次状态变更 +1)
+-- KEYS[4]: 变更环     cinema:seat_changes:{scheduleId} (List, 每个版本一项, 内容为逗号分隔的座位下标, 只保留最近 RING_SIZE 项)
+-- KEYS[5]: 待回收场次 cinema:seat_lease_schedules      (ZSet, member=scheduleId, score=该场次最早的锁定截止时间)
+-- KEYS[6]: 座位图元数据 cinema:seat_meta:{scheduleId}  (Hash: rows, cols, seats, rowOffset, hallRows, scheduleId, locked, sold)
+--          locked / sold 为已锁定 / 已售出的座位数，由各操作随状态变更原子维护，剩余座位数 = seats - locked - sold
+--          已过期但尚未回收的锁定在回收前仍计入 locked
+-- KEYS[7]: 持久化同步流 cinema:seat_sync_stream        (Stream, 每次状态变更一条: sid=场次, v=版本, s=新状态, idx=座位下标...)
+--          由 megaticket-job 按消费组批量读取后写入 PostgreSQL，与状态变更在同一脚本中原子追加
+-- KEYS[8]: 座位持有人 cinema:seat_holder:{scheduleId}  (Hash, field=座位下标, value=锁定该座位的 userId)
+-- KEYS[9]: 场次持有数 cinema:seat_holds:{scheduleId}   (Hash, field=userId, value=该用户在本场次锁定中的座位数)
+-- KEYS[10]: 用户持有数 cinema:seat_user_holds          (Hash, field=userId, value=该用户在全部场次锁定中的座位数, 只在不分段且不是集群时传入)
+--          锁定时校验并占用额度，释放 / 售出 / 回收 / 过期座位被重新锁定时归还原持有人的额度，与座位状态在同一脚本中变更
+--          userId 为 0（内部调用，未带用户）时不校验也不占用额度
+--
+-- 座位图按行分段存储时（见 RedisSeatEngine），每段是一组独立的 Key（hash tag 相同，落在同一 slot），
+-- 脚本只处理一段: 行号、座位下标都是段内的，rowOffset 为段前的行数，hallRows 为影厅总行数；
+-- KEYS[5] / KEYS[7] 为该段所在桶的待回收集合 / 同步流，lock / lockbatch / best / sweep 的 leaseMember 为 scheduleId:band，
+-- 场次持有数按段计数，没有 KEYS[10]
+-- 连接 Redis 集群时不分段也使用带 hash tag 的 Key（整个场次为一段，leaseMember 为 scheduleId），KEYS[5] / KEYS[7] 同样按桶拆分，没有 KEYS[10]
+-- ARGV 最后一个参数为操作类型: init / lock / lockbatch / best / release / releaseheld / sold / soldheld / sweep / status / bitmap / delta
+--
+-- 座位下标 = (row - 1) * 100 + (col - 1)，位图偏移 = 下标 * 2
+-- 座位参数与返回值均为整数编码的座位下标/状态，不使用 JSON
+
+local MAX_COLS = 100
+local RING_SIZE = 512
+local op = ARGV[#ARGV]
+
+local function seatIndex(row, col)
+    return (row - 1) * MAX_COLS + (col - 1)
+end
+
+local function getStatus(index)
+    return redis.call('BITFIELD', KEYS[1], 'GET', 'u2', '#' .. index)[1]
+end
+
+local function setStatus(index, status)
+    redis.call('BITFIELD', KEYS[1], 'SET', 'u2', '#' .. index, status)
+end
+
+-- 已锁定但超过截止时间的座位视为可选，第二个返回值表示是否为过期锁定（位图中仍是 1，仍计入 locked）
+local function effectiveStatus(index, now)
+    local status = getStatus(index)
+    if status == 1 then
+        local deadline = tonumber(redis.call('ZSCORE', KEYS[2], index))
+        if deadline ~= nil and deadline <= now then
+            return 0, true
+        end
+    end
+    return status, false
+end
+
+-- 调整已锁定 / 已售出座位数
+local function adjustCounters(locked, sold)
+    if locked ~= 0 then
+        redis.call('HINCRBY', KEYS[6], 'locked', locked)
+    end
+    if sold ~= 0 then
+        redis.call('HINCRBY', KEYS[6], 'sold', sold)
+    end
+end
+
+-- 读取一行 [colStart, colEnd] 的实际状态，每行一次 BITFIELD 批量读取
+local function readRow(row, colStart, colEnd, now)
+    local args = {}
+    for col = colStart, colEnd do
+        table.insert(args, 'GET')
+        table.insert(args, 'u2')
+        table.insert(args, '#' .. seatIndex(row, col))
+    end
+    local values = redis.call('BITFIELD', KEYS[1], unpack(args))
+    for i = 1, #values do
+        if values[i] == 1 then
+            values[i] = effectiveStatus(seatIndex(row, colStart + i - 1), now)
+        end
+    end
+    return values
+end
+
+-- 变更追加到持久化同步流，座位下标换算为整张座位图的下标
+-- 元数据中没有 scheduleId 的座位图（早于同步流初始化）不追加
+local function appendSync(version, indices, status)
+    local meta = redis.call('HMGET', KEYS[6], 'scheduleId', 'rowOffset')
+    if not meta[1] then
+        return
+    end
+    local base = (tonumber(meta[2]) or 0) * MAX_COLS
+    local seats = {}
+    for i, index in ipairs(indices) do
+        seats[i] = index + base
+    end
+    -- 不裁剪: 流中只有尚未落库的条目（消费端落库后 ACK 并删除），裁剪会丢失未落库的状态变更；
+    -- 消费端停止时流持续增长，由消费端的积压告警（megaticket.job.seat-sync.lag-warn）发现
+    redis.call('XADD', KEYS[7], '*',
+        'sid', meta[1], 'v', version, 's', status, 'idx', table.concat(seats, ','))
+end
+
+-- 记录一次状态变更: 版本 +1，变更的座位下标写入变更环与同步流
+local function recordChange(indices, status)
+    local version = redis.call('INCR', KEYS[3])
+    redis.call('RPUSH', KEYS[4], table.concat(indices, ','))
+    redis.call('LTRIM', KEYS[4], -RING_SIZE, -1)
+    appendSync(version, indices, status)
+    return version
+end
+
+-- 登记场次的最早锁定截止时间，供后台回收任务查找（LT: 只会提前，不会推后）
+local function registerLease(scheduleId, deadline)
+    redis.call('ZADD', KEYS[5], 'LT', deadline, scheduleId)
+end
+
+local function currentTime()
+    return tonumber(redis.call('TIME')[1])
+end
+
+-- 调整用户持有数，减到 0 时删除
+local function adjustHolds(userId, delta)
+    if redis.call('HINCRBY', KEYS[9], userId, delta) <= 0 then
+        redis.call('HDEL', KEYS[9], userId)
+    end
+    if KEYS[10] and redis.call('HINCRBY', KEYS[10], userId, delta) <= 0 then
+        redis.call('HDEL', KEYS[10], userId)
+    end
+end
+
+-- 用户再锁定 count 个座位是否不超过额度: maxSchedule 为场次内上限，maxUser 为全部场次上限，0 表示不限
+local function withinQuota(userId, count, maxSchedule, maxUser)
+    if userId == '0' then
+        return true
+    end
+    if maxSchedule > 0 and tonumber(redis.call('HGET', KEYS[9], userId) or '0') + count > maxSchedule then
+        return false
+    end
+    if maxUser > 0 and KEYS[10] and tonumber(redis.call('HGET', KEYS[10], userId) or '0') + count > maxUser then
+        return false
+    end
+    return true
+end
+
+-- 座位记到用户名下并占用额度
+local function hold(indices, userId)
+    if userId == '0' or #indices == 0 then
+        return
+    end
+    local args = {}
+    for _, index in ipairs(indices) do
+        table.insert(args, index)
+        table.insert(args, userId)
+    end
+    redis.call('HSET', KEYS[8], unpack(args))
+    adjustHolds(userId, #indices)
+end
+
+-- 座位移出持有人名下并归还额度，没有持有人的座位忽略
+local function unhold(indices)
+    if #indices == 0 then
+        return
+    end
+    local held = {}
+    local deltas = {}
+    for i, userId in ipairs(redis.call('HMGET', KEYS[8], unpack(indices))) do
+        if userId then
+            table.insert(held, indices[i])
+            deltas[userId] = (deltas[userId] or 0) - 1
+        end
+    end
+    if #held == 0 then
+        return
+    end
+    redis.call('HDEL', KEYS[8], unpack(held))
+    for userId, delta in pairs(deltas) do
+        adjustHolds(userId, delta)
+    end
+end
+
+-- 初始化座位图: 位图由调用方按影厅布局整体生成（过道、不可售座位及影厅范围外均为 3），已存在则不覆盖
+-- 从数据库重建时位图中已带有已售 / 已锁定座位，并恢复锁定截止时间与座位图版本
+-- （版本从已落库的最大版本继续，落库端按版本覆盖，重建后的新变更不会被当作旧变更丢弃）
+-- ARGV: rows, cols, seats, rowOffset, hallRows, bitmap, scheduleId, sold, version, leaseMember,
+--       { deadline, index } ..., 'init'                  新建场次时 sold / version 为 0，没有锁定座位
+-- 返回: 1=已初始化, 0=座位图已存在
+if op == 'init' then
+    if not redis.call('SET', KEYS[1], ARGV[6], 'NX') then
+        return 0
+    end
+    -- 座位图丢失后重建时，残留的持有人已无对应的锁定，归还其额度（重建的锁定不带持有人）
+    local stale = redis.call('HGETALL', KEYS[9])
+    if KEYS[10] then
+        for i = 1, #stale, 2 do
+            if redis.call('HINCRBY', KEYS[10], stale[i], -tonumber(stale[i + 1])) <= 0 then
+                redis.call('HDEL', KEYS[10], stale[i])
+            end
+        end
+    end
+    redis.call('DEL', KEYS[8], KEYS[9])
+    local locked = 0
+    local earliest
+    for i = 11, #ARGV - 1, 2 do
+        local deadline = tonumber(ARGV[i])
+        redis.call('ZADD', KEYS[2], deadline, ARGV[i + 1])
+        locked = locked + 1
+        if earliest == nil or deadline < earliest then
+            earliest = deadline
+        end
+    end
+    if earliest ~= nil then
+        registerLease(ARGV[10], earliest)
+    end
+    if tonumber(ARGV[9]) > 0 then
+        redis.call('SET', KEYS[3], ARGV[9])
+        redis.call('DEL', KEYS[4])
+    end
+    redis.call('HSET', KEYS[6], 'rows', ARGV[1], 'cols', ARGV[2], 'seats', ARGV[3],
+        'rowOffset', ARGV[4], 'hallRows', ARGV[5], 'scheduleId', ARGV[7], 'locked', locked, 'sold', ARGV[8])
+    return 1
+end
+
+-- ARGV: timeout, now, leaseMember, userId, maxScheduleHolds, maxUserHolds, index1, index2, ..., 'lock'
+-- 返回: 0=成功, 1=已锁定, 2=已售出, 3=不可售（第一个不可选座位的状态）, 5=超过锁座额度
+if op == 'lock' then
+    local timeout = tonumber(ARGV[1])
+    local now = tonumber(ARGV[2])
+    local userId = ARGV[4]
+    local deadline = now + timeout
+
+    -- 1. 先校验全部座位，任意一个不可选则整体失败；重复的座位只计一次，否则额度与锁定计数会多计
+    local indices = {}
+    local reclaimed = {}
+    local seen = {}
+    local newlyLocked = 0
+    for i = 7, #ARGV - 1 do
+        local index = tonumber(ARGV[i])
+        if not seen[index] then
+            seen[index] = true
+            local status, expired = effectiveStatus(index, now)
+            if status ~= 0 then
+                return status
+            end
+            if expired then
+                table.insert(reclaimed, index)
+            else
+                newlyLocked = newlyLocked + 1
+            end
+            table.insert(indices, index)
+        end
+    end
+
+    -- 2. 过期锁定先归还原持有人的额度，再校验本次锁定是否超过额度
+    unhold(reclaimed)
+    if not withinQuota(userId, #indices, tonumber(ARGV[5]), tonumber(ARGV[6])) then
+        return 5
+    end
+
+    -- 3. 统一锁定并记录截止时间与持有人
+    for _, index in ipairs(indices) do
+        setStatus(index, 1)
+        redis.call('ZADD', KEYS[2], deadline, index)
+    end
+    hold(indices, userId)
+    registerLease(ARGV[3], deadline)
+    recordChange(indices, 1)
+    adjustCounters(newlyLocked, 0)
+    return 0
+end
+
+-- 批量锁定: 按到达顺序逐个判定请求，每个请求内部全部成功或全部失败
+-- ARGV: timeout, now, leaseMember, maxScheduleHolds, maxUserHolds, requestCount,
+--       { seatCount, userId, index1, index2, ... } ..., 'lockbatch'
+-- 返回每个请求的结果: 0=成功, 1=已锁定, 2=已售出, 3=不可售, 4=场次不存在, 5=超过锁座额度
+if op == 'lockbatch' then
+    local timeout = tonumber(ARGV[1])
+    local now = tonumber(ARGV[2])
+    local deadline = now + timeout
+    local maxSchedule = tonumber(ARGV[4])
+    local maxUser = tonumber(ARGV[5])
+    local requestCount = tonumber(ARGV[6])
+
+    local results = {}
+    if redis.call('EXISTS', KEYS[1]) == 0 then
+        for i = 1, requestCount do
+            results[i] = 4
+        end
+        return results
+    end
+
+    local indices = {}
+    local newlyLocked = 0
+    local pos = 7
+    for i = 1, requestCount do
+        local count = tonumber(ARGV[pos])
+        local userId = ARGV[pos + 1]
+        local result = 0
+        local requestIndices = {}
+        local reclaimed = {}
+        local seen = {}
+        for j = 1, count do
+            -- 前面请求刚锁定的座位在这里已是锁定状态；同一请求内重复的座位只计一次
+            local index = tonumber(ARGV[pos + 1 + j])
+            if not seen[index] then
+                seen[index] = true
+                local status, expired = effectiveStatus(index, now)
+                if status ~= 0 then
+                    result = status
+                    break
+                end
+                if expired then
+                    table.insert(reclaimed, index)
+                end
+                table.insert(requestIndices, index)
+            end
+        end
+        if result == 0 then
+            -- 前面请求占用的额度在这里已计入
+            unhold(reclaimed)
+            if not withinQuota(userId, #requestIndices, maxSchedule, maxUser) then
+                result = 5
+            end
+        end
+        if result == 0 then
+            newlyLocked = newlyLocked + #requestIndices - #reclaimed
+            for _, index in ipairs(requestIndices) do
+                setStatus(index, 1)
+                redis.call('ZADD', KEYS[2], deadline, index)
+                table.insert(indices, index)
+            end
+            hold(requestIndices, userId)
+        end
+        results[i] = result
+        pos = pos + 2 + count
+    end
+
+    -- 整批只记录一次变更
+    if #indices > 0 then
+        registerLease(ARGV[3], deadline)
+        recordChange(indices, 1)
+        adjustCounters(newlyLocked, 0)
+    end
+    return results
+end
+
+-- 自动选座: 在座位图中找出连续 count 个可选座位（过道/不可售座位会断开连续），选离最佳区域最近的一组并锁定
+-- 最佳区域为中间列、前后约 2/3 处的行；距离 = 4 * 行距 + |组中心与中间列的距离 * 2|（一行约等于偏两个座位）
+-- 按字节扫描整行位图，整字节为 0（4 个座位都可选）时一次跳过
+-- ARGV: timeout, now, leaseMember, count, userId, maxScheduleHolds, maxUserHolds, 'best'
+-- 返回 { 0, row, col }: 已锁定 (row, col) 起的 count 个座位; { 1 }: 没有足够的相邻空座; { 4 }: 场次不存在;
+--      { 5 }: 超过锁座额度
+if op == 'best' then
+    local timeout = tonumber(ARGV[1])
+    local now = tonumber(ARGV[2])
+    local count = tonumber(ARGV[4])
+    local userId = ARGV[5]
+    local deadline = now + timeout
+
+    -- 1. 读取影厅尺寸与整张位图，各一次调用
+    local meta = redis.call('HMGET', KEYS[6], 'rows', 'cols', 'rowOffset', 'hallRows')
+    local rows = tonumber(meta[1])
+    local cols = tonumber(meta[2])
+    local bitmap = redis.call('GET', KEYS[1])
+    if rows == nil or cols == nil or not bitmap then
+        return { 4 }
+    end
+    local rowOffset = tonumber(meta[3]) or 0
+    local hallRows = tonumber(meta[4]) or rows
+    if not withinQuota(userId, count, tonumber(ARGV[6]), tonumber(ARGV[7])) then
+        return { 5 }
+    end
+
+    -- 已过期未回收的锁定视为可选
+    local expired = {}
+    for _, field in ipairs(redis.call('ZRANGEBYSCORE', KEYS[2], '-inf', now)) do
+        expired[tonumber(field)] = true
+    end
+
+    local rowBytes = MAX_COLS / 4
+    -- 最佳行按整个影厅计算，换算为段内行号
+    local preferredRow = math.floor((hallRows * 2 + 2) / 3) - rowOffset
+    local centerCol = math.floor((cols + 2 - count) / 2)
+    local bestScore, bestRow, bestCol
+
+    -- 连续空座 [runStart, runStart + runLen) 中离中间列最近的一组
+    local function consider(row, runStart, runLen)
+        if runLen < count then
+            return
+        end
+        local col = math.min(math.max(centerCol, runStart), runStart + runLen - count)
+        local score = 4 * math.abs(row - preferredRow) + math.abs(2 * col + count - 2 - cols)
+        if bestScore == nil or score < bestScore then
+            bestScore, bestRow, bestCol = score, row, col
+        end
+    end
+
+    -- 2. 逐行扫描连续空座
+    for row = 1, rows do
+        local base = (row - 1) * rowBytes
+        local runStart, runLen = 1, 0
+        local col = 1
+        while col <= cols do
+            local offset = (col - 1) % 4
+            local byte = string.byte(bitmap, base + math.floor((col - 1) / 4) + 1) or 0
+            if offset == 0 and byte == 0 and col + 3 <= cols then
+                -- 整字节 4 个座位都可选
+                if runLen == 0 then
+                    runStart = col
+                end
+                runLen = runLen + 4
+                col = col + 4
+            else
+                local status = bit.band(bit.rshift(byte, 6 - 2 * offset), 3)
+                if status == 1 and expired[seatIndex(row, col)] then
+                    status = 0
+                end
+                if status == 0 then
+                    if runLen == 0 then
+                        runStart = col
+                    end
+                    runLen = runLen + 1
+                else
+                    consider(row, runStart, runLen)
+                    runLen = 0
+                end
+                col = col + 1
+            end
+        end
+        consider(row, runStart, runLen)
+    end
+
+    if bestRow == nil then
+        return { 1 }
+    end
+
+    -- 3. 锁定选中的座位
+    local indices = {}
+    local reclaimed = {}
+    local newlyLocked = 0
+    for col = bestCol, bestCol + count - 1 do
+        local index = seatIndex(bestRow, col)
+        if expired[index] then
+            table.insert(reclaimed, index)
+        else
+            newlyLocked = newlyLocked + 1
+        end
+        setStatus(index, 1)
+        redis.call('ZADD', KEYS[2], deadline, index)
+        table.insert(indices, index)
+    end
+    unhold(reclaimed)
+    hold(indices, userId)
+    registerLease(ARGV[3], deadline)
+    recordChange(indices, 1)
+    adjustCounters(newlyLocked, 0)
+    return { 0, bestRow, bestCol }
+end
+
+-- ARGV: index1, index2, ..., 'release'
+-- 返回: 释放的座位数
+if op == 'release' then
+    local indices = {}
+    for i = 1, #ARGV - 1 do
+        local index = tonumber(ARGV[i])
+        if getStatus(index) == 1 then
+            setStatus(index, 0)
+            redis.call('ZREM', KEYS[2], index)
+            table.insert(indices, index)
+        end
+    end
+    if #indices > 0 then
+        unhold(indices)
+        recordChange(indices, 0)
+        adjustCounters(-#indices, 0)
+    end
+    return #indices
+end
+
+-- 仍属于调用方订单的锁定座位: 仍处于锁定状态、仍记在对应用户名下、且截止时间不晚于 maxDeadline
+-- 锁定过期后被回收、又被其他用户或同一用户重新锁定（截止时间更晚）的座位不在其中；
+-- 没有持有人的锁定（座位图重建后恢复的锁定）也不在其中，等待过期回收；maxDeadline 为 0 时不校验截止时间
+-- ARGV: { userId, maxDeadline, seatCount, index1, index2, ... } ..., op
+local function heldIndices()
+    local indices = {}
+    local seen = {}
+    local pos = 1
+    while pos < #ARGV do
+        local userId = ARGV[pos]
+        local maxDeadline = tonumber(ARGV[pos + 1])
+        local count = tonumber(ARGV[pos + 2])
+        for j = 1, count do
+            local index = tonumber(ARGV[pos + 2 + j])
+            if not seen[index] and getStatus(index) == 1 and redis.call('HGET', KEYS[8], index) == userId
+                and (maxDeadline == 0 or tonumber(redis.call('ZSCORE', KEYS[2], index) or '0') <= maxDeadline) then
+                seen[index] = true
+                table.insert(indices, index)
+            end
+        end
+        pos = pos + 3 + count
+    end
+    return indices
+end
+
+-- 按持有人释放（订单超时关闭 / 取消）
+-- ARGV: { userId, maxDeadline, seatCount, index1, index2, ... } ..., 'releaseheld'
+-- 返回: 释放的座位数
+if op == 'releaseheld' then
+    local indices = heldIndices()
+    for _, index in ipairs(indices) do
+        setStatus(index, 0)
+        redis.call('ZREM', KEYS[2], index)
+    end
+    if #indices > 0 then
+        unhold(indices)
+        recordChange(indices, 0)
+        adjustCounters(-#indices, 0)
+    end
+    return #indices
+end
+
+-- 按持有人售出（订单支付成功）: 只售出仍属于该订单的锁定座位，锁定已被回收的座位不会售给该订单
+-- ARGV: { userId, maxDeadline, seatCount, index1, index2, ... } ..., 'soldheld'
+-- 返回: 售出的座位数
+if op == 'soldheld' then
+    local indices = heldIndices()
+    for _, index in ipairs(indices) do
+        setStatus(index, 2)
+        redis.call('ZREM', KEYS[2], index)
+    end
+    if #indices > 0 then
+        unhold(indices)
+        recordChange(indices, 2)
+        adjustCounters(-#indices, #indices)
+    end
+    return #indices
+end
+
+-- ARGV: index1, index2, ..., 'sold'
+-- 返回: 售出的座位数（不可售座位不会被售出）
+if op == 'sold' then
+    local indices = {}
+    local wasLocked = 0
+    for i = 1, #ARGV - 1 do
+        local index = tonumber(ARGV[i])
+        local status = getStatus(index)
+        if status ~= 2 and status ~= 3 then
+            if status == 1 then
+                wasLocked = wasLocked + 1
+            end
+            setStatus(index, 2)
+            redis.call('ZREM', KEYS[2], index)
+            table.insert(indices, index)
+        end
+    end
+    if #indices > 0 then
+        unhold(indices)
+        recordChange(indices, 2)
+        adjustCounters(-wasLocked, #indices)
+    end
+    return #indices
+end
+
+-- 回收已过期的锁定: 按截止时间从早到晚最多处理 limit 个，座位恢复为可选并推进版本
+-- ARGV: now, limit, leaseMember, 'sweep'
+-- 返回 { 回收的座位数, 是否还有已过期未回收的锁定(0/1) }
+if op == 'sweep' then
+    local now = tonumber(ARGV[1])
+    local limit = tonumber(ARGV[2])
+
+    local indices = {}
+    for _, field in ipairs(redis.call('ZRANGEBYSCORE', KEYS[2], '-inf', now, 'LIMIT', 0, limit)) do
+        local index = tonumber(field)
+        if getStatus(index) == 1 then
+            setStatus(index, 0)
+            table.insert(indices, index)
+        end
+        redis.call('ZREM', KEYS[2], field)
+    end
+    if #indices > 0 then
+        unhold(indices)
+        recordChange(indices, 0)
+        adjustCounters(-#indices, 0)
+    end
+
+    -- 更新场次的最早截止时间，没有锁定则移出待回收集合
+    local earliest = redis.call('ZRANGE', KEYS[2], 0, 0, 'WITHSCORES')
+    local more = 0
+    if #earliest == 0 then
+        redis.call('ZREM', KEYS[5], ARGV[3])
+    else
+        redis.call('ZADD', KEYS[5], earliest[2], ARGV[3])
+        if tonumber(earliest[2]) <= now then
+            more = 1
+        end
+    end
+    return { #indices, more }
+end
+
+-- ARGV: rowStart, rowEnd, colStart, colEnd, 'status'
+-- 返回: 窗口内全部座位状态，行优先
+if op == 'status' then
+    local rowStart = tonumber(ARGV[1])
+    local rowEnd = tonumber(ARGV[2])
+    local colStart = tonumber(ARGV[3])
+    local colEnd = tonumber(ARGV[4])
+    local now = currentTime()
+
+    local reply = {}
+    for row = rowStart, rowEnd do
+        for _, status in ipairs(readRow(row, colStart, colEnd, now)) do
+            table.insert(reply, status)
+        end
+    end
+    return reply
+end
+
+-- ARGV: rowStart, rowEnd, 'bitmap'
+-- 返回 { 行范围内的原始位图字节, 座位图版本, 已过期锁定的座位下标... }，由调用方把过期座位当作可选
+if op == 'bitmap' then
+    local rowStart = tonumber(ARGV[1])
+    local rowEnd = tonumber(ARGV[2])
+    local rowBytes = MAX_COLS * 2 / 8
+    local now = currentTime()
+
+    local reply = {
+        redis.call('GETRANGE', KEYS[1], (rowStart - 1) * rowBytes, rowEnd * rowBytes - 1),
+        tonumber(redis.call('GET', KEYS[3]) or '0')
+    }
+    local first = seatIndex(rowStart, 1)
+    local last = seatIndex(rowEnd, MAX_COLS)
+    for _, field in ipairs(redis.call('ZRANGEBYSCORE', KEYS[2], '-inf', now)) do
+        local index = tonumber(field)
+        if index >= first and index <= last then
+            table.insert(reply, index)
+        end
+    end
+    return reply
+end
+
+-- ARGV: sinceVersion, rowStart, rowEnd, colStart, colEnd, 'delta'
+-- 返回 { 当前版本, 0, 座位下标1, 状态1, ... }   sinceVersion 之后窗口内有变化的座位
+--   或 { 当前版本, 1, 状态... }               变更环已覆盖 sinceVersion 时，按行优先返回窗口内全部座位状态
+if op == 'delta' then
+    local since = tonumber(ARGV[1])
+    local rowStart = tonumber(ARGV[2])
+    local rowEnd = tonumber(ARGV[3])
+    local colStart = tonumber(ARGV[4])
+    local colEnd = tonumber(ARGV[5])
+    local now = currentTime()
+
+    local version = tonumber(redis.call('GET', KEYS[3]) or '0')
+    local pending = version - since
+
+    if pending < 0 or pending > redis.call('LLEN', KEYS[4]) then
+        local reply = { version, 1 }
+        for row = rowStart, rowEnd do
+            for _, status in ipairs(readRow(row, colStart, colEnd, now)) do
+                table.insert(reply, status)
+            end
+        end
+        return reply
+    end
+
+    local reply = { version, 0 }
+    if pending == 0 then
+        return reply
+    end
+
+    local seen = {}
+    for _, entry in ipairs(redis.call('LRANGE', KEYS[4], -pending, -1)) do
+        for field in string.gmatch(entry, '%d+') do
+            local index = tonumber(field)
+            local row = math.floor(index / MAX_COLS) + 1
+            local col = index % MAX_COLS + 1
+            if not seen[index] and row >= rowStart and row <= rowEnd and col >= colStart and col <= colEnd then
+                seen[index] = true
+                table.insert(reply, index)
+                table.insert(reply, (effectiveStatus(index, now)))
+            end
+        end
+    end
+    return reply
+end
+
+return redis.error_reply('unknown op: ' .. tostring(op))
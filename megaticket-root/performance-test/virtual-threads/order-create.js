@@ -0,0 +1,51 @@
+// 虚拟线程模式对比压测: 大量并发下单请求，每个请求在订单服务内同步阻塞于 Feign 锁座、JDBC 与 RocketMQ 发送
+// 同一脚本分别在 megaticket.virtual-threads.enabled=false / true 下各跑一次，对比吞吐与延迟，步骤见 README.md
+//
+//   k6 run -e BASE_URL=http://localhost:8086 -e VUS=2000 -e HOLD=2m order-create.js
+//
+// 直接压订单服务（绕过网关的鉴权与排队），每次迭代使用不同的用户，避免锁座额度限制影响结果
+
+import http from 'k6/http';
+import { check } from 'k6';
+import { Counter } from 'k6/metrics';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8086';
+const VUS = parseInt(__ENV.VUS || '2000');
+const FIRST_SCHEDULE = parseInt(__ENV.FIRST_SCHEDULE || '1');
+const SCHEDULES = parseInt(__ENV.SCHEDULES || '200');
+const ROWS = parseInt(__ENV.ROWS || '20');
+const COLS = parseInt(__ENV.COLS || '30');
+
+export const options = {
+  scenarios: {
+    orders: {
+      executor: 'ramping-vus',
+      startVUs: 0,
+      stages: [
+        { duration: '30s', target: VUS },
+        { duration: __ENV.HOLD || '2m', target: VUS },
+        { duration: '15s', target: 0 },
+      ],
+      gracefulRampDown: '30s',
+    },
+  },
+  summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+};
+
+// 业务失败（座位已被锁定等）: HTTP 200 但 code 不是 200，请求同样走完了阻塞调用，计入吞吐
+const businessRejected = new Counter('business_rejected');
+
+export default function () {
+  const scheduleId = FIRST_SCHEDULE + Math.floor(Math.random() * SCHEDULES);
+  const seat = { row: 1 + Math.floor(Math.random() * ROWS), col: 1 + Math.floor(Math.random() * COLS) };
+  const userId = __VU * 1000000 + __ITER;
+
+  const res = http.post(`${BASE_URL}/api/v1/order/create`,
+    JSON.stringify({ scheduleId: scheduleId, seats: [seat] }),
+    { headers: { 'Content-Type': 'application/json', 'X-User-Id': String(userId) }, timeout: '30s' });
+
+  check(res, { 'http 200': (r) => r.status === 200 });
+  if (res.status === 200 && res.json('code') !== 200) {
+    businessRejected.add(1);
+  }
+}